@@ -18,6 +18,7 @@ package groove.automaton;
 
 import static groove.graph.Direction.INCOMING;
 import static groove.graph.Direction.OUTGOING;
+import groove.grammar.host.DeltaHostGraph;
 import groove.grammar.host.HostGraph;
 import groove.grammar.type.TypeLabel;
 import groove.graph.Direction;
@@ -160,12 +161,53 @@ public class DFA {
         return result;
     }
 
-    /** Returns a recogniser for this automaton, working on a given graph. */
-    public Recogniser getRecogniser(HostGraph graph) {
-        if (this.recogniser == null || this.recogniser.getGraph() != graph) {
-            this.recogniser = new Recogniser(this, graph);
+    /**
+     * Returns a recogniser for this automaton, working on a given graph.
+     * Recognisers are cached only for the graph most recently asked for
+     * and its chain of delta bases; as those bases are reachable from the
+     * graph anyway, the cache keeps no graph alive beyond the last one.
+     * If the graph is a {@link DeltaHostGraph} whose basis still has a cached
+     * recogniser, the new recogniser inherits the reachability information
+     * that is not affected by the delta.
+     */
+    public synchronized Recogniser getRecogniser(HostGraph graph) {
+        Recogniser result = this.recognisers.get(graph);
+        if (result == null) {
+            Recogniser basis = null;
+            if (graph instanceof DeltaHostGraph) {
+                DeltaHostGraph basisGraph = ((DeltaHostGraph) graph).getBasis();
+                if (basisGraph != null) {
+                    basis = this.recognisers.get(basisGraph);
+                }
+            }
+            if (basis == null) {
+                result = new Recogniser(this, graph);
+            } else {
+                result =
+                    new Recogniser(this, graph, basis, ((DeltaHostGraph) graph).getDelta());
+            }
+            this.recognisers.retainBasisChain(graph);
+            this.recognisers.put(graph, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the set of labels on the transitions of this automaton,
+     * including the node type labels.
+     */
+    public Set<TypeLabel> getAlphabet() {
+        Set<TypeLabel> result = this.alphabet;
+        if (result == null) {
+            result = new HashSet<>();
+            for (DFAState state : getStates()) {
+                for (Map<TypeLabel,DFAState> succMap : state.getLabelMap().values()) {
+                    result.addAll(succMap.keySet());
+                }
+            }
+            this.alphabet = result;
         }
-        return this.recogniser;
+        return result;
     }
 
     /**
@@ -355,6 +397,43 @@ public class DFA {
     /** Mapping from regular automaton nodes to states. */
     private final Map<Set<RegNode>,DFAState> stateMap =
         new LinkedHashMap<>();
-    /** Currently instantiated recogniser for this automaton. */
-    private Recogniser recogniser;
+    /** The labels on the transitions of this automaton, computed on demand. */
+    private Set<TypeLabel> alphabet;
+    /** Recognisers for the last requested graph and its delta bases. */
+    private final RecogniserCache recognisers = new RecogniserCache();
+
+    /** Maximum number of graphs for which recognisers are cached. */
+    private static final int MAX_RECOGNISERS = 64;
+
+    /**
+     * Cache of recognisers, restricted to the basis chain of a single graph
+     * and bounded in size.
+     */
+    private static class RecogniserCache extends HashMap<HostGraph,Recogniser> {
+        /**
+         * Removes the recognisers of all graphs that are not on the basis chain
+         * of a given graph. Only the first {@link #MAX_RECOGNISERS} graphs of the chain
+         * are inspected.
+         */
+        void retainBasisChain(HostGraph graph) {
+            if (isEmpty()) {
+                return;
+            }
+            Map<HostGraph,Recogniser> chain = new HashMap<>();
+            HostGraph next = graph;
+            for (int i = 0; next != null && i < MAX_RECOGNISERS && chain.size() < size(); i++) {
+                Recogniser recogniser = get(next);
+                if (recogniser != null) {
+                    chain.put(next, recogniser);
+                }
+                next = next instanceof DeltaHostGraph ? ((DeltaHostGraph) next).getBasis() : null;
+            }
+            if (chain.size() < size()) {
+                clear();
+                putAll(chain);
+            }
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
 }
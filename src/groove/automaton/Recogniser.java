@@ -24,17 +24,25 @@ import groove.grammar.host.HostNode;
 import groove.grammar.host.HostNodeSet;
 import groove.grammar.type.TypeLabel;
 import groove.graph.Direction;
-import groove.util.Pair;
+import groove.transform.DeltaApplier;
+import groove.transform.DeltaTarget;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * Class that finds matches for a regular automaton
  * in a given graph.
+ * The recogniser explores the product of the host graph and the automaton
+ * from one start node at a time, keeping track of the visited
+ * product states in one bit set of host node numbers per automaton state.
+ * The nodes reachable from a start node are cached, together with
+ * the set of host nodes visited to find them. A recogniser for a graph
+ * that is obtained from another by a known delta inherits the cached
+ * entries of the other recogniser that are not affected by the delta.
  * @author Arend Rensink
  * @version $Revision $
  */
@@ -46,15 +54,52 @@ public class Recogniser {
     public Recogniser(DFA aut, HostGraph graph) {
         this.aut = aut;
         this.graph = graph;
-        this.nextMap = new HashMap<>();
         this.reachMap = new HashMap<>();
     }
 
+    /**
+     * Constructs a recogniser for a given automaton, on a graph obtained
+     * by applying a delta to the graph of another recogniser for the
+     * same automaton. The reachability information of the other recogniser
+     * that does not involve any node touched by the delta is reused.
+     * @param aut the automaton to be recognised
+     * @param graph the graph to be searched
+     * @param basis recogniser for the same automaton on the basis of {@code graph}
+     * @param delta the delta transforming the graph of {@code basis} into {@code graph}
+     */
+    public Recogniser(DFA aut, HostGraph graph, Recogniser basis, DeltaApplier delta) {
+        this(aut, graph);
+        assert basis.aut == aut;
+        Set<TypeLabel> alphabet = aut.getAlphabet();
+        BitSet touched;
+        synchronized (basis) {
+            if (basis.reachMap.isEmpty()) {
+                return;
+            }
+            touched = new BitSet();
+            delta.applyDelta(new TouchedNodeCollector(alphabet, touched));
+            for (Map.Entry<HostNode,Entry> entry : basis.reachMap.entrySet()) {
+                if (!entry.getValue().visited.intersects(touched)) {
+                    this.reachMap.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        this.inheritedCount = this.reachMap.size();
+    }
+
     /** Returns the host graph on which this recogniser works. */
     public HostGraph getGraph() {
         return this.graph;
     }
 
+    /**
+     * Returns the number of cached reachability entries that were
+     * inherited from the basis recogniser.
+     */
+    public int getInheritedCount() {
+        return this.inheritedCount;
+    }
+
     /**
      * Returns the set of state pairs in this recogniser's host graph
      * between which a path exists that is accepted by this recogniser's
@@ -65,171 +110,205 @@ public class Recogniser {
      * if {@code null}, all host nodes are valid end nodes
      * @return set of host node pairs, ordered according to the
      */
-    public Set<Result> getMatches(HostNode from, HostNode to) {
+    public synchronized Set<Result> getMatches(HostNode from, HostNode to) {
         assert to == null || from != null;
         Set<Result> result = new HashSet<>();
         if (from == null) {
             for (HostNode hn : this.graph.nodeSet()) {
-                augmentReachMap(hn);
                 addResults(result, hn);
             }
-        } else {
-            augmentReachMap(from);
-            if (to == null) {
-                addResults(result, from);
-            } else if (getRelated(from).contains(to)) {
-                result.add(createResult(from, to));
-            }
+        } else if (to == null) {
+            addResults(result, from);
+        } else if (getEntry(from).reached.contains(to)) {
+            result.add(createResult(from, to));
         }
         return result;
     }
 
+    private void addResults(Set<Result> result, HostNode from) {
+        for (HostNode to : getEntry(from).reached) {
+            result.add(createResult(from, to));
+        }
+    }
+
     /**
-     * Computes all reachable nodes from a given start node,
-     * and adds the result to the {@link #reachMap}.
-     * @param fromNode the start node of the computation
+     * Returns the reachability entry for a given start node,
+     * computing it if it is not yet in the {@link #reachMap}.
      */
-    private void augmentReachMap(HostNode fromNode) {
-        Tuple from = createStartTuple(fromNode);
-        Set<Tuple> fresh = new HashSet<>();
-        // Map from explored tuples to all their predecessors
-        // found during this exploration
-        Map<Tuple,TupleSet> predMap = new HashMap<>();
-        fresh.add(from);
-        predMap.put(from, new TupleSet());
-        // compute the predecessor map
-        while (!fresh.isEmpty()) {
-            Iterator<Tuple> pi = fresh.iterator();
-            Tuple p = pi.next();
-            pi.remove();
-            if (this.reachMap.containsKey(p)) {
-                continue;
-            }
-            for (Tuple np : getNext(p)) {
-                TupleSet npPreds = predMap.get(np);
-                if (npPreds == null) {
-                    fresh.add(np);
-                    predMap.put(np, npPreds = new TupleSet());
-                }
-                npPreds.add(p);
-            }
-        }
-        // Set of all tuples with known reachable host nodes
-        Map<Tuple,HostNodeSet> newReachMap = new HashMap<>();
-        for (Tuple p : predMap.keySet()) {
-            HostNodeSet ns = this.reachMap.get(p);
-            if (ns == null) {
-                this.reachMap.put(p, ns = new HostNodeSet());
-                if (p.two()
-                    .isFinal()) {
-                    ns.add(p.one());
-                }
-            }
-            newReachMap.put(p, ns);
+    private Entry getEntry(HostNode from) {
+        Entry result = this.reachMap.get(from);
+        if (result == null) {
+            this.reachMap.put(from, result = computeEntry(from));
         }
-        propagateBackwards(predMap, newReachMap);
+        return result;
     }
 
     /**
-     * Returns the set of successor tuples for a given tuple.
-     * The set is retrieved from {@link #nextMap}, if it is there;
-     * otherwise it is computed and inserted into {@link #nextMap}.
-     * @param from the source tuple
-     * @return the set of successor tuples
+     * Computes the set of host nodes reachable from a given start node
+     * by a path accepted by the automaton, through a worklist exploration
+     * of the product of host graph and automaton.
      */
-    private TupleSet getNext(Tuple from) {
-        TupleSet result = this.nextMap.get(from);
-        if (result == null) {
-            this.nextMap.put(from, result = new TupleSet());
-            HostNode fromNode = from.one();
-            Map<Direction,Map<TypeLabel,DFAState>> succMaps = from.two()
-                .getLabelMap();
-            // Add successor according to node type label
-            DFAState ns = succMaps.get(Direction.OUTGOING)
-                .get(fromNode.getType()
+    private Entry computeEntry(HostNode fromNode) {
+        HostNodeSet reached = new HostNodeSet();
+        BitSet visitedNodes = new BitSet();
+        BitSet[] visited = new BitSet[this.aut.getStates()
+            .size()];
+        for (int i = 0; i < visited.length; i++) {
+            visited[i] = new BitSet();
+        }
+        HostNode[] nodeQueue = this.nodeQueue;
+        DFAState[] stateQueue = this.stateQueue;
+        int size = 0;
+        DFAState start = this.aut.getStartState();
+        visited[start.getNumber()].set(fromNode.getNumber());
+        nodeQueue[size] = fromNode;
+        stateQueue[size] = start;
+        size++;
+        while (size > 0) {
+            size--;
+            HostNode node = nodeQueue[size];
+            DFAState state = stateQueue[size];
+            nodeQueue[size] = null;
+            visitedNodes.set(node.getNumber());
+            if (state.isFinal()) {
+                reached.add(node);
+            }
+            Map<Direction,Map<TypeLabel,DFAState>> succMaps = state.getLabelMap();
+            // successor according to node type label
+            DFAState ns = succMaps.get(OUTGOING)
+                .get(node.getType()
                     .label());
-            if (ns != null) {
-                result.add(new Tuple(fromNode, ns));
+            if (ns != null && !visited[ns.getNumber()].get(node.getNumber())) {
+                visited[ns.getNumber()].set(node.getNumber());
+                if (size == nodeQueue.length) {
+                    nodeQueue = this.nodeQueue = grow(nodeQueue);
+                    stateQueue = this.stateQueue = grow(stateQueue);
+                }
+                nodeQueue[size] = node;
+                stateQueue[size] = ns;
+                size++;
             }
-            // Add successors according to edge labels
+            // successors according to edge labels
             for (Direction d : Direction.values()) {
                 Map<TypeLabel,DFAState> succMap = succMaps.get(d);
-                if (!succMap.isEmpty()) {
-                    for (HostEdge e : d.edges(this.graph, fromNode)) {
-                        DFAState s = succMap.get(e.label());
-                        if (s != null) {
-                            result.add(new Tuple(d.opposite(e), s));
-                        }
+                if (succMap.isEmpty()) {
+                    continue;
+                }
+                for (HostEdge e : d.edges(this.graph, node)) {
+                    DFAState s = succMap.get(e.label());
+                    if (s == null) {
+                        continue;
+                    }
+                    HostNode next = d.opposite(e);
+                    BitSet sVisited = visited[s.getNumber()];
+                    if (sVisited.get(next.getNumber())) {
+                        continue;
                     }
+                    sVisited.set(next.getNumber());
+                    if (size == nodeQueue.length) {
+                        nodeQueue = this.nodeQueue = grow(nodeQueue);
+                        stateQueue = this.stateQueue = grow(stateQueue);
+                    }
+                    nodeQueue[size] = next;
+                    stateQueue[size] = s;
+                    size++;
                 }
             }
         }
-        return result;
+        return new Entry(reached, visitedNodes);
     }
 
-    private void addResults(Set<Result> result, HostNode from) {
-        for (HostNode to : this.reachMap.get(createStartTuple(from))) {
-            result.add(createResult(from, to));
-        }
+    private Result createResult(HostNode from, HostNode to) {
+        return this.aut.getDirection() == OUTGOING ? new Result(from, to) : new Result(to, from);
     }
 
-    private HostNodeSet getRelated(HostNode from) {
-        return this.reachMap.get(createStartTuple(from));
-    }
+    private final DFA aut;
+    private final HostGraph graph;
+    /** Mapping from start nodes to their reachability entries. */
+    private final Map<HostNode,Entry> reachMap;
+    /** Number of entries inherited from a basis recogniser. */
+    private int inheritedCount;
+    /** Worklist of host nodes of the product exploration. */
+    private HostNode[] nodeQueue = new HostNode[INIT_QUEUE_SIZE];
+    /** Worklist of automaton states of the product exploration, parallel to {@link #nodeQueue}. */
+    private DFAState[] stateQueue = new DFAState[INIT_QUEUE_SIZE];
 
-    private void propagateBackwards(Map<Tuple,TupleSet> predMap, Map<Tuple,HostNodeSet> newReachMap) {
-        while (!newReachMap.isEmpty()) {
-            Iterator<Map.Entry<Tuple,HostNodeSet>> newReachIter = newReachMap.entrySet()
-                .iterator();
-            Map.Entry<Tuple,HostNodeSet> newReachEntry = newReachIter.next();
-            newReachIter.remove();
-            HostNodeSet toSet = newReachEntry.getValue();
-            // add the toSet to all predecessors
-            for (Tuple tp : predMap.get(newReachEntry.getKey())) {
-                HostNodeSet tpToSet = newReachMap.get(tp);
-                boolean tpFresh = tpToSet == null;
-                if (tpFresh) {
-                    tpToSet = new HostNodeSet();
-                }
-                assert tpToSet != null; // just initialised in case it was null
-                for (HostNode hn : toSet) {
-                    if (this.reachMap.get(tp)
-                        .add(hn)) {
-                        // it's a new reachable node, which has to be propagated
-                        tpToSet.add(hn);
-                    }
-                }
-                if (tpFresh && !tpToSet.isEmpty()) {
-                    newReachMap.put(tp, tpToSet);
-                }
-            }
-        }
+    private static HostNode[] grow(HostNode[] array) {
+        HostNode[] result = new HostNode[2 * array.length];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
     }
 
-    /** Combines a given host node with the start state of the automaton. */
-    private Tuple createStartTuple(HostNode node) {
-        return new Tuple(node, this.aut.getStartState());
+    private static DFAState[] grow(DFAState[] array) {
+        DFAState[] result = new DFAState[2 * array.length];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
     }
 
-    private Result createResult(HostNode from, HostNode to) {
-        return this.aut.getDirection() == OUTGOING ? new Result(from, to) : new Result(to, from);
-    }
+    /** Initial size of the worklist arrays. */
+    private static final int INIT_QUEUE_SIZE = 16;
 
-    private final DFA aut;
-    private final HostGraph graph;
-    /** Mapping from explored product states to their sets of successors. */
-    private final Map<Tuple,TupleSet> nextMap;
-    /** Mapping from product states to sets of reachable host nodes. */
-    private final Map<Tuple,HostNodeSet> reachMap;
-
-    private static class Tuple extends Pair<HostNode,DFAState> {
-        /** Constructs a product node. */
-        public Tuple(HostNode node, DFAState state) {
-            super(node, state);
+    /**
+     * Reachability information for a single start node.
+     */
+    private static class Entry {
+        Entry(HostNodeSet reached, BitSet visited) {
+            this.reached = reached;
+            this.visited = visited;
         }
+
+        /** The nodes reachable from the start node. */
+        final HostNodeSet reached;
+        /** The numbers of the host nodes visited while computing {@link #reached}. */
+        final BitSet visited;
     }
 
-    private static class TupleSet extends HashSet<Tuple> {
-        // no added functionality
+    /**
+     * Delta target that collects the numbers of the nodes that are
+     * removed, or incident to an added or removed edge with a label in
+     * a given alphabet. Reachability entries that visited none of these nodes
+     * are unaffected by the delta.
+     */
+    private static class TouchedNodeCollector implements DeltaTarget {
+        TouchedNodeCollector(Set<TypeLabel> alphabet, BitSet touched) {
+            this.alphabet = alphabet;
+            this.touched = touched;
+        }
+
+        @Override
+        public boolean addNode(HostNode node) {
+            // a fresh node can only be reached through an added edge
+            return true;
+        }
+
+        @Override
+        public boolean removeNode(HostNode node) {
+            this.touched.set(node.getNumber());
+            return true;
+        }
+
+        @Override
+        public boolean addEdge(HostEdge edge) {
+            touch(edge);
+            return true;
+        }
+
+        @Override
+        public boolean removeEdge(HostEdge edge) {
+            touch(edge);
+            return true;
+        }
+
+        private void touch(HostEdge edge) {
+            if (this.alphabet.contains(edge.label())) {
+                this.touched.set(edge.source()
+                    .getNumber());
+                this.touched.set(edge.target()
+                    .getNumber());
+            }
+        }
+
+        private final Set<TypeLabel> alphabet;
+        private final BitSet touched;
     }
 }
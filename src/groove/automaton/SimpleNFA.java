@@ -146,7 +146,7 @@ public class SimpleNFA extends NodeSetEdgeSetGraph<RegNode,RegEdge> implements R
      * @param valuation valuation for all label variables occurring in this NFA.
      * May be {@code null} if the NFA does not contain label variables.
      */
-    public DFA getDFA(Direction dir, Valuation valuation) {
+    public synchronized DFA getDFA(Direction dir, Valuation valuation) {
         testFixed(true);
         if (valuation == null) {
             valuation = Valuation.EMPTY;
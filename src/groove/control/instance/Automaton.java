@@ -16,8 +16,10 @@
  */
 package groove.control.instance;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 
@@ -109,8 +111,14 @@ public class Automaton {
 
     private final Pool<Frame> framePool;
 
-    /** Computes and inserts the host nodes to be used for constant value arguments. */
-    public void initialise(final HostFactory factory) {
+    /**
+     * Computes and inserts the host nodes to be used for constant value arguments.
+     * Does nothing if the automaton has already been initialised for the given factory.
+     */
+    public synchronized void initialise(final HostFactory factory) {
+        if (factory == this.factory) {
+            return;
+        }
         getProgram().getTemplate()
             .initialise(factory);
         ThreadPool threads = ThreadPool.instance();
@@ -126,8 +134,12 @@ public class Automaton {
         }
         threads.sync();
         threads.shutdown();
+        this.factory = factory;
     }
 
+    /** The host factory for which the automaton has last been initialised. */
+    private HostFactory factory;
+
     /** Fully explores this automaton. */
     public void explore() {
         Queue<Frame> fresh = new LinkedList<>();
@@ -158,6 +170,41 @@ public class Automaton {
         }
     }
 
+    /**
+     * Fully explores this automaton, including the frames reached on errors and
+     * removals, and computes all lazily evaluated frame information.
+     * Afterwards, explorations no longer change the automaton, so that it may
+     * be shared among explorations running concurrently.
+     */
+    public synchronized void prepareSharing() {
+        Queue<Frame> fresh = new LinkedList<>();
+        Set<Frame> nodes = new HashSet<>();
+        nodes.add(getStart());
+        fresh.add(getStart());
+        while (!fresh.isEmpty()) {
+            Frame next = fresh.poll();
+            next.getPastCalls();
+            List<Frame> succs = new ArrayList<>();
+            if (next.getLocation() != null) {
+                succs.add(next.onError());
+                succs.add(next.onRemove());
+            }
+            if (next.isTrial()) {
+                StepAttempt attempt = next.getAttempt();
+                for (Step step : attempt) {
+                    succs.add(step.onFinish());
+                }
+                succs.add(attempt.onSuccess());
+                succs.add(attempt.onFailure());
+            }
+            for (Frame succ : succs) {
+                if (nodes.add(succ)) {
+                    fresh.add(succ);
+                }
+            }
+        }
+    }
+
     /** Returns a control graph consisting of this automaton's frames and steps.
      * @param full if {@code true}, the full control flow is generated;
      * otherwise, verdict edges are omitted (and their sources and targets mapped
@@ -1,5 +1,6 @@
 package groove.explore;
 
+import groove.explore.encode.EncodedCtlProperty;
 import groove.explore.encode.EncodedEnabledRule;
 import groove.explore.encode.EncodedRuleFormula;
 import groove.explore.encode.EncodedRuleMode;
@@ -16,6 +17,7 @@ import groove.explore.prettyparse.PSequence;
 import groove.explore.prettyparse.SerializedParser;
 import groove.explore.result.Acceptor;
 import groove.explore.result.AnyStateAcceptor;
+import groove.explore.result.CTLAcceptor;
 import groove.explore.result.CycleAcceptor;
 import groove.explore.result.FinalStateAcceptor;
 import groove.explore.result.NoStateAcceptor;
@@ -24,6 +26,7 @@ import groove.explore.result.PredicateAcceptor;
 import groove.grammar.Rule;
 import groove.grammar.model.GrammarModel;
 import groove.lts.GraphState;
+import groove.verify.Formula;
 
 /** Symbolic values for the implemented acceptors. */
 public enum AcceptorValue implements ParsableValue {
@@ -39,6 +42,8 @@ public enum AcceptorValue implements ParsableValue {
     ANY("any", "Any State", "This acceptor succeeds whenever a (real) state is added to the LTS."),
     /** Acceptor for cycles. */
     CYCLE("cycle", "Cycles", "This acceptor listens to pairs of graph states and Buchi states," + "and succeeds when a pair is added that lies on a cycle with an" + "accepting Buchi state. Should only be used in conjunction with " + "LTL model checking."),
+    /** Acceptor that checks a CTL property on the fly. */
+    CTL("ctl", "CTL Property", "This acceptor checks a CTL property on the fly, and stops the exploration " + "as soon as the outcome for the start state is known. " + "If the property is violated, the start state is the result."),
     /** Acceptor that does not accept any states. */
     NONE("none", "No State", "This acceptor always fails whenever a state is added to the LTS.");
 
@@ -95,6 +100,14 @@ public enum AcceptorValue implements ParsableValue {
                 }
             };
 
+        case CTL:
+            return new MyTemplate1<Formula>(new PAll("prop"), "prop", new EncodedCtlProperty()) {
+                @Override
+                public Acceptor create(Formula property) {
+                    return new CTLAcceptor(property);
+                }
+            };
+
         case CYCLE:
             return new MyTemplate0() {
                 @Override
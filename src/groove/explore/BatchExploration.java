@@ -0,0 +1,584 @@
+/* GROOVE: GRaphs for Object Oriented VErification
+ * Copyright 2003--2014 University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * $Id$
+ */
+package groove.explore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import groove.explore.util.ExplorationReporter;
+import groove.grammar.Grammar;
+import groove.grammar.host.DefaultHostGraph;
+import groove.grammar.host.HostEdge;
+import groove.grammar.host.HostFactory;
+import groove.grammar.host.HostGraph;
+import groove.grammar.host.HostGraphMorphism;
+import groove.grammar.host.HostNode;
+import groove.grammar.host.ValueNode;
+import groove.lts.GTS;
+import groove.lts.GTSListener;
+import groove.lts.GraphState;
+import groove.match.MatcherFactory;
+import groove.util.parse.FormatException;
+
+/**
+ * Explores a grammar from a number of start graphs, each in a GTS of its own.
+ * The explorations may run concurrently on a pool of threads.
+ * They share the (fixed) grammar, including its rules with their matchers,
+ * its type graph and its control automaton.
+ * To make this possible, all start graphs are copied into a single host factory,
+ * which is then shared by all GTSs; as a consequence, the node numbers of the
+ * states are not reproducible from one batch to the next.
+ * <p>
+ * The heap budget is divided among the concurrently running explorations.
+ * The heap use of a single exploration is estimated as its share of the
+ * states of all running explorations, times the used heap;
+ * an exploration exceeding its part of the budget is stopped.
+ * The results of the explorations are collected in a list of {@link Run}s,
+ * from which an aggregated report can be produced.
+ * @version $Revision $
+ */
+public class BatchExploration {
+    /**
+     * Creates a batch exploration for a given grammar and exploration type.
+     * The start graph of the grammar only determines the host factory of the
+     * explorations; start graphs are added through {@link #addStartGraph(HostGraph)}.
+     * @param grammar the fixed grammar to be explored
+     */
+    public BatchExploration(Grammar grammar, ExploreType type) {
+        grammar.testFixed(true);
+        this.grammar = grammar;
+        this.type = type;
+        HostGraph start = grammar.getStartGraph();
+        this.factory = HostFactory.newInstance(start.getFactory()
+            .getTypeFactory(), start.isSimple());
+        this.parallelism = Runtime.getRuntime()
+            .availableProcessors();
+        this.heapBudget = Runtime.getRuntime()
+            .maxMemory();
+    }
+
+    /** Returns the grammar shared by the explorations. */
+    public Grammar getGrammar() {
+        return this.grammar;
+    }
+
+    private final Grammar grammar;
+
+    /** Returns the type of the explorations. */
+    public ExploreType getType() {
+        return this.type;
+    }
+
+    private final ExploreType type;
+
+    /** The host factory shared by all start graphs. */
+    private final HostFactory factory;
+
+    /**
+     * Adds a start graph to be explored.
+     * The graph is copied into the host factory shared by the explorations.
+     * @param start the start graph; should be typed by the grammar's type graph
+     */
+    public void addStartGraph(HostGraph start) {
+        this.startGraphs.add(copy(start));
+    }
+
+    /** Copies a given host graph into the shared host factory. */
+    private HostGraph copy(HostGraph graph) {
+        DefaultHostGraph result = new DefaultHostGraph(graph.getName(), this.factory);
+        HostGraphMorphism morphism = this.factory.createMorphism();
+        for (HostNode node : graph.nodeSet()) {
+            HostNode image;
+            if (node instanceof ValueNode) {
+                ValueNode value = (ValueNode) node;
+                image = this.factory.createNode(value.getAlgebra(), value.getValue());
+            } else {
+                image = this.factory.nodes(node.getType())
+                    .createNode();
+            }
+            result.addNode(image);
+            morphism.putNode(node, image);
+        }
+        for (HostEdge edge : graph.edgeSet()) {
+            result.addEdgeContext(morphism.mapEdge(edge));
+        }
+        result.setFixed();
+        return result;
+    }
+
+    /** Returns the start graphs added so far, in the order of their addition. */
+    public List<HostGraph> getStartGraphs() {
+        return Collections.unmodifiableList(this.startGraphs);
+    }
+
+    private final List<HostGraph> startGraphs = new ArrayList<>();
+
+    /**
+     * Sets the maximum number of explorations running concurrently.
+     * The default is the number of available processors.
+     * The explorations are carried out one by one if the exploration strategy
+     * or the search engine cannot be used concurrently.
+     * @param parallelism the maximum number of concurrent explorations; should be positive
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /** Returns the maximum number of explorations running concurrently. */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    private int parallelism;
+
+    /**
+     * Sets the heap budget, in bytes, to be divided among the concurrently
+     * running explorations. The default is the maximum heap size.
+     */
+    public void setHeapBudget(long heapBudget) {
+        if (heapBudget <= 0) {
+            throw new IllegalArgumentException("Heap budget should be positive");
+        }
+        this.heapBudget = heapBudget;
+    }
+
+    /** Returns the heap budget, in bytes, of all concurrent explorations together. */
+    public long getHeapBudget() {
+        return this.heapBudget;
+    }
+
+    private long heapBudget;
+
+    /**
+     * Sets a factory for the reporters of the explorations.
+     * Every exploration gets a fresh reporter, which is invoked after
+     * the exploration has finished; reporters of concurrent explorations
+     * are invoked one at a time.
+     * @param reporters the reporter factory; if {@code null}, no reporters are used
+     */
+    public void setReporters(Supplier<? extends ExplorationReporter> reporters) {
+        this.reporters = reporters;
+    }
+
+    private Supplier<? extends ExplorationReporter> reporters;
+    /** Lock ensuring that the reporters of the explorations are invoked one at a time. */
+    private final Object reportLock = new Object();
+
+    /**
+     * Explores all start graphs and returns the results, in the order
+     * in which the start graphs were added.
+     * The explored GTSs are not retained, to make their memory available
+     * for the remaining explorations.
+     * @throws FormatException if the exploration type is not compatible with the grammar
+     */
+    public List<Run> play() throws FormatException {
+        getType().test(getGrammar());
+        this.runs.clear();
+        this.activeStates.set(0);
+        // make sure the control automaton is no longer modified during exploration
+        getGrammar().getControl()
+            .initialise(this.factory);
+        getGrammar().getControl()
+            .prepareSharing();
+        int threadCount = isConcurrent() ? Math.min(getParallelism(), this.startGraphs.size()) : 1;
+        if (threadCount > 1) {
+            // the explorations create nodes and edges in the shared factory
+            this.factory.setConcurrent();
+        }
+        long runBudget = getHeapBudget() / Math.max(threadCount, 1);
+        long startTime = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(threadCount, 1));
+        try {
+            List<Future<Run>> futures = new ArrayList<>();
+            for (HostGraph start : this.startGraphs) {
+                final Grammar grammar = getGrammar().newGrammar(start);
+                futures.add(executor.submit(() -> explore(grammar, runBudget)));
+            }
+            for (Future<Run> future : futures) {
+                try {
+                    this.runs.add(future.get());
+                } catch (ExecutionException exc) {
+                    Throwable cause = exc.getCause();
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                } catch (InterruptedException exc) {
+                    Thread.currentThread()
+                        .interrupt();
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        this.elapsedTime = System.currentTimeMillis() - startTime;
+        return getRuns();
+    }
+
+    /**
+     * Indicates if the explorations may run concurrently.
+     * This is not the case for the RETE-based strategies, which change
+     * the global search engine, nor for search engines that cannot be used concurrently.
+     */
+    private boolean isConcurrent() {
+        String strategy = getType().getStrategy()
+            .getKeyword();
+        for (StrategyValue value : SEQUENTIAL_STRATEGIES) {
+            if (value.getKeyword()
+                .equals(strategy)) {
+                return false;
+            }
+        }
+        return MatcherFactory.instance(this.factory.isSimple())
+            .getEngine()
+            .isConcurrent();
+    }
+
+    /** Explores a single grammar, within a given heap budget. */
+    private Run explore(Grammar grammar, long budget) {
+        String name = grammar.getStartGraph()
+            .getName();
+        long startTime = System.currentTimeMillis();
+        BudgetListener listener = new BudgetListener(budget);
+        Run result;
+        try {
+            GTS gts = new GTS(grammar);
+            gts.addLTSListener(listener);
+            Exploration exploration = getType().newExploration(gts, null);
+            ExplorationReporter reporter = this.reporters == null ? null : this.reporters.get();
+            if (reporter != null) {
+                exploration.addListener(reporter);
+            }
+            exploration.play();
+            Status status;
+            if (listener.isExceeded()) {
+                status = Status.OUT_OF_BUDGET;
+            } else if (exploration.isInterrupted()) {
+                status = Status.INTERRUPTED;
+            } else {
+                status = Status.DONE;
+            }
+            if (reporter != null) {
+                // the graph writers used by the reporters are not thread-safe
+                synchronized (this.reportLock) {
+                    reporter.report();
+                }
+            }
+            result = new Run(name, status, gts.getStateCount(), gts.getTransitionCount(),
+                exploration.getResult()
+                    .size(),
+                System.currentTimeMillis() - startTime, exploration.getLastMessage());
+        } catch (OutOfMemoryError exc) {
+            result = new Run(name, Status.OUT_OF_MEMORY, listener.getStateCount(), 0, 0,
+                System.currentTimeMillis() - startTime, null);
+        } catch (FormatException | IOException | RuntimeException exc) {
+            result = new Run(name, Status.FAILED, listener.getStateCount(), 0, 0,
+                System.currentTimeMillis() - startTime, exc.getMessage());
+        } finally {
+            // clear the interrupt flag set when the budget was exceeded
+            Thread.interrupted();
+            this.activeStates.addAndGet(-listener.getStateCount());
+        }
+        return result;
+    }
+
+    /** Returns the results of the most recent call of {@link #play()}. */
+    public List<Run> getRuns() {
+        return Collections.unmodifiableList(this.runs);
+    }
+
+    private final List<Run> runs = new ArrayList<>();
+
+    /** Returns the elapsed time of the most recent call of {@link #play()}, in milliseconds. */
+    public long getElapsedTime() {
+        return this.elapsedTime;
+    }
+
+    private long elapsedTime;
+
+    /** Number of states of all running explorations. */
+    private final AtomicLong activeStates = new AtomicLong();
+
+    /**
+     * Returns a table with a line per exploration of the most recent
+     * call of {@link #play()}.
+     */
+    public String getTable() {
+        int width = "Start graph".length();
+        for (Run run : this.runs) {
+            width = Math.max(width, run.getName()
+                .length());
+        }
+        String format = "%-" + width + "s  %-13s %10s %12s %8s %10s%n";
+        StringBuilder result = new StringBuilder();
+        result.append(String.format(format,
+            "Start graph",
+            "Status",
+            "States",
+            "Transitions",
+            "Results",
+            "Time (ms)"));
+        for (Run run : this.runs) {
+            result.append(String.format(format,
+                run.getName(),
+                run.getStatus()
+                    .getText(),
+                run.getStateCount(),
+                run.getTransitionCount(),
+                run.getResultCount(),
+                run.getTime()));
+            if (run.getStatus() == Status.FAILED && run.getMessage() != null) {
+                result.append(String.format("    %s%n", run.getMessage()));
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns a summary of the explorations of the most recent
+     * call of {@link #play()}, aggregated over all start graphs.
+     */
+    public String getSummary() {
+        long states = 0;
+        long transitions = 0;
+        long results = 0;
+        long time = 0;
+        int[] statusCounts = new int[Status.values().length];
+        for (Run run : this.runs) {
+            states += run.getStateCount();
+            transitions += run.getTransitionCount();
+            results += run.getResultCount();
+            time += run.getTime();
+            statusCounts[run.getStatus()
+                .ordinal()]++;
+        }
+        StringBuilder statuses = new StringBuilder();
+        for (Status status : Status.values()) {
+            int count = statusCounts[status.ordinal()];
+            if (count > 0) {
+                if (statuses.length() > 0) {
+                    statuses.append(", ");
+                }
+                statuses.append(count);
+                statuses.append(' ');
+                statuses.append(status.getText());
+            }
+        }
+        StringBuilder result = new StringBuilder();
+        result.append(String.format("Start graphs:\t%d (%s)%n", this.runs.size(), statuses));
+        result.append(String.format("States:\t\t%d%n", states));
+        result.append(String.format("Transitions:\t%d%n", transitions));
+        result.append(String.format("Results:\t%d%n", results));
+        result.append(String.format("Time (ms):\t%d elapsed, %d summed over explorations%n",
+            getElapsedTime(),
+            time));
+        return result.toString();
+    }
+
+    /** Exploration strategies that cannot run concurrently. */
+    private static final Set<StrategyValue> SEQUENTIAL_STRATEGIES =
+        EnumSet.of(StrategyValue.RETE, StrategyValue.RETE_LINEAR, StrategyValue.RETE_RANDOM);
+    /** Number of added states after which the heap budget is checked. */
+    private static final int CHECK_INTERVAL = 1024;
+    /**
+     * Minimum time between garbage collections forced
+     * to check the heap budget, in milliseconds.
+     */
+    private static final long GC_INTERVAL = 1000;
+
+    /**
+     * Returns the used heap, in bytes.
+     * If this exceeds a given limit, garbage is collected first to obtain a
+     * more precise value, unless this was done recently.
+     */
+    private static synchronized long getUsedHeap(long limit) {
+        Runtime runtime = Runtime.getRuntime();
+        long result = runtime.totalMemory() - runtime.freeMemory();
+        if (result > limit) {
+            long now = System.currentTimeMillis();
+            if (now - lastGC >= GC_INTERVAL) {
+                System.gc();
+                lastGC = System.currentTimeMillis();
+                lastCollectedHeap = runtime.totalMemory() - runtime.freeMemory();
+            }
+            result = Math.min(result, lastCollectedHeap);
+        }
+        return result;
+    }
+
+    /** Time of the last garbage collection forced by {@link #getUsedHeap(long)}. */
+    private static long lastGC;
+    /** Used heap after the last garbage collection forced by {@link #getUsedHeap(long)}. */
+    private static long lastCollectedHeap;
+
+    /**
+     * GTS listener that stops the exploration when its estimated heap use
+     * exceeds a given budget.
+     * The exploration is stopped by interrupting the exploring thread.
+     */
+    private class BudgetListener implements GTSListener {
+        BudgetListener(long budget) {
+            this.budget = budget;
+        }
+
+        @Override
+        public void addUpdate(GTS gts, GraphState state) {
+            this.stateCount++;
+            long total = BatchExploration.this.activeStates.incrementAndGet();
+            if (!this.exceeded && this.stateCount % CHECK_INTERVAL == 0) {
+                // the used heap at which this exploration exceeds its budget
+                long limit = this.budget * total / this.stateCount;
+                if (getUsedHeap(limit) > limit) {
+                    this.exceeded = true;
+                    Thread.currentThread()
+                        .interrupt();
+                }
+            }
+        }
+
+        /** Returns the number of states added so far. */
+        int getStateCount() {
+            return this.stateCount;
+        }
+
+        /** Indicates if the budget has been exceeded. */
+        boolean isExceeded() {
+            return this.exceeded;
+        }
+
+        private final long budget;
+        private int stateCount;
+        private boolean exceeded;
+    }
+
+    /** Outcome of the exploration of a single start graph. */
+    public static class Run {
+        /** Constructs a run outcome from its constituent values. */
+        Run(String name, Status status, int stateCount, int transitionCount, int resultCount,
+            long time, String message) {
+            this.name = name;
+            this.status = status;
+            this.stateCount = stateCount;
+            this.transitionCount = transitionCount;
+            this.resultCount = resultCount;
+            this.time = time;
+            this.message = message;
+        }
+
+        /** Returns the name of the start graph. */
+        public String getName() {
+            return this.name;
+        }
+
+        private final String name;
+
+        /** Returns the status in which the exploration ended. */
+        public Status getStatus() {
+            return this.status;
+        }
+
+        private final Status status;
+
+        /** Returns the number of states of the GTS. */
+        public int getStateCount() {
+            return this.stateCount;
+        }
+
+        private final int stateCount;
+
+        /** Returns the number of transitions of the GTS. */
+        public int getTransitionCount() {
+            return this.transitionCount;
+        }
+
+        private final int transitionCount;
+
+        /** Returns the number of result states of the exploration. */
+        public int getResultCount() {
+            return this.resultCount;
+        }
+
+        private final int resultCount;
+
+        /** Returns the time taken by the exploration, in milliseconds. */
+        public long getTime() {
+            return this.time;
+        }
+
+        private final long time;
+
+        /**
+         * Returns the message of the exploration, or the error message
+         * if the exploration failed; may be {@code null}.
+         */
+        public String getMessage() {
+            return this.message;
+        }
+
+        private final String message;
+
+        @Override
+        public String toString() {
+            return String.format("%s: %s, %d states, %d transitions, %d results, %d ms",
+                getName(),
+                getStatus().getText(),
+                getStateCount(),
+                getTransitionCount(),
+                getResultCount(),
+                getTime());
+        }
+    }
+
+    /** Status in which the exploration of a start graph ended. */
+    public static enum Status {
+        /** The exploration ran to completion. */
+        DONE("done"),
+        /** The exploration was interrupted, for instance by a cancelled oracle input. */
+        INTERRUPTED("interrupted"),
+        /** The exploration was stopped because it exceeded its heap budget. */
+        OUT_OF_BUDGET("out of budget"),
+        /** The exploration ran out of memory. */
+        OUT_OF_MEMORY("out of memory"),
+        /** The exploration failed with an error. */
+        FAILED("failed");
+
+        private Status(String text) {
+            this.text = text;
+        }
+
+        /** Returns a textual description of the status. */
+        public String getText() {
+            return this.text;
+        }
+
+        private final String text;
+    }
+}
@@ -77,6 +77,11 @@ public class Exploration {
 
     private final GTS gts;
 
+    /** Returns the acceptor of this exploration. */
+    public Acceptor getAcceptor() {
+        return this.acceptor;
+    }
+
     /**
      * Returns the result of the most recent exploration.
      */
@@ -127,6 +132,7 @@ public class Exploration {
         }
         this.strategy.play();
         this.interrupted = this.strategy.isInterrupted();
+        this.acceptor.finish();
         for (ExplorationListener listener : this.listeners) {
             if (this.interrupted) {
                 listener.abort(this.gts);
@@ -152,6 +158,7 @@ public class Exploration {
         }
         this.strategy.heuristicGAplay(exploreGaBayesNet);;
         this.interrupted = this.strategy.isInterrupted();
+        this.acceptor.finish();
         for (ExplorationListener listener : this.listeners) {
             if (this.interrupted) {
                 listener.abort(this.gts);
@@ -178,6 +185,7 @@ public class Exploration {
         }
         this.strategy.heuristicLEplay(ALearningItems,ModelCheckingType,ModelCheckingTarget,isFirstStep);
         this.interrupted = this.strategy.isInterrupted();
+        this.acceptor.finish();
         for (ExplorationListener listener : this.listeners) {
             if (this.interrupted) {
                 listener.abort(this.gts);
@@ -204,6 +212,7 @@ public class Exploration {
         }
         this.strategy.heuristicLearnFBFplay(exploringItems, maxNumberOfStates, isLearningStep);
         this.interrupted = this.strategy.isInterrupted();
+        this.acceptor.finish();
         for (ExplorationListener listener : this.listeners) {
             if (this.interrupted) {
                 listener.abort(this.gts);
@@ -230,6 +239,7 @@ public class Exploration {
         }
         this.strategy.RLplay(exploringItems);
         this.interrupted = this.strategy.isInterrupted();
+        this.acceptor.finish();
         for (ExplorationListener listener : this.listeners) {
             if (this.interrupted) {
                 listener.abort(this.gts);
@@ -257,6 +267,7 @@ public class Exploration {
         }
         this.strategy.heuristicIDAplay(exploringItems);;
         this.interrupted = this.strategy.isInterrupted();
+        this.acceptor.finish();
         for (ExplorationListener listener : this.listeners) {
             if (this.interrupted) {
                 listener.abort(this.gts);
@@ -284,6 +295,7 @@ public class Exploration {
         }
         this.strategy.heuristicBOAplay(exploreGaBayesNet);;
         this.interrupted = this.strategy.isInterrupted();
+        this.acceptor.finish();
         for (ExplorationListener listener : this.listeners) {
             if (this.interrupted) {
                 listener.abort(this.gts);
@@ -310,6 +322,7 @@ public class Exploration {
         }
         this.strategy.heuristicPSOplay(exploringItemPSO);;
         this.interrupted = this.strategy.isInterrupted();
+        this.acceptor.finish();
         for (ExplorationListener listener : this.listeners) {
             if (this.interrupted) {
                 listener.abort(this.gts);
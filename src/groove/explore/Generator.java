@@ -37,10 +37,14 @@ import groove.explore.util.ExplorationReporter;
 import groove.explore.util.GenerateProgressListener;
 import groove.explore.util.LTSLabels;
 import groove.explore.util.LTSReporter;
+import groove.explore.util.LTSStreamReporter;
 import groove.explore.util.LogReporter;
 import groove.explore.util.StateReporter;
 import groove.grammar.GrammarKey;
+import groove.io.graph.LTSStreamWriter.Compression;
 import groove.lts.Filter;
+import groove.lts.MatchCollector;
+import groove.match.plan.PlanStatistics;
 import groove.transform.Transformer;
 import groove.util.cli.DirectoryHandler;
 import groove.util.cli.GrammarHandler;
@@ -64,10 +68,21 @@ public class Generator extends GrooveCmdLineTool<ExploreResult> {
 
     /**
      * Runs the exploration and returns the generated GTS.
+     * In batch mode, returns {@code null}; the outcomes of the explorations
+     * of the individual start graphs are reported instead.
+     * @see #isBatch()
      */
     @Override
     protected ExploreResult run() throws Exception {
+        if (isCostBased()) {
+            PlanStatistics.setEnabled(true);
+        }
+        MatchCollector.setParallelism(getMatchThreads());
         Transformer transformer = computeTransformer();
+        if (isBatch()) {
+            runBatch(transformer);
+            return null;
+        }
         transformer.addListener(getReporter());
         if (!getVerbosity().isLow()) {
             transformer.addListener(new GenerateProgressListener());
@@ -91,6 +106,35 @@ public class Generator extends GrooveCmdLineTool<ExploreResult> {
         };
     }
 
+    /**
+     * Explores each of the start graphs in a GTS of its own,
+     * and reports the aggregated outcomes.
+     */
+    private void runBatch(Transformer transformer) throws IOException, FormatException {
+        BatchExploration batch = transformer.newBatch(getStartGraphs());
+        if (getBatchThreads() > 0) {
+            batch.setParallelism(getBatchThreads());
+        }
+        if (getHeapBudget() > 0) {
+            batch.setHeapBudget(getHeapBudget() * 1024 * 1024);
+        }
+        // the reporters of the individual explorations do not print to
+        // standard output, as the explorations may run concurrently
+        batch.setReporters(() -> computeReporter(Verbosity.LOW));
+        emit("Grammar:\t%s%n", batch.getGrammar()
+            .getName());
+        emit("Exploration:\t%s%n", batch.getType()
+            .getIdentifier());
+        emit("Batch:\t\t%d start graphs, at most %d in parallel, heap budget %d MB%n%n",
+            batch.getStartGraphs()
+                .size(),
+            batch.getParallelism(),
+            batch.getHeapBudget() / (1024 * 1024));
+        batch.play();
+        emit("%s%n", batch.getTable());
+        emit(Verbosity.LOW, "%s", batch.getSummary());
+    }
+
     private final static String SOFT_REF_POLICY_NAME = "-XX:SoftRefLRUPolicyMSPerMB";
 
     /**
@@ -132,6 +176,73 @@ public class Generator extends GrooveCmdLineTool<ExploreResult> {
         return this.logdir;
     }
 
+    /**
+     * Indicates if search plans should be optimised on the basis
+     * of statistics sampled from the explored graphs.
+     * @see PlanStatistics
+     */
+    public boolean isCostBased() {
+        return this.costBased;
+    }
+
+    @Option(name = "-cost",
+        usage = "Order and periodically re-plan the rule searches on the basis of "
+            + "element counts sampled from the explored graphs")
+    private boolean costBased;
+
+    /**
+     * Returns the number of threads used to search for the matches
+     * of the steps of a control frame in parallel.
+     * @see MatchCollector#setParallelism(int)
+     */
+    public int getMatchThreads() {
+        return this.matchThreads;
+    }
+
+    @Option(name = "-threads", metaVar = "num",
+        usage = "Search for the matches of the rules enabled in a state "
+            + "with <num> threads in parallel (default 1)")
+    private int matchThreads = 1;
+
+    /**
+     * Indicates if the start graphs are to be explored separately,
+     * each in a GTS of its own.
+     * @see BatchExploration
+     */
+    public boolean isBatch() {
+        return this.batchThreads != null;
+    }
+
+    /**
+     * Returns the maximum number of start graphs explored concurrently in batch mode.
+     * If {@code 0}, the number of available processors is used.
+     * @see #isBatch()
+     */
+    public int getBatchThreads() {
+        return this.batchThreads == null ? 0 : this.batchThreads;
+    }
+
+    @Option(name = "-batch", metaVar = "num",
+        usage = "Explore each start graph separately, in a GTS of its own, "
+            + "with up to <num> explorations running in parallel "
+            + "(0 for the number of available processors). "
+            + "Outcomes are reported per start graph and aggregated")
+    private Integer batchThreads;
+
+    /**
+     * Returns the heap budget, in MB, of all concurrent explorations in batch mode.
+     * If {@code 0}, the maximum heap size is used.
+     */
+    public long getHeapBudget() {
+        return this.heapBudget;
+    }
+
+    @Option(name = "-heap", metaVar = "MB", depends = "-batch",
+        usage = "Heap budget in MB of the \"-batch\" option, divided among the parallel "
+            + "explorations; an exploration exceeding its part is stopped "
+            + "(default: the maximum heap size)")
+    private long heapBudget;
+
     @Option(name = "-l", metaVar = "dir",
         usage = "Log the generation process in the directory <dir>",
         handler = DirectoryHandler.class)
@@ -204,8 +315,8 @@ public class Generator extends GrooveCmdLineTool<ExploreResult> {
         return this.ltsLabels;
     }
 
-    @Option(name = "-ef", metaVar = "flags", depends = "-o",
-        usage = "" + "Flags for the \"-o\" option. Legal values are:\n" //
+    @Option(name = "-ef", metaVar = "flags",
+        usage = "" + "Flags for the \"-o\" and \"-stream\" options. Legal values are:\n" //
             + "  s - label start state (default: 'start')\n" //
             + "  f - label final states (default: 'final')\n" //
             + "  o - label open states (default: 'open')\n" //
@@ -239,6 +350,33 @@ public class Generator extends GrooveCmdLineTool<ExploreResult> {
             + "The optional extension determines the output format (default is .gxl)")
     private String ltsPattern;
 
+    /**
+     * Returns the (optional) file name pattern for streaming the LTS to
+     * during exploration.
+     * @return the file name pattern, or {@code null} if not set
+     */
+    public String getStreamPattern() {
+        return this.streamPattern;
+    }
+
+    @Option(name = "-stream", metaVar = "file",
+        usage = "Stream the LTS to a file with name derived from <file> while it is generated, "
+            + "in which '#' is instantiated with the grammar ID. "
+            + "The \"-ef\"-option controls some additional state labels. "
+            + "Extension .aut gives the CADP format; any other extension gives "
+            + "a compact binary format (default extension is .glts)")
+    private String streamPattern;
+
+    /** Returns the compression of the streamed LTS. */
+    public Compression getStreamCompression() {
+        return this.streamCompression;
+    }
+
+    @Option(name = "-compress", metaVar = "codec", depends = "-stream",
+        usage = "Compression of the binary LTS stream of the \"-stream\" option. "
+            + "Legal values are: none (default), lz4, snappy")
+    private Compression streamCompression = Compression.NONE;
+
     /**
      * Indicates if the state save option is set.
      * @return {@code true} if {@link #getStatePattern()} is not {@code null}
@@ -310,18 +448,25 @@ public class Generator extends GrooveCmdLineTool<ExploreResult> {
     /** Returns the exploration reporters enabled on the basis of the options. */
     public ExplorationReporter getReporter() {
         if (this.reporter == null) {
-            this.reporter = computeReporter();
+            this.reporter = computeReporter(getVerbosity());
         }
         return this.reporter;
     }
 
-    /** Factory method for the reporters associated with this invocation. */
-    private CompositeReporter computeReporter() {
+    /**
+     * Factory method for the reporters associated with this invocation.
+     * @param verbosity the verbosity of the messages on standard output
+     */
+    private CompositeReporter computeReporter(Verbosity verbosity) {
         CompositeReporter result = new CompositeReporter();
-        LogReporter logger = new LogReporter(getVerbosity(), getLogDir());
+        LogReporter logger = new LogReporter(verbosity, getLogDir());
         if (isSaveLts()) {
             result.add(new LTSReporter(getLtsPattern(), getLtsLabels(), logger, getFilter()));
         }
+        if (getStreamPattern() != null) {
+            result.add(new LTSStreamReporter(getStreamPattern(), getLtsLabels(),
+                getStreamCompression(), logger));
+        }
         if (isSaveState()) {
             result.add(new StateReporter(getStatePattern(), logger));
         }
@@ -41,6 +41,7 @@ import groove.explore.strategy.ExploreStateStrategy;
 import groove.explore.strategy.LTLStrategy;
 import groove.explore.strategy.LinearStrategy;
 import groove.explore.strategy.MinimaxStrategy;
+import groove.explore.strategy.ParallelLTLStrategy;
 import groove.explore.strategy.RandomLinearStrategy;
 import groove.explore.strategy.RemoteStrategy;
 import groove.explore.strategy.ReteLinearStrategy;
@@ -81,6 +82,8 @@ public enum StrategyValue implements ParsableValue {
     LTL_BOUNDED("ltlbounded", "Bounded LTL Model Checking", "Nested Depth-First Search for a given LTL formula," + "using incremental bounds based on graph size or rule applications"),
     /** Bounded LTL model checking strategy. */
     LTL_POCKET("ltlpocket", "Pocket LTL Model Checking", "Nested Depth-First Search for a given LTL formula," + "using incremental bounds based on graph size or rule applications" + "and optimised to avoid reexploring connected components ('pockets')"),
+    /** Parallel LTL model checking strategy. */
+    LTL_PARALLEL("ltlparallel", "Parallel LTL Model Checking", "Multi-core Nested Depth-First Search (CNDFS) for a given LTL formula, " + "using a given number of worker threads"),
     /** Minimax strategy. */
     MINIMAX("minimax", "Minimax Strategy Generation", "This strategy generates a strategy for a two-player game."),
     /** Remote strategy. */
@@ -282,6 +285,19 @@ public enum StrategyValue implements ParsableValue {
                     return result;
                 }
             };
+        case LTL_PARALLEL:
+            parser = new PSequence(new PNumber("threads"), new PLiteral(";", "semi"),
+                new PAll("prop"));
+            return new MyTemplate2<String,Integer>(parser, "prop", new EncodedLtlProperty(),
+                "threads", new EncodedInt(1, -1)) {
+                @Override
+                public Strategy create(String property, Integer threads) {
+                    ParallelLTLStrategy result = new ParallelLTLStrategy();
+                    result.setProperty(property);
+                    result.setThreadCount(threads);
+                    return result;
+                }
+            };
         case REMOTE:
             return new MyTemplate1<String>(new PAll("host"), "host", new EncodedHostName()) {
 
@@ -330,7 +346,7 @@ public enum StrategyValue implements ParsableValue {
 
     /** Set of model checking strategies. */
     public final static EnumSet<StrategyValue> LTL_STRATEGIES =
-        EnumSet.of(LTL, LTL_BOUNDED, LTL_POCKET);
+        EnumSet.of(LTL, LTL_BOUNDED, LTL_POCKET, LTL_PARALLEL);
     /** Set of strategies that can be selected from the exploration dialog. */
     public final static EnumSet<StrategyValue> DIALOG_STRATEGIES;
     /** Special mask for development strategies only. Treated specially. */
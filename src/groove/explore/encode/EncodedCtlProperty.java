@@ -0,0 +1,54 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.explore.encode;
+
+import groove.grammar.Grammar;
+import groove.grammar.model.GrammarModel;
+import groove.util.parse.FormatException;
+import groove.verify.Formula;
+import groove.verify.Logic;
+
+/**
+ * Encoding of a CTL property.
+ * The property is returned as a formula in which the derived
+ * temporal operators have been rewritten, as required by the CTL markers.
+ * <p>
+ * @see EncodedType
+ */
+public class EncodedCtlProperty implements EncodedType<Formula,String> {
+    /**
+     * Default constructor. Creates local store only.
+     */
+    public EncodedCtlProperty() {
+        // empty
+    }
+
+    @Override
+    public EncodedTypeEditor<Formula,String> createEditor(GrammarModel grammar) {
+        return new StringEditor<>(grammar, "", 20);
+    }
+
+    @Override
+    public Formula parse(Grammar rules, String source) throws FormatException {
+        try {
+            return Formula.parse(Logic.CTL, source)
+                .toCtlFormula();
+        } catch (FormatException e) {
+            throw new FormatException("Error in CTL formula '%s': %s", source, e.getMessage());
+        }
+    }
+}
@@ -27,6 +27,8 @@ import java.util.regex.Pattern;
  * Encoding of a host name.
  * The property is returned as a string, but parsed for correctness as a
  * host name.
+ * Besides an HTTP URL, the name {@code stub} of the local stub receiver is
+ * accepted; both may carry query parameters.
  * <p>
  * @see EncodedType
  * @author Vincent de Bruijn
@@ -48,7 +50,7 @@ public class EncodedHostName implements EncodedType<String,String> {
     public String parse(Grammar rules, String source)
         throws FormatException {
         Pattern pattern =
-            Pattern.compile("^https?\\://[a-zA-Z0-9\\-\\.]+(\\.[a-zA-Z]{2,3})?\\:[0-9]{4}(/\\S*)?$");
+            Pattern.compile("^https?\\://[a-zA-Z0-9\\-\\.]+(\\.[a-zA-Z]{2,3})?\\:[0-9]{4}(/\\S*)?$|^stub(\\?\\S*)?$");
         Matcher matcher = pattern.matcher(source);
         if (!matcher.find()) {
             throw new FormatException("Bad host name '%s': %s", source,
@@ -102,6 +102,15 @@ public abstract class Acceptor implements GTSListener {
         return hasBound() && getResult().size() >= getBound();
     }
 
+    /**
+     * Callback method invoked when an exploration has ended,
+     * before its result and message are retrieved.
+     * This implementation does nothing.
+     */
+    public void finish() {
+        // empty
+    }
+
     /**
      * Returns the result.
      * @return The result
@@ -0,0 +1,184 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.explore.result;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import groove.lts.GTS;
+import groove.lts.GraphState;
+import groove.lts.GraphTransition;
+import groove.lts.GraphTransition.Claz;
+import groove.lts.Status.Flag;
+import groove.verify.Formula;
+import groove.verify.OnTheFlyCTLMarker;
+
+/**
+ * Acceptor that checks a CTL property on the fly, using an
+ * {@link OnTheFlyCTLMarker} that is fed the states, transitions and state
+ * closures of the exploration. The acceptor signals that the exploration
+ * is done as soon as the verdict for the start state is known.
+ * If the property is violated, the start state is added to the result;
+ * hence, as for the {@link CycleAcceptor}, an empty result means that
+ * the property holds (or could not be decided).
+ * @version $Revision $
+ */
+public class CTLAcceptor extends Acceptor {
+    /** Creates a prototype acceptor for a given CTL property. */
+    public CTLAcceptor(Formula property) {
+        super(true);
+        this.property = property;
+    }
+
+    /** Creates an acceptor for a given CTL property, with a given exploration bound. */
+    private CTLAcceptor(Formula property, int bound) {
+        super(bound);
+        this.property = property;
+    }
+
+    @Override
+    public CTLAcceptor newAcceptor(int bound) {
+        return new CTLAcceptor(this.property, bound);
+    }
+
+    @Override
+    public void prepare(GTS gts) {
+        super.prepare(gts);
+        this.gts = gts;
+        this.marker = new OnTheFlyCTLMarker(this.property);
+        this.start = null;
+        this.explored = new HashSet<>();
+        this.recorded = false;
+    }
+
+    @Override
+    public void addUpdate(GTS gts, GraphState state) {
+        if (this.start == null) {
+            this.start = state;
+        }
+        this.marker.addState(state, state == this.start);
+        if (state.isClosed()) {
+            // the state was explored before; feed its known part of the state space
+            addExplored(state);
+        }
+        testDecided();
+    }
+
+    @Override
+    public void addUpdate(GTS gts, GraphTransition transition) {
+        if (Claz.REAL.admits(transition)) {
+            this.marker.addTransition(transition);
+            testDecided();
+        }
+    }
+
+    @Override
+    public void statusUpdate(GTS gts, GraphState state, int change) {
+        if (Flag.CLOSED.test(change) && state.isClosed()) {
+            this.marker.closeState(state);
+            testDecided();
+        }
+    }
+
+    /**
+     * Feeds the marker with the part of the state space that was already
+     * explored, starting at a given closed state.
+     */
+    private void addExplored(GraphState state) {
+        Deque<GraphState> queue = new ArrayDeque<>();
+        queue.add(state);
+        while (!queue.isEmpty()) {
+            GraphState next = queue.poll();
+            if (!this.explored.add(next)) {
+                continue;
+            }
+            for (GraphTransition trans : next.getTransitions()) {
+                GraphState target = trans.target();
+                this.marker.addState(target, false);
+                this.marker.addTransition(trans);
+                if (target.isClosed()) {
+                    queue.add(target);
+                }
+            }
+            this.marker.closeState(next);
+        }
+    }
+
+    @Override
+    public boolean done() {
+        return this.marker.isDecided();
+    }
+
+    /**
+     * If the state space has been completely explored but the verdict
+     * is still unknown, resolves the verdicts that depend on cycles.
+     */
+    @Override
+    public void finish() {
+        if (!this.marker.isDecided() && !this.marker.isComplete() && !this.gts.hasOpenStates()) {
+            this.marker.complete();
+            testDecided();
+        }
+    }
+
+    /**
+     * Returns the verdict for the start state of the exploration, or
+     * {@code null} if the exploration did not suffice to decide it.
+     * Verdicts that depend on cycles are only known after {@link #finish()}.
+     */
+    public Boolean getVerdict() {
+        return this.marker.isDecided() ? this.marker.getValue() : null;
+    }
+
+    /** Adds the start state to the result if the property has been found to be violated. */
+    private void testDecided() {
+        if (!this.recorded && this.marker.isDecided()) {
+            this.recorded = true;
+            if (!this.marker.getValue()) {
+                getResult().addState(this.start);
+            }
+        }
+    }
+
+    @Override
+    public String getMessage() {
+        Boolean verdict = getVerdict();
+        String property = this.property.getParseString();
+        if (verdict == null) {
+            return String.format("Property %s undecided after %d states", property,
+                this.marker.getStateCount());
+        } else {
+            return String.format("Property %s %s (decided after %d states)", property,
+                verdict ? "satisfied" : "violated", this.marker.getStateCount());
+        }
+    }
+
+    /** The property to be checked. */
+    private final Formula property;
+    /** The GTS being explored. */
+    private GTS gts;
+    /** The on-the-fly marker for the property. */
+    private OnTheFlyCTLMarker marker;
+    /** The start state of the exploration. */
+    private GraphState start;
+    /** The already closed states fed to the marker. */
+    private Set<GraphState> explored;
+    /** Flag indicating that the verdict has been recorded in the result. */
+    private boolean recorded;
+}
@@ -17,20 +17,67 @@
  */
 package groove.explore.strategy;
 
+import groove.explore.result.Acceptor;
 import groove.explore.util.RandomChooserInSequence;
-import groove.lts.GraphTransition;
+import groove.lts.GTS;
+import groove.lts.GraphState;
 import groove.lts.RuleTransition;
+import groove.verify.ModelChecking;
 import groove.verify.ProductState;
 import groove.verify.ProductTransition;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * This class provides some default implementations for a bounded model checking
  * strategy, such as setting the boundary and collecting the boundary graphs.
+ * <p>
+ * By default, the strategy deepens the boundary incrementally: the product
+ * states and colours of the previous iterations are kept, and each new
+ * iteration starts a nested depth-first search from the targets of the
+ * transitions that crossed the boundary in the previous iteration,
+ * rather than from the start state. This suffices, as an accepting cycle
+ * that was not found before must contain such a transition.
+ * Product states that cannot reach the boundary (the pocket states) are
+ * never entered again, and their outgoing transitions are discarded.
  * 
  * @author Harmen Kastenberg
  * @version $Revision: 5787 $
  */
 public class BoundedLTLStrategy extends LTLStrategy {
+    @Override
+    protected void prepare(GTS gts, GraphState state, Acceptor acceptor) {
+        super.prepare(gts, state, acceptor);
+        this.frontier = new LinkedHashMap<>();
+        this.roots = new ArrayDeque<>();
+        this.depths = new int[16];
+        this.depthCount = 0;
+    }
+
+    /**
+     * Sets the incremental mode of the strategy.
+     * If incremental, every iteration only searches from the boundary
+     * of the previous iteration; otherwise, every iteration restarts from the
+     * start state. The default is incremental.
+     * Should be called before the exploration starts.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /** Indicates if the boundary is deepened incrementally. */
+    public boolean isIncremental() {
+        return this.incremental;
+    }
+
     /**
      * Sets the boundary specification used in the strategy.
      * @param boundary the boundary specification to use
@@ -65,13 +112,20 @@ public class BoundedLTLStrategy extends LTLStrategy {
                 prodState.setExplored();
             }
         }
+        if (result && isIncremental()) {
+            addPrefix(getStateStack().firstElement());
+        }
         return result;
     }
 
     @Override
     protected ProductState computeNextState() {
         ProductState result = super.computeNextState();
-        if (result == null && getStateSet().hasOpenStates()) {
+        if (isIncremental()) {
+            if (result == null) {
+                result = nextRoot();
+            }
+        } else if (result == null && getStateSet().hasOpenStates()) {
             // from the initial state again
             result = getStartState();
             // next iteration
@@ -111,23 +165,126 @@ public class BoundedLTLStrategy extends LTLStrategy {
      * @param transition the boundary-crossing transition
      */
     private ProductState processBoundaryCrossingTransition(ProductTransition transition) {
+        if (isIncremental()) {
+            // the transition may be traversed in a later iteration
+            defer(transition);
+            return null;
+        }
         // if the number of boundary-crossing transition on the current path
         if (getBoundary().currentDepth() < getRecord().getIteration() - 1) {
             return transition.target();
         } else {
             // set the iteration index of the graph properly
-            transition.target().setIteration(getRecord().getIteration() + 1);
-            // leave it unexplored
+            // and leave it unexplored
+            defer(transition);
             return null;
         }
     }
 
+    /**
+     * Records a boundary-crossing transition, the target of which is to be
+     * searched from in the next iteration.
+     */
+    private void defer(ProductTransition transition) {
+        if (isIncremental()) {
+            if (!transition.target()
+                .isExplored()) {
+                this.frontier.merge(transition, getBoundary().currentDepth(), Math::min);
+            }
+        } else {
+            transition.target()
+                .setIteration(getRecord().getIteration() + 1);
+        }
+    }
+
+    /**
+     * Returns the root of the next search in incremental mode.
+     * This is the target of the next deferred boundary-crossing
+     * transition that has not been explored yet in the current iteration;
+     * if there is none, the next iteration is started.
+     * @return the next root, or {@code null} if there are no deferred
+     * transitions left
+     */
+    private ProductState nextRoot() {
+        while (true) {
+            if (this.roots.isEmpty()) {
+                if (this.frontier.isEmpty()) {
+                    return null;
+                }
+                // next iteration
+                getRecord().increase();
+                // increase the boundary
+                getBoundary().increase();
+                this.roots.addAll(this.frontier.entrySet());
+                this.frontier = new LinkedHashMap<>();
+            }
+            Map.Entry<ProductTransition,Integer> root = this.roots.poll();
+            ProductTransition transition = root.getKey();
+            ProductState result = transition.target();
+            if (result.isExplored() || !isUnexplored(result)) {
+                // already reached after the transition was deferred
+                continue;
+            }
+            // restore the depth at which the transition was deferred
+            getBoundary().setCurrentDepth(root.getValue());
+            if (getBoundary().crossingBoundary(transition, true)) {
+                defer(transition);
+            } else {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Adds a path from the start state to the root of the current search
+     * to the counterexample in the result.
+     */
+    private void addPrefix(ProductState root) {
+        Map<ProductState,ProductState> parents = new HashMap<>();
+        Deque<ProductState> queue = new ArrayDeque<>();
+        parents.put(getStartState(), null);
+        queue.add(getStartState());
+        while (!queue.isEmpty() && !parents.containsKey(root)) {
+            ProductState state = queue.poll();
+            for (ProductTransition trans : state.outTransitions()) {
+                ProductState target = trans.target();
+                if (!parents.containsKey(target)) {
+                    parents.put(target, state);
+                    queue.add(target);
+                }
+            }
+        }
+        List<ProductState> prefix = new ArrayList<>();
+        for (ProductState state = parents.get(root); state != null; state = parents.get(state)) {
+            prefix.add(state);
+        }
+        Collections.reverse(prefix);
+        for (ProductState state : prefix) {
+            getResult().addState(state.getGraphState());
+        }
+    }
+
+    @Override
+    protected void pushState(ProductState state) {
+        if (isIncremental()) {
+            // the colour of the state is valid in this iteration
+            state.setIteration(getRecord().getIteration());
+        }
+        if (this.depthCount == this.depths.length) {
+            this.depths = Arrays.copyOf(this.depths, 2 * this.depthCount);
+        }
+        this.depths[this.depthCount++] = getBoundary().currentDepth();
+        super.pushState(state);
+    }
+
     @Override
     protected ProductState rollbackState() {
-        ProductState previous = getStateStack().peek();
-        GraphTransition origin = previous.getOrigin();
-        if (origin != null) {
-            getBoundary().backtrackTransition(origin);
+        // restore the boundary depth of the state below on the stack;
+        // this is more reliable than backtracking the origin of the state,
+        // as the state may have been reached along another transition
+        this.depthCount--;
+        if (this.depthCount > 0) {
+            getBoundary().setCurrentDepth(this.depths[this.depthCount - 1]);
         }
         return super.rollbackState();
     }
@@ -138,6 +295,9 @@ public class BoundedLTLStrategy extends LTLStrategy {
      */
     @Override
     protected void colourState(ProductState state) {
+        if (isIncremental()) {
+            checkPocket(state);
+        }
         if (state.getBuchiLocation().isAccepting()) {
             state.setColour(getRecord().red());
         } else {
@@ -156,9 +316,40 @@ public class BoundedLTLStrategy extends LTLStrategy {
         boolean result =
             newState.colour() != getRecord().cyan() && newState.colour() != getRecord().blue()
                 && newState.colour() != getRecord().red();
+        if (isIncremental()) {
+            // colours are only valid in the iteration in which they were set,
+            // and pocket states need never be explored again
+            result = (result || newState.iteration() != getRecord().getIteration())
+                && (!newState.isPocket() || newState.colour() == ModelChecking.NO_COLOUR);
+        }
         return result;
     }
 
+    /**
+     * Determines whether a given state can be marked as a pocket state. This is the case
+     * when either the state has no outgoing transitions, or when all its
+     * successor-states are pocket states.
+     * In incremental mode, the outgoing transitions of a pocket state are discarded,
+     * as they will not be traversed again.
+     * @param state the state to be marked black potentially
+     */
+    protected void checkPocket(ProductState state) {
+        if (state.isPocket()) {
+            return;
+        }
+        for (ProductTransition transition : state.outTransitions()) {
+            if (transition.graphTransition() != null && !transition.target()
+                .isPocket()) {
+                return;
+            }
+        }
+        state.setPocket();
+        if (isIncremental()) {
+            state.outTransitions()
+                .clear();
+        }
+    }
+
     @Override
     protected ProductState getNextSuccessor(ProductState state) {
         ProductState result = null;
@@ -171,7 +362,7 @@ public class BoundedLTLStrategy extends LTLStrategy {
                 if (!getBoundary().crossingBoundary(p, false) || buchiState.isExplored()) {
                     chooser.show(p);
                 } else {
-                    buchiState.setIteration(getRecord().getIteration() + 1);
+                    defer(p);
                 }
             }
         }
@@ -190,4 +381,17 @@ public class BoundedLTLStrategy extends LTLStrategy {
      * The boundary to be used.
      */
     private Boundary boundary;
+    /** Flag indicating that the boundary is deepened incrementally. */
+    private boolean incremental = true;
+    /**
+     * The boundary-crossing transitions deferred to the next iteration,
+     * with the minimal boundary depth of their sources.
+     */
+    private Map<ProductTransition,Integer> frontier;
+    /** The deferred transitions from which the current iteration searches. */
+    private Deque<Map.Entry<ProductTransition,Integer>> roots;
+    /** The boundary depths of the states on the state stack. */
+    private int[] depths;
+    /** The number of entries in {@link #depths}. */
+    private int depthCount;
 }
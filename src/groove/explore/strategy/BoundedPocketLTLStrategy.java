@@ -54,22 +54,4 @@ public class BoundedPocketLTLStrategy extends BoundedLTLStrategy {
                 && super.isUnexplored(newState);
         return result;
     }
-
-    /**
-     * Determines whether a given state can be marked as a pocket state. This is the case
-     * when either the state has no outgoing transitions, or when all its
-     * successor-states are pocket states.
-     * @param state the state to be marked black potentially
-     */
-    private void checkPocket(ProductState state) {
-        for (ProductTransition transition : state.outTransitions()) {
-            if (transition.graphTransition() != null
-                && !transition.target().isPocket()) {
-                return;
-            }
-        }
-        state.setPocket();
-        return;
-    }
-
 }
@@ -17,6 +17,7 @@
 package groove.explore.strategy;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 
 import groove.explore.result.Acceptor;
@@ -120,7 +121,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
 		exploringItems.tempStates.clear();
 		for (int j = 0; j<exploringItems.fromMaxStep;j++) {
 			mLevel++;
-			matches = state.getMatches();
+			matches = exploringItems.stateCache.getMatches(state);
 			extend_size_tempStates_RL(exploringItems, state.getNumber());
 			ExploringItemRL.TempState tempstate=exploringItems.tempStates.get(state.getNumber());
 			if(tempstate.curstate==null){
@@ -180,15 +181,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
 //							Reward = -(NQueenHeuristic(exploringItems, nextState));
 						Reward = SnakeHeuristic(exploringItems, nextState);
 					} else {
-						Set<? extends HostEdge> Host_edgeSet = nextState.getGraph().edgeSet();
-						ArrayList<HostEdge> HedgeList = new ArrayList<HostEdge>(Host_edgeSet);
-						ArrayList<String> HnodeList = new ArrayList<String>();
-						for (HostEdge he : Host_edgeSet) {
-							if (!HnodeList.contains(he.source().toString())) {
-								HnodeList.add(he.source().toString());
-							}
-						}
-						Reward = findEQU_RL(exploringItems, HedgeList, HnodeList);
+						Reward = (float) exploringItems.stateCache.getValue(nextState, "EQU", s -> findEQU_RL(exploringItems, s));
 					}
 					done = false;
 					state = nextState;
@@ -668,6 +661,17 @@ abstract public class ClosingStrategy extends GTSStrategy {
 			}
 		return isexists;
 	}
+	private int findEQU_RL(ExploringItemRL exploringItems,GraphState state){
+		Set<? extends HostEdge> Host_edgeSet = state.getGraph().edgeSet();
+		ArrayList<HostEdge> HedgeList = new ArrayList<HostEdge>(Host_edgeSet);
+		ArrayList<String> HnodeList = new ArrayList<String>();
+		for (HostEdge he : Host_edgeSet) {
+			if (!HnodeList.contains(he.source().toString())) {
+				HnodeList.add(he.source().toString());
+			}
+		}
+		return findEQU_RL(exploringItems, HedgeList, HnodeList);
+	}
 	private int findEQU_RL(ExploringItemRL exploringItems,ArrayList<HostEdge>  HedgeList,ArrayList<String> HnodeList){
 
 		ArrayList<RuleEdge> TedgeList=exploringItems.targetGraph_edgeList;
@@ -928,7 +932,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
     			ArrayList<String> seloutRulename=new ArrayList<String>();
     			ArrayList<MatchResult> selNext=new ArrayList<MatchResult>();
     			
-    			List<MatchResult> matches = curstate.getMatches();
+    			List<MatchResult> matches = exploreGaBayesNet.stateCache.getMatches(curstate);
     			
     			////////////////////////
 				extend_size_tempStates(exploreGaBayesNet, curstate.getNumber());
@@ -982,7 +986,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
         			String outRulename="";
     				while(!seloutRulename.isEmpty() && nextstate==null){
         				int n=seloutRulename.size();
-    	    			Double d=Math.random()*n;
+    	    			Double d=HeuRandom.nextDouble()*n;
     	    			x=d.intValue();
     	    			outRulename=seloutRulename.get(x);
     	    			clearPool();
@@ -1017,7 +1021,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
     				}
     				if(nextstate==null && tempstate.allRuleNames.size()>0){
     					int n=tempstate.allRuleNames.size();
-    	    			Double d=Math.random()*n;
+    	    			Double d=HeuRandom.nextDouble()*n;
     	    			x=d.intValue();
     	    			outRulename=tempstate.allRuleNames.get(x);
     	    			nextstate=tempstate.allNextStates.get(x);
@@ -1123,7 +1127,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
     			double maxprob=0;
     			ArrayList<String> selcurRulename=new ArrayList<String>();
     			ArrayList<MatchResult> selNext=new ArrayList<MatchResult>();
-    			List<MatchResult> matches = curstate.getMatches();
+    			List<MatchResult> matches = exploreGaBayesNet.stateCache.getMatches(curstate);
     			////////////////////////
 				extend_size_tempStates(exploreGaBayesNet, curstate.getNumber());
 				ExploringGaBayesNet.TempState tempstate=exploreGaBayesNet.tempStates.get(curstate.getNumber());
@@ -1199,7 +1203,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
         			curRulename="";
     				while(!selcurRulename.isEmpty() && nextstate==null){
         				int n=selcurRulename.size();
-    	    			Double d=Math.random()*n;
+    	    			Double d=HeuRandom.nextDouble()*n;
     	    			x=d.intValue();
     	    			curRulename=selcurRulename.get(x);
     	    			clearPool();
@@ -1234,7 +1238,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
     				}
     				if(nextstate==null && tempstate.allRuleNames.size()>0){
     					int n=tempstate.allRuleNames.size();
-    	    			Double d=Math.random()*n;
+    	    			Double d=HeuRandom.nextDouble()*n;
     	    			x=d.intValue();
     	    			curRulename=tempstate.allRuleNames.get(x);
     	    			nextstate=tempstate.allNextStates.get(x);
@@ -1324,7 +1328,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
     			
     			ArrayList<String> seloutRulename=new ArrayList<String>();
     			ArrayList<MatchResult> selNext=new ArrayList<MatchResult>();
-    			List<MatchResult> matches = curstate.getMatches();
+    			List<MatchResult> matches = exploreGaBayesNet.stateCache.getMatches(curstate);
     			////////////////////////
 				extend_size_tempStates(exploreGaBayesNet, curstate.getNumber());
 				ExploringGaBayesNet.TempState tempstate=exploreGaBayesNet.tempStates.get(curstate.getNumber());
@@ -1400,7 +1404,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
         			}
         			while(!seloutRulename.isEmpty() && nextstate==null){
         				int n=seloutRulename.size();
-    	    			Double d=Math.random()*n;
+    	    			Double d=HeuRandom.nextDouble()*n;
     	    			x=d.intValue();
     	    			outRulename=seloutRulename.get(x);
     	    			clearPool();
@@ -1435,7 +1439,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
     				}
     				if(nextstate==null && tempstate.allRuleNames.size()>0){
     					int n=tempstate.allRuleNames.size();
-    	    			Double d=Math.random()*n;
+    	    			Double d=HeuRandom.nextDouble()*n;
     	    			x=d.intValue();
     	    			outRulename=tempstate.allRuleNames.get(x);
     	    			nextstate=tempstate.allNextStates.get(x);
@@ -1636,7 +1640,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
 	        		        				allstatet.add(allHNextState.get(u));
 	        		        		     			
 			        				int n=allstatet.size();
-		    		    			Double d=Math.random()*n;
+		    		    			Double d=HeuRandom.nextDouble()*n;
 		    		    			int x=d.intValue();	
 		    		    			GraphState statet;
 		    		    			if(n>0)
@@ -1666,7 +1670,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
 	            			}
 	    					if(seloutRulename.size()!=0 && selNext.size()!=0){
 	        		        	int n=seloutRulename.size();
-	    		    			Double d=Math.random()*n;
+	    		    			Double d=HeuRandom.nextDouble()*n;
 	    		    			int x=d.intValue();
 	        		        	try {
 									state.applyMatch(selNext.get(x));
@@ -1703,7 +1707,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
 	        		        				allstatet.add(allHNextState.get(u));
 	        		        		     			
     		        				n=allstatet.size();
-    	    		    			d=Math.random()*n;
+    	    		    			d=HeuRandom.nextDouble()*n;
     	    		    			x=d.intValue();
     	    		    			if(n>0)
     	    		    				statet=allstatet.get(x);
@@ -1792,7 +1796,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
         			nextstate=null;
         			while(!seloutRulename.isEmpty() && nextstate==null){
         				int n=seloutRulename.size();
-    	    			Double d=Math.random()*n;
+    	    			Double d=HeuRandom.nextDouble()*n;
     	    			int x=d.intValue();
     	    			clearPool();
     	    			try {
@@ -1869,7 +1873,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
 			        				allstatet.add(allHNextState.get(u));
 			        		     			
 	        				int n=allstatet.size();
-			    			int x=(int)Math.random()*n;
+			    			int x=(int)HeuRandom.nextDouble()*n;
 			    			GraphState statet;
 			    			if(n>0)
 			    				statet=allstatet.get(x);
@@ -1914,7 +1918,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
         			}
 					if(seloutRulename.size()!=0 && selNext.size()!=0){
     		        	int n=seloutRulename.size();
-		    			Double d=Math.random()*n;
+		    			Double d=HeuRandom.nextDouble()*n;
 		    			int x=d.intValue();
     		        	RuleTransition ruletransition=null;
 						try {
@@ -1950,7 +1954,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
     		        				allstatet.add(allHNextState.get(u));
     		        		     			
 	        				n=allstatet.size();
-    		    			d=Math.random()*n;
+    		    			d=HeuRandom.nextDouble()*n;
     		    			x=d.intValue();
     		    			if(n>0)
     		    				statet=allstatet.get(x);
@@ -2066,6 +2070,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
                 	exploringItems.State_Max_EQU=null;
                 	exploringItems.allpath_From_S0_To_Max.clear();
                 	exploringItems.allpath_From_S0_To_Max_fitness.clear();
+                	exploringItems.pathCounts=null;
                 	exploringItems.Exportedpattern=null;
                 	exploringItems.ExportedpatternNorepeat.clear();
                 	
@@ -2161,7 +2166,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
                 	if(exploringItems.CTLproperty.equals("reachability") || exploringItems.CTLproperty.equals("safetyByReach")){
       	          	for(int i=0;i<=exploringItems.allcurStates.size()-1;i++){
       	    			state=exploringItems.allcurStates.get(i);
-      	    			if(exploringItems.allcurdepth.get(i)==curDepth && Math.random()<=0.1){ 
+      	    			if(exploringItems.allcurdepth.get(i)==curDepth && HeuRandom.nextDouble()<=0.1){ 
       		            	count++;
       	    				Set<? extends HostEdge> Host_edgeSet=state.getGraph().edgeSet();
       		            	  
@@ -2195,7 +2200,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
       	          		curDepth--;
       	          		for(int i=0;i<=exploringItems.allcurStates.size()-1;i++){
       		    			state=exploringItems.allcurStates.get(i);
-      		    			if(exploringItems.allcurdepth.get(i)==curDepth && Math.random()<=0.2){ 
+      		    			if(exploringItems.allcurdepth.get(i)==curDepth && HeuRandom.nextDouble()<=0.2){ 
       			            	count++;
       		    				Set<? extends HostEdge> Host_edgeSet=state.getGraph().edgeSet();
       			            	  
@@ -2247,7 +2252,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
                  
       			/////////////////////
                 	if(exploringItems.typeOfLearn.equals("BN"))
-                		LearnOfNaiveBaysianNetwork(exploringItems);
+                		LearnOfNaiveBaysianNetwork(exploringItems, exploringItems.pathCounts, exploringItems.pathCountsFirstLength);
                 	else{
                 		 ////remove all extra rules
                 		
@@ -2358,7 +2363,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
                   			outRulename="";
               				while(!seloutRulename.isEmpty() && nextstate==null){
                   				int n=seloutRulename.size();
-              	    			Double d=Math.random()*n;
+              	    			Double d=HeuRandom.nextDouble()*n;
               	    			x=d.intValue();
               	    			outRulename=seloutRulename.get(x);
               	    			clearPool();
@@ -2397,7 +2402,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
               				}
               				if(nextstate==null && tempstate.allRuleNames.size()>0){
               					int n=tempstate.allRuleNames.size();
-              	    			Double d=Math.random()*n;
+              	    			Double d=HeuRandom.nextDouble()*n;
               	    			x=d.intValue();
               	    			outRulename=tempstate.allRuleNames.get(x);
               	    			nextstate=tempstate.allNextStates.get(x);
@@ -2474,6 +2479,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
                 	exploringItems.State_Max_EQU=null;
                 	exploringItems.allpath_From_S0_To_Max.clear();
                 	exploringItems.allpath_From_S0_To_Max_fitness.clear();
+                	exploringItems.pathCounts=null;
                 	exploringItems.Exportedpattern=null;
                 	exploringItems.ExportedpatternNorepeat.clear();
                 	
@@ -2571,7 +2577,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
                  
       			/////////////////////
                 	if(exploringItems.typeOfLearn.equals("BN"))
-                		LearnOfNaiveBaysianNetwork(exploringItems);
+                		LearnOfNaiveBaysianNetwork(exploringItems, exploringItems.pathCounts, exploringItems.pathCountsFirstLength);
                 	else{
                 		 ////remove all extra rules
           			for(int i=0;i<=exploringItems.allpath_From_S0_To_Max.size()-1;i++){
@@ -2697,7 +2703,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
       		      			nextstate=null;
       		      			while(!selcurRulename.isEmpty() && nextstate==null){
       		      				int n=selcurRulename.size();
-      		  	    			Double d=Math.random()*n;
+      		  	    			Double d=HeuRandom.nextDouble()*n;
       		  	    			int x=d.intValue();
       		    				curRulename=selcurRulename.get(x);
       		  	    			clearPool();
@@ -2798,7 +2804,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
       		      			nextstate=null;
       		      			while(!selcurRulename.isEmpty() && nextstate==null){
       		      				int n=selcurRulename.size();
-      		  	    			Double d=Math.random()*n;
+      		  	    			Double d=HeuRandom.nextDouble()*n;
       		  	    			int x=d.intValue();
       		    				curRulename=selcurRulename.get(x);
       		  	    			clearPool();
@@ -3113,54 +3119,37 @@ abstract public class ClosingStrategy extends GTSStrategy {
     private void findAllPathFs0Tmax_reach(ExploringItem exploringItems){
     	///find all paths from s0 to State_Max_EQU
     	
-		exploringItems.allpath_From_S0_To_Max.clear();
-		GTS gts=null;
-		if(exploringItems.callFromHeuGenerator)
-			gts=exploringItems.gts;
-		else
-			gts =exploringItems.simulator.getModel().getGTS();
-		
-		Set<? extends GraphState> nodeset=gts.nodeSet();
-		Set<? extends GraphTransition> edgeset=gts.edgeSet();
-		
-		
+		PathIndex index=newPathIndex(exploringItems);
+		int budget=exploringItems.maxNum_allPathFs0TMax;
+		PathSample sample=new PathSample(budget, PathSample.Policy.FIRST);
 		
 		GraphState oriState=exploringItems.State_Max_EQU;
 		
-		dfs(exploringItems.State_Max_EQU, "",0, exploringItems, exploringItems.grammermodel, nodeset);
+		samplePaths(index, exploringItems.State_Max_EQU, sample, budget, null, null);
     	
     	findOtherState_Max_EQU(exploringItems);
     	
     	if(exploringItems.State_Max_EQU!=null && !oriState.equals(exploringItems.State_Max_EQU)){
     		oriState=exploringItems.State_Max_EQU;
-    		dfs(exploringItems.State_Max_EQU, "",0, exploringItems, exploringItems.grammermodel, nodeset);
+    		samplePaths(index, exploringItems.State_Max_EQU, sample, budget, null, null);
     	}
     	
     	findOtherState_Max_EQU(exploringItems);
     	if(exploringItems.State_Max_EQU!=null && !oriState.equals(exploringItems.State_Max_EQU)){
     		oriState=exploringItems.State_Max_EQU;
-    		dfs(exploringItems.State_Max_EQU, "",0, exploringItems, exploringItems.grammermodel, nodeset);
+    		samplePaths(index, exploringItems.State_Max_EQU, sample, budget, null, null);
     	}	
-    	    	
+    	
+    	storePaths(exploringItems, index, sample);
     }
     /////////////////////////////////////////
     private void findAllPathFs0Trand_dead(ExploringItem exploringItems){
     	///find all paths from s0 to some random states in the last depth
+    	///only the 40 paths with the smallest fitness are retained
     	
-		exploringItems.allpath_From_S0_To_Max.clear();
-		
-		GTS gts =null;
-		
-		if(exploringItems.callFromHeuGenerator)
-			gts=exploringItems.gts;
-		else
-			gts =exploringItems.simulator.getModel().getGTS();
-		
-		Set<? extends GraphState> nodeset=gts.nodeSet();
-		Set<? extends GraphTransition> edgeset=gts.edgeSet();
-		
-		
-		
+		PathIndex index=newPathIndex(exploringItems);
+		int[] degrees=getOutDegrees(exploringItems, index);
+		PathSample sample=new PathSample(40, PathSample.Policy.LIGHTEST);
 		
 		int i=0;
 		while (i<=exploringItems.allcurdepth.size()-1 && exploringItems.allcurdepth.get(i)<exploringItems.maxDepthOfSearch)
@@ -3172,65 +3161,25 @@ abstract public class ClosingStrategy extends GTSStrategy {
 		int numPromis=50;   //for example 50
 		
 		while(rep<=numPromis){   
-			Double x=Math.random();
+			Double x=HeuRandom.nextDouble();
 			i=(int)((high-low)*x+low);
 			GraphState oriState=exploringItems.allcurStates.get(i);
 			
-			dfs(oriState, "", 0,exploringItems, exploringItems.grammermodel, nodeset);
+			samplePaths(index, oriState, sample, exploringItems.maxNum_allPathFs0TMax, degrees, null);
 			rep++;
 		}
 		 
-		
-		
-		///////////////////////////////bubble sort///
-		///sort allpath_From_S0_To_Max based on allpath_From_S0_To_Max_fitness Ascending (from smaller to greater)
-		
-		boolean swapped = true;
-		int p = 0;
-		String  tmpS;
-		Integer tmpI;
-		while (swapped){
-			swapped = false;
-			p++;
-			for ( i = 0; i < exploringItems.allpath_From_S0_To_Max.size() - 1; i++) {
-				if (exploringItems.allpath_From_S0_To_Max_fitness.get(i)> exploringItems.allpath_From_S0_To_Max_fitness.get(i+1)) {
-				      tmpS = exploringItems.allpath_From_S0_To_Max.get(i);
-				      exploringItems.allpath_From_S0_To_Max.set(i, exploringItems.allpath_From_S0_To_Max.get(i+1));
-				      exploringItems.allpath_From_S0_To_Max.set(i+1,tmpS);
-				      
-				      tmpI = exploringItems.allpath_From_S0_To_Max_fitness.get(i);
-				      exploringItems.allpath_From_S0_To_Max_fitness.set(i, exploringItems.allpath_From_S0_To_Max_fitness.get(i+1));
-				      exploringItems.allpath_From_S0_To_Max_fitness.set(i+1,tmpI);
-				      
-				      swapped = true;
-				}
-			}
-		}
-		/////////////////////
-		//Remove all additional items and only some items will be remained	
-		while(exploringItems.allpath_From_S0_To_Max.size()>40){
-			exploringItems.allpath_From_S0_To_Max.remove(40);
-			exploringItems.allpath_From_S0_To_Max_fitness.remove(40);
-		}
-				    	
+		storePaths(exploringItems, index, sample);
     }  
     /////////////////////////////////////////
     private void findAllPathFs0Trand_LivebyDead(ExploringItem exploringItems){
     	///find all paths from s0 to some random states in the last depth
+    	///only the 40 paths with the smallest fitness are retained
     	
-		exploringItems.allpath_From_S0_To_Max.clear();
-		
-		GTS gts =null;
-		if(exploringItems.callFromHeuGenerator)
-			gts=exploringItems.gts;
-		else
-			gts =exploringItems.simulator.getModel().getGTS();
-		
-		Set<? extends GraphState> nodeset=gts.nodeSet();
-		Set<? extends GraphTransition> edgeset=gts.edgeSet();
-		
-		
-		
+		PathIndex index=newPathIndex(exploringItems);
+		int[] degrees=getOutDegrees(exploringItems, index);
+		PathSample sample=new PathSample(40, PathSample.Policy.LIGHTEST);
+		Predicate<GraphState> notSatisfied=s -> !hasTargetMatch(exploringItems, s);
 		
 		int i=0;
 		while (i<=exploringItems.allcurdepth.size()-1 && exploringItems.allcurdepth.get(i)<exploringItems.maxDepthOfSearch)
@@ -3242,57 +3191,103 @@ abstract public class ClosingStrategy extends GTSStrategy {
 		int numPromis=50;   //for example 50
 		
 		while(rep<=numPromis){   
-			Double x=Math.random();
+			Double x=HeuRandom.nextDouble();
 			i=(int)((high-low)*x+low);
 			GraphState oriState=exploringItems.allcurStates.get(i);
 			
-			Boolean isPropertyQsatisfied=false;
-			for (MatchResult next : oriState.getMatches()) {
-  				String curRulename=next.toString();
-  				if(curRulename.equals(exploringItems.targetRule)){
-  					isPropertyQsatisfied=true;
-  					break;
-  				}
-			}	 
-			if(!isPropertyQsatisfied){
-				dfs(oriState, "", 0,exploringItems, exploringItems.grammermodel, nodeset);
+			if(notSatisfied.test(oriState)){
+				samplePaths(index, oriState, sample, exploringItems.maxNum_allPathFs0TMax, degrees, notSatisfied);
 				rep++;
 			}
 		}
 		
-		///////////////////////////////bubble sort///
-		///sort allpath_From_S0_To_Max based on allpath_From_S0_To_Max_fitness Ascending (from smaller to greater)
-		
-		boolean swapped = true;
-		int p = 0;
-		String  tmpS;
-		Integer tmpI;
-		while (swapped){
-			swapped = false;
-			p++;
-			for ( i = 0; i < exploringItems.allpath_From_S0_To_Max.size() - 1; i++) {
-				if (exploringItems.allpath_From_S0_To_Max_fitness.get(i)> exploringItems.allpath_From_S0_To_Max_fitness.get(i+1)) {
-				      tmpS = exploringItems.allpath_From_S0_To_Max.get(i);
-				      exploringItems.allpath_From_S0_To_Max.set(i, exploringItems.allpath_From_S0_To_Max.get(i+1));
-				      exploringItems.allpath_From_S0_To_Max.set(i+1,tmpS);
-				      
-				      tmpI = exploringItems.allpath_From_S0_To_Max_fitness.get(i);
-				      exploringItems.allpath_From_S0_To_Max_fitness.set(i, exploringItems.allpath_From_S0_To_Max_fitness.get(i+1));
-				      exploringItems.allpath_From_S0_To_Max_fitness.set(i+1,tmpI);
-				      
-				      swapped = true;
-				}
-			}
-		}
-		/////////////////////
-		//Remove all additional items and only some items will be remained	
-		while(exploringItems.allpath_From_S0_To_Max.size()>40){
-			exploringItems.allpath_From_S0_To_Max.remove(40);
-			exploringItems.allpath_From_S0_To_Max_fitness.remove(40);
-		}
-				    	
+		storePaths(exploringItems, index, sample);
     }  
     
+    /////////////////////////////////////////
+    /**
+     * Builds the backward path index over the currently explored GTS,
+     * numbering the rules in the order of {@link ExploringItem#RulesName}.
+     */
+    private PathIndex newPathIndex(ExploringItem exploringItems){
+		GTS gts=null;
+		if(exploringItems.callFromHeuGenerator)
+			gts=exploringItems.gts;
+		else
+			gts =exploringItems.simulator.getModel().getGTS();
+		return new PathIndex(gts, exploringItems.RulesName);
+    }
+    
+    /**
+     * Offers the paths from s0 to a given target state to a sample, one at a time,
+     * until the sample is saturated or the total number of offered paths reaches the budget.
+     * @param degrees if not {@code null}, the out-degrees by state number, summed
+     * over the non-initial states of a path to give its fitness
+     * @param admit if not {@code null}, predicate on the states allowed on the path
+     */
+    private void samplePaths(PathIndex index, GraphState target, PathSample sample, int budget, int[] degrees, Predicate<GraphState> admit){
+    	PathIndex.PathCursor cursor=index.paths(target, admit);
+    	while(sample.getOffered()<budget && !sample.isSaturated() && cursor.next()){
+    		int fitness=0;
+    		if(degrees!=null)
+    			for(int i=1;i<=cursor.length();i++)
+    				fitness+=degrees[cursor.getState(i).getNumber()];
+    		sample.offer(cursor.toRuleArray(), fitness);
+    	}
+    }
+    
+    /**
+     * Returns the out-degrees of the explored states, indexed by state number;
+     * states that were not recorded in {@link ExploringItem#allcurStates} have degree 0.
+     */
+    private int[] getOutDegrees(ExploringItem exploringItems, PathIndex index){
+    	int[] result=new int[index.size()];
+    	for(int i=exploringItems.allcurStates.size()-1;i>=0;i--){
+    		int number=exploringItems.allcurStates.get(i).getNumber();
+    		if(number<result.length)
+    			result[number]=exploringItems.allcurStatesOutDegree.get(i);
+    	}
+    	return result;
+    }
+    
+    private boolean hasTargetMatch(ExploringItem exploringItems, GraphState state){
+    	for (MatchResult next : state.getMatches()) {
+    		if(next.toString().equals(exploringItems.targetRule))
+    			return true;
+    	}
+    	return false;
+    }
+    
+    /**
+     * Feeds the sampled paths into the rule statistics used by {@link #LearnOfNaiveBaysianNetwork}.
+     * The textual paths in {@link ExploringItem#allpath_From_S0_To_Max} are only built
+     * when the pattern miner needs them, i.e., if the learning type is not {@code BN}.
+     */
+    private void storePaths(ExploringItem exploringItems, PathIndex index, PathSample sample){
+    	exploringItems.allpath_From_S0_To_Max.clear();
+    	exploringItems.allpath_From_S0_To_Max_fitness.clear();
+    	boolean textual=!exploringItems.typeOfLearn.equals("BN");
+    	RuleSequenceCounts counts=new RuleSequenceCounts(exploringItems.RulesCount);
+    	for(int i=0;i<sample.size();i++){
+    		int[] path=sample.getPath(i);
+    		counts.add(path);
+    		if(textual){
+    			StringBuilder text=new StringBuilder();
+    			for(int rule:path)
+    				text.append(index.getRule(rule)).append(',');
+    			exploringItems.allpath_From_S0_To_Max.add(text.toString());
+    			exploringItems.allpath_From_S0_To_Max_fitness.add(sample.getWeight(i));
+    		}
+    	}
+    	int firstLength=0;
+    	if(counts.getFirstPath()!=null)
+    		for(int rule:counts.getFirstPath())
+    			firstLength+=index.getRule(rule).toString().length()+1;
+    	exploringItems.pathCounts=counts;
+    	exploringItems.pathCountsFirstLength=firstLength;
+    	sample.clear();
+    }
+    
     ////////
     /////////////////////////////////////////
     private void reviseAllPathFs0T_live(ExploringItem exploringItems){
@@ -3347,6 +3342,28 @@ abstract public class ClosingStrategy extends GTSStrategy {
 /////////////////////////////////////////////
 /////////////////////////////////////////////      
     private void LearnOfNaiveBaysianNetwork(ExploringItem exploringItems){
+    	////paths given in textual form: count them one by one
+    	Map<String,Integer> ruleIds=new HashMap<String,Integer>();
+    	for(int i=0;i<=exploringItems.RulesCount-1;i++)
+    		ruleIds.putIfAbsent(exploringItems.RulesName.get(i).toString(), i);
+    	RuleSequenceCounts counts=new RuleSequenceCounts(exploringItems.RulesCount);
+    	for(String text:exploringItems.allpath_From_S0_To_Max){
+    		//path="go-hungry,get-left,get-right,go-hungry,"
+    		String[] names=text.split(",");
+    		int[] path=new int[names.length];
+    		for(int j=0;j<=names.length-1;j++)
+    			path[j]=ruleIds.getOrDefault(names[j], exploringItems.RulesCount);
+    		counts.add(path);
+    	}
+    	int firstLength=exploringItems.allpath_From_S0_To_Max.isEmpty() ? 0 : exploringItems.allpath_From_S0_To_Max.get(0).length();
+    	LearnOfNaiveBaysianNetwork(exploringItems, counts, firstLength);
+    }
+    
+    /**
+     * Learns the naive Bayes network from streamed rule statistics.
+     * @param firstLength the length of the textual form of the first path
+     */
+    private void LearnOfNaiveBaysianNetwork(ExploringItem exploringItems, RuleSequenceCounts counts, int firstLength){
 	      	
     	
     	 ///////////////////////////////////////////////
@@ -3355,68 +3372,31 @@ abstract public class ClosingStrategy extends GTSStrategy {
     	////////////////////////////////////////	
     	exploringItems.baysNet.Nodes.clear();
 	  		
-    	if(exploringItems.allpath_From_S0_To_Max.size()==0)
+    	if(counts==null || counts.getPathCount()==0)
     		return;
 	  		
-  		///add the first node 
+  		///add the first node:  #(X0=curRulename)
       	BaysianNetwork.Node curnode=exploringItems.baysNet.getNewNode();
       	for(int i=0;i<=exploringItems.RulesCount-1;i++){
       		BaysianNetwork.Nodeitem nodeitem=exploringItems.baysNet.getNewNodeitem();
       		nodeitem.curRulename=exploringItems.RulesName.get(i).toString();
       		nodeitem.prevRulename="";
+      		nodeitem.probability=(double)counts.getOccurrences(i)/(counts.getPathCount() * firstLength-1);
       		curnode.NodeItems.add(nodeitem);
       	}
       	exploringItems.baysNet.Nodes.add(curnode);
       	
-      	//add the next nodes
+      	//add the next nodes:  #(X1=curRulename|X0=prevRulename)/#(X0=prevRulename)
       	BaysianNetwork.Node nextnode=exploringItems.baysNet.getNewNode();
       	for(int i=0;i<=exploringItems.RulesCount-1;i++)
       		for(int j=0;j<=exploringItems.RulesCount-1;j++){
       			BaysianNetwork.Nodeitem nodeitem=exploringItems.baysNet.getNewNodeitem();
       			nodeitem.curRulename=exploringItems.RulesName.get(i).toString();
           		nodeitem.prevRulename=exploringItems.RulesName.get(j).toString();
+          		nodeitem.probability=(double)counts.getSuccessions(j, i)/counts.getOccurrences(j);
           		nextnode.NodeItems.add(nodeitem);
       		}
       	exploringItems.baysNet.Nodes.add(nextnode);
-      	
-      	
-      	String curRulename="";
-      	String prevRulename="";
-      	
-      	//[go-hungry, get-left, go-hungry, get-left]
-      	
-      	for(int k=0;k<=exploringItems.baysNet.Nodes.size()-1;k++){
-  			BaysianNetwork.Node node=exploringItems.baysNet.Nodes.get(k);
-  			for(int r=0;r<=node.NodeItems.size()-1;r++){
-  				BaysianNetwork.Nodeitem nodeitem=node.NodeItems.get(r);
-  				curRulename=nodeitem.curRulename;
-  				prevRulename=nodeitem.prevRulename;
-  				int count=0;
-  				if(k==0){///////////Make The First Node (CurrentNode)////prevRulename==""/////////////////////////////////////
-  					for(int i=0;i<=exploringItems.allpath_From_S0_To_Max.size()-1;i++){
-  						//path="go-hungry,get-left,get-right,go-hungry,"
-  	      				String[] path=exploringItems.allpath_From_S0_To_Max.get(i).split(",");
-  						for(int j=0;j<=path.length-2;j++)
-  		    				if(curRulename.equals(path[j]))
-  		    					count++;
-  		 			}
-  					nodeitem.probability=(double)count/(exploringItems.allpath_From_S0_To_Max.size() * (exploringItems.allpath_From_S0_To_Max.get(0).length())-1);
-  				}else {  ////////Make NextNode ////////////
-  					int count_pre=0;  //#(X0=prevRulename)
-  					for(int i=0;i<=exploringItems.allpath_From_S0_To_Max.size()-1;i++){
-  						String[] path=exploringItems.allpath_From_S0_To_Max.get(i).split(",");
-  						for(int j=1;j<=path.length-1;j++)
-  							if(prevRulename.equals(path[j-1])){
-  		    					count_pre++;
-  		    					if(curRulename.equals(path[j]))
-  		    						count++;
-  		    				}
-  		 			}
-  					nodeitem.probability=(double)count/count_pre; //#(X1=curRulename|X0=prevRulename)/#(X0=prevRulename)
-  				}
-  			}  ////end of for
-  			exploringItems.baysNet.Nodes.set(k,node);
-      	} ///end of for
   		
   	  }
         
@@ -3621,103 +3601,6 @@ abstract public class ClosingStrategy extends GTSStrategy {
       		exploringItems.Max_EQU=0;
       	}
   }
-  private void dfs(GraphState curstate,String path,Integer fitness ,ExploringItem exploringItems,GrammarModel grammermodel,Set<? extends GraphState> nodeset){
-  		//fitness is only used for DEADLOCK detection
-	  
-	  	if(exploringItems.allpath_From_S0_To_Max.size()>=exploringItems.maxNum_allPathFs0TMax)
-	  		return;
-	  
-  		if(curstate.toString().equals("s0")){
-  			exploringItems.allpath_From_S0_To_Max.add(path);
-  			exploringItems.allpath_From_S0_To_Max_fitness.add(fitness);
-  		}
-  		else{
-  			ArrayList<String> prevStates=find_ALL_prevStates(grammermodel, nodeset, curstate,exploringItems);
-  			for(int i=0;i<=prevStates.size()-1;i+=2){
-  				String prevstateS=prevStates.get(i);
-  				GraphState prevstate=null;
-  				String rulename=prevStates.get(i+1);
-  				for(GraphState ns :nodeset){
-  					if(ns.toString().equals(prevstateS)){
-  						prevstate=ns;
-  						break;
-  					}
-  						
-  				}
-  			  	if(exploringItems.allpath_From_S0_To_Max.size()>=exploringItems.maxNum_allPathFs0TMax)
-  			  		return;
-
-  			  	Boolean isPropertyQsatisfied=false;
-  			  	if(exploringItems.CTLproperty.equals("liveByDeadlock")){
-		  			for (MatchResult next : prevstate.getMatches()) {
-		    				String curRulename=next.toString();
-		    				if(curRulename.equals(exploringItems.targetRule)){
-		    					isPropertyQsatisfied=true;
-		    					break;
-		    				}
-		  			}	 
-  			  	}
-  			  	if(!isPropertyQsatisfied)
-  			  		dfs(prevstate,rulename+","+path, findOutDegreeOfCurState(exploringItems, curstate) +fitness,exploringItems, grammermodel, nodeset);
-  			  	
-  				if(exploringItems.allpath_From_S0_To_Max.size()>=exploringItems.maxNum_allPathFs0TMax)
-  			  		return;
-
-  			}
-  		}
-  		
-  	}
-
-    private Integer findOutDegreeOfCurState(ExploringItem exploringItems, GraphState state){
-    	Integer degree=0;
-    	for(int i=0;i<=exploringItems.allcurStates.size()-1;i++)
-    		if(exploringItems.allcurStates.get(i).equals(state))
-    			return exploringItems.allcurStatesOutDegree.get(i);
-    	
-    	return degree;
-    }
-  	private  ArrayList<String>  find_ALL_prevStates(GrammarModel grammermodel,Set<? extends GraphState> nodeset,GraphState curState,ExploringItem exploringItems){
-  		////s0,go_hungry,s1,get_left,....
-  		ArrayList<String> prevStates=new ArrayList<String>();
-  		
-  		int curdepth=0,prevdepth=0;
-  		
-  		GraphState prevState=null;
-  		Rule r=null;
-  		try{
-  			for(GraphState ns :nodeset){
-  				Set<? extends GraphTransition> grtr=ns.getTransitions();
-  				for(GraphTransition gt:grtr){
-  					GraphState sourceState=gt.source();
-  					GraphState targetState=gt.target();
-  					if(targetState.equals(curState)){
-  						prevState=sourceState;
-  						RuleModel rulemodel=grammermodel.getRuleModel(QualName.name(gt.text(false)));
-  					    r=rulemodel.toResource().getCondition().getRule();
-  					    if(prevState.getNumber()<curState.getNumber() && !prevStates.contains(prevState.toString()) ){
-  					    	prevStates.add(prevState.toString());
-  					    	prevStates.add(r.getQualName().toString());
-  					    	
-  					    	//if(exploringItems.maxDepthOfSearch>=6){
-  						    	//if(prevStates.size()==4)
-  						    		//return prevStates;
-  					    	//}
-  						    //else 
-  						    //if(prevStates.size()==6)
-  						    	//return prevStates;
-  					    	
-  					    }
-  					}
-  						
-  				}
-  			}
-  		}
-  		catch (FormatException e) {
-  	           System.err.println(e.getMessage());
-  	    }
-  		
-  		return prevStates;
-  	}
   
 
 ////////////////////////////////////////////////////////////////////////////////////////////////
@@ -3806,7 +3689,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
         		        				allstatet.add(allHNextState.get(u));
         		        		     			
 		        				int n=allstatet.size();
-	    		    			Double d=Math.random()*n;
+	    		    			Double d=HeuRandom.nextDouble()*n;
 	    		    			int x=d.intValue();	
 	    		    			GraphState statet;
 	    		    			if(n>0)
@@ -3836,7 +3719,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
             			}
     					if(seloutRulename.size()!=0 && selNext.size()!=0){
         		        	int n=seloutRulename.size();
-    		    			Double d=Math.random()*n;
+    		    			Double d=HeuRandom.nextDouble()*n;
     		    			int x=d.intValue();
         		        	try {
 								state.applyMatch(selNext.get(x));
@@ -3875,7 +3758,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
         		        				allstatet.add(allHNextState.get(u));
         		        		     			
 		        				n=allstatet.size();
-	    		    			d=Math.random()*n;
+	    		    			d=HeuRandom.nextDouble()*n;
 	    		    			x=d.intValue();
 	    		    			if(n>0)
 	    		    				statet=allstatet.get(x);
@@ -3973,7 +3856,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
         			nextstate=null;
         			while(!seloutRulename.isEmpty() && nextstate==null){
         				int n=seloutRulename.size();
-    	    			Double d=Math.random()*n;
+    	    			Double d=HeuRandom.nextDouble()*n;
     	    			int x=d.intValue();
     	    			clearPool();
     	    			try {
@@ -4048,7 +3931,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
 			        				allstatet.add(allHNextState.get(u));
 			        		     			
 	        				int n=allstatet.size();
-			    			int x=(int)Math.random()*n;
+			    			int x=(int)HeuRandom.nextDouble()*n;
 			    			GraphState statet;
 			    			if(n>0)
 			    				statet=allstatet.get(x);
@@ -4095,7 +3978,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
         			}
 					if(seloutRulename.size()!=0 && selNext.size()!=0){
     		        	int n=seloutRulename.size();
-		    			Double d=Math.random()*n;
+		    			Double d=HeuRandom.nextDouble()*n;
 		    			int x=d.intValue();
     		        	RuleTransition ruletransition=null;
 						try {
@@ -4131,7 +4014,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
     		        				allstatet.add(allHNextState.get(u));
     		        		     			
 	        				n=allstatet.size();
-    		    			d=Math.random()*n;
+    		    			d=HeuRandom.nextDouble()*n;
     		    			x=d.intValue();
     		    			if(n>0)
     		    				statet=allstatet.get(x);
@@ -4290,7 +4173,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
 			ArrayList<MatchResult> selNext=new ArrayList<MatchResult>();
 			
 			
-			List<MatchResult> matches = curstate.getMatches();
+			List<MatchResult> matches = exploreGaBayesNet.stateCache.getMatches(curstate);
 			exploreGaBayesNet.Number_Explored_States++;
 			if(matches.size()==0){
 				if(exploreGaBayesNet.ModelCheckingTarget.equals("DeadLock")){
@@ -4342,7 +4225,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
     			String outRulename="";
 				while(!seloutRulename.isEmpty() && nextstate==null){
     				int n=seloutRulename.size();
-	    			Double d=Math.random()*n;
+	    			Double d=HeuRandom.nextDouble()*n;
 	    			x=d.intValue();
 	    			outRulename=seloutRulename.get(x);
 	    			clearPool();
@@ -4439,7 +4322,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
 			ArrayList<MatchResult> selNext=new ArrayList<MatchResult>();
 			
 			
-			List<MatchResult> matches = curstate.getMatches();
+			List<MatchResult> matches = exploreGaBayesNet.stateCache.getMatches(curstate);
 			exploreGaBayesNet.Number_Explored_States++;
 			if(matches.size()==0){
 				if(exploreGaBayesNet.ModelCheckingTarget.equals("DeadLock")){
@@ -4503,7 +4386,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
     			}
 				while(!seloutRulename.isEmpty() && nextstate==null){
     				int n=seloutRulename.size();
-	    			Double d=Math.random()*n;
+	    			Double d=HeuRandom.nextDouble()*n;
 	    			x=d.intValue();
 	    			outRulename=seloutRulename.get(x);
 	    			clearPool();
@@ -4573,7 +4456,7 @@ abstract public class ClosingStrategy extends GTSStrategy {
 		boolean isexists=false;
 		
 		ArrayList<QualName> Alltype=exploreGaBayesNet.Alltype;
-		List<MatchResult> matches=curstate.getMatches();
+		List<MatchResult> matches=exploreGaBayesNet.stateCache.getMatches(curstate);
 		boolean flag=true;
 		if(ModelCheckingTarget.equals("DeadLock")){
 			for (MatchResult next : matches) {
@@ -4892,7 +4775,7 @@ public GraphState heuristicPSOdoNext(ExploringItemPSO exploringItemPSO) {
 			ArrayList<MatchResult> selNext=new ArrayList<MatchResult>();
 			
 			
-			List<MatchResult> matches = curstate.getMatches();
+			List<MatchResult> matches = exploringItemPSO.stateCache.getMatches(curstate);
 			exploringItemPSO.Number_Explored_States++;
 			if(matches.size()==0){
 				if(exploringItemPSO.ModelCheckingTarget.equals("DeadLock")){
@@ -4944,7 +4827,7 @@ public GraphState heuristicPSOdoNext(ExploringItemPSO exploringItemPSO) {
 				String outRulename="";
 				while(!seloutRulename.isEmpty() && nextstate==null){
 					int n=seloutRulename.size();
-	    			Double d=Math.random()*n;
+	    			Double d=HeuRandom.nextDouble()*n;
 	    			x=d.intValue();
 	    			outRulename=seloutRulename.get(x);
 	    			clearPool();
@@ -5029,7 +4912,7 @@ public GraphState heuristicPSOdoNext(ExploringItemPSO exploringItemPSO) {
 			ArrayList<MatchResult> selNext=new ArrayList<MatchResult>();
 			
 			
-			List<MatchResult> matches = curstate.getMatches();
+			List<MatchResult> matches = exploringItemPSO.stateCache.getMatches(curstate);
 			exploringItemPSO.Number_Explored_States++;
 			if(matches.size()==0){
 				if(exploringItemPSO.ModelCheckingTarget.equals("DeadLock")){
@@ -5095,7 +4978,7 @@ public GraphState heuristicPSOdoNext(ExploringItemPSO exploringItemPSO) {
     			}
 				while(!seloutRulename.isEmpty() && nextstate==null){
     				int n=seloutRulename.size();
-	    			Double d=Math.random()*n;
+	    			Double d=HeuRandom.nextDouble()*n;
 	    			x=d.intValue();
 	    			outRulename=seloutRulename.get(x);
 	    			clearPool();
@@ -5187,7 +5070,7 @@ public GraphState heuristicPSOdoNext(ExploringItemPSO exploringItemPSO) {
 		boolean isexists=false;
 		
 		ArrayList<QualName> Alltype=exploringItemPSO.Alltype;
-		List<MatchResult> matches=curstate.getMatches();
+		List<MatchResult> matches=exploringItemPSO.stateCache.getMatches(curstate);
 		boolean flag=true;
 		if(ModelCheckingTarget.equals("DeadLock")){
 			for (MatchResult next : matches) {
@@ -290,7 +290,7 @@ public class LTLStrategy extends Strategy {
      * @param transitions a set of graph transitions
      * @return the set of label texts of the transitions in {@code transitions}
      */
-    private Set<Proposition> getProps(Set<? extends GraphTransition> transitions) {
+    protected Set<Proposition> getProps(Set<? extends GraphTransition> transitions) {
         return transitions.stream()
             .map(t -> toProp(t))
             .collect(Collectors.toSet());
@@ -400,6 +400,19 @@ public class LTLStrategy extends Strategy {
         return this.stateStack;
     }
 
+    /**
+     * Returns the initial location of the Buchi graph for the negated property.
+     * @return the initial location; non-{@code null} after a call to {@link #setProperty(String)}
+     */
+    protected final BuchiLocation getStartLocation() {
+        return this.startLocation;
+    }
+
+    /** Returns the result to which counterexamples are added. */
+    protected final ExploreResult getResult() {
+        return this.result;
+    }
+
     /** Returns the record for this model checking run. */
     final public Record getRecord() {
         return this.record;
@@ -0,0 +1,450 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.explore.strategy;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import groove.explore.ExploreResult;
+import groove.explore.result.Acceptor;
+import groove.graph.EdgeRole;
+import groove.lts.GTS;
+import groove.lts.GraphState;
+import groove.lts.GraphTransition;
+import groove.verify.BuchiLocation;
+import groove.verify.BuchiTransition;
+import groove.verify.Proposition;
+
+/**
+ * LTL model checking strategy that searches the product of the GTS and the
+ * Buchi automaton for an accepting cycle with several threads at once,
+ * using the CNDFS algorithm of Evangelista, Laarman, Petrucci and van de Pol
+ * ("Improved multi-core nested depth-first search", ATVA 2012).
+ * <p>
+ * Every worker performs a nested depth-first search from the start state,
+ * visiting the successors of each product state in its own random order.
+ * The product states are kept in a shared concurrent store; every product
+ * state has a cyan/blue colour per worker, and a red flag that is shared
+ * between the workers. The search ends as soon as one worker finds an
+ * accepting cycle; the counterexample is the blue search stack of that
+ * worker, in the same form as the one produced by {@link LTLStrategy}.
+ * <p>
+ * The graph states are explored on demand, one at a time, as the GTS
+ * does not support concurrent modification; the product exploration and the
+ * cycle detection run in parallel.
+ * @version $Revision $
+ */
+public class ParallelLTLStrategy extends LTLStrategy {
+    /** Sets the number of worker threads. The default is the number of available processors. */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count should be positive");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /** Returns the number of worker threads. */
+    public int getThreadCount() {
+        return this.threadCount;
+    }
+
+    @Override
+    protected void prepare(GTS gts, GraphState state, Acceptor acceptor) {
+        super.prepare(gts, state, acceptor);
+        this.result = acceptor.getResult();
+        this.explorer.setGTS(gts);
+        this.expansions = new ConcurrentHashMap<>();
+        this.store = new ConcurrentHashMap<>();
+        this.counterExample = new AtomicReference<>();
+        this.failure = new AtomicReference<>();
+        this.stopped = false;
+        this.done = false;
+        // create the transition sets of all reachable locations beforehand,
+        // as they are initialised lazily
+        initLocations(getStartLocation(), new HashSet<BuchiLocation>());
+        this.start = getNode(gts.startState(), getStartLocation());
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !this.done;
+    }
+
+    @Override
+    public GraphState doNext() throws InterruptedException {
+        Thread[] workers = new Thread[this.threadCount];
+        for (int i = 0; i < workers.length; i++) {
+            final int id = i;
+            workers[i] = new Thread(() -> runWorker(id), "ltl-worker-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException exc) {
+            this.stopped = true;
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            throw exc;
+        } finally {
+            this.done = true;
+        }
+        Throwable failure = this.failure.get();
+        if (failure != null) {
+            throw new IllegalStateException("Error in parallel LTL search", failure);
+        }
+        List<GraphState> path = this.counterExample.get();
+        if (path != null) {
+            for (GraphState state : path) {
+                this.result.addState(state);
+            }
+        }
+        return this.start.state;
+    }
+
+    @Override
+    public void finish() {
+        super.finish();
+        this.expansions = null;
+    }
+
+    /** Returns the number of product states reached by the last search. */
+    public int getProductStateCount() {
+        return this.store == null ? 0 : this.store.size();
+    }
+
+    /** Runs the nested search of a single worker, recording any exception. */
+    private void runWorker(int id) {
+        try {
+            dfsBlue(id, id == 0 ? null : new Random(id));
+        } catch (Throwable exc) {
+            this.failure.compareAndSet(null, exc);
+            this.stopped = true;
+        }
+    }
+
+    /**
+     * Outer (blue) depth-first search of a given worker.
+     * @param id the worker number
+     * @param random source for the successor order; if {@code null},
+     * successors are visited in their natural order
+     */
+    private void dfsBlue(int id, Random random) {
+        List<Frame> stack = new ArrayList<>();
+        stack.add(push(this.start, id, random));
+        while (!stack.isEmpty() && !this.stopped) {
+            Frame top = stack.get(stack.size() - 1);
+            if (top.index < top.succs.length) {
+                Node next = top.succs[top.index++];
+                byte colour = next.colours[id];
+                if (colour == CYAN) {
+                    // early cycle detection
+                    if (top.node.isAccepting() || next.isAccepting()) {
+                        report(stack);
+                    }
+                } else if (colour == WHITE && !next.red) {
+                    stack.add(push(next, id, random));
+                }
+            } else {
+                Node node = top.node;
+                if (node.isAccepting() && !dfsRed(node, id, random, stack)) {
+                    return;
+                }
+                node.colours[id] = BLUE;
+                stack.remove(stack.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * Inner (red) depth-first search of a given worker, from an accepting
+     * state that has just been backtracked by the blue search.
+     * @return {@code true} if the search should continue, {@code false} if
+     * a cycle was found or the search was stopped
+     */
+    private boolean dfsRed(Node seed, int id, Random random, List<Frame> blueStack) {
+        Set<Node> visited = new HashSet<>();
+        List<Node> accepting = new ArrayList<>();
+        List<Frame> stack = new ArrayList<>();
+        visited.add(seed);
+        stack.add(new Frame(seed, getSuccessors(seed, random)));
+        while (!stack.isEmpty()) {
+            if (this.stopped) {
+                return false;
+            }
+            Frame top = stack.get(stack.size() - 1);
+            if (top.index < top.succs.length) {
+                Node next = top.succs[top.index++];
+                if (next.colours[id] == CYAN) {
+                    report(blueStack);
+                    return false;
+                }
+                if (!next.red && visited.add(next)) {
+                    if (next.isAccepting()) {
+                        accepting.add(next);
+                    }
+                    stack.add(new Frame(next, getSuccessors(next, random)));
+                }
+            } else {
+                stack.remove(stack.size() - 1);
+            }
+        }
+        // wait until the other workers have finished with the accepting states
+        for (Node node : accepting) {
+            while (!node.red) {
+                if (this.stopped) {
+                    return false;
+                }
+                Thread.yield();
+            }
+        }
+        for (Node node : visited) {
+            node.red = true;
+        }
+        return true;
+    }
+
+    /** Colours a product state cyan for a given worker, and creates its search frame. */
+    private Frame push(Node node, int id, Random random) {
+        node.colours[id] = CYAN;
+        return new Frame(node, getSuccessors(node, random));
+    }
+
+    /**
+     * Records the graph states on a given blue search stack as counterexample,
+     * if no other worker did so before, and stops the search.
+     */
+    private void report(List<Frame> stack) {
+        List<GraphState> path = new ArrayList<>(stack.size());
+        for (Frame frame : stack) {
+            path.add(frame.node.state);
+        }
+        this.counterExample.compareAndSet(null, path);
+        this.stopped = true;
+    }
+
+    /**
+     * Returns the successors of a product state, in an order
+     * determined by a given random generator.
+     * @param random the random generator; if {@code null}, the natural order is returned
+     */
+    private Node[] getSuccessors(Node node, Random random) {
+        Node[] result = node.succs;
+        if (result == null) {
+            result = node.succs = computeSuccessors(node);
+        }
+        if (random != null && result.length > 1) {
+            result = result.clone();
+            for (int i = result.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                Node swap = result[i];
+                result[i] = result[j];
+                result[j] = swap;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the successors of a product state, by combining the
+     * enabled Buchi transitions with the graph transitions.
+     * As in {@link LTLStrategy}, a final graph state gets a
+     * virtual self-loop.
+     */
+    private Node[] computeSuccessors(Node node) {
+        Expansion expansion = expand(node.state);
+        Set<Node> result = new LinkedHashSet<>();
+        for (BuchiTransition buchiTrans : node.location.outTransitions()) {
+            if (buchiTrans.isEnabled(expansion.props)) {
+                BuchiLocation target = buchiTrans.target();
+                if (expansion.targets.length == 0) {
+                    result.add(getNode(node.state, target));
+                } else {
+                    for (GraphState state : expansion.targets) {
+                        result.add(getNode(state, target));
+                    }
+                }
+            }
+        }
+        return result.toArray(new Node[result.size()]);
+    }
+
+    /**
+     * Returns the satisfied propositions and the successor states of a
+     * graph state, exploring the graph state first if necessary.
+     * Exploration is serialised, as the GTS is not thread-safe.
+     */
+    private Expansion expand(GraphState state) {
+        Expansion result = this.expansions.get(state);
+        if (result == null) {
+            synchronized (this.explorer) {
+                result = this.expansions.get(state);
+                if (result == null) {
+                    if (!state.isClosed()) {
+                        this.explorer.setState(state);
+                        this.explorer.play();
+                    }
+                    Set<? extends GraphTransition> transitions = state.getTransitions();
+                    List<GraphState> targets = new ArrayList<>();
+                    for (GraphTransition trans : transitions) {
+                        if (trans.getRole() == EdgeRole.BINARY) {
+                            targets.add(trans.target());
+                        }
+                    }
+                    result = new Expansion(getProps(transitions),
+                        targets.toArray(new GraphState[targets.size()]));
+                    this.expansions.put(state, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Returns the (unique) product state for a given graph state and Buchi location. */
+    private Node getNode(GraphState state, BuchiLocation location) {
+        Key key = new Key(state, location);
+        Node result = this.store.get(key);
+        if (result == null) {
+            Node newNode = new Node(state, location, this.threadCount);
+            result = this.store.putIfAbsent(key, newNode);
+            if (result == null) {
+                result = newNode;
+            }
+        }
+        return result;
+    }
+
+    /** Initialises the transition sets of all locations reachable from a given location. */
+    private void initLocations(BuchiLocation location, Set<BuchiLocation> seen) {
+        if (seen.add(location)) {
+            for (BuchiTransition trans : location.outTransitions()) {
+                initLocations(trans.target(), seen);
+            }
+        }
+    }
+
+    /** Number of worker threads. */
+    private int threadCount = Runtime.getRuntime()
+        .availableProcessors();
+    /** Strategy used to explore single graph states. */
+    private final Strategy explorer = new ExploreStateStrategy();
+    /** The result object of the acceptor. */
+    private ExploreResult result;
+    /** Expansions of the graph states explored so far. */
+    private ConcurrentMap<GraphState,Expansion> expansions;
+    /** Shared store of product states. */
+    private ConcurrentMap<Key,Node> store;
+    /** The start product state. */
+    private Node start;
+    /** The counterexample found by the first successful worker. */
+    private AtomicReference<List<GraphState>> counterExample;
+    /** The first exception thrown by a worker. */
+    private AtomicReference<Throwable> failure;
+    /** Flag signalling the workers to stop searching. */
+    private volatile boolean stopped;
+    /** Flag indicating that the search has been carried out. */
+    private boolean done;
+
+    /** Colour of a product state not yet visited by a worker. */
+    private static final byte WHITE = 0;
+    /** Colour of a product state on the blue search stack of a worker. */
+    private static final byte CYAN = 1;
+    /** Colour of a product state backtracked by the blue search of a worker. */
+    private static final byte BLUE = 2;
+
+    /** Key of a product state in the store. */
+    private static class Key {
+        Key(GraphState state, BuchiLocation location) {
+            this.state = state;
+            this.location = location;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.state) * 31
+                + System.identityHashCode(this.location);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return this.state == other.state && this.location == other.location;
+        }
+
+        final GraphState state;
+        final BuchiLocation location;
+    }
+
+    /** Product state with per-worker colours and a shared red flag. */
+    private static class Node {
+        Node(GraphState state, BuchiLocation location, int threadCount) {
+            this.state = state;
+            this.location = location;
+            this.colours = new byte[threadCount];
+        }
+
+        boolean isAccepting() {
+            return this.location.isAccepting();
+        }
+
+        final GraphState state;
+        final BuchiLocation location;
+        /** Colours of this state, indexed by worker; each entry is only accessed by its worker. */
+        final byte[] colours;
+        /** Flag indicating that no accepting cycle passes through this state. */
+        volatile boolean red;
+        /** Successors in natural order; lazily computed. */
+        volatile Node[] succs;
+    }
+
+    /** Search stack frame, consisting of a product state and its successors. */
+    private static class Frame {
+        Frame(Node node, Node[] succs) {
+            this.node = node;
+            this.succs = succs;
+        }
+
+        final Node node;
+        final Node[] succs;
+        /** Index of the next successor to be visited. */
+        int index;
+    }
+
+    /** Propositions and binary successors of an explored graph state. */
+    private static class Expansion {
+        Expansion(Set<Proposition> props, GraphState[] targets) {
+            this.props = props;
+            this.targets = targets;
+        }
+
+        final Set<Proposition> props;
+        final GraphState[] targets;
+    }
+}
@@ -17,28 +17,36 @@
 package groove.explore.strategy;
 
 import groove.lts.GraphState;
+import groove.sts.HttpSTSChannel;
+import groove.sts.STSChannel;
+import groove.sts.STSWriter;
+import groove.sts.STSWriter.Format;
+import groove.sts.StubSTSChannel;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
 
 /**
  * The exploration strategy will be obtained from a remote server or, if the
  * SymbolicStrategy is used, it sends the sts obtained from the SymbolicStrategy
  * to the remote server.
+ * The STS is streamed to the server in a single request. The host may carry
+ * the query parameters {@code format} (either {@code json}, the default,
+ * or {@code binary}) and {@code chunk}, the number of explored states after
+ * which the elements added to the STS are sent; if {@code chunk} is 0
+ * (the default), the STS is sent when the exploration has finished.
+ * If the host is {@code stub}, the STS is sent to a local stub receiver
+ * rather than over the network.
+ * @see STSWriter
  * @author Vincent de Bruijn
  */
 public class RemoteStrategy extends SymbolicStrategy {
 
     private String host;
-    private HttpURLConnection conn;
-    private Writer out;
-    private BufferedReader in;
+    private Format format = Format.JSON;
+    private int chunkSize;
+    private int stateCount;
+    private STSChannel channel;
+    private STSWriter writer;
 
     /**
      * Sets the remote host.
@@ -46,6 +54,41 @@ public class RemoteStrategy extends SymbolicStrategy {
      */
     public void setHost(String host) {
         this.host = host;
+        int query = host.indexOf('?');
+        if (query >= 0) {
+            for (String par : host.substring(query + 1)
+                .split("&")) {
+                String[] keyValue = par.split("=", 2);
+                if (keyValue.length < 2) {
+                    continue;
+                }
+                switch (keyValue[0]) {
+                case FORMAT_PAR:
+                    this.format = Format.valueOf(keyValue[1].toUpperCase());
+                    break;
+                case CHUNK_PAR:
+                    this.chunkSize = Integer.parseInt(keyValue[1]);
+                    break;
+                default:
+                    // other parameters are meant for the server
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the format in which the STS is sent.
+     */
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Sets the number of explored states after which the new elements of the STS are sent.
+     * @param chunkSize the number of states; if 0, the STS is sent at the end of the exploration
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
     }
 
     @Override
@@ -53,73 +96,59 @@ public class RemoteStrategy extends SymbolicStrategy {
         GraphState state = null;
         // Use the strategy to decide on the next state.
         state = this.strategy.computeNextState();
-        if (state != null) {
-            this.sts.toLocation(this.sts.hostGraphToLocation(state.getGraph()));
-        } else {
-            send(getSTS().toJSON());
+        try {
+            if (state != null) {
+                this.sts.toLocation(this.sts.hostGraphToLocation(state.getGraph()));
+                this.stateCount++;
+                if (this.chunkSize > 0 && this.stateCount % this.chunkSize == 0) {
+                    getWriter().write(getSTS());
+                }
+            } else if (getSTS() != null) {
+                getWriter().write(getSTS());
+                endTransmission();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
         }
         return state;
     }
 
     /**
-     * Connects to the remote server.
+     * Returns the writer of the STS, connecting to the remote server if this
+     * has not yet been done.
      */
-    private void connect() throws MalformedURLException, IOException {
-        System.out.println("Connecting...");
-        // Create a URLConnection object for a URL
-        URL url = new URL(this.host);
-        this.conn = (HttpURLConnection) url.openConnection();
-        this.conn.setDoOutput(true);
-        this.conn.setRequestMethod("POST");
-        this.conn.setReadTimeout(50000);
-        this.conn.setRequestProperty("Content-Type", "application/json");
-
-        // conn.connect();
-
-        /*
-         * BufferedReader error = new BufferedReader(new
-         * InputStreamReader(conn.getErrorStream())); StringBuffer buf = new
-         * StringBuffer(); String line; while ((line = error.readLine()) !=
-         * null) { buf.append(line); }
-         * 
-         * if (buf.length() > 0) {
-         * System.out.println("Error in connection to: "+url);
-         * System.out.println(buf); } else { this.out = new
-         * OutputStreamWriter(conn.getOutputStream()); this.in = new
-         * BufferedReader(new InputStreamReader(conn.getInputStream())); }
-         */
+    private STSWriter getWriter() throws IOException {
+        if (this.writer == null) {
+            System.out.println("Connecting...");
+            if (this.host.startsWith(STUB_HOST)) {
+                this.channel = new StubSTSChannel(this.format);
+            } else {
+                this.channel = new HttpSTSChannel(this.host, this.format);
+            }
+            this.writer = STSWriter.newInstance(this.format, this.channel.open());
+            System.out.printf("Sending STS in %s format...%n", this.format);
+        }
+        return this.writer;
     }
 
     /**
-     * Sends a JSON message to the remote server.
-     * 
-     * @param message A JSON formatted message
+     * Ends the transmission of the STS, and prints the response of the server.
      */
-    private void send(String message) {
-        System.out.println("Sending JSON message...");
-        System.out.println(message);
-        try {
-            if (this.conn == null || this.out == null) {
-                connect();
-                this.out = new OutputStreamWriter(this.conn.getOutputStream());
-            }
-            this.out.write(message);
-            this.out.flush();
-            if (this.conn.getResponseCode() != 200) {
-                this.in = new BufferedReader(new InputStreamReader(this.conn.getErrorStream()));
-                System.out.println("Error in connection to: " + this.conn.getURL());
-            } else if (this.in == null) {
-                this.in = new BufferedReader(new InputStreamReader(this.conn.getInputStream()));
-            }
-            StringBuffer buf = new StringBuffer();
-            String line;
-            while ((line = this.in.readLine()) != null) {
-                buf.append(line);
-            }
-            System.out.println(buf);
-        } catch (IOException e) {
-            throw new IllegalStateException(e);
-        }
+    private void endTransmission() throws IOException {
+        this.writer.close();
+        System.out.printf("Sent %d switch relations in %d chunks%n",
+            this.writer.getRelationCount(),
+            this.writer.getChunkCount());
+        System.out.println(this.channel.close());
+        this.writer = null;
+        this.channel = null;
+        this.stateCount = 0;
     }
 
+    /** Host name for the local stub receiver. */
+    public static final String STUB_HOST = "stub";
+    /** Host query parameter for the format. */
+    private static final String FORMAT_PAR = "format";
+    /** Host query parameter for the chunk size. */
+    private static final String CHUNK_PAR = "chunk";
 }
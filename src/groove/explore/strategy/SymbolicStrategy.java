@@ -125,7 +125,7 @@ public class SymbolicStrategy extends GTSStrategy {
                     RuleTransition transition = getNextState().applyMatch(next);
                     Location l = this.sts.hostGraphToLocation(transition.target()
                         .getGraph());
-                    current.addSwitchRelation(sr, l);
+                    this.sts.addSwitchRelation(current, sr, l);
                 }
                 if (emptyGuard) {
                     // A higher priority rule is always applicable from the current location,
@@ -81,17 +81,8 @@ public class LTSReporter extends AExplorationReporter {
         // Create the LTS view to be exported.
         MultiGraph ltsGraph = lts.toPlainGraph(labels, filter, answer);
         // Export GTS.
-        String ltsName;
-        File dir = new File(filePattern);
-        if (dir.isDirectory()) {
-            ltsName = PLACEHOLDER;
-        } else {
-            ltsName = dir.getName();
-            dir = dir.getParentFile();
-        }
-        ltsName = ltsName.replace(PLACEHOLDER, lts.getGrammar().getId());
-        File outFile = new File(dir, ltsName);
-        Pair<FileType,Exporter> gtsFormat = Exporters.getAcceptingFormat(ltsName);
+        File outFile = toFile(lts, filePattern);
+        Pair<FileType,Exporter> gtsFormat = Exporters.getAcceptingFormat(outFile.getName());
         if (gtsFormat != null) {
             try {
                 gtsFormat.two().doExport(new Exportable(ltsGraph), outFile, gtsFormat.one());
@@ -107,6 +98,26 @@ public class LTSReporter extends AExplorationReporter {
         return outFile;
     }
 
+    /**
+     * Returns the file to which a given LTS is to be saved.
+     * @param lts the LTS to be saved
+     * @param filePattern either a directory, or a file name in which
+     * {@link #PLACEHOLDER} is to be replaced by the grammar ID
+     */
+    static File toFile(GTS lts, String filePattern) {
+        String ltsName;
+        File dir = new File(filePattern);
+        if (dir.isDirectory()) {
+            ltsName = PLACEHOLDER;
+        } else {
+            ltsName = dir.getName();
+            dir = dir.getParentFile();
+        }
+        ltsName = ltsName.replace(PLACEHOLDER, lts.getGrammar()
+            .getId());
+        return new File(dir, ltsName);
+    }
+
     /** Placeholder in LTS and state filename patterns to insert further information. */
     static private final String PLACEHOLDER = "#";
 }
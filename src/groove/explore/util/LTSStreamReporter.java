@@ -0,0 +1,242 @@
+/* GROOVE: GRaphs for Object Oriented VErification
+ * Copyright 2003--2011 University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * $Id$
+ */
+package groove.explore.util;
+
+import groove.explore.Exploration;
+import groove.io.FileType;
+import groove.io.graph.LTSStreamWriter;
+import groove.io.graph.LTSStreamWriter.Compression;
+import groove.lts.GTS;
+import groove.lts.GTSListener;
+import groove.lts.GraphState;
+import groove.lts.GraphTransition;
+import groove.lts.Status.Flag;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Exploration reporter that streams the LTS to a file during exploration,
+ * rather than saving it afterwards as the {@link LTSReporter} does.
+ * States and transitions are written as soon as they are added to the GTS;
+ * the LTS is therefore never converted into a graph.
+ * The output format is the CADP {@code .aut} format if the file has
+ * the corresponding extension, and the binary format of
+ * {@link groove.io.graph.BinaryLTSWriter} otherwise.
+ * Special states are labelled as in {@link GTS#toPlainGraph}; however,
+ * states that only turn out to be absent after they have been added
+ * are nevertheless included.
+ * @version $Revision $
+ */
+public class LTSStreamReporter extends AExplorationReporter implements GTSListener {
+    /**
+     * Constructs a new streaming LTS reporter.
+     * @param filePattern output file name pattern, as for the {@link LTSReporter}
+     * @param labels options to label particular special states
+     * @param compression compression of the output
+     */
+    public LTSStreamReporter(String filePattern, LTSLabels labels, Compression compression,
+        LogReporter logger) {
+        this.filePattern = filePattern;
+        this.labels = labels == null ? LTSLabels.DEFAULT : labels;
+        this.compression = compression;
+        this.logger = logger;
+    }
+
+    @Override
+    public synchronized void start(Exploration exploration, GTS gts) {
+        super.start(exploration, gts);
+        this.error = null;
+        File file = LTSReporter.toFile(gts, this.filePattern);
+        if (!FileType.hasAnyExtension(file)) {
+            file = FileType.GLTS.addExtension(file);
+        }
+        try {
+            this.writer = LTSStreamWriter.open(file, this.compression, gts.startState()
+                .getNumber());
+            // write the part of the GTS that was explored before
+            for (GraphState state : gts.nodeSet()) {
+                writeState(state);
+                if (state.isFinal()) {
+                    writeFinal(state);
+                }
+            }
+            for (GraphTransition transition : gts.edgeSet()) {
+                writeTransition(transition);
+            }
+        } catch (IOException exc) {
+            fail(exc);
+        }
+        gts.addLTSListener(this);
+    }
+
+    @Override
+    public synchronized void stop(GTS gts) {
+        gts.removeLTSListener(this);
+        if (this.writer == null) {
+            return;
+        }
+        try {
+            if (this.labels.showOpen()) {
+                for (GraphState state : gts.nodeSet()) {
+                    if (!state.isClosed() && isIncluded(state)) {
+                        writeLabel(state, this.labels.getOpenLabel());
+                    }
+                }
+            }
+            if (this.labels.showResult()) {
+                for (GraphState state : getExploration().getResult()) {
+                    if (isIncluded(state)) {
+                        writeLabel(state, this.labels.getResultLabel());
+                    }
+                }
+            }
+            this.writer.close();
+        } catch (IOException exc) {
+            fail(exc);
+        }
+    }
+
+    @Override
+    public synchronized void addUpdate(GTS gts, GraphState state) {
+        if (this.writer != null) {
+            try {
+                writeState(state);
+            } catch (IOException exc) {
+                fail(exc);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void addUpdate(GTS gts, GraphTransition transition) {
+        if (this.writer != null) {
+            try {
+                writeTransition(transition);
+            } catch (IOException exc) {
+                fail(exc);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void statusUpdate(GTS gts, GraphState state, int change) {
+        if (this.writer != null && Flag.FINAL.test(change) && state.isFinal()) {
+            try {
+                writeFinal(state);
+            } catch (IOException exc) {
+                fail(exc);
+            }
+        }
+    }
+
+    @Override
+    public void report() throws IOException {
+        if (this.error != null) {
+            throw this.error;
+        }
+        this.logger.append("LTS streamed to %s (%d states, %d transitions)%n",
+            this.writer.getFile()
+                .getPath(),
+            this.writer.getStateCount(),
+            this.writer.getTransitionCount());
+    }
+
+    /** Writes a state, together with the labels that are known when it is added. */
+    private void writeState(GraphState state) throws IOException {
+        if (!isIncluded(state)) {
+            return;
+        }
+        this.writer.addState(state.getNumber());
+        LTSLabels labels = this.labels;
+        if (labels.showStart() && getGTS().startState() == state) {
+            writeLabel(state, labels.getStartLabel());
+        }
+        if (labels.showNumber()) {
+            writeLabel(state, labels.getNumberLabel()
+                .replaceAll("#", "" + state.getNumber()));
+        }
+        if (labels.showTransience() && state.isTransient()) {
+            writeLabel(state, labels.getTransienceLabel()
+                .replaceAll("#", "" + state.getActualFrame()
+                    .getTransience()));
+        }
+        if (labels.showRecipes() && state.isInternalState()) {
+            writeLabel(state, labels.getRecipeLabel()
+                .replaceAll("#", "" + state.getActualFrame()
+                    .getRecipe()
+                    .getQualName()));
+        }
+    }
+
+    /** Writes the final state label, if it is to be shown. */
+    private void writeFinal(GraphState state) throws IOException {
+        if (this.labels.showFinal() && isIncluded(state)) {
+            writeLabel(state, this.labels.getFinalLabel());
+        }
+    }
+
+    /** Writes a transition, unless it is an internal step that is not to be shown. */
+    private void writeTransition(GraphTransition transition) throws IOException {
+        if (transition.isInternalStep() && !this.labels.showRecipes()) {
+            return;
+        }
+        this.writer.addTransition(transition.source()
+            .getNumber(),
+            transition.label()
+                .text(),
+            transition.target()
+                .getNumber());
+    }
+
+    /** Writes a self-loop with a given label on a given state. */
+    private void writeLabel(GraphState state, String label) throws IOException {
+        this.writer.addTransition(state.getNumber(), label, state.getNumber());
+    }
+
+    /** Indicates if a given state is to be included in the output. */
+    private boolean isIncluded(GraphState state) {
+        return !state.isInternalState() || this.labels.showRecipes();
+    }
+
+    /**
+     * Records the first error that occurred while writing,
+     * and stops writing.
+     */
+    private void fail(IOException exc) {
+        if (this.error == null) {
+            this.error = exc;
+        }
+        if (this.writer != null) {
+            try {
+                this.writer.close();
+            } catch (IOException e) {
+                // the first error is reported
+            }
+        }
+        this.writer = null;
+    }
+
+    private final LogReporter logger;
+    private final String filePattern;
+    private final LTSLabels labels;
+    private final Compression compression;
+    /** The writer for the current exploration; {@code null} if writing has failed. */
+    private LTSStreamWriter writer;
+    /** The first error that occurred while writing. */
+    private IOException error;
+}
@@ -28,8 +28,10 @@ import java.util.List;
 import groove.explore.Exploration;
 import groove.explore.ExploreResult;
 import groove.explore.Verbosity;
+import groove.explore.result.CTLAcceptor;
 import groove.grammar.Rule;
 import groove.grammar.host.HostFactory;
+import groove.grammar.host.ReconstructionStatistics;
 import groove.graph.AGraph;
 import groove.graph.iso.CertificateStrategy;
 import groove.graph.iso.IsoChecker;
@@ -43,6 +45,7 @@ import groove.lts.GraphTransition;
 import groove.lts.MatchApplier;
 import groove.lts.MatchCollector;
 import groove.lts.Status.Flag;
+import groove.match.plan.PlanStatistics;
 import groove.transform.Record;
 import groove.util.Groove;
 import groove.util.Reporter;
@@ -175,6 +178,23 @@ public class StatisticsReporter extends AExplorationReporter {
             reportIsomorphism();
             reportCacheStatistics();
         }
+        if (PlanStatistics.isEnabled()) {
+            reportSearchPlans();
+        }
+    }
+
+    /** Reports on the cost-based search plans. */
+    private void reportSearchPlans() {
+        PlanStatistics statistics = PlanStatistics.instance();
+        String format = "    %-20s";
+        String intFormat = format + "%d%n";
+        emit(HIGH, "%nSearch plans%n");
+        emit(HIGH, intFormat, "Sampled graphs:", statistics.getSampleCount());
+        emit(HIGH, intFormat, "Re-plannings:", statistics.getEpoch());
+        emit(HIGH, intFormat, "Plan swaps:", statistics.getPlanSwapCount());
+        for (String line : statistics.getReport()) {
+            emit(HIGH, "    %s%n", line);
+        }
     }
 
     /**
@@ -217,6 +237,9 @@ public class StatisticsReporter extends AExplorationReporter {
             emit(HIGH, subFormatString, "Final:", getGTS().getFinalStateCount());
         }
         emit(MEDIUM, formatString, "Transitions:", getGTS().getTransitionCount());
+        if (getExploration().getAcceptor() instanceof CTLAcceptor) {
+            emit(MEDIUM, "%s%n", getExploration().getLastMessage());
+        }
     }
 
     /** Gives some statistics regarding the graphs and deltas. */
@@ -228,6 +251,12 @@ public class StatisticsReporter extends AExplorationReporter {
         emit(HIGH, intFormatString, "Modifiable:", AGraph.getModifiableGraphCount());
         emit(HIGH, intFormatString, "Frozen:", AbstractGraphState.getFrozenGraphCount());
         emit(HIGH, floatFormatString, "Bytes/state:", getGTS().getBytesPerState());
+        ReconstructionStatistics reconstructions = ReconstructionStatistics.instance();
+        emit(HIGH, intFormatString, "Reconstructions:", reconstructions.getReconstructionCount());
+        emit(HIGH, intFormatString, "Replayed deltas:", reconstructions.getReplayCount());
+        emit(HIGH, intFormatString, "Copies:", reconstructions.getCopyCount());
+        emit(HIGH, intFormatString, "Checkpoints:", reconstructions.getCheckpointCount());
+        emit(HIGH, floatFormatString, "Copy bound:", reconstructions.getCopyBound());
     }
 
     /** Gives some statistics regarding the generated transitions. */
@@ -237,6 +266,8 @@ public class StatisticsReporter extends AExplorationReporter {
         String ratioFormat = format + "%d/%d%n";
         emit(HIGH, "%nTransition count%n");
         emit(HIGH, intFormat, "Reused:", MatchCollector.getEventReuse());
+        emit(HIGH, intFormat, "Local searches:", MatchCollector.getLocalCount());
+        emit(HIGH, intFormat, "Parallel frames:", MatchCollector.getParallelCount());
         emit(HIGH, intFormat, "Confluent:", MatchApplier.getConfluentDiamondCount());
         emit(HIGH, intFormat, "Events:", Record.getEventCount());
         emit(HIGH,
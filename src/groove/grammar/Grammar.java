@@ -312,6 +312,33 @@ public class Grammar {
         this.startGraph = startGraph;
     }
 
+    /**
+     * Returns a fixed copy of this grammar with a different start graph.
+     * All other components, i.e., the actions, properties, type graph,
+     * control automaton and Prolog environment, are shared with this grammar.
+     * This is only allowed if this grammar is fixed.
+     * @param startGraph the (fixed) start graph of the copy; should be typed
+     * by the type graph of this grammar
+     * @throws IllegalStateException if this grammar is not fixed
+     */
+    public Grammar newGrammar(HostGraph startGraph) {
+        testFixed(true);
+        assert startGraph.isFixed();
+        Grammar result = new Grammar();
+        result.priorityActionMap.putAll(this.priorityActionMap);
+        result.actions.addAll(this.actions);
+        result.nameRuleMap.putAll(this.nameRuleMap);
+        result.nameRecipeMap.putAll(this.nameRecipeMap);
+        result.allRules.addAll(this.allRules);
+        result.properties = this.properties;
+        result.typeGraph = this.typeGraph;
+        result.control = this.control;
+        result.prologEnvironment = this.prologEnvironment;
+        result.startGraph = startGraph;
+        result.fixed = true;
+        return result;
+    }
+
     /**
      * The start graph of this graph grammar.
      */
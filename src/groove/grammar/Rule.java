@@ -28,6 +28,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 import groove.algebra.AlgebraFamily;
@@ -38,6 +40,7 @@ import groove.grammar.host.HostGraph;
 import groove.grammar.host.HostNode;
 import groove.grammar.host.ValueNode;
 import groove.grammar.rule.Anchor;
+import groove.grammar.rule.AnchorKey;
 import groove.grammar.rule.DefaultRuleNode;
 import groove.grammar.rule.LabelVar;
 import groove.grammar.rule.MatchChecker;
@@ -46,8 +49,11 @@ import groove.grammar.rule.RuleElement;
 import groove.grammar.rule.RuleGraph;
 import groove.grammar.rule.RuleNode;
 import groove.grammar.rule.RuleToHostMap;
+import groove.grammar.rule.VariableNode;
+import groove.grammar.type.TypeEdge;
 import groove.grammar.type.TypeGraph;
 import groove.grammar.type.TypeGuard;
+import groove.grammar.type.TypeNode;
 import groove.graph.GraphProperties;
 import groove.graph.GraphProperties.Key;
 import groove.match.Matcher;
@@ -482,6 +488,286 @@ public class Rule implements Action, Fixable {
         return visitor.getResult();
     }
 
+    /**
+     * Indicates if the matches of this rule that are new with respect to a
+     * predecessor host graph can be found by seeding the search from the
+     * elements added to the predecessor, as is done by
+     * {@link #traverseMatches(HostGraph, RuleToHostMap, Iterable, Iterable, Visitor)}.
+     * This is the case if the rule has no dangling edge check,
+     * only pattern edges with a fixed type, and no application conditions
+     * besides its (positive) pattern and simple negative conditions.
+     * In the presence of negative conditions, the seeded search is only complete
+     * if moreover the predecessor transition did not remove any elements
+     * that may unblock them; see {@link #isUnblockedBy(Iterable, Iterable)}.
+     */
+    public boolean isLocalisable() {
+        Boolean result = this.localisable;
+        if (result == null) {
+            this.localisable = result = computeLocalisable();
+        }
+        return result;
+    }
+
+    private boolean computeLocalisable() {
+        Condition condition = getCondition();
+        if (!isTop() || this.checkDangling || !condition.hasPattern()) {
+            return false;
+        }
+        RuleGraph pattern = condition.getPattern();
+        if (!pattern.varSet()
+            .isEmpty() || !hasFixedTypes(pattern.edgeSet())) {
+            return false;
+        }
+        for (RuleNode node : pattern.nodeSet()) {
+            if (node instanceof VariableNode) {
+                if (!((VariableNode) node).hasConstant() && pattern.edgeSet(node)
+                    .isEmpty()) {
+                    return false;
+                }
+            } else if (!(node instanceof DefaultRuleNode) || !node.getTypeGuards()
+                .isEmpty()) {
+                return false;
+            }
+        }
+        Set<TypeEdge> blockEdgeTypes = new HashSet<>();
+        Set<TypeNode> blockNodeTypes = new HashSet<>();
+        for (Condition sub : condition.getSubConditions()) {
+            if (sub.getOp() != Condition.Op.NOT || !sub.hasPattern() || !sub.getSubConditions()
+                .isEmpty()) {
+                return false;
+            }
+            RuleGraph subPattern = sub.getPattern();
+            if (!hasFixedTypes(subPattern.edgeSet())) {
+                return false;
+            }
+            for (RuleEdge edge : subPattern.edgeSet()) {
+                blockEdgeTypes.addAll(edge.getMatchingTypes());
+            }
+            for (RuleNode node : subPattern.nodeSet()) {
+                if (!sub.getRoot()
+                    .containsNode(node)) {
+                    blockNodeTypes.addAll(node.getMatchingTypes());
+                }
+            }
+        }
+        this.blockEdgeTypes = blockEdgeTypes;
+        this.blockNodeTypes = blockNodeTypes;
+        return true;
+    }
+
+    /** Tests if all edges in a given set have a fixed type and an atomic label. */
+    private boolean hasFixedTypes(Set<? extends RuleEdge> edges) {
+        for (RuleEdge edge : edges) {
+            if (edge.getType() == null || !edge.label()
+                .isAtom()
+                || !edge.getTypeGuards()
+                    .isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indicates if the removal of given nodes and edges may have unblocked
+     * a match of this rule, by destroying all matches of one of its negative conditions.
+     * If this is not the case, every new match after the removal
+     * uses one of the added elements.
+     * Should only be invoked if {@link #isLocalisable()} holds.
+     * @param removedNodes the removed nodes; {@code null} if there are none
+     * @param removedEdges the removed edges, including the incident edges
+     * of the removed nodes; {@code null} if there are none
+     */
+    public boolean isUnblockedBy(Iterable<HostNode> removedNodes, Iterable<HostEdge> removedEdges) {
+        assert isLocalisable();
+        if (removedNodes != null && !this.blockNodeTypes.isEmpty()) {
+            for (HostNode node : removedNodes) {
+                if (this.blockNodeTypes.contains(node.getType())) {
+                    return true;
+                }
+            }
+        }
+        if (removedEdges != null && !this.blockEdgeTypes.isEmpty()) {
+            for (HostEdge edge : removedEdges) {
+                if (this.blockEdgeTypes.contains(edge.getType())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Traverses those matches of this rule on a given host graph that
+     * use at least one of a given set of added nodes and edges,
+     * and calls the visitor's visit method on all of them,
+     * until the first time the visitor returns {@code false}.
+     * Every match is visited once, even if it uses several added elements.
+     * The search is seeded in turn by every pairing of an added element
+     * with a compatible pattern element, so that its cost depends on the
+     * number of added elements rather than on the size of the host graph.
+     * Should only be invoked if {@link #isLocalisable()} holds.
+     * @param host the graph in which the match is to be found
+     * @param contextMap a matching of the pattern of this condition; may be
+     *        <code>null</code> if the condition is ground.
+     * @param addedNodes the added nodes; {@code null} if there are none
+     * @param addedEdges the added edges; {@code null} if there are none
+     * @param visitor the visitor invoked for all the matches
+     * @return the result of the visitor after the traversal
+     * @see #traverseMatches(HostGraph, RuleToHostMap, Visitor)
+     */
+    public <R> R traverseMatches(final HostGraph host, RuleToHostMap contextMap,
+        Iterable<HostNode> addedNodes, Iterable<HostEdge> addedEdges,
+        final Visitor<Proof,R> visitor) {
+        assert isFixed() && isLocalisable();
+        RuleToHostMap context = contextMap == null ? host.getFactory()
+            .createRuleToHostMap() : contextMap;
+        final Set<RuleToHostMap> visited = new HashSet<>();
+        Visitor<TreeMatch,R> matchVisitor = new Visitor<TreeMatch,R>() {
+            @Override
+            protected boolean process(TreeMatch match) {
+                assert visitor.isContinue();
+                RuleToHostMap patternMap = match.getPatternMap();
+                if (visited.add(patternMap) && isValidPatternMap(host, patternMap)) {
+                    match.traverseProofs(visitor);
+                }
+                return visitor.isContinue();
+            }
+        };
+        RuleGraph pattern = getCondition().getPattern();
+        boolean injective = getCondition().isInjective();
+        if (addedEdges != null) {
+            for (HostEdge hostEdge : addedEdges) {
+                List<RuleEdge> ruleEdges = getSeedEdgeMap().get(hostEdge.getType());
+                if (ruleEdges == null) {
+                    continue;
+                }
+                for (RuleEdge ruleEdge : ruleEdges) {
+                    if (!visitor.isContinue()) {
+                        return visitor.getResult();
+                    }
+                    RuleToHostMap seedMap = host.getFactory()
+                        .createRuleToHostMap();
+                    seedMap.putAll(context);
+                    if (!putSeed(seedMap, ruleEdge.source(), hostEdge.source(), injective)
+                        || !putSeed(seedMap, ruleEdge.target(), hostEdge.target(), injective)) {
+                        continue;
+                    }
+                    seedMap.putEdge(ruleEdge, hostEdge);
+                    getLocalMatcher(context, ruleEdge).traverse(host, seedMap, matchVisitor);
+                }
+            }
+        }
+        if (addedNodes != null) {
+            for (HostNode hostNode : addedNodes) {
+                for (RuleNode ruleNode : pattern.nodeSet()) {
+                    if (!visitor.isContinue()) {
+                        return visitor.getResult();
+                    }
+                    // nodes with incident edges are found through the added edges
+                    if (!pattern.edgeSet(ruleNode)
+                        .isEmpty() || context.getNode(ruleNode) != null) {
+                        continue;
+                    }
+                    RuleToHostMap seedMap = host.getFactory()
+                        .createRuleToHostMap();
+                    seedMap.putAll(context);
+                    if (!putSeed(seedMap, ruleNode, hostNode, injective)) {
+                        continue;
+                    }
+                    getLocalMatcher(context, ruleNode).traverse(host, seedMap, matchVisitor);
+                }
+            }
+        }
+        return visitor.getResult();
+    }
+
+    /**
+     * Returns the mapping from host edge types to the pattern edges they may match.
+     * The map is only published once complete; should it be computed
+     * by several threads at once, the outcomes are equal.
+     */
+    private Map<TypeEdge,List<RuleEdge>> getSeedEdgeMap() {
+        Map<TypeEdge,List<RuleEdge>> result = this.seedEdgeMap;
+        if (result == null) {
+            result = new HashMap<>();
+            for (RuleEdge ruleEdge : getCondition().getPattern()
+                .edgeSet()) {
+                for (TypeEdge type : ruleEdge.getMatchingTypes()) {
+                    List<RuleEdge> ruleEdges = result.get(type);
+                    if (ruleEdges == null) {
+                        result.put(type, ruleEdges = new ArrayList<>());
+                    }
+                    ruleEdges.add(ruleEdge);
+                }
+            }
+            this.seedEdgeMap = result;
+        }
+        return result;
+    }
+
+    /**
+     * Adds a node image to a seed map, if it is compatible with the
+     * node type and the images already in the map.
+     * @return {@code true} if the image was added or was already there
+     */
+    private boolean putSeed(RuleToHostMap seedMap, RuleNode ruleNode, HostNode hostNode,
+        boolean injective) {
+        HostNode image = seedMap.getNode(ruleNode);
+        if (image != null) {
+            return image == hostNode;
+        }
+        if (!ruleNode.getMatchingTypes()
+            .contains(hostNode.getType())) {
+            return false;
+        }
+        if (ruleNode instanceof VariableNode && ((VariableNode) ruleNode).hasConstant()) {
+            // seed nodes are not checked by the matcher
+            ValueNode valueNode = (ValueNode) hostNode;
+            if (!valueNode.getAlgebra()
+                .toValueFromConstant(((VariableNode) ruleNode).getConstant())
+                .equals(valueNode.getValue())) {
+                return false;
+            }
+        }
+        if (injective && seedMap.nodeMap()
+            .containsValue(hostNode)) {
+            return false;
+        }
+        seedMap.putNode(ruleNode, hostNode);
+        return true;
+    }
+
+    /**
+     * Returns the matcher for a given context map, additionally seeded
+     * by a given pattern element.
+     */
+    private Matcher getLocalMatcher(RuleToHostMap contextMap, AnchorKey seedKey) {
+        BitSet initPars = getInitPars(contextMap);
+        Map<AnchorKey,Matcher> matchers = this.localMatcherMap.get(initPars);
+        if (matchers == null) {
+            matchers = new ConcurrentHashMap<>();
+            Map<AnchorKey,Matcher> oldMatchers =
+                this.localMatcherMap.putIfAbsent(initPars, matchers);
+            if (oldMatchers != null) {
+                matchers = oldMatchers;
+            }
+        }
+        Matcher result = matchers.get(seedKey);
+        if (result == null) {
+            Anchor seed = new Anchor(contextMap.nodeMap()
+                .keySet());
+            seed.add(seedKey);
+            result = createMatcher(seed, contextMap.getFactory()
+                .isSimple());
+            Matcher oldResult = matchers.putIfAbsent(seedKey, result);
+            if (oldResult != null) {
+                result = oldResult;
+            }
+        }
+        return result;
+    }
+
     /**
      * Lazily creates and returns a matcher for rule events of this rule. The
      * matcher will try to extend anchor maps to full matches. This is in
@@ -510,22 +796,17 @@ public class Rule implements Action, Fixable {
         Matcher result;
         boolean simple = seedMap.getFactory()
             .isSimple();
-        Signature<UnitPar.RulePar> sig = getSignature();
-        if (!sig.isEmpty()) {
-            int sigSize = sig.size();
-            BitSet initPars = new BitSet(sigSize);
-            for (int i = 0; i < sigSize; i++) {
-                // set initPars if the seed map contains a value
-                // for this parameter
-                initPars.set(i, seedMap.nodeMap()
-                    .containsKey(sig.getPar(i)
-                        .getNode()));
-            }
+        if (!getSignature().isEmpty()) {
+            BitSet initPars = getInitPars(seedMap);
             result = this.matcherMap.get(initPars);
             if (result == null) {
                 Anchor seed = new Anchor(seedMap.nodeMap()
                     .keySet());
-                this.matcherMap.put(initPars, result = createMatcher(seed, simple));
+                result = createMatcher(seed, simple);
+                Matcher oldResult = this.matcherMap.putIfAbsent(initPars, result);
+                if (oldResult != null) {
+                    result = oldResult;
+                }
             }
         } else {
             result = getMatcher(simple);
@@ -533,6 +814,19 @@ public class Rule implements Action, Fixable {
         return result;
     }
 
+    /** Returns the set of indices of the parameters that have a value in a given seed map. */
+    private BitSet getInitPars(RuleToHostMap seedMap) {
+        Signature<UnitPar.RulePar> sig = getSignature();
+        int sigSize = sig.size();
+        BitSet result = new BitSet(sigSize);
+        for (int i = 0; i < sigSize; i++) {
+            result.set(i, seedMap.nodeMap()
+                .containsKey(sig.getPar(i)
+                    .getNode()));
+        }
+        return result;
+    }
+
     /**
      * Returns a (precomputed) match strategy for the target
      * pattern, based on the rule seed.
@@ -542,11 +836,16 @@ public class Rule implements Action, Fixable {
     public Matcher getMatcher(boolean simple) {
         Matcher result = simple ? this.simpleMatcher : this.multiMatcher;
         if (result == null) {
-            result = createMatcher(getSeed(), simple);
-            if (simple) {
-                this.simpleMatcher = result;
-            } else {
-                this.multiMatcher = result;
+            synchronized (this) {
+                result = simple ? this.simpleMatcher : this.multiMatcher;
+                if (result == null) {
+                    result = createMatcher(getSeed(), simple);
+                    if (simple) {
+                        this.simpleMatcher = result;
+                    } else {
+                        this.multiMatcher = result;
+                    }
+                }
             }
         }
         return result;
@@ -557,14 +856,14 @@ public class Rule implements Action, Fixable {
      * <code>null</code>; set by {@link #getMatcher(boolean)} upon its first
      * invocation.
      */
-    private Matcher simpleMatcher;
+    private volatile Matcher simpleMatcher;
 
     /**
      * The fixed multi-graph matching strategy for this graph rule. Initially
      * <code>null</code>; set by {@link #getMatcher(boolean)} upon its first
      * invocation.
      */
-    private Matcher multiMatcher;
+    private volatile Matcher multiMatcher;
 
     /**
      * Callback method to create a match strategy. Typically invoked once, at
@@ -1477,8 +1776,32 @@ public class Rule implements Action, Fixable {
 
     /**
      * Mapping from sets of initialised parameters to match strategies.
+     * Concurrent, as matches may be searched in parallel.
+     */
+    private final ConcurrentMap<BitSet,Matcher> matcherMap = new ConcurrentHashMap<>();
+
+    /**
+     * Mapping from sets of initialised parameters and additional seed elements
+     * to match strategies, used for localised matching.
+     * Concurrent, as matches may be searched in parallel.
+     */
+    private final ConcurrentMap<BitSet,Map<AnchorKey,Matcher>> localMatcherMap =
+        new ConcurrentHashMap<>();
+
+    /** Mapping from edge types to the pattern edges they may match; lazily computed. */
+    private volatile Map<TypeEdge,List<RuleEdge>> seedEdgeMap;
+
+    /** Flag indicating if this rule admits localised matching; {@code null} if not yet computed. */
+    private Boolean localisable;
+
+    /** Edge types that occur in negative conditions; computed with {@link #localisable}. */
+    private Set<TypeEdge> blockEdgeTypes;
+
+    /**
+     * Node types that occur in negative conditions outside their root;
+     * computed with {@link #localisable}.
      */
-    private final Map<BitSet,Matcher> matcherMap = new HashMap<>();
+    private Set<TypeNode> blockNodeTypes;
 
     /** The matcher for events of this rule. */
     private Matcher eventMatcher;
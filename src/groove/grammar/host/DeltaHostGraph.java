@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.eclipse.jdt.annotation.NonNull;
 
@@ -332,6 +333,18 @@ public final class DeltaHostGraph extends AGraph<HostNode,HostEdge>
         return this.nodeEdgeStore;
     }
 
+    /**
+     * Initialises all the data structures, including the lazily computed
+     * label and incidence maps, so that the graph can subsequently
+     * be read by several threads at once.
+     */
+    public void initAllData() {
+        initData();
+        getLabelEdgeStore();
+        getInEdgeStore();
+        getOutEdgeStore();
+    }
+
     /**
      * Initialises all the data structures, if this has not yet been done.
      */
@@ -357,22 +370,28 @@ public final class DeltaHostGraph extends AGraph<HostNode,HostEdge>
                 }
                 // now iteratively construct the intermediate graphs
                 backward.initData();
+                ReconstructionStatistics statistics = ReconstructionStatistics.instance();
+                statistics.recordReconstruction(basisChain.size());
                 int deltaSize = 0;
                 int totalDelta = 0;
                 int chainLength = 0;
                 while (!basisChain.isEmpty()) {
                     DeltaHostGraph forward = basisChain.pop();
+                    ACCESS_COUNT.incrementAndGet(forward);
                     DataTarget target = forward.basis.getDataTarget(chainLength, totalDelta);
                     if (target instanceof CopyTarget) {
                         deltaSize = 0;
                         totalDelta = 0;
                         chainLength = 0;
                     }
-                    deltaSize += forward.delta.size();
+                    int size = forward.delta.size();
+                    deltaSize += size;
                     totalDelta += deltaSize;
                     chainLength += 1;
                     // apply the delta to fill the structures
+                    long start = System.nanoTime();
                     forward.delta.applyDelta(target);
+                    statistics.recordReplay(size, System.nanoTime() - start);
                     target.install(forward);
                 }
             }
@@ -392,10 +411,22 @@ public final class DeltaHostGraph extends AGraph<HostNode,HostEdge>
         DataTarget result;
         // data should have been initialised
         assert isDataInitialised();
+        ReconstructionStatistics statistics = ReconstructionStatistics.instance();
+        long start = System.nanoTime();
+        boolean checkpoint = false;
         if (exceedsCopyBound(chainLength, totalDelta)) {
             result = new CopyTarget(!this.copyData);
+        } else if (this.copyData) {
+            result = new CopyTarget(false);
+        } else if (statistics.isCheckpoint(this.accessCount)) {
+            // keep the data of this graph, as it is frequently reconstructed
+            result = new CopyTarget(true);
+            checkpoint = true;
         } else {
-            result = this.copyData ? new CopyTarget(false) : new SwingTarget();
+            result = new SwingTarget();
+        }
+        if (result instanceof CopyTarget) {
+            statistics.recordCopy(size(), System.nanoTime() - start, checkpoint);
         }
         return result;
     }
@@ -403,9 +434,38 @@ public final class DeltaHostGraph extends AGraph<HostNode,HostEdge>
     /**
      * Indicates if a given combined delta size and/or chain length is large enough
      * to prefer copying the data structures over sharing.
+     * The bound on the delta size is determined by the {@link ReconstructionStatistics}.
      */
     private boolean exceedsCopyBound(int chainLength, int totalDelta) {
-        return totalDelta > 2 * size() || chainLength > MAX_CHAIN_LENGTH;
+        return totalDelta > ReconstructionStatistics.instance()
+            .getCopyBound() * size() || chainLength > MAX_CHAIN_LENGTH;
+    }
+
+    /**
+     * Returns the number of times this graph has been reconstructed
+     * from a basis graph, after its data structures had been passed on
+     * or discarded.
+     */
+    public int getReconstructionCount() {
+        return this.accessCount;
+    }
+
+    /**
+     * Returns the basis of this graph, i.e., the graph to which
+     * {@link #getDelta()} is applied to obtain this graph.
+     * @return the basis, or {@code null} if this graph is
+     * entirely determined by its delta
+     */
+    public DeltaHostGraph getBasis() {
+        return this.basis;
+    }
+
+    /**
+     * Returns the delta of this graph with respect to its basis.
+     * If the basis is {@code null}, the delta adds all elements of the graph.
+     */
+    public DeltaApplier getDelta() {
+        return this.delta;
     }
 
     /**
@@ -471,6 +531,8 @@ public final class DeltaHostGraph extends AGraph<HostNode,HostEdge>
     HostEdgeStore<@NonNull TypeLabel> labelEdgeStore;
     /** The certificate strategy of this graph, set on demand. */
     private Reference<CertificateStrategy> certifier;
+    /** The number of times this graph has been reconstructed. */
+    private volatile int accessCount;
     /**
      * Flag indicating that data should be copied rather than shared in
      * {@link #getDataTarget(int,int)}.
@@ -491,6 +553,9 @@ public final class DeltaHostGraph extends AGraph<HostNode,HostEdge>
      * {@link ConcurrentModificationException}s during matching.
      */
     static private final boolean ALIAS_SETS = true;
+    /** Atomic updater of {@link #accessCount}, as graphs may be reconstructed concurrently. */
+    static private final AtomicIntegerFieldUpdater<DeltaHostGraph> ACCESS_COUNT =
+        AtomicIntegerFieldUpdater.newUpdater(DeltaHostGraph.class, "accessCount");
     /** Factory instance of this class, in which data is copied. */
     static private final DeltaHostGraph copyInstance =
         new DeltaHostGraph("copy prototype", (HostElement[]) null, null, true);
@@ -126,10 +126,19 @@ public class HostFactory extends StoreFactory<HostNode,HostEdge,TypeLabel> {
         return createEdge(source, type, target);
     }
 
-    /** Creates a host edge with given source and target nodes, and edge type. */
+    /**
+     * Creates a host edge with given source and target nodes, and edge type.
+     * Synchronised if the factory is concurrent.
+     * @see #isConcurrent()
+     */
     public HostEdge createEdge(HostNode source, TypeEdge type, HostNode target) {
-        HostEdge edge = newEdge(source, type, target, getEdgeCount());
-        return storeEdge(edge);
+        if (isConcurrent()) {
+            synchronized (this) {
+                return storeEdge(newEdge(source, type, target, getEdgeCount()));
+            }
+        } else {
+            return storeEdge(newEdge(source, type, target, getEdgeCount()));
+        }
     }
 
     /**
@@ -256,6 +265,18 @@ public class HostFactory extends StoreFactory<HostNode,HostEdge,TypeLabel> {
             this.type = type;
         }
 
+        /* Overridden as the factory may be shared among concurrent explorations. */
+        @Override
+        public HostNode createNode(Dispenser dispenser) {
+            if (isConcurrent()) {
+                synchronized (HostFactory.this) {
+                    return super.createNode(dispenser);
+                }
+            } else {
+                return super.createNode(dispenser);
+            }
+        }
+
         @Override
         protected boolean isAllowed(HostNode node) {
             return node.getType() == this.type;
@@ -284,6 +305,17 @@ public class HostFactory extends StoreFactory<HostNode,HostEdge,TypeLabel> {
         /* Overridden as value nodes should always be reused when possible. */
         @Override
         public HostNode createNode(Dispenser dispenser) {
+            if (isConcurrent()) {
+                synchronized (HostFactory.this) {
+                    return getValueNode(dispenser);
+                }
+            } else {
+                return getValueNode(dispenser);
+            }
+        }
+
+        /** Returns the value node for this factory's value, creating it if necessary. */
+        private ValueNode getValueNode(Dispenser dispenser) {
             Map<Object,ValueNode> valueMap = getValueMap(this.algebra);
             ValueNode result = valueMap.get(this.value);
             if (result == null) {
@@ -0,0 +1,293 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.grammar.host;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics on the reconstruction of {@link DeltaHostGraph}s, and the cost
+ * model derived from them.
+ * A delta graph whose data structures are not available is reconstructed by
+ * replaying the deltas from the nearest initialised ancestor;
+ * along the way, the data structures are either passed on from graph to graph
+ * or copied. The statistics keep exponentially weighted averages of the time
+ * per replayed delta element and per copied graph element; the ratio of these
+ * determines the {@link #getCopyBound() copy bound}, i.e., the total replayed
+ * delta size, relative to the graph size, beyond which copying is preferred.
+ * The ratio is multiplied by a {@link #setMemoryWeight(double) memory weight},
+ * since copies that are kept as checkpoints take up memory.
+ * <p>
+ * As replays and copies are recorded very frequently, and possibly by several
+ * threads at once, the timings are first collected per thread without
+ * synchronisation. Every {@link #PUBLISH_INTERVAL} samples, a thread folds its
+ * timings into the averages and publishes a new copy bound;
+ * {@link #getCopyBound()} only reads the last published bound.
+ * <p>
+ * The statistics also determine which graphs are kept as checkpoints:
+ * a graph that has been reconstructed at least {@link #CHECKPOINT_ACCESS_COUNT}
+ * times keeps (a copy of) its data structures when these are passed on.
+ * @version $Revision $
+ */
+public class ReconstructionStatistics {
+    private ReconstructionStatistics() {
+        // empty
+    }
+
+    /**
+     * Records a reconstruction of a graph by replaying a chain of deltas.
+     * @param chainLength the number of deltas on the chain
+     */
+    void recordReconstruction(int chainLength) {
+        this.reconstructionCount.increment();
+        this.replayCount.add(chainLength);
+    }
+
+    /**
+     * Records the replay of a single delta.
+     * @param size the number of elements in the delta
+     * @param nanos the time taken by the replay
+     */
+    void recordReplay(int size, long nanos) {
+        if (size > 0) {
+            Samples samples = this.samples.get();
+            samples.replayNanos += nanos;
+            samples.replaySize += size;
+            samples.replayCount++;
+            if (samples.replayCount + samples.copyCount >= PUBLISH_INTERVAL) {
+                publish(samples);
+            }
+        }
+    }
+
+    /**
+     * Records a copy of the data structures of a graph.
+     * @param size the number of elements in the graph
+     * @param nanos the time taken by the copy
+     * @param checkpoint flag indicating if the copy was made to keep the
+     * source graph as a checkpoint
+     */
+    void recordCopy(int size, long nanos, boolean checkpoint) {
+        this.copyCount.increment();
+        if (checkpoint) {
+            this.checkpointCount.increment();
+        }
+        if (size > 0) {
+            Samples samples = this.samples.get();
+            samples.copyNanos += nanos;
+            samples.copySize += size;
+            samples.copyCount++;
+            if (samples.replayCount + samples.copyCount >= PUBLISH_INTERVAL) {
+                publish(samples);
+            }
+        }
+    }
+
+    /**
+     * Folds the timings collected by a thread into the averages,
+     * resets them, and publishes the resulting copy bound.
+     */
+    private synchronized void publish(Samples samples) {
+        if (samples.replayCount > 0) {
+            this.replayCost = average(this.replayCost, (double) samples.replayNanos
+                / samples.replaySize);
+            this.replaySamples += samples.replayCount;
+        }
+        if (samples.copyCount > 0) {
+            this.copyCost = average(this.copyCost, (double) samples.copyNanos / samples.copySize);
+            this.copySamples += samples.copyCount;
+        }
+        samples.clear();
+        this.copyBound = computeCopyBound();
+    }
+
+    /** Returns the exponentially weighted average of an old value and a new sample. */
+    private double average(double value, double sample) {
+        return Double.isNaN(value) ? sample : value + SMOOTHING * (sample - value);
+    }
+
+    /**
+     * Returns the factor by which the total replayed delta size may exceed
+     * the graph size before the data structures are copied rather than passed on.
+     * If the statistics are not adaptive, or there are too few samples,
+     * this returns {@link #DEFAULT_COPY_BOUND}.
+     * The bound only changes when a thread publishes its timings.
+     */
+    public double getCopyBound() {
+        return isAdaptive() ? this.copyBound : DEFAULT_COPY_BOUND;
+    }
+
+    /** Computes the copy bound from the current averages. */
+    private double computeCopyBound() {
+        if (this.replaySamples < MIN_SAMPLES || this.copySamples < MIN_SAMPLES) {
+            return DEFAULT_COPY_BOUND;
+        }
+        double result = this.memoryWeight * this.copyCost / this.replayCost;
+        return Math.max(MIN_COPY_BOUND, Math.min(MAX_COPY_BOUND, result));
+    }
+
+    /**
+     * Indicates if a graph with a given number of reconstructions
+     * should be kept as a checkpoint.
+     */
+    boolean isCheckpoint(int accessCount) {
+        return isAdaptive() && accessCount >= CHECKPOINT_ACCESS_COUNT;
+    }
+
+    /** Returns the number of graph reconstructions. */
+    public long getReconstructionCount() {
+        return this.reconstructionCount.sum();
+    }
+
+    /** Returns the number of deltas replayed in all reconstructions. */
+    public long getReplayCount() {
+        return this.replayCount.sum();
+    }
+
+    /** Returns the number of data structure copies made during reconstructions. */
+    public long getCopyCount() {
+        return this.copyCount.sum();
+    }
+
+    /** Returns the number of copies made to keep a graph as a checkpoint. */
+    public long getCheckpointCount() {
+        return this.checkpointCount.sum();
+    }
+
+    /**
+     * Returns the average replay time per delta element, in nanoseconds,
+     * as last published.
+     */
+    public synchronized double getReplayCost() {
+        return this.replayCost;
+    }
+
+    /**
+     * Returns the average copy time per graph element, in nanoseconds,
+     * as last published.
+     */
+    public synchronized double getCopyCost() {
+        return this.copyCost;
+    }
+
+    /**
+     * Sets the weight of memory in the cost model.
+     * A higher weight raises the copy bound, so fewer copies are made.
+     * The default is 1.
+     */
+    public synchronized void setMemoryWeight(double memoryWeight) {
+        this.memoryWeight = memoryWeight;
+        this.copyBound = computeCopyBound();
+    }
+
+    /**
+     * Clears all collected data.
+     * Timings not yet published by other threads are not affected.
+     */
+    public synchronized void clear() {
+        this.reconstructionCount.reset();
+        this.replayCount.reset();
+        this.copyCount.reset();
+        this.checkpointCount.reset();
+        this.replayCost = Double.NaN;
+        this.copyCost = Double.NaN;
+        this.replaySamples = 0;
+        this.copySamples = 0;
+        this.samples.get()
+            .clear();
+        this.copyBound = DEFAULT_COPY_BOUND;
+    }
+
+    private final LongAdder reconstructionCount = new LongAdder();
+    private final LongAdder replayCount = new LongAdder();
+    private final LongAdder copyCount = new LongAdder();
+    private final LongAdder checkpointCount = new LongAdder();
+    /** Timings of the current thread that have not yet been published. */
+    private final ThreadLocal<Samples> samples = ThreadLocal.withInitial(Samples::new);
+    /** Average replay time per delta element, in nanoseconds. */
+    private double replayCost = Double.NaN;
+    /** Average copy time per graph element, in nanoseconds. */
+    private double copyCost = Double.NaN;
+    private long replaySamples;
+    private long copySamples;
+    /** Weight of memory in the cost model. */
+    private double memoryWeight = 1;
+    /** The last published copy bound. */
+    private volatile double copyBound = DEFAULT_COPY_BOUND;
+
+    /**
+     * Indicates if the copy bound and checkpoints are determined by the cost model.
+     * If not, the copy bound is {@link #DEFAULT_COPY_BOUND} and there are
+     * no checkpoints.
+     */
+    public static boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /** Switches the cost model on or off. It is on by default. */
+    public static void setAdaptive(boolean adaptive) {
+        ReconstructionStatistics.adaptive = adaptive;
+    }
+
+    /** Returns the singleton instance of this class. */
+    public static ReconstructionStatistics instance() {
+        return instance;
+    }
+
+    private static volatile boolean adaptive = true;
+    private static final ReconstructionStatistics instance = new ReconstructionStatistics();
+
+    /** Copy bound used in the absence of (enough) statistics. */
+    public static final double DEFAULT_COPY_BOUND = 2;
+    /** Lower limit of the adaptive copy bound. */
+    private static final double MIN_COPY_BOUND = 0.5;
+    /** Upper limit of the adaptive copy bound. */
+    private static final double MAX_COPY_BOUND = 8;
+    /** Number of samples of each kind needed before the copy bound adapts. */
+    private static final int MIN_SAMPLES = 16;
+    /** Number of samples a thread collects before publishing them. */
+    private static final int PUBLISH_INTERVAL = 64;
+    /** Weight of a new batch of samples in the averages. */
+    private static final double SMOOTHING = 0.25;
+    /** Number of reconstructions after which a graph is kept as a checkpoint. */
+    public static final int CHECKPOINT_ACCESS_COUNT = 3;
+
+    /** Replay and copy timings collected by a single thread. */
+    private static class Samples {
+        /** Resets all timings. */
+        void clear() {
+            this.replayNanos = 0;
+            this.replaySize = 0;
+            this.replayCount = 0;
+            this.copyNanos = 0;
+            this.copySize = 0;
+            this.copyCount = 0;
+        }
+
+        /** Total replay time, in nanoseconds. */
+        long replayNanos;
+        /** Total number of replayed delta elements. */
+        long replaySize;
+        /** Number of replay samples. */
+        int replayCount;
+        /** Total copy time, in nanoseconds. */
+        long copyNanos;
+        /** Total number of copied graph elements. */
+        long copySize;
+        /** Number of copy samples. */
+        int copyCount;
+    }
+}
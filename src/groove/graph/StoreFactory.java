@@ -124,15 +124,48 @@ abstract public class StoreFactory<N extends Node,E extends Edge,L extends Label
     public E createEdge(N source, Label label, N target) {
         assert source != null : "Source node " + label.text() + "-edge should not be null";
         assert target != null : "Target node " + label.text() + "-edge should not be null";
-        E edge = newEdge(source, label, target, getEdgeCount());
-        return storeEdge(edge);
+        if (isConcurrent()) {
+            synchronized (this) {
+                return storeEdge(newEdge(source, label, target, getEdgeCount()));
+            }
+        } else {
+            return storeEdge(newEdge(source, label, target, getEdgeCount()));
+        }
     }
 
     /** Tests if a given edge was constructed by this factory. */
     public boolean containsEdge(E edge) {
-        return this.edgeStore.put(edge) == edge;
+        if (isConcurrent()) {
+            synchronized (this) {
+                return this.edgeStore.put(edge) == edge;
+            }
+        } else {
+            return this.edgeStore.put(edge) == edge;
+        }
     }
 
+    /**
+     * Indicates that this factory may from now on be used by several
+     * threads at the same time, for instance while matching in parallel.
+     * From then on, edge creation is synchronised on the factory;
+     * until then, the factory is assumed to be confined to a single thread.
+     * The flag should be set before the factory is shared.
+     */
+    public void setConcurrent() {
+        this.concurrent = true;
+    }
+
+    /**
+     * Indicates if this factory may be used by several threads at the same time.
+     * @see #setConcurrent()
+     */
+    public boolean isConcurrent() {
+        return this.concurrent;
+    }
+
+    /** Flag indicating that this factory may be used concurrently. */
+    private volatile boolean concurrent;
+
     /**
      * Returns the total number of host edges created.
      * Since they are numbered in sequence, this is also the next free edge number.
@@ -175,10 +175,10 @@ public class PartitionRefiner extends CertificateStrategy {
         }
     }
 
-    /** Extends the {@link #tmpCertIxs} array, if necessary. */
+    /** Extends the {@link #tmpCertIxs} array of this thread, if necessary. */
     private void resizeTmpCertIxs() {
-        if (this.nodeCertCount > tmpCertIxs.length) {
-            tmpCertIxs = new int[this.nodeCertCount + 100];
+        if (this.nodeCertCount > tmpCertIxs.get().length) {
+            tmpCertIxs.set(new int[this.nodeCertCount + 100]);
         }
     }
 
@@ -195,10 +195,12 @@ public class PartitionRefiner extends CertificateStrategy {
     /**
      * Calls {@link MyCert#setNewValue()} on all node certificates. Also
      * calculates the certificate store on demand.
-     * @param store if <code>true</code>, {@link #certStore} and
+     * @param store if <code>true</code>, {@link #certStores} and
      *        {@link #nodePartitionCount} are recalculated
      */
     private void advanceNodeCerts(boolean store) {
+        TreeHashSet<MyNodeCert> certStore = certStores.get();
+        int[] tmpCertIxs = PartitionRefiner.tmpCertIxs.get();
         int tmpSize = 0;
         for (int i = 0; i < this.nodeCertCount; i++) {
             MyNodeCert nodeCert = (MyNodeCert) this.nodeCerts[i];
@@ -340,10 +342,12 @@ public class PartitionRefiner extends CertificateStrategy {
      */
     static private final int TREE_RESOLUTION = 3;
     /**
-     * Store for node certificates, to count the number of partitions
+     * Store for node certificates, to count the number of partitions.
+     * There is a store per thread, so that certificates of different graphs
+     * may be computed concurrently.
      */
-    static private final TreeHashSet<MyNodeCert> certStore =
-        new TreeHashSet<MyNodeCert>(TREE_RESOLUTION) {
+    static private final ThreadLocal<TreeHashSet<MyNodeCert>> certStores =
+        ThreadLocal.withInitial(() -> new TreeHashSet<MyNodeCert>(TREE_RESOLUTION) {
             /**
              * For the purpose of this set, only the certificate value is of
              * importance.
@@ -357,9 +361,10 @@ public class PartitionRefiner extends CertificateStrategy {
             protected int getCode(MyNodeCert key) {
                 return key.getValue();
             }
-        };
-    /** Temporary storage for node certificates. */
-    static private int[] tmpCertIxs = new int[100];
+        });
+    /** Temporary storage for node certificates, per thread. */
+    static private final ThreadLocal<int[]> tmpCertIxs =
+        ThreadLocal.withInitial(() -> new int[100]);
 
     /** Debug flag to switch the use of duplicate breaking on and off. */
     static private final boolean BREAK_DUPLICATES = true;
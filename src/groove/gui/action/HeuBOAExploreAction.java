@@ -75,7 +75,9 @@ public class HeuBOAExploreAction extends SimulatorAction {
      * failed for some reason
      */
     public Exploration explore(ExploreType exploreType,ExploringGaBayesNet exploreGaBayesNet) {
-        return explore(getSimulatorModel().getState(), exploreType,exploreGaBayesNet);
+        GraphState state = exploreGaBayesNet.callFromHeuGenerator ? exploreGaBayesNet.initialState
+            : getSimulatorModel().getState();
+        return explore(state, exploreType,exploreGaBayesNet);
     }
 
     /**
@@ -136,28 +138,13 @@ public class HeuBOAExploreAction extends SimulatorAction {
             }
 
         }else {
-
-            SimulatorModel simModel = getSimulatorModel();
-            LTSJModel ltsJModel = getLtsDisplay().getJModel();
-            if (ltsJModel == null) {
-                if (simModel.resetGTS()) {
-                    ltsJModel = getLtsDisplay().getJModel();
-                } else {
-                    return null;
-                }
-            }
-            if (isAnimated()) {
-                simModel.setDisplay(DisplayKind.LTS);
+            // headless run: explore in the calling thread, without the simulator
+            try {
+                result = new Exploration(exploreType == null ? ExploreType.DEFAULT : exploreType, state);
+                result.heuristicBOAplay(state.getGTS(), state, exploreGaBayesNet);
+            } catch (FormatException exc) {
+                throw new IllegalStateException(exc);
             }
-            // create a thread to do the work in the background
-			ExploreThread generateThread = new ExploreThread(result,exploreGaBayesNet);
-			             
-			               
-			generateThread.start();
-		
-			
-			GraphState lastState = result.getLastState();
-        
         }
         return result;
     }
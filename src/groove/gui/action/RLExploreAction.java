@@ -76,7 +76,9 @@ public class RLExploreAction extends SimulatorAction {
      * failed for some reason
      */
     public Exploration explore(ExploreType exploreType,ExploringItemRL exploringItems) {
-        return explore(getSimulatorModel().getState(), exploreType,exploringItems);
+        GraphState state = exploringItems.callFromHeuGenerator ? exploringItems.initialState
+            : getSimulatorModel().getState();
+        return explore(state, exploreType,exploringItems);
     }
 
     /**
@@ -135,28 +137,13 @@ public class RLExploreAction extends SimulatorAction {
             }
 
         }else {
-
-            SimulatorModel simModel = getSimulatorModel();
-            LTSJModel ltsJModel = getLtsDisplay().getJModel();
-            if (ltsJModel == null) {
-                if (simModel.resetGTS()) {
-                    ltsJModel = getLtsDisplay().getJModel();
-                } else {
-                    return null;
-                }
-            }
-            if (isAnimated()) {
-                simModel.setDisplay(DisplayKind.LTS);
+            // headless run: explore in the calling thread, without the simulator
+            try {
+                result = new Exploration(exploreType == null ? ExploreType.DEFAULT : exploreType, state);
+                result.RLplay(state.getGTS(), state, exploringItems);
+            } catch (FormatException exc) {
+                throw new IllegalStateException(exc);
             }
-            // create a thread to do the work in the background
-            ExploreThread generateThread = new ExploreThread(result,exploringItems);
-
-
-            generateThread.start();
-
-
-            GraphState lastState = result.getLastState();
-
         }
         return result;
     }
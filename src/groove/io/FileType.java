@@ -93,6 +93,8 @@ public enum FileType {
     EPS("EPS image files", ".eps"),
     /**  FSM (Finite State Machine) files. */
     FSM("FSM layout files", ".fsm"),
+    /** Binary LTS files, as streamed during exploration. */
+    GLTS("Binary LTS files", ".glts"),
     /** GXL type graph files. */
     GXL_META("GXL type graphs", ".gxl"),
     /** GXL instance graph files. */
@@ -0,0 +1,95 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.io.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import groove.io.FileType;
+
+/**
+ * Streaming writer for the CADP {@code .aut} format, as also read by {@link AutIO}.
+ * The transition and state counts in the header line are only known at the
+ * end, and are filled in as right-aligned numbers in space reserved at the
+ * start of the file. The state count is one more than the highest state
+ * number; states without transitions are therefore only implicitly present.
+ * @see FileType#AUT
+ * @version $Revision $
+ */
+public class AutStreamWriter extends LTSStreamWriter {
+    /**
+     * Opens a writer for a given file.
+     * @param start the number of the start state
+     */
+    public AutStreamWriter(File file, int start) throws IOException {
+        super(file, Compression.NONE);
+        this.start = start;
+        put(header(0, 0));
+        startBody();
+    }
+
+    @Override
+    protected void writeState(int state) {
+        // states are only implicit in the .aut format
+    }
+
+    @Override
+    protected void writeTransition(int source, String label, int target) throws IOException {
+        byte[] infix = this.labelMap.get(label);
+        if (infix == null) {
+            String text = label.indexOf(',') >= 0 ? ",\"" + label + "\"," : "," + label + ",";
+            this.labelMap.put(label, infix = text.getBytes(StandardCharsets.UTF_8));
+        }
+        put((byte) '(');
+        putDecimal(source);
+        put(infix);
+        putDecimal(target);
+        put((byte) ')');
+        put((byte) '\n');
+    }
+
+    @Override
+    protected void complete() throws IOException {
+        ByteBuffer header =
+            ByteBuffer.wrap(header(getTransitionCount(), Math.max(getMaxState() + 1, 1)));
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += getChannel().write(header, position);
+        }
+    }
+
+    /** Returns the header line for given numbers of transitions and states. */
+    private byte[] header(long transitionCount, int stateCount) {
+        String result = String.format("des (%d, %" + COUNT_WIDTH + "d, %" + COUNT_WIDTH + "d)\n",
+            this.start,
+            transitionCount,
+            stateCount);
+        return result.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** The number of the start state. */
+    private final int start;
+    /** Mapping from labels to their encoding, including the surrounding commas. */
+    private final Map<String,byte[]> labelMap = new HashMap<>();
+
+    /** Width reserved for the counts in the header line. */
+    private static final int COUNT_WIDTH = 19;
+}
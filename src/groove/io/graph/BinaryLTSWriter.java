@@ -0,0 +1,137 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.io.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import groove.io.FileType;
+
+/**
+ * Streaming writer for a compact binary LTS format.
+ * The file starts with an uncompressed header of {@link #HEADER_SIZE} bytes,
+ * consisting of the big-endian fields
+ * <ul>
+ * <li> {@code int} magic number {@link #MAGIC}
+ * <li> {@code int} format version {@link #VERSION}
+ * <li> {@code int} ordinal of the {@link Compression} of the body
+ * <li> {@code int} number of the start state
+ * <li> {@code int} state count, being one more than the highest state number
+ * <li> {@code long} transition count
+ * <li> {@code int} label count
+ * </ul>
+ * The counts are filled in when the writer is closed.
+ * The (possibly compressed) body is a sequence of records, each starting with
+ * a tag byte, in which all numbers are variable-length encoded:
+ * <ul>
+ * <li> {@link #TAG_STATE}, followed by the state number
+ * <li> {@link #TAG_LABEL}, followed by the length and UTF-8 encoding of
+ * a label; the labels are implicitly numbered in the order of their records
+ * <li> {@link #TAG_TRANSITION}, followed by source state, label number and target state
+ * <li> {@link #TAG_END}, which ends the body
+ * </ul>
+ * Every label record precedes the first transition using it.
+ * @see FileType#GLTS
+ * @version $Revision $
+ */
+public class BinaryLTSWriter extends LTSStreamWriter {
+    /**
+     * Opens a writer for a given file.
+     * @param compression the compression of the body
+     * @param start the number of the start state
+     */
+    public BinaryLTSWriter(File file, Compression compression, int start) throws IOException {
+        super(file, compression);
+        this.start = start;
+        putInt(MAGIC);
+        putInt(VERSION);
+        putInt(compression.ordinal());
+        putInt(start);
+        putInt(0);
+        putLong(0);
+        putInt(0);
+        startBody();
+    }
+
+    @Override
+    protected void writeState(int state) throws IOException {
+        put(TAG_STATE);
+        putVarInt(state);
+    }
+
+    @Override
+    protected void writeTransition(int source, String label, int target) throws IOException {
+        Integer index = this.labelMap.get(label);
+        if (index == null) {
+            this.labelMap.put(label, index = this.labelMap.size());
+            byte[] text = label.getBytes(StandardCharsets.UTF_8);
+            put(TAG_LABEL);
+            putVarInt(text.length);
+            put(text);
+        }
+        put(TAG_TRANSITION);
+        putVarInt(source);
+        putVarInt(index);
+        putVarInt(target);
+    }
+
+    @Override
+    protected void writeTrailer() throws IOException {
+        put(TAG_END);
+    }
+
+    @Override
+    protected void complete() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(getCompression().ordinal());
+        header.putInt(this.start);
+        header.putInt(Math.max(getMaxState() + 1, this.start + 1));
+        header.putLong(getTransitionCount());
+        header.putInt(this.labelMap.size());
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += getChannel().write(header, position);
+        }
+    }
+
+    /** The number of the start state. */
+    private final int start;
+    /** Mapping from labels to their numbers. */
+    private final Map<String,Integer> labelMap = new HashMap<>();
+
+    /** Magic number at the start of every binary LTS file: {@code GLTS} in ASCII. */
+    public static final int MAGIC = 0x474C5453;
+    /** Current version of the format. */
+    public static final int VERSION = 1;
+    /** Size of the (uncompressed) header, in bytes. */
+    public static final int HEADER_SIZE = 32;
+    /** Tag of the record ending the body. */
+    public static final byte TAG_END = 0;
+    /** Tag of a state record. */
+    public static final byte TAG_STATE = 1;
+    /** Tag of a label record. */
+    public static final byte TAG_LABEL = 2;
+    /** Tag of a transition record. */
+    public static final byte TAG_TRANSITION = 3;
+}
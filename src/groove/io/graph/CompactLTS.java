@@ -0,0 +1,738 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.io.graph;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import groove.io.FileType;
+import groove.io.graph.LTSStreamWriter.Compression;
+
+/**
+ * Compact, read-only representation of a labelled transition system,
+ * in which the states are numbered consecutively from {@code 0}
+ * and the transitions are stored in compressed sparse row form:
+ * the outgoing transitions of state {@code i} are found at the indices from
+ * {@code getOutOffsets()[i]} (inclusive) to {@code getOutOffsets()[i+1]}
+ * (exclusive) of {@link #getOutLabels()} and {@link #getOutTargets()},
+ * and likewise the incoming transitions in {@link #getInSources()}
+ * and {@link #getInLabels()}.
+ * No objects are created per state or transition.
+ * <p>
+ * Self-loops labelled by one of a given set of state labels
+ * (such as the special labels of {@link groove.explore.util.LTSLabels})
+ * are not stored as transitions, but as state markers.
+ * @version $Revision $
+ */
+public class CompactLTS {
+    private CompactLTS(int start, String[] labels, int[] outOffsets, int[] outLabels,
+        int[] outTargets, int[] inOffsets, int[] inLabels, int[] inSources,
+        Map<String,BitSet> markers) {
+        this.start = start;
+        this.labels = labels;
+        this.outOffsets = outOffsets;
+        this.outLabels = outLabels;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inLabels = inLabels;
+        this.inSources = inSources;
+        this.markers = markers;
+    }
+
+    /** Returns the number of states. */
+    public int nodeCount() {
+        return this.outOffsets.length - 1;
+    }
+
+    /** Returns the number of transitions, not counting the state markers. */
+    public int edgeCount() {
+        return this.outTargets.length;
+    }
+
+    /** Returns the number of the start state. */
+    public int getStart() {
+        return this.start;
+    }
+
+    /** Returns the number of distinct transition labels. */
+    public int labelCount() {
+        return this.labels.length;
+    }
+
+    /** Returns the text of the transition label with a given number. */
+    public String getLabel(int label) {
+        return this.labels[label];
+    }
+
+    /** Returns the offsets of the outgoing transitions per state; of length {@code nodeCount()+1}. */
+    public int[] getOutOffsets() {
+        return this.outOffsets;
+    }
+
+    /** Returns the label numbers of the outgoing transitions. */
+    public int[] getOutLabels() {
+        return this.outLabels;
+    }
+
+    /** Returns the target states of the outgoing transitions. */
+    public int[] getOutTargets() {
+        return this.outTargets;
+    }
+
+    /** Returns the offsets of the incoming transitions per state; of length {@code nodeCount()+1}. */
+    public int[] getInOffsets() {
+        return this.inOffsets;
+    }
+
+    /** Returns the label numbers of the incoming transitions. */
+    public int[] getInLabels() {
+        return this.inLabels;
+    }
+
+    /** Returns the source states of the incoming transitions. */
+    public int[] getInSources() {
+        return this.inSources;
+    }
+
+    /**
+     * Returns the set of states marked with a given state label.
+     * The result should not be modified.
+     */
+    public BitSet getMarked(String label) {
+        BitSet result = this.markers.get(label);
+        return result == null ? EMPTY : result;
+    }
+
+    private final int start;
+    private final String[] labels;
+    private final int[] outOffsets;
+    private final int[] outLabels;
+    private final int[] outTargets;
+    private final int[] inOffsets;
+    private final int[] inLabels;
+    private final int[] inSources;
+    private final Map<String,BitSet> markers;
+
+    /**
+     * Loads an LTS from a file, in either the CADP {@code .aut} format or the
+     * binary format of {@link BinaryLTSWriter}, depending on the file extension.
+     * @param file the file to be loaded
+     * @param stateLabels labels that, on self-loops, are to be stored as state markers
+     * @throws IOException if the file cannot be read or is not correctly formatted
+     */
+    public static CompactLTS load(File file, Set<String> stateLabels) throws IOException {
+        if (FileType.AUT.hasExtension(file)) {
+            return loadAut(file, stateLabels);
+        } else {
+            return loadBinary(file, stateLabels);
+        }
+    }
+
+    /**
+     * Loads an LTS in the CADP {@code .aut} format.
+     * The file is memory-mapped, and the transitions are parsed in parallel
+     * chunks of lines. Labels may be quoted; the quotes are removed.
+     * @param file the file to be loaded
+     * @param stateLabels labels that, on self-loops, are to be stored as state markers
+     * @throws IOException if the file cannot be read or is not correctly formatted
+     */
+    public static CompactLTS loadAut(File file, Set<String> stateLabels) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            // parse the header line
+            ByteBuffer header =
+                channel.map(MapMode.READ_ONLY, 0, Math.min(size, MAX_HEADER_LENGTH));
+            int headerEnd = 0;
+            while (headerEnd < header.limit() && header.get(headerEnd) != '\n') {
+                headerEnd++;
+            }
+            String headerLine = ascii(header, 0, headerEnd).trim();
+            if (!headerLine.startsWith("des") || headerLine.indexOf('(') < 0
+                || !headerLine.endsWith(")")) {
+                throw new IOException(String.format("Malformed header '%s' in %s", headerLine,
+                    file));
+            }
+            String[] counts = headerLine
+                .substring(headerLine.indexOf('(') + 1, headerLine.length() - 1)
+                .split(",");
+            if (counts.length != 3) {
+                throw new IOException(String.format("Malformed header '%s' in %s", headerLine,
+                    file));
+            }
+            int start;
+            long edgeCount;
+            int nodeCount;
+            try {
+                start = Integer.parseInt(counts[0].trim());
+                edgeCount = Long.parseLong(counts[1].trim());
+                nodeCount = Integer.parseInt(counts[2].trim());
+            } catch (NumberFormatException exc) {
+                throw new IOException(String.format("Malformed header '%s' in %s", headerLine,
+                    file));
+            }
+            if (edgeCount > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Too many transitions in %s", file));
+            }
+            // divide the body into chunks
+            long bodyStart = Math.min(size, headerEnd + 1);
+            long bodySize = size - bodyStart;
+            int chunkCount = (int) Math.max(1,
+                Math.min(Runtime.getRuntime()
+                    .availableProcessors() * 4L, bodySize / MIN_CHUNK_SIZE));
+            chunkCount = (int) Math.max(chunkCount, (bodySize + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+            long[] bounds = new long[chunkCount + 1];
+            for (int i = 0; i <= chunkCount; i++) {
+                bounds[i] = bodyStart + bodySize * i / chunkCount;
+            }
+            AutChunk[] chunks;
+            try {
+                chunks = IntStream.range(0, chunkCount)
+                    .parallel()
+                    .mapToObj(i -> {
+                        try {
+                            return new AutChunk(channel, size, bounds[i], bounds[i + 1],
+                                bodyStart).parse();
+                        } catch (IOException exc) {
+                            throw new UncheckedIOException(exc);
+                        }
+                    })
+                    .toArray(AutChunk[]::new);
+            } catch (UncheckedIOException exc) {
+                throw new IOException(String.format("Error in %s: %s", file, exc.getCause()
+                    .getMessage()), exc.getCause());
+            }
+            // merge the chunk-local label numberings
+            Map<String,Integer> labelMap = new HashMap<>();
+            List<String> labels = new ArrayList<>();
+            for (AutChunk chunk : chunks) {
+                for (int l = 0; l < chunk.labels.size(); l++) {
+                    String label = chunk.labels.get(l);
+                    Integer global = labelMap.get(label);
+                    if (global == null) {
+                        labelMap.put(label, global = labels.size());
+                        labels.add(label);
+                    }
+                    chunk.labelMap[l] = global;
+                }
+            }
+            Arrays.stream(chunks)
+                .parallel()
+                .forEach(AutChunk::relabel);
+            Edges[] edges = new Edges[chunks.length];
+            for (int i = 0; i < chunks.length; i++) {
+                edges[i] = chunks[i].edges;
+            }
+            return build(file, start, nodeCount, labels, edges, stateLabels);
+        }
+    }
+
+    /**
+     * Loads an LTS in the binary format of {@link BinaryLTSWriter}.
+     * An uncompressed file is memory-mapped; a compressed file is read
+     * as a stream.
+     * @param file the file to be loaded
+     * @param stateLabels labels that, on self-loops, are to be stored as state markers
+     * @throws IOException if the file cannot be read or is not correctly formatted
+     */
+    public static CompactLTS loadBinary(File file, Set<String> stateLabels) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < BinaryLTSWriter.HEADER_SIZE) {
+                throw new IOException(String.format("File %s is too short", file));
+            }
+            ByteBuffer header = ByteBuffer.allocate(BinaryLTSWriter.HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading
+            }
+            header.flip();
+            if (header.getInt() != BinaryLTSWriter.MAGIC) {
+                throw new IOException(String.format("File %s is not a binary LTS", file));
+            }
+            int version = header.getInt();
+            if (version != BinaryLTSWriter.VERSION) {
+                throw new IOException(String.format("Unsupported version %d of %s", version,
+                    file));
+            }
+            int compressionNr = header.getInt();
+            if (compressionNr < 0 || compressionNr >= Compression.values().length) {
+                throw new IOException(String.format("Unknown compression in %s", file));
+            }
+            Compression compression = Compression.values()[compressionNr];
+            int start = header.getInt();
+            int nodeCount = header.getInt();
+            long edgeCount = header.getLong();
+            int labelCount = header.getInt();
+            if (edgeCount > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Too many transitions in %s", file));
+            }
+            long bodySize = size - BinaryLTSWriter.HEADER_SIZE;
+            InputStream in;
+            if (compression == Compression.NONE && bodySize <= Integer.MAX_VALUE) {
+                in = new MappedInputStream(
+                    channel.map(MapMode.READ_ONLY, BinaryLTSWriter.HEADER_SIZE, bodySize));
+            } else {
+                channel.position(BinaryLTSWriter.HEADER_SIZE);
+                in = compression.unwrap(
+                    new BufferedInputStream(Channels.newInputStream(channel),
+                        1 << 16));
+            }
+            List<String> labels = new ArrayList<>(labelCount);
+            Edges edges = new Edges((int) edgeCount);
+            try {
+                for (int tag = in.read(); tag != BinaryLTSWriter.TAG_END; tag = in.read()) {
+                    switch (tag) {
+                    case BinaryLTSWriter.TAG_STATE:
+                        readVarInt(in);
+                        break;
+                    case BinaryLTSWriter.TAG_LABEL:
+                        byte[] text = new byte[readVarInt(in)];
+                        int read = 0;
+                        while (read < text.length) {
+                            int r = in.read(text, read, text.length - read);
+                            if (r < 0) {
+                                throw new IOException("Unexpected end of file");
+                            }
+                            read += r;
+                        }
+                        labels.add(new String(text, StandardCharsets.UTF_8));
+                        break;
+                    case BinaryLTSWriter.TAG_TRANSITION:
+                        int source = readVarInt(in);
+                        int label = readVarInt(in);
+                        int target = readVarInt(in);
+                        if (label >= labels.size()) {
+                            throw new IOException(String.format("Undefined label %d", label));
+                        }
+                        edges.add(source, label, target);
+                        break;
+                    case -1:
+                        throw new IOException("Unexpected end of file");
+                    default:
+                        throw new IOException(String.format("Unknown record tag %d", tag));
+                    }
+                }
+            } catch (IOException exc) {
+                throw new IOException(String.format("Error in %s: %s", file, exc.getMessage()),
+                    exc);
+            }
+            return build(file, start, nodeCount, labels, new Edges[] {edges}, stateLabels);
+        }
+    }
+
+    /**
+     * Builds the compressed sparse row representation out of
+     * lists of transitions, by counting sort on the source and target states.
+     */
+    private static CompactLTS build(File file, int start, int nodeCount, List<String> labelList,
+        Edges[] edgeLists, Set<String> stateLabels) throws IOException {
+        if (start < 0 || start >= nodeCount) {
+            throw new IOException(String.format("Start state %d out of range in %s", start, file));
+        }
+        String[] labels = labelList.toArray(new String[labelList.size()]);
+        // state markers per label number; null for ordinary labels
+        BitSet[] marks = new BitSet[labels.length];
+        Map<String,BitSet> markers = new HashMap<>();
+        for (int l = 0; l < labels.length; l++) {
+            if (stateLabels.contains(labels[l])) {
+                markers.put(labels[l], marks[l] = new BitSet(nodeCount));
+            }
+        }
+        int[] outOffsets = new int[nodeCount + 1];
+        int[] inOffsets = new int[nodeCount + 1];
+        int edgeCount = 0;
+        for (Edges edges : edgeLists) {
+            for (int e = 0; e < edges.size; e++) {
+                int source = edges.sources[e];
+                int target = edges.targets[e];
+                if (source < 0 || source >= nodeCount || target < 0 || target >= nodeCount) {
+                    throw new IOException(String.format(
+                        "Transition (%d,%s,%d) out of state range in %s", source,
+                        labels[edges.labels[e]], target, file));
+                }
+                BitSet mark = marks[edges.labels[e]];
+                if (mark != null && source == target) {
+                    mark.set(source);
+                } else {
+                    outOffsets[source + 1]++;
+                    inOffsets[target + 1]++;
+                    edgeCount++;
+                }
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+            inOffsets[i + 1] += inOffsets[i];
+        }
+        int[] outLabels = new int[edgeCount];
+        int[] outTargets = new int[edgeCount];
+        int[] inLabels = new int[edgeCount];
+        int[] inSources = new int[edgeCount];
+        int[] nextOut = Arrays.copyOf(outOffsets, nodeCount);
+        int[] nextIn = Arrays.copyOf(inOffsets, nodeCount);
+        for (Edges edges : edgeLists) {
+            for (int e = 0; e < edges.size; e++) {
+                int source = edges.sources[e];
+                int label = edges.labels[e];
+                int target = edges.targets[e];
+                if (marks[label] == null || source != target) {
+                    int out = nextOut[source]++;
+                    outLabels[out] = label;
+                    outTargets[out] = target;
+                    int in = nextIn[target]++;
+                    inLabels[in] = label;
+                    inSources[in] = source;
+                }
+            }
+        }
+        return new CompactLTS(start, labels, outOffsets, outLabels, outTargets, inOffsets,
+            inLabels, inSources, markers);
+    }
+
+    /** Reads a variable-length encoded integer, as written by {@link LTSStreamWriter#putVarInt}. */
+    private static int readVarInt(InputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0;; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+    }
+
+    /** Decodes a range of ASCII bytes from a buffer. */
+    private static String ascii(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = from; i < to; i++) {
+            bytes[i - from] = buffer.get(i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Empty set of states, returned for unknown state labels. */
+    private static final BitSet EMPTY = new BitSet();
+    /** Maximum length of the header line of an {@code .aut} file. */
+    private static final int MAX_HEADER_LENGTH = 1 << 10;
+    /** Minimal size of a parallel chunk of an {@code .aut} file. */
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    /** Maximal size of a parallel chunk of an {@code .aut} file. */
+    private static final long MAX_CHUNK_SIZE = 1 << 28;
+    /** Maximal length of a transition line of an {@code .aut} file. */
+    private static final long MAX_LINE_LENGTH = 1 << 16;
+
+    /** Growable list of transitions, as three parallel arrays. */
+    private static class Edges {
+        Edges(int capacity) {
+            capacity = Math.max(capacity, 16);
+            this.sources = new int[capacity];
+            this.labels = new int[capacity];
+            this.targets = new int[capacity];
+        }
+
+        void add(int source, int label, int target) {
+            if (this.size == this.sources.length) {
+                int capacity = this.size * 2;
+                this.sources = Arrays.copyOf(this.sources, capacity);
+                this.labels = Arrays.copyOf(this.labels, capacity);
+                this.targets = Arrays.copyOf(this.targets, capacity);
+            }
+            this.sources[this.size] = source;
+            this.labels[this.size] = label;
+            this.targets[this.size] = target;
+            this.size++;
+        }
+
+        int[] sources;
+        int[] labels;
+        int[] targets;
+        int size;
+    }
+
+    /**
+     * Parser for the transition lines of an {@code .aut} file
+     * that start within a given range of positions.
+     * The labels are numbered locally; after all chunks have been parsed,
+     * the numbers are mapped to global ones by {@link #relabel()}.
+     */
+    private static class AutChunk {
+        AutChunk(FileChannel channel, long size, long from, long to, long bodyStart)
+            throws IOException {
+            // also map the preceding byte, to detect whether from is at the start of a line,
+            // and enough of the following bytes to complete the last line
+            this.base = Math.max(bodyStart, from - 1);
+            long end = Math.min(size, to + MAX_LINE_LENGTH);
+            this.buffer = to > from ? channel.map(MapMode.READ_ONLY, this.base, end - this.base)
+                : null;
+            this.from = (int) (from - this.base);
+            this.to = (int) (to - this.base);
+            this.atStart = from == bodyStart;
+            this.truncated = end < size;
+            this.edges = new Edges((int) ((to - from) / 16));
+        }
+
+        /** Parses all lines starting in the range of this chunk. */
+        AutChunk parse() throws IOException {
+            if (this.buffer == null) {
+                this.labelMap = new int[0];
+                return this;
+            }
+            MappedByteBuffer buffer = this.buffer;
+            int limit = buffer.limit();
+            int pos = this.from;
+            if (!this.atStart && buffer.get(pos - 1) != '\n') {
+                // skip the partial line, which belongs to the previous chunk
+                while (pos < limit && buffer.get(pos) != '\n') {
+                    pos++;
+                }
+                pos++;
+            }
+            try {
+                while (pos < this.to) {
+                    int lineEnd = pos;
+                    while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                        lineEnd++;
+                    }
+                    if (lineEnd == limit && this.truncated) {
+                        throw new IOException("Line too long");
+                    }
+                    parseLine(pos, lineEnd);
+                    pos = lineEnd + 1;
+                }
+            } catch (BufferUnderflowException | IndexOutOfBoundsException exc) {
+                throw new IOException("Malformed transition line", exc);
+            }
+            this.labelMap = new int[this.labels.size()];
+            return this;
+        }
+
+        /** Parses a single line, from the start position (inclusive) to the end position (exclusive). */
+        private void parseLine(int start, int end) throws IOException {
+            MappedByteBuffer buffer = this.buffer;
+            int open = skipSpaces(start, end);
+            if (open == end) {
+                // empty line
+                return;
+            }
+            int close = end - 1;
+            while (close > open && buffer.get(close) != ')') {
+                close--;
+            }
+            if (buffer.get(open) != '(' || close == open) {
+                throw new IOException(String.format("Malformed transition line '%s'",
+                    ascii(buffer, start, end)));
+            }
+            // the source ends at the first comma, the target starts after the last comma
+            int firstComma = open + 1;
+            while (firstComma < close && buffer.get(firstComma) != ',') {
+                firstComma++;
+            }
+            int lastComma = close - 1;
+            while (lastComma > firstComma && buffer.get(lastComma) != ',') {
+                lastComma--;
+            }
+            if (lastComma <= firstComma) {
+                throw new IOException(String.format("Malformed transition line '%s'",
+                    ascii(buffer, start, end)));
+            }
+            int source = parseInt(open + 1, firstComma);
+            int target = parseInt(lastComma + 1, close);
+            int labelStart = skipSpaces(firstComma + 1, lastComma);
+            int labelEnd = lastComma;
+            while (labelEnd > labelStart && isSpace(buffer.get(labelEnd - 1))) {
+                labelEnd--;
+            }
+            if (labelEnd - labelStart >= 2 && buffer.get(labelStart) == '"'
+                && buffer.get(labelEnd - 1) == '"') {
+                labelStart++;
+                labelEnd--;
+            }
+            this.edges.add(source, getLabel(labelStart, labelEnd), target);
+        }
+
+        /** Parses a non-negative decimal number, possibly surrounded by spaces. */
+        private int parseInt(int start, int end) throws IOException {
+            int pos = skipSpaces(start, end);
+            long result = 0;
+            int digits = 0;
+            while (pos < end) {
+                byte b = this.buffer.get(pos);
+                if (b < '0' || b > '9') {
+                    break;
+                }
+                result = 10 * result + b - '0';
+                digits++;
+                pos++;
+            }
+            if (digits == 0 || skipSpaces(pos, end) != end || result > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Malformed state number '%s'",
+                    ascii(this.buffer, start, end)));
+            }
+            return (int) result;
+        }
+
+        private int skipSpaces(int pos, int end) {
+            while (pos < end && isSpace(this.buffer.get(pos))) {
+                pos++;
+            }
+            return pos;
+        }
+
+        private boolean isSpace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+
+        /**
+         * Returns the local number of the label consisting of a given range of bytes,
+         * using an open-addressing hash table so that no string is created
+         * for labels that were seen before.
+         */
+        private int getLabel(int start, int end) {
+            int hash = 1;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + this.buffer.get(i);
+            }
+            int mask = this.table.length - 1;
+            for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+                int entry = this.table[slot];
+                if (entry == 0) {
+                    int result = this.labels.size();
+                    this.labels.add(ascii(this.buffer, start, end));
+                    this.labelBytes.add(bytes(start, end));
+                    this.table[slot] = result + 1;
+                    if (2 * this.labels.size() > this.table.length) {
+                        rehash();
+                    }
+                    return result;
+                }
+                byte[] bytes = this.labelBytes.get(entry - 1);
+                if (bytes.length == end - start && matches(bytes, start)) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        private boolean matches(byte[] bytes, int start) {
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] != this.buffer.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private byte[] bytes(int start, int end) {
+            byte[] result = new byte[end - start];
+            for (int i = start; i < end; i++) {
+                result[i - start] = this.buffer.get(i);
+            }
+            return result;
+        }
+
+        private void rehash() {
+            int[] table = new int[2 * this.table.length];
+            int mask = table.length - 1;
+            for (int l = 0; l < this.labelBytes.size(); l++) {
+                int hash = 1;
+                for (byte b : this.labelBytes.get(l)) {
+                    hash = 31 * hash + b;
+                }
+                int slot = hash & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = l + 1;
+            }
+            this.table = table;
+        }
+
+        /** Replaces the local label numbers by the global ones in {@link #labelMap}. */
+        void relabel() {
+            int[] labels = this.edges.labels;
+            for (int e = 0; e < this.edges.size; e++) {
+                labels[e] = this.labelMap[labels[e]];
+            }
+        }
+
+        /** File position of the start of {@link #buffer}. */
+        private final long base;
+        private final MappedByteBuffer buffer;
+        /** Buffer position from which lines are parsed. */
+        private final int from;
+        /** Buffer position up to which lines are started. */
+        private final int to;
+        /** Flag indicating that {@link #from} is the start of the body. */
+        private final boolean atStart;
+        /** Flag indicating that the buffer ends before the end of the file. */
+        private final boolean truncated;
+        /** The transitions parsed from this chunk. */
+        final Edges edges;
+        /** The local labels, in the order of their numbers. */
+        final List<String> labels = new ArrayList<>();
+        /** The byte representations of {@link #labels}. */
+        private final List<byte[]> labelBytes = new ArrayList<>();
+        /** Open-addressing hash table of label numbers plus one; 0 for empty slots. */
+        private int[] table = new int[64];
+        /** Mapping from local to global label numbers. */
+        int[] labelMap;
+    }
+
+    /** Input stream reading from a (memory-mapped) byte buffer. */
+    private static class MappedInputStream extends InputStream {
+        MappedInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, len);
+            return len;
+        }
+
+        private final ByteBuffer buffer;
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.io.graph;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+
+import org.xerial.snappy.SnappyInputStream;
+import org.xerial.snappy.SnappyOutputStream;
+
+import groove.io.FileType;
+
+/**
+ * Writer that streams the states and transitions of an LTS to a file
+ * while the LTS is being generated, so that the LTS never has to be
+ * converted into a graph first.
+ * Output is collected in a direct byte buffer and written through a file
+ * channel; the body of the file may be compressed.
+ * Subclasses determine the actual format.
+ * @version $Revision $
+ */
+public abstract class LTSStreamWriter implements Closeable {
+    /**
+     * Opens a writer for a given file.
+     * The subclass constructor should write the header of the file
+     * and then call {@link #startBody()}.
+     */
+    protected LTSStreamWriter(File file, Compression compression) throws IOException {
+        this.file = file;
+        this.compression = compression;
+        this.channel = FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        this.sink = this.channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /** Returns the file written by this writer. */
+    public File getFile() {
+        return this.file;
+    }
+
+    /** Returns the compression applied to the body of the file. */
+    public Compression getCompression() {
+        return this.compression;
+    }
+
+    /** Returns the number of states written so far. */
+    public int getStateCount() {
+        return this.stateCount;
+    }
+
+    /** Returns the number of transitions written so far. */
+    public long getTransitionCount() {
+        return this.transitionCount;
+    }
+
+    /**
+     * Writes a state with a given (non-negative) number.
+     * Every state should be written at most once.
+     */
+    public void addState(int state) throws IOException {
+        assert state >= 0;
+        this.stateCount++;
+        this.maxState = Math.max(this.maxState, state);
+        writeState(state);
+    }
+
+    /**
+     * Writes a labelled transition between two states.
+     * The states need not have been written before.
+     */
+    public void addTransition(int source, String label, int target) throws IOException {
+        assert source >= 0 && target >= 0;
+        this.transitionCount++;
+        this.maxState = Math.max(this.maxState, Math.max(source, target));
+        writeTransition(source, label, target);
+    }
+
+    /**
+     * Returns the highest state number written so far, either
+     * explicitly or as the source or target of a transition.
+     */
+    protected int getMaxState() {
+        return this.maxState;
+    }
+
+    /** Callback method to write a state to the output. */
+    abstract protected void writeState(int state) throws IOException;
+
+    /** Callback method to write a transition to the output. */
+    abstract protected void writeTransition(int source, String label, int target)
+        throws IOException;
+
+    /**
+     * Callback method to write the end of the body, if any.
+     * The default implementation does nothing.
+     */
+    protected void writeTrailer() throws IOException {
+        // empty
+    }
+
+    /**
+     * Callback method to complete the file after the body has been written;
+     * typically used to fill in the header through {@link #getChannel()}.
+     * The default implementation does nothing.
+     */
+    protected void complete() throws IOException {
+        // empty
+    }
+
+    /**
+     * Writes the remainder of the body and completes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            writeTrailer();
+            flush();
+            if (this.compressed != null) {
+                // write the last compressed block; the channel is kept open
+                this.compressed.close();
+            }
+            complete();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Ends the (uncompressed) header of the file; all subsequent output
+     * is compressed according to the compression of this writer.
+     */
+    protected void startBody() throws IOException {
+        flush();
+        if (this.compression != Compression.NONE) {
+            this.compressed = this.compression
+                .wrap(new UnclosingStream(Channels.newOutputStream(this.channel)));
+            this.sink = Channels.newChannel(this.compressed);
+        }
+    }
+
+    /** Returns the file channel, for positional access to the (uncompressed) header. */
+    protected FileChannel getChannel() {
+        return this.channel;
+    }
+
+    /** Writes a single byte. */
+    protected void put(byte value) throws IOException {
+        ensure(1);
+        this.buffer.put(value);
+    }
+
+    /** Writes an array of bytes. */
+    protected void put(byte[] value) throws IOException {
+        int offset = 0;
+        while (offset < value.length) {
+            ensure(1);
+            int length = Math.min(value.length - offset, this.buffer.remaining());
+            this.buffer.put(value, offset, length);
+            offset += length;
+        }
+    }
+
+    /** Writes a big-endian integer. */
+    protected void putInt(int value) throws IOException {
+        ensure(4);
+        this.buffer.putInt(value);
+    }
+
+    /** Writes a big-endian long. */
+    protected void putLong(long value) throws IOException {
+        ensure(8);
+        this.buffer.putLong(value);
+    }
+
+    /**
+     * Writes a non-negative integer in a variable-length encoding
+     * of seven bits per byte, least significant group first.
+     */
+    protected void putVarInt(int value) throws IOException {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            this.buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        this.buffer.put((byte) value);
+    }
+
+    /** Writes the decimal ASCII representation of a non-negative integer. */
+    protected void putDecimal(int value) throws IOException {
+        ensure(10);
+        if (value == 0) {
+            this.buffer.put((byte) '0');
+            return;
+        }
+        int start = this.buffer.position();
+        while (value > 0) {
+            this.buffer.put((byte) ('0' + value % 10));
+            value /= 10;
+        }
+        // reverse the digits
+        for (int i = start, j = this.buffer.position() - 1; i < j; i++, j--) {
+            byte digit = this.buffer.get(i);
+            this.buffer.put(i, this.buffer.get(j));
+            this.buffer.put(j, digit);
+        }
+    }
+
+    /** Makes sure the buffer has room for a given number of bytes. */
+    private void ensure(int size) throws IOException {
+        if (this.buffer.remaining() < size) {
+            flush();
+        }
+    }
+
+    /** Writes the content of the buffer to the sink. */
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.sink.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    private final File file;
+    private final Compression compression;
+    private final FileChannel channel;
+    /** Channel to which the buffer is flushed; possibly compressing. */
+    private WritableByteChannel sink;
+    /** The compressing stream, if the body is compressed. */
+    private OutputStream compressed;
+    private final ByteBuffer buffer;
+    private int stateCount;
+    private long transitionCount;
+    private int maxState = -1;
+    private boolean closed;
+
+    /**
+     * Opens a writer for a given file; the format is determined
+     * by the extension of the file.
+     * If the extension is {@link FileType#AUT}, the CADP format is used,
+     * which does not support compression; otherwise, the binary format
+     * of {@link BinaryLTSWriter} is used.
+     * @param file the file to be written
+     * @param compression compression of the body of the file
+     * @param start number of the start state
+     * @throws IOException if the file cannot be opened, or if compression
+     * is requested for the CADP format
+     */
+    public static LTSStreamWriter open(File file, Compression compression, int start)
+        throws IOException {
+        if (FileType.AUT.hasExtension(file)) {
+            if (compression != Compression.NONE) {
+                throw new IOException(String.format("Format %s does not support compression",
+                    FileType.AUT.getDescription()));
+            }
+            return new AutStreamWriter(file, start);
+        } else {
+            return new BinaryLTSWriter(file, compression, start);
+        }
+    }
+
+    /** Size of the output buffer. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Compression methods for the body of a streamed LTS. */
+    public static enum Compression {
+        /** No compression. */
+        NONE,
+        /** LZ4 block compression. */
+        LZ4,
+        /** Snappy compression. */
+        SNAPPY,;
+
+        /** Wraps a compressing stream around a given output stream. */
+        public OutputStream wrap(OutputStream out) throws IOException {
+            switch (this) {
+            case NONE:
+                return out;
+            case LZ4:
+                return new LZ4BlockOutputStream(out);
+            case SNAPPY:
+                return new SnappyOutputStream(out);
+            default:
+                throw new IllegalStateException();
+            }
+        }
+
+        /** Wraps a decompressing stream around a given input stream. */
+        public InputStream unwrap(InputStream in) throws IOException {
+            switch (this) {
+            case NONE:
+                return in;
+            case LZ4:
+                return new LZ4BlockInputStream(in);
+            case SNAPPY:
+                return new SnappyInputStream(in);
+            default:
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    /** Output stream that does not close its underlying stream. */
+    private static class UnclosingStream extends FilterOutputStream {
+        UnclosingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.lts;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
+
+import groove.grammar.Grammar;
+import groove.grammar.model.GrammarModel;
+import groove.util.cli.GrammarHandler;
+import groove.util.cli.GrooveCmdLineTool;
+import groove.util.parse.FormatException;
+
+/**
+ * Tool comparing the cost of starting an exploration episode on a fresh GTS
+ * with that of resetting a warm GTS obtained from a {@link GTSPool}.
+ * Every episode consists of a bounded random walk from the start state,
+ * using the same random seed for both variants.
+ * @version $Revision $
+ */
+public class EpisodeResetBenchmark extends GrooveCmdLineTool<Object> {
+    /**
+     * Constructs the tool for a given list of command-line arguments.
+     * @param args The command-line arguments.
+     */
+    public EpisodeResetBenchmark(String... args) {
+        super("EpisodeResetBenchmark", args);
+    }
+
+    @Override
+    protected Object run() throws Exception {
+        Grammar grammar = GrammarModel.newInstance(this.grammarDir, false)
+            .toGrammar();
+        // warm up both variants before measuring
+        runEpisodes(grammar, null, Math.min(this.episodes, 10));
+        runEpisodes(grammar, new GTSPool(), Math.min(this.episodes, 10));
+        long freshTime = runEpisodes(grammar, null, this.episodes);
+        GTSPool pool = new GTSPool();
+        long pooledTime = runEpisodes(grammar, pool, this.episodes);
+        emit("Grammar:        %s%n", grammar.getName());
+        emit("Episodes:       %d of at most %d steps%n", this.episodes, this.steps);
+        emit("Fresh GTS:      %d ms (%.3f ms/episode)%n",
+            freshTime,
+            (double) freshTime / this.episodes);
+        emit("Pooled GTS:     %d ms (%.3f ms/episode)%n",
+            pooledTime,
+            (double) pooledTime / this.episodes);
+        emit("Pool activity:  %d created, %d reset%n",
+            pool.getCreateCount(),
+            pool.getResetCount());
+        return null;
+    }
+
+    /**
+     * Runs a number of random episodes and returns the elapsed time in milliseconds.
+     * @param pool the pool from which the GTS of every episode is acquired;
+     * if {@code null}, a fresh GTS is created for every episode
+     */
+    private long runEpisodes(Grammar grammar, GTSPool pool, int count)
+        throws FormatException, InterruptedException {
+        Random random = new Random(this.seed);
+        long start = System.currentTimeMillis();
+        for (int e = 0; e < count; e++) {
+            GTS gts = pool == null ? new GTS(grammar) : pool.acquire(grammar);
+            GraphState state = gts.startState();
+            for (int s = 0; s < this.steps; s++) {
+                List<MatchResult> matches = state.getMatches();
+                if (matches.isEmpty()) {
+                    break;
+                }
+                state = state.applyMatch(matches.get(random.nextInt(matches.size())))
+                    .target();
+            }
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    @Argument(metaVar = GrammarHandler.META_VAR, required = true,
+        usage = GrammarHandler.USAGE, handler = GrammarHandler.class)
+    private File grammarDir;
+    @Option(name = "-n", metaVar = "num", usage = "Number of measured episodes (default 1000)")
+    private int episodes = 1000;
+    @Option(name = "-k", metaVar = "num", usage = "Maximum number of steps per episode (default 20)")
+    private int steps = 20;
+    @Option(name = "-seed", metaVar = "num", usage = "Random seed for the episodes (default 0)")
+    private long seed;
+
+    /**
+     * Constructs and invokes the tool.
+     * Always ends with {@link System#exit(int)};
+     * prefer {@link #execute(String[])} for programmatic use.
+     * @param args The command-line arguments.
+     */
+    public static void main(String[] args) {
+        tryExecute(EpisodeResetBenchmark.class, args);
+    }
+
+    /**
+     * Constructs and invokes the tool programmatically.
+     * @param args The command-line arguments.
+     */
+    public static void execute(String[] args) throws Exception {
+        new EpisodeResetBenchmark(args).start();
+    }
+}
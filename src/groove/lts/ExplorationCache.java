@@ -0,0 +1,332 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.lts;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+import groove.control.Valuator;
+import groove.control.instance.Frame;
+import groove.grammar.host.HostEdge;
+import groove.grammar.host.HostGraph;
+import groove.grammar.host.HostNode;
+import groove.util.cache.AbstractCacheHolder;
+import groove.util.cache.CacheReference;
+
+/**
+ * Bounded memo of per-state exploration results, shared by the
+ * successive episodes or fitness runs of a heuristic search.
+ * Entries are keyed by the hash codes of the node and edge sets and the
+ * control frame of a state (the same code the GTS uses when collapsing equal
+ * states), and only reused for states with equal host graphs (as sets of nodes
+ * and edges), equal frames and equal bound values; this is the case for states that
+ * recur in different GTSs built by the same {@link GTSPool} replica,
+ * as the rule events creating their nodes are shared through the
+ * {@link groove.transform.Record} of the GTS.
+ * Per entry, the cache stores the matches of the state (without transitions)
+ * and named numerical values such as heuristic scores or rewards.
+ * <p>
+ * The table is bounded by a maximum number of entries, beyond which
+ * entries are evicted according to the clock (second chance) policy.
+ * Moreover, the table is held through a soft {@link CacheReference},
+ * so that it is cleared as a whole when memory runs low.
+ * The cache is not thread-safe.
+ * @version $Revision $
+ */
+public class ExplorationCache extends AbstractCacheHolder<ExplorationCache.Table> {
+    /** Creates a cache holding at most a given number of states. */
+    public ExplorationCache(int capacity) {
+        super(CacheReference.<Table>newInstance(false));
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the matches of a given state, either from the cache or from
+     * {@link GraphState#getMatches()}. In the latter case, the matches are
+     * stored for future use.
+     * As with {@link GraphState#getMatches()}, matches that have already been
+     * applied to the state are left out.
+     * Transient states are never cached, as their matches depend on the
+     * exploration of their parents.
+     * @return a fresh list of matches, which may be modified by the caller
+     */
+    public List<MatchResult> getMatches(GraphState state) {
+        if (state.isTransient()) {
+            return state.getMatches();
+        }
+        Entry entry = getEntry(state);
+        Set<RuleTransition> applied = state.getRuleTransitions();
+        List<MatchResult> result;
+        if (entry.matches == null) {
+            this.missCount++;
+            result = state.getMatches();
+            // only store complete match lists
+            if (applied.isEmpty()) {
+                List<MatchResult> matches = new ArrayList<>(result.size());
+                for (MatchResult match : result) {
+                    // strip the transitions, which belong to the GTS of the state
+                    matches.add(match.hasTransition() ? new MatchResult(match.getEvent(),
+                        match.getStep()) : match);
+                }
+                entry.matches = matches;
+            }
+        } else {
+            this.hitCount++;
+            result = new ArrayList<>(entry.matches);
+        }
+        for (RuleTransition trans : applied) {
+            result.remove(trans.getKey());
+        }
+        return result;
+    }
+
+    /**
+     * Returns a named value of a given state, either from the cache or
+     * computed by a given function and stored for future use.
+     * The function should only depend on the host graph and control frame of the state.
+     */
+    public double getValue(GraphState state, String key, ToDoubleFunction<GraphState> compute) {
+        Entry entry = getEntry(state);
+        Double result = entry.values.get(key);
+        if (result == null) {
+            this.missCount++;
+            result = compute.applyAsDouble(state);
+            entry.values.put(key, result);
+        } else {
+            this.hitCount++;
+        }
+        return result;
+    }
+
+    /** Returns the entry for a given state, creating it if it is not yet in the cache. */
+    private Entry getEntry(GraphState state) {
+        Table table = getCache();
+        HostGraph graph = state.getGraph();
+        int code = graph.nodeSet()
+            .hashCode()
+            + graph.edgeSet()
+                .hashCode();
+        Frame frame = state.getPrimeFrame();
+        if (frame != null) {
+            code += frame.hashCode();
+            code += Valuator.hashCode(state.getPrimeValues());
+        }
+        Entry result = table.get(code, state);
+        if (result == null) {
+            if (table.size() == this.capacity) {
+                table.evict();
+                this.evictCount++;
+            }
+            result = new Entry(code, state);
+            table.put(result);
+        }
+        result.referenced = true;
+        return result;
+    }
+
+    @Override
+    protected Table createCache() {
+        if (this.tableCount > 0) {
+            // the previous table was collected by the garbage collector
+            this.clearCount++;
+        }
+        this.tableCount++;
+        return new Table(this.capacity);
+    }
+
+    /** Returns the current number of cached states. */
+    public int size() {
+        Table table = getCache(false);
+        return table == null ? 0 : table.size();
+    }
+
+    /** Returns the number of lookups that were answered from the cache. */
+    public long getHitCount() {
+        return this.hitCount;
+    }
+
+    /** Returns the number of lookups that required a computation. */
+    public long getMissCount() {
+        return this.missCount;
+    }
+
+    /** Returns the number of entries evicted to stay within the capacity. */
+    public long getEvictCount() {
+        return this.evictCount;
+    }
+
+    /** Returns the number of times the cache was cleared due to memory shortage. */
+    public int getClearCount() {
+        return this.clearCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ExplorationCache[size=%d, hits=%d, misses=%d, evicted=%d, cleared=%d]",
+            size(),
+            this.hitCount,
+            this.missCount,
+            this.evictCount,
+            this.clearCount);
+    }
+
+    private final int capacity;
+    private long hitCount;
+    private long missCount;
+    private long evictCount;
+    private int clearCount;
+    private int tableCount;
+
+    /**
+     * Cached data for a single state.
+     * Rather than copies of the node and edge sets of the state, the entry
+     * stores arrays of the nodes and edges; together with the set sizes,
+     * this suffices to test for equality.
+     */
+    static private class Entry {
+        Entry(int code, GraphState state) {
+            this.code = code;
+            this.frame = state.getPrimeFrame();
+            this.primeValues = state.getPrimeValues();
+            HostGraph graph = state.getGraph();
+            this.nodes = graph.nodeSet()
+                .toArray(new HostNode[graph.nodeCount()]);
+            this.edges = graph.edgeSet()
+                .toArray(new HostEdge[graph.edgeCount()]);
+        }
+
+        /** Tests if this entry stores the data of a given state. */
+        boolean isFor(GraphState state) {
+            if (this.frame != state.getPrimeFrame()) {
+                return false;
+            }
+            if (!Valuator.areEqual(this.primeValues, state.getPrimeValues())) {
+                return false;
+            }
+            HostGraph graph = state.getGraph();
+            Set<? extends HostNode> nodeSet = graph.nodeSet();
+            Set<? extends HostEdge> edgeSet = graph.edgeSet();
+            if (nodeSet.size() != this.nodes.length || edgeSet.size() != this.edges.length) {
+                return false;
+            }
+            // the sets have the same sizes, so inclusion implies equality
+            for (HostEdge edge : this.edges) {
+                if (!edgeSet.contains(edge)) {
+                    return false;
+                }
+            }
+            for (HostNode node : this.nodes) {
+                if (!nodeSet.contains(node)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        final int code;
+        final Frame frame;
+        final Object[] primeValues;
+        /** The nodes of the state's host graph. */
+        final HostNode[] nodes;
+        /** The edges of the state's host graph. */
+        final HostEdge[] edges;
+        /** The matches of the state, or {@code null} if they have not been computed. */
+        List<MatchResult> matches;
+        /** The named values computed for the state. */
+        final Map<String,Double> values = new HashMap<>(4);
+        /** Second-chance flag of the clock policy. */
+        boolean referenced;
+        /** Next entry in the same hash bucket. */
+        Entry next;
+    }
+
+    /**
+     * Hash table of cache entries, with a clock over the entries
+     * in order of insertion.
+     */
+    static class Table {
+        Table(int capacity) {
+            this.clock = new Entry[capacity];
+        }
+
+        /** Returns the entry for a given state, or {@code null} if there is none. */
+        Entry get(int code, GraphState state) {
+            Entry result = this.buckets.get(code);
+            while (result != null && !result.isFor(state)) {
+                result = result.next;
+            }
+            return result;
+        }
+
+        /** Inserts an entry, which should not yet be in the table; the table should not be full. */
+        void put(Entry entry) {
+            entry.next = this.buckets.put(entry.code, entry);
+            // the free clock slots are the ones just before the hand
+            int slot = (this.hand + this.size) % this.clock.length;
+            this.clock[slot] = entry;
+            this.size++;
+        }
+
+        /** Removes an entry chosen by the clock policy; the table should be full. */
+        void evict() {
+            Entry victim = this.clock[this.hand];
+            while (victim.referenced) {
+                // give the entry a second chance
+                victim.referenced = false;
+                this.hand = (this.hand + 1) % this.clock.length;
+                victim = this.clock[this.hand];
+            }
+            // the freed slot ends up just before the hand
+            this.clock[this.hand] = null;
+            this.hand = (this.hand + 1) % this.clock.length;
+            this.size--;
+            remove(victim);
+        }
+
+        private void remove(Entry entry) {
+            Entry first = this.buckets.get(entry.code);
+            if (first == entry) {
+                if (entry.next == null) {
+                    this.buckets.remove(entry.code);
+                } else {
+                    this.buckets.put(entry.code, entry.next);
+                }
+            } else {
+                Entry prev = first;
+                while (prev.next != entry) {
+                    prev = prev.next;
+                }
+                prev.next = entry.next;
+            }
+        }
+
+        /** Returns the number of entries in this table. */
+        int size() {
+            return this.size;
+        }
+
+        private final Map<Integer,Entry> buckets = new HashMap<>();
+        /** Circular buffer of entries, starting at {@link #hand}. */
+        private final Entry[] clock;
+        private int hand;
+        private int size;
+    }
+}
@@ -22,6 +22,7 @@ import static groove.lts.GTS.CollapseMode.COLLAPSE_NONE;
 
 import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
@@ -138,11 +139,52 @@ public class GTS extends AGraph<GraphState,GraphTransition> implements Cloneable
         return result;
     }
 
+    /**
+     * Returns the (fixed) start graph of this GTS, creating it upon the first call.
+     * The start graph is retained by {@link #reset()}.
+     */
+    protected final HostGraph getStartGraph() {
+        if (this.startGraph == null) {
+            this.startGraph = createStartGraph();
+        }
+        return this.startGraph;
+    }
+
+    /** The fixed start graph, created by {@link #createStartGraph()}. */
+    private HostGraph startGraph;
+
     /**
      * Factory method to create the start state for this GTS, for a given start graph.
      */
     protected GraphState createStartState() {
-        return new StartGraphState(this, createStartGraph());
+        return new StartGraphState(this, getStartGraph());
+    }
+
+    /**
+     * Discards all states and transitions of this GTS, returning it to
+     * the condition directly after construction.
+     * The start graph, derivation record and match applier are retained,
+     * as is the memory reserved for the state set, so that a subsequent
+     * exploration avoids their set-up cost.
+     * The GTS listeners are retained but not notified; states
+     * of the previous exploration should no longer be used.
+     * @see GTSPool
+     */
+    public void reset() {
+        if (this.allStateSet != null) {
+            this.allStateSet.clear();
+        }
+        this.startState = null;
+        this.allTransitionCount = 0;
+        this.realStateCount = 0;
+        Arrays.fill(this.stateCounts, 0);
+        this.statesMap.clear();
+        this.transients = false;
+        this.absents = false;
+        if (hasInfo()) {
+            GraphInfo.setErrors(this, Collections.<FormatError>emptySet());
+        }
+        clearCache();
     }
 
     /**
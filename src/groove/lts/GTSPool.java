@@ -0,0 +1,77 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.lts;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import groove.grammar.Grammar;
+import groove.util.parse.FormatException;
+
+/**
+ * Pool of reusable GTSs for episodic exploration, such as the episodes of
+ * reinforcement learning or the fitness evaluations of metaheuristic searches.
+ * Every thread owns one warm GTS per pool, which is reset in place
+ * (see {@link GTS#reset()}) rather than rebuilt at the start of every episode.
+ * The pool is independent of the simulator, so acquiring a GTS never
+ * fires any GUI events.
+ * @version $Revision $
+ */
+public class GTSPool {
+    /**
+     * Returns an empty GTS for a given grammar, owned by the calling thread.
+     * The first call from a given thread creates the GTS; subsequent calls
+     * for the same grammar reset and return the same GTS, discarding the
+     * states of the previous episode.
+     * @throws FormatException if the grammar cannot be used to create a GTS
+     */
+    public GTS acquire(Grammar grammar) throws FormatException {
+        GTS result = this.replica.get();
+        if (result == null || result.getGrammar() != grammar) {
+            result = new GTS(grammar);
+            this.replica.set(result);
+            this.createCount.incrementAndGet();
+        } else {
+            result.reset();
+            this.resetCount.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Drops the GTS of the calling thread, if any,
+     * so that the memory taken by its states may be reclaimed.
+     * This should be called once the episodes of a thread are over, as otherwise
+     * the thread keeps its last GTS reachable, even after the pool is discarded.
+     */
+    public void release() {
+        this.replica.remove();
+    }
+
+    /** Returns the number of GTSs created by this pool. */
+    public int getCreateCount() {
+        return this.createCount.get();
+    }
+
+    /** Returns the number of times a GTS of this pool was reset for reuse. */
+    public int getResetCount() {
+        return this.resetCount.get();
+    }
+
+    private final ThreadLocal<GTS> replica = new ThreadLocal<>();
+    private final AtomicInteger createCount = new AtomicInteger();
+    private final AtomicInteger resetCount = new AtomicInteger();
+}
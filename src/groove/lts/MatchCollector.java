@@ -17,8 +17,13 @@
 package groove.lts;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
 
 import groove.algebra.Constant;
 import groove.control.Binding;
@@ -29,7 +34,9 @@ import groove.control.instance.Step;
 import groove.grammar.Rule;
 import groove.grammar.UnitPar;
 import groove.grammar.host.AnchorValue;
+import groove.grammar.host.DeltaHostGraph;
 import groove.grammar.host.HostEdge;
+import groove.grammar.host.HostFactory;
 import groove.grammar.host.HostGraph;
 import groove.grammar.host.HostNode;
 import groove.grammar.host.ValueNode;
@@ -38,9 +45,12 @@ import groove.grammar.rule.RuleNode;
 import groove.grammar.rule.RuleToHostMap;
 import groove.grammar.rule.VariableNode;
 import groove.graph.GraphInfo;
+import groove.match.MatcherFactory;
+import groove.match.plan.PlanStatistics;
 import groove.transform.CompositeEvent;
 import groove.transform.Proof;
 import groove.transform.Record;
+import groove.transform.RuleEffect;
 import groove.transform.RuleEvent;
 import groove.util.Pair;
 import groove.util.Visitor;
@@ -85,89 +95,228 @@ public class MatchCollector {
      * @param step the control step for which matches are to be found; non-{@code null}
      */
     public MatchResultSet computeMatches(final Step step) {
-        final MatchResultSet result = new MatchResultSet();
-        if (DEBUG) {
-            System.out.printf("Matches for %s, %s%n  ", this.state, this.state.getGraph());
-        }
-        assert step != null;
-        // there are three reasons to want to use the parent matches: to
-        // save matching time, to reuse added nodes, and to find confluent
-        // diamonds. The first is only relevant if the rule is not (re)enabled,
-        // the third only if the parent match target is already closed
-        final boolean isDisabled = isDisabled(step.getRuleCall());
-        boolean isModifying = step.isModifying();
-        if (!isDisabled) {
-            for (GraphTransition trans : this.parentTransMap) {
-                if (trans instanceof RuleTransition) {
-                    RuleTransition ruleTrans = (RuleTransition) trans;
-                    if (ruleTrans.getEvent()
-                        .getRule()
-                        .equals(step.getRule())) {
-                        MatchResult match = ruleTrans.getKey();
-                        if (isModifying) {
-                            // we can reuse the event but not the control step
-                            match = new MatchResult(match.getEvent(), step);
-                        }
-                        result.add(match);
-                        if (DEBUG) {
-                            System.out.print(" T" + System.identityHashCode(trans.getEvent()));
-                        }
-                    }
-                }
+        StepMatcher matcher = new StepMatcher(step);
+        matcher.search();
+        return matcher.finish();
+    }
+
+    /**
+     * Returns the sets of matching events for a sequence of control steps,
+     * in the order of the steps.
+     * If parallel matching is enabled (see {@link #setParallelism(int)}),
+     * the searches for fresh matches of the steps are carried out in parallel
+     * on a shared fork-join pool, while the host graph is read-only.
+     * The resulting events are created on the calling thread, in the order of
+     * the steps and the matches, so that the outcome is the same as when the
+     * steps are matched one by one.
+     * @param steps the control steps for which matches are to be found
+     */
+    public List<MatchResultSet> computeMatches(Iterable<Step> steps) {
+        List<StepMatcher> matchers = new ArrayList<>();
+        int searchCount = 0;
+        for (Step step : steps) {
+            StepMatcher matcher = new StepMatcher(step);
+            if (matcher.hasSearch()) {
+                searchCount++;
             }
+            matchers.add(matcher);
         }
-        if (isDisabled || isEnabled(step.getRuleCall())) {
-            // the rule was possibly enabled afresh, so we have to add the fresh
-            // matches
-            RuleToHostMap boundMap = extractBinding(step);
-            if (boundMap != null) {
-                final Record record = this.record;
-                Optional<MatchChecker> matchFilter = step.getRule()
-                    .getMatchFilter();
-                Visitor<Proof,Boolean> eventCollector = new Visitor<Proof,Boolean>(false) {
-                    @Override
-                    protected boolean process(Proof proof) {
-                        RuleEvent event = record.getEvent(proof);
-                        boolean filtered = false;
-                        GraphState state = MatchCollector.this.state;
-                        HostGraph host = state.getGraph();
-                        if (matchFilter.isPresent()) {
-                            try {
-                                filtered = matchFilter.get()
-                                    .invoke(host, event.getAnchorMap());
-                            } catch (InvocationTargetException exc) {
-                                FormatError error = new FormatError(
-                                    "Error at state %s while applying match filter %s: %s", state,
-                                    matchFilter.get()
-                                        .getQualName(),
-                                    exc.getCause());
-                                GraphInfo.addError(state.getGTS(), error);
-                            }
-                        }
-                        if (!filtered) {
-                            // only look up the event in the parent map if
-                            // the rule was disabled, as otherwise the result
-                            // already contains all relevant parent results
-                            MatchResult match = new MatchResult(event, step);
-                            if (isDisabled) {
-                                match = getParentTrans(match);
+        if (searchCount > 1 && isParallel()) {
+            HostGraph host = matchers.get(0).host;
+            if (host instanceof DeltaHostGraph) {
+                ((DeltaHostGraph) host).initAllData();
+            }
+            HostFactory factory = host.getFactory();
+            if (!factory.isConcurrent()) {
+                factory.setConcurrent();
+            }
+            getPool().invoke(new SearchAllTask(matchers));
+            parallelCount.incrementAndGet();
+        } else {
+            for (StepMatcher matcher : matchers) {
+                matcher.search();
+            }
+        }
+        List<MatchResultSet> result = new ArrayList<>(matchers.size());
+        for (StepMatcher matcher : matchers) {
+            result.add(matcher.finish());
+        }
+        return result;
+    }
+
+    /**
+     * Tests if the matches of several steps are to be searched in parallel.
+     * This is the case if the parallelism has been set to more than {@code 1}
+     * and the current search engines may be used concurrently.
+     */
+    private boolean isParallel() {
+        if (parallelism <= 1) {
+            return false;
+        }
+        boolean simple = this.state.getGraph()
+            .isSimple();
+        return MatcherFactory.instance(simple)
+            .getEngine()
+            .isConcurrent();
+    }
+
+    /**
+     * Algorithm to find the matches for a single control step.
+     * The work is divided in three phases: the constructor determines which
+     * matches can be reused from the parent state and whether a search is
+     * needed; {@link #search()} collects the proofs of the fresh matches, and
+     * can be invoked on any thread; {@link #finish()} turns the proofs into
+     * match results.
+     */
+    private class StepMatcher {
+        StepMatcher(Step step) {
+            this.step = step;
+            this.host = MatchCollector.this.state.getGraph();
+            this.result = new MatchResultSet();
+            if (DEBUG) {
+                System.out.printf("Matches for %s, %s%n  ",
+                    MatchCollector.this.state,
+                    MatchCollector.this.state.getGraph());
+            }
+            assert step != null;
+            // there are three reasons to want to use the parent matches: to
+            // save matching time, to reuse added nodes, and to find confluent
+            // diamonds. The first is only relevant if the rule is not (re)enabled,
+            // the third only if the parent match target is already closed
+            this.isDisabled = isDisabled(step.getRuleCall());
+            boolean isModifying = step.isModifying();
+            if (!this.isDisabled) {
+                for (GraphTransition trans : MatchCollector.this.parentTransMap) {
+                    if (trans instanceof RuleTransition) {
+                        RuleTransition ruleTrans = (RuleTransition) trans;
+                        if (ruleTrans.getEvent()
+                            .getRule()
+                            .equals(step.getRule())) {
+                            MatchResult match = ruleTrans.getKey();
+                            if (isModifying) {
+                                // we can reuse the event but not the control step
+                                match = new MatchResult(match.getEvent(), step);
                             }
-                            result.add(match);
+                            this.result.add(match);
                             if (DEBUG) {
-                                System.out.print(" E" + System.identityHashCode(match.getEvent()));
-                                checkEvent(match.getEvent());
+                                System.out.print(" T" + System.identityHashCode(trans.getEvent()));
                             }
-                            setResult(true);
                         }
-                        return true;
                     }
-                };
-                step.getRule()
-                    .traverseMatches(this.state.getGraph(), boundMap, eventCollector);
+                }
+            }
+            if (this.isDisabled || isEnabled(step.getRuleCall())) {
+                // the rule was possibly enabled afresh, so we have to add the fresh
+                // matches
+                this.boundMap = extractBinding(step);
+                if (this.boundMap != null && !this.isDisabled && isLocal(step.getRuleCall())) {
+                    // the added elements are computed here rather than during the search,
+                    // as this may involve reconstructing the parent graph
+                    RuleEffect effect = getParentEffect();
+                    this.local = true;
+                    this.addedNodes = effect.hasAddedNodes() ? toList(effect.getAddedNodes()) : null;
+                    this.addedEdges = effect.hasAddedEdges() ? toList(effect.getAddedEdges()) : null;
+                    localCount.incrementAndGet();
+                }
+            }
+        }
+
+        /** Indicates if this step requires a search for fresh matches. */
+        boolean hasSearch() {
+            return this.boundMap != null;
+        }
+
+        /** Collects the proofs of the fresh matches, if a search is required. */
+        void search() {
+            if (!hasSearch()) {
+                return;
+            }
+            HostGraph host = this.host;
+            Rule rule = this.step.getRule();
+            Visitor<Proof,List<Proof>> collector = Visitor.newCollector(this.proofs);
+            if (this.local) {
+                // new matches must use an element added by the parent transition
+                rule.traverseMatches(host, this.boundMap, this.addedNodes, this.addedEdges, collector);
+            } else {
+                if (PlanStatistics.isEnabled()) {
+                    PlanStatistics.instance()
+                        .sample(host);
+                }
+                rule.traverseMatches(host, this.boundMap, collector);
+            }
+            collector.dispose();
+        }
+
+        /** Turns the collected proofs into match results, and returns all match results. */
+        MatchResultSet finish() {
+            Optional<MatchChecker> matchFilter = this.step.getRule()
+                .getMatchFilter();
+            GraphState state = MatchCollector.this.state;
+            HostGraph host = this.host;
+            for (Proof proof : this.proofs) {
+                RuleEvent event = MatchCollector.this.record.getEvent(proof);
+                boolean filtered = false;
+                if (matchFilter.isPresent()) {
+                    try {
+                        filtered = matchFilter.get()
+                            .invoke(host, event.getAnchorMap());
+                    } catch (InvocationTargetException exc) {
+                        FormatError error =
+                            new FormatError("Error at state %s while applying match filter %s: %s",
+                                state, matchFilter.get()
+                                    .getQualName(),
+                                exc.getCause());
+                        GraphInfo.addError(state.getGTS(), error);
+                    }
+                }
+                if (!filtered) {
+                    // only look up the event in the parent map if
+                    // the rule was disabled, as otherwise the result
+                    // already contains all relevant parent results
+                    MatchResult match = new MatchResult(event, this.step);
+                    if (this.isDisabled) {
+                        match = getParentTrans(match);
+                    }
+                    this.result.add(match);
+                    if (DEBUG) {
+                        System.out.print(" E" + System.identityHashCode(match.getEvent()));
+                        checkEvent(match.getEvent());
+                    }
+                }
+            }
+            if (DEBUG) {
+                System.out.println();
             }
+            return this.result;
         }
-        if (DEBUG) {
-            System.out.println();
+
+        private final Step step;
+        /**
+         * The graph of the state, retrieved on the calling thread
+         * as it may have to be reconstructed.
+         */
+        private final HostGraph host;
+        /** The match results found so far. */
+        private final MatchResultSet result;
+        /** Flag indicating that matches may have been disabled since the parent state. */
+        private final boolean isDisabled;
+        /** The binding of the rule parameters; {@code null} if no search is required. */
+        private RuleToHostMap boundMap;
+        /** Flag indicating that the search is localised to the elements added by the parent transition. */
+        private boolean local;
+        /** The nodes added by the parent transition, if the search is localised. */
+        private List<HostNode> addedNodes;
+        /** The edges added by the parent transition, if the search is localised. */
+        private List<HostEdge> addedEdges;
+        /** The proofs of the fresh matches. */
+        private final List<Proof> proofs = new ArrayList<>();
+    }
+
+    /** Copies the elements of an iterable into a list. */
+    private static <E> List<E> toList(Iterable<E> elements) {
+        List<E> result = new ArrayList<>();
+        for (E element : elements) {
+            result.add(element);
         }
         return result;
     }
@@ -230,6 +379,62 @@ public class MatchCollector {
         return triedCalls == null || !triedCalls.contains(call);
     }
 
+    /**
+     * Indicates if the new matches of a given control call, with respect to
+     * the parent state, can be found by a search seeded from the elements
+     * added by the parent transition.
+     * This is the case if the parent is closed, the call was tried in the parent
+     * with the same arguments, the rule admits localised matching, and the
+     * parent transition did not remove elements that may unblock the rule.
+     * @see Rule#isLocalisable()
+     * @see Rule#isUnblockedBy(Iterable, Iterable)
+     */
+    private boolean isLocal(Call call) {
+        if (!localised || this.enabledRules == null || !this.parentClosed
+            || !call.getRule()
+                .isLocalisable()) {
+            return false;
+        }
+        // since enabledRules != null, it is now certain that this is a NextState
+        GraphNextState state = (GraphNextState) this.state;
+        if (state.getStep()
+            .isModifying()) {
+            return false;
+        }
+        Set<Call> triedCalls = state.source()
+            .getActualFrame()
+            .getPastCalls();
+        if (triedCalls == null || !triedCalls.contains(call)) {
+            return false;
+        }
+        RuleEffect effect = getParentEffect();
+        return !call.getRule()
+            .isUnblockedBy(effect.hasRemovedNodes() ? effect.getRemovedNodes() : null,
+                effect.hasRemovedEdges() ? effect.getRemovedEdges() : null);
+    }
+
+    /**
+     * Lazily computes and returns the effect of the transition from the parent state.
+     * Should only be called if the state is a {@link GraphNextState}.
+     */
+    private RuleEffect getParentEffect() {
+        RuleEffect result = this.parentEffect;
+        if (result == null) {
+            GraphNextState state = (GraphNextState) this.state;
+            result = new RuleEffect(state.source()
+                .getGraph(), state.getAddedNodes());
+            try {
+                state.getEvent()
+                    .recordEffect(result);
+            } catch (InterruptedException exc) {
+                throw new IllegalStateException("Value oracles are ruled out for recorded effects");
+            }
+            result.setFixed();
+            this.parentEffect = result;
+        }
+        return result;
+    }
+
     /**
      * Indicates if matches of a given control call might have been disabled
      * since the parent state.
@@ -349,6 +554,79 @@ public class MatchCollector {
     /** The rules that may be disabled. */
     protected final Set<Rule> disabledRules;
 
+    /** The effect of the parent transition; lazily computed by {@link #getParentEffect()}. */
+    private RuleEffect parentEffect;
+
+    /**
+     * Changes the localised matching mode, in which
+     * the new matches of rules that are possibly enabled by the
+     * parent transition are searched from the elements added by that transition.
+     * The mode is on by default.
+     * @see Rule#isLocalisable()
+     */
+    public static void setLocalised(boolean localised) {
+        MatchCollector.localised = localised;
+    }
+
+    /** Indicates if localised matching is enabled. */
+    public static boolean isLocalised() {
+        return localised;
+    }
+
+    /** Returns the total number of localised match searches. */
+    public static long getLocalCount() {
+        return localCount.get();
+    }
+
+    /** Flag controlling localised matching. */
+    private static volatile boolean localised = true;
+    /** Counter for the number of localised match searches. */
+    private static final AtomicLong localCount = new AtomicLong();
+
+    /**
+     * Sets the number of threads used to search for the matches of the
+     * steps of a control frame in parallel.
+     * A value of {@code 1}, which is the default, means that the steps are
+     * matched sequentially on the exploring thread.
+     * The pool of threads is shared among all match collectors.
+     * @see #computeMatches(Iterable)
+     */
+    public static synchronized void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be positive");
+        }
+        if (parallelism != MatchCollector.parallelism && pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        MatchCollector.parallelism = parallelism;
+    }
+
+    /** Returns the number of threads used to search for matches in parallel. */
+    public static int getParallelism() {
+        return parallelism;
+    }
+
+    /** Returns the pool on which matches are searched in parallel. */
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    /** Returns the number of control frames whose steps were matched in parallel. */
+    public static long getParallelCount() {
+        return parallelCount.get();
+    }
+
+    /** Number of threads used to search for matches in parallel. */
+    private static volatile int parallelism = 1;
+    /** Shared pool for parallel match searches; lazily created. */
+    private static ForkJoinPool pool;
+    /** Counter for the number of control frames matched in parallel. */
+    private static final AtomicLong parallelCount = new AtomicLong();
+
     /** Returns the total number of reused parent events. */
     public static int getEventReuse() {
         return parentOutReuse;
@@ -359,4 +637,42 @@ public class MatchCollector {
 
     /** Debug flag for the match collector. */
     private final static boolean DEBUG = false;
+
+    /** Fork-join task searching for the matches of a list of steps, one subtask per step. */
+    private static class SearchAllTask extends RecursiveAction {
+        SearchAllTask(List<StepMatcher> matchers) {
+            this.matchers = matchers;
+        }
+
+        @Override
+        protected void compute() {
+            List<SearchTask> tasks = new ArrayList<>();
+            for (StepMatcher matcher : this.matchers) {
+                if (matcher.hasSearch()) {
+                    tasks.add(new SearchTask(matcher));
+                }
+            }
+            invokeAll(tasks);
+        }
+
+        private final List<StepMatcher> matchers;
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    /** Fork-join task searching for the matches of a single step. */
+    private static class SearchTask extends RecursiveAction {
+        SearchTask(StepMatcher matcher) {
+            this.matcher = matcher;
+        }
+
+        @Override
+        protected void compute() {
+            this.matcher.search();
+        }
+
+        private final StepMatcher matcher;
+
+        private static final long serialVersionUID = 1L;
+    }
 }
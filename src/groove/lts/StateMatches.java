@@ -160,8 +160,10 @@ public class StateMatches extends MatchResultSet {
             // keep track of property violations
             CheckPolicy violated = CheckPolicy.SILENT;
             List<MatchResult> outstanding = new LinkedList<>();
+            Iterator<MatchResultSet> matchesIter = getMatchCollector().computeMatches(attempt)
+                .iterator();
             for (Step step : attempt) {
-                MatchResultSet matches = getMatchCollector().computeMatches(step);
+                MatchResultSet matches = matchesIter.next();
                 Rule action = step.getRule();
                 if (action.getRole() == (matches.isEmpty() ? Role.INVARIANT : Role.FORBIDDEN)) {
                     assert attempt.isConstraint();
@@ -0,0 +1,59 @@
+/* GROOVE: GRaphs for Object Oriented VErification
+ * Copyright 2003--2010 University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * $Id$
+ */
+package groove.match;
+
+import groove.grammar.Condition;
+import groove.grammar.rule.RuleToHostMap;
+
+/**
+ * Tree match of a condition with a pattern, of which the pattern map
+ * is only created by {@link #computePatternMap()}
+ * upon the first call of {@link #getPatternMap()}.
+ * This saves the construction of pattern maps for matches
+ * that are only tested for existence.
+ * @version $Revision $
+ */
+public abstract class LazyTreeMatch extends TreeMatch {
+    /**
+     * Constructs a match for a given condition with a pattern.
+     * The submatches are initially empty.
+     */
+    protected LazyTreeMatch(Condition condition) {
+        super(condition);
+    }
+
+    /**
+     * Returns the pattern map of this match, creating it if necessary.
+     * The map is created without synchronisation: if several threads
+     * ask for it at the same time, each may compute a map of its own.
+     * This is harmless, as the maps are equal and only one of them is kept.
+     */
+    @Override
+    public final RuleToHostMap getPatternMap() {
+        RuleToHostMap result = this.patternMap;
+        if (result == null) {
+            this.patternMap = result = computePatternMap();
+        }
+        return result;
+    }
+
+    /** Callback method to create the pattern map of this match. */
+    protected abstract RuleToHostMap computePatternMap();
+
+    /** The pattern map; {@code null} until it is first requested. */
+    private volatile RuleToHostMap patternMap;
+}
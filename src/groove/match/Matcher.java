@@ -34,6 +34,7 @@ import groove.grammar.rule.RuleEdge;
 import groove.grammar.rule.RuleNode;
 import groove.grammar.rule.RuleToHostMap;
 import groove.grammar.rule.Valuation;
+import groove.match.plan.PlanStatistics;
 import groove.util.Visitor;
 import groove.util.Visitor.Collector;
 import groove.util.Visitor.Finder;
@@ -74,7 +75,8 @@ public class Matcher implements SearchStrategy {
      *        <code>null</code> if there is no predefined mapping
      */
     public TreeMatch find(HostGraph host, RuleToHostMap seedMap) {
-        Finder<TreeMatch> finder = this.finder.newInstance();
+        Finder<TreeMatch> finder = this.finder.get()
+            .newInstance();
         TreeMatch result = traverse(host, seedMap, finder);
         finder.dispose();
         return result;
@@ -89,7 +91,8 @@ public class Matcher implements SearchStrategy {
      */
     public List<TreeMatch> findAll(HostGraph host, RuleToHostMap seedMap) {
         List<TreeMatch> result = new ArrayList<>();
-        Collector<TreeMatch,List<TreeMatch>> collector = this.collector.newInstance(result);
+        Collector<TreeMatch,List<TreeMatch>> collector = this.collector.get()
+            .newInstance(result);
         traverse(host, seedMap, collector);
         collector.dispose();
         return result;
@@ -116,6 +119,13 @@ public class Matcher implements SearchStrategy {
         assert host.getFactory()
             .getTypeFactory()
             .getGraph() == this.condition.getTypeGraph();
+        if (PlanStatistics.isEnabled() && this.condition.hasRule()) {
+            long start = System.nanoTime();
+            T result = getSearchStrategy().traverse(host, seedMap, visitor);
+            PlanStatistics.instance()
+                .recordMatchTime(this.condition, System.nanoTime() - start);
+            return result;
+        }
         return getSearchStrategy().traverse(host, seedMap, visitor);
     }
 
@@ -221,22 +231,41 @@ public class Matcher implements SearchStrategy {
     /**
      * Returns the inner search strategy responsible for the actual
      * searching. If required, the inner strategy is updated with respect to the
-     * search engine wrapped in the matcher factory.
+     * search engine wrapped in the matcher factory, or replaced if it is outdated.
      */
     public final SearchStrategy getSearchStrategy() {
-        if (this.inner == null || this.inner.getEngine() != getEngine()) {
-            this.inner = getEngine().createMatcher(getCondition(), getSeed());
+        SearchStrategy result = this.inner;
+        if (result == null || result.getEngine() != getEngine() || result.isOutdated()) {
+            synchronized (this) {
+                result = this.inner;
+                if (result == null || result.getEngine() != getEngine()) {
+                    this.inner = result = getEngine().createMatcher(getCondition(), getSeed());
+                } else if (result.isOutdated()) {
+                    this.inner = result = getEngine().createMatcher(getCondition(), getSeed());
+                    PlanStatistics.instance()
+                        .recordPlanSwap(getCondition());
+                }
+            }
         }
-        return this.inner;
+        return result;
     }
 
     private final MatcherFactory factory;
     private final Condition condition;
     private final Anchor seed;
 
-    private SearchStrategy inner;
-    /** Reusable finder for {@link #find(HostGraph, RuleToHostMap)}. */
-    private final Finder<TreeMatch> finder = Visitor.newFinder(null);
-    /** Reusable collector for {@link #findAll(HostGraph, RuleToHostMap)}. */
-    private final Collector<TreeMatch,List<TreeMatch>> collector = Visitor.newCollector(null);
+    /** The current search strategy; refreshed under synchronisation. */
+    private volatile SearchStrategy inner;
+    /**
+     * Reusable finder for {@link #find(HostGraph, RuleToHostMap)}.
+     * Kept per thread, as matchers may be used by parallel searches.
+     */
+    private final ThreadLocal<Finder<TreeMatch>> finder =
+        ThreadLocal.withInitial(() -> Visitor.newFinder(null));
+    /**
+     * Reusable collector for {@link #findAll(HostGraph, RuleToHostMap)}.
+     * Kept per thread, as matchers may be used by parallel searches.
+     */
+    private final ThreadLocal<Collector<TreeMatch,List<TreeMatch>>> collector =
+        ThreadLocal.withInitial(() -> Visitor.newCollector(null));
 }
@@ -39,4 +39,12 @@ public abstract class SearchEngine {
      */
     public abstract SearchStrategy createMatcher(Condition condition, Anchor seed);
 
+    /**
+     * Indicates if the strategies created by this engine may be used
+     * to search the same (unchanging) host graph from several threads at once.
+     * The default implementation returns {@code false}.
+     */
+    public boolean isConcurrent() {
+        return false;
+    }
 }
@@ -57,4 +57,14 @@ public interface SearchStrategy {
      * @return the search engine; non-{@code null}
      */
     public SearchEngine getEngine();
+
+    /**
+     * Indicates if this strategy should be replaced by a fresh one
+     * from the same engine, for instance because it was planned on the basis
+     * of statistics that are no longer accurate.
+     * The default implementation returns {@code false}.
+     */
+    default public boolean isOutdated() {
+        return false;
+    }
 }
\ No newline at end of file
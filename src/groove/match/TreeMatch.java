@@ -52,6 +52,21 @@ public class TreeMatch implements Fixable {
         assert condition.hasPattern() == (patternMap != null);
     }
 
+    /**
+     * Constructs a match for a given condition with a pattern, without
+     * a pattern map. Subclasses using this constructor should override
+     * {@link #getPatternMap()}; see {@link LazyTreeMatch}.
+     * The submatches are initially empty.
+     */
+    protected TreeMatch(Condition condition) {
+        this.condition = condition;
+        this.op = condition.getOp();
+        this.subMatches = createSubMatches(condition.getOp());
+        this.patternMap = null;
+        this.collector = new ProofWrapperCollector(null);
+        assert condition.hasPattern();
+    }
+
     /**
      * Constructs an initially empty match for a given non-pattern
      * operator. The operator can be virtual, e.g. a conjunction or
@@ -89,7 +104,7 @@ public class TreeMatch implements Fixable {
     }
 
     /** Returns the pattern map of this match. */
-    public final RuleToHostMap getPatternMap() {
+    public RuleToHostMap getPatternMap() {
         return this.patternMap;
     }
 
@@ -545,7 +560,7 @@ public class TreeMatch implements Fixable {
          * Returns a new wrapped visitor, by either reusing this one
          * if it has been disposed, or constructing a fresh one.
          */
-        public <T> ProofWrapperVisitor<R> newInstance(Visitor<Proof,R> visitor) {
+        public synchronized <T> ProofWrapperVisitor<R> newInstance(Visitor<Proof,R> visitor) {
             if (isDisposed()) {
                 this.visitor = visitor;
                 resurrect();
@@ -231,6 +231,11 @@ abstract class AbstractSearchItem implements SearchItem {
             this.found = false;
         }
 
+        @Override
+        public void release() {
+            reset();
+        }
+
         @Override
         public String toString() {
             return String.format("%s: %s", AbstractSearchItem.this.toString(), this.found);
@@ -259,6 +264,12 @@ abstract class AbstractSearchItem implements SearchItem {
             this.host = host;
         }
 
+        @Override
+        public void release() {
+            reset();
+            this.host = null;
+        }
+
         @Override
         final public boolean isRelevant() {
             return AbstractSearchItem.this.isRelevant();
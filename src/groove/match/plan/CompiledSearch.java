@@ -0,0 +1,212 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.match.plan;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import groove.algebra.Sort;
+import groove.grammar.Condition;
+import groove.grammar.host.HostEdge;
+import groove.grammar.host.HostGraph;
+import groove.grammar.host.HostNode;
+import groove.grammar.rule.RuleEdge;
+import groove.grammar.rule.RuleNode;
+import groove.grammar.rule.RuleToHostMap;
+import groove.grammar.type.TypeEdge;
+import groove.grammar.type.TypeNode;
+import groove.match.TreeMatch;
+import groove.util.Visitor;
+
+/**
+ * Superclass of the search classes generated by the {@link PlanCompiler}.
+ * A generated subclass implements {@link #search()} as a set of nested loops
+ * over the candidate images of the search items, storing the images in the
+ * {@link #nodes} and {@link #edges} arrays, and calling {@link #emit()}
+ * for every complete match.
+ * The members used by the generated code are protected, since the
+ * generated classes live in their own class loader.
+ * @version $Revision $
+ */
+public abstract class CompiledSearch {
+    /** Constructor for subclasses. */
+    protected CompiledSearch() {
+        // empty
+    }
+
+    /** Returns a fresh instance of the same class. */
+    protected abstract CompiledSearch newSearch();
+
+    /**
+     * Enumerates the matches, calling {@link #emit()} for each of them,
+     * until either there are no more matches or {@link #emit()} returns {@code false}.
+     */
+    protected abstract void search();
+
+    /** Initialises this search for a given host graph, seed map and visitor. */
+    final void initialise(CompiledSearchStrategy strategy, HostGraph host, RuleToHostMap seedMap,
+        Visitor<TreeMatch,?> visitor) {
+        this.strategy = strategy;
+        this.host = host;
+        this.visitor = visitor;
+        PlanSearchStrategy plan = strategy.getInterpreter();
+        this.nodes = new HostNode[plan.nodeKeys.length];
+        this.edges = new HostEdge[plan.edgeKeys.length];
+        this.subMatches = new TreeMatch[strategy.getSubMatchCount()];
+        if (seedMap != null) {
+            for (Map.Entry<RuleNode,? extends HostNode> nodeEntry : seedMap.nodeMap()
+                .entrySet()) {
+                this.nodes[plan.getNodeIx(nodeEntry.getKey())] = nodeEntry.getValue();
+            }
+            for (Map.Entry<RuleEdge,? extends HostEdge> edgeEntry : seedMap.edgeMap()
+                .entrySet()) {
+                this.edges[plan.getEdgeIx(edgeEntry.getKey())] = edgeEntry.getValue();
+            }
+        }
+        this.edgeTypes = strategy.edgeTypes;
+        this.nodeTypes = strategy.nodeTypes;
+        this.typeSets = strategy.typeSets;
+        this.sorts = strategy.sorts;
+        ValueNodeSearchItem[] valueItems = strategy.valueItems;
+        this.values = new HostNode[valueItems.length];
+        for (int i = 0; i < valueItems.length; i++) {
+            this.values[i] = host.getFactory()
+                .createNode(valueItems[i].algebra, valueItems[i].value);
+        }
+    }
+
+    /**
+     * Builds the tree match from the current images and passes it to the visitor.
+     * @return {@code true} if the search should continue
+     */
+    protected final boolean emit() {
+        PlanSearchStrategy plan = this.strategy.getInterpreter();
+        RuleToHostMap patternMap = this.host.getFactory()
+            .createRuleToHostMap();
+        for (int i = 0; i < this.nodes.length; i++) {
+            HostNode image = this.nodes[i];
+            if (image != null) {
+                patternMap.putNode(plan.nodeKeys[i], image);
+            }
+        }
+        for (int i = 0; i < this.edges.length; i++) {
+            HostEdge image = this.edges[i];
+            if (image != null) {
+                patternMap.putEdge(plan.edgeKeys[i], image);
+            }
+        }
+        TreeMatch result = new TreeMatch(plan.getPlan()
+            .getCondition(), patternMap);
+        for (int i = 0; i < this.subMatches.length; i++) {
+            result.addSubMatch(this.subMatches[i]);
+        }
+        return this.visitor.visit(result);
+    }
+
+    /**
+     * Returns the candidate images of an edge with a given type index,
+     * given its source and target images if these are known.
+     * This is the smaller of the edges with the right label and the edges
+     * incident to the known end.
+     */
+    protected final Set<? extends HostEdge> getEdges(int typeIx, HostNode source,
+        HostNode target) {
+        Set<? extends HostEdge> result = this.host.edgeSet(this.edgeTypes[typeIx].label());
+        if (source != null) {
+            Set<? extends HostEdge> nodeEdgeSet = this.host.edgeSet(source);
+            if (nodeEdgeSet == null) {
+                result = Collections.emptySet();
+            } else if (nodeEdgeSet.size() < result.size()) {
+                result = nodeEdgeSet;
+            }
+        } else if (target != null) {
+            Set<? extends HostEdge> nodeEdgeSet = this.host.edgeSet(target);
+            if (nodeEdgeSet == null) {
+                result = Collections.emptySet();
+            } else if (nodeEdgeSet.size() < result.size()) {
+                result = nodeEdgeSet;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the edge with a given type index between two given nodes,
+     * if it is in the host graph, or {@code null} otherwise.
+     */
+    protected final HostEdge getEdge(HostNode source, int typeIx, HostNode target) {
+        HostEdge result = this.host.getFactory()
+            .createEdge(source, this.edgeTypes[typeIx], target);
+        return this.host.containsEdge(result) ? result : null;
+    }
+
+    /**
+     * Evaluates the subcondition with a given index, using the interpreted
+     * matcher of that condition, and stores the resulting submatch (if any).
+     * @return {@code true} if the subcondition is satisfied
+     */
+    protected final boolean testCondition(int condIx) {
+        ConditionSearchItem item = this.strategy.conditionItems[condIx];
+        Condition condition = item.getCondition();
+        if (condition.getOp() == Condition.Op.TRUE) {
+            this.subMatches[item.condIx] = new TreeMatch(condition, null);
+            return true;
+        }
+        RuleToHostMap contextMap = this.host.getFactory()
+            .createRuleToHostMap();
+        for (Map.Entry<RuleNode,Integer> nodeIxEntry : item.nodeIxMap.entrySet()) {
+            contextMap.putNode(nodeIxEntry.getKey(), this.nodes[nodeIxEntry.getValue()]);
+        }
+        for (Map.Entry<RuleEdge,Integer> edgeIxEntry : item.edgeIxMap.entrySet()) {
+            contextMap.putEdge(edgeIxEntry.getKey(), this.edges[edgeIxEntry.getValue()]);
+        }
+        if (condition.getOp() == Condition.Op.NOT) {
+            return item.matcher.find(this.host, contextMap) == null;
+        }
+        List<TreeMatch> matches = item.matcher.findAll(this.host, contextMap);
+        if (condition.getOp() == Condition.Op.FORALL && item.positive && matches.isEmpty()) {
+            return false;
+        }
+        this.subMatches[item.condIx] = item.createMatch(matches);
+        return true;
+    }
+
+    /** The host graph being searched. */
+    protected HostGraph host;
+    /** The node images, indexed as in the interpreted strategy. */
+    protected HostNode[] nodes;
+    /** The edge images, indexed as in the interpreted strategy. */
+    protected HostEdge[] edges;
+    /** The edge types of the edge search items, by type index. */
+    protected TypeEdge[] edgeTypes;
+    /** The node types to be checked explicitly, by type index. */
+    protected TypeNode[] nodeTypes;
+    /** The matching node types of the node search items, by type index. */
+    protected Set<?>[] typeSets;
+    /** The sorts of the variable nodes, by node index. */
+    protected Sort[] sorts;
+    /** The images of the value node search items, by value index. */
+    protected HostNode[] values;
+    /** The submatches of the quantified subconditions. */
+    private TreeMatch[] subMatches;
+    /** The strategy that created this search. */
+    private CompiledSearchStrategy strategy;
+    /** The visitor to which the matches are passed. */
+    private Visitor<TreeMatch,?> visitor;
+}
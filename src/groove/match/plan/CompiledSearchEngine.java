@@ -0,0 +1,102 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.match.plan;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import groove.grammar.Condition;
+import groove.grammar.rule.Anchor;
+import groove.match.SearchEngine;
+import groove.match.SearchStrategy;
+
+/**
+ * Search engine that compiles the search plans of the {@link PlanSearchEngine}
+ * into Java classes, rather than interpreting them.
+ * Compilation takes place when a matcher first asks for its strategy;
+ * plans containing search items that the {@link PlanCompiler} does not
+ * support are interpreted as before.
+ * The engine is selected through
+ * {@link groove.match.MatcherFactory#setEngine(SearchEngine)}.
+ * @version $Revision $
+ */
+public class CompiledSearchEngine extends SearchEngine {
+    /**
+     * Private constructor. Get the instance through
+     * {@link #instance(boolean)}.
+     */
+    private CompiledSearchEngine(boolean simple) {
+        this.simple = simple;
+    }
+
+    @Override
+    public SearchStrategy createMatcher(Condition condition, Anchor seed) {
+        PlanSearchStrategy interpreter = PlanSearchEngine.instance(this.simple)
+            .createStrategy(this, condition, seed);
+        SearchStrategy result = new PlanCompiler(interpreter).compile();
+        if (result == null) {
+            fallbackCount.incrementAndGet();
+            result = interpreter;
+        } else {
+            compiledCount.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Compiled strategies instantiate their generated search class
+     * per traversal, so they can be used concurrently.
+     */
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+
+    /** Flag indicating if this engine matches simple or multi-graphs. */
+    private final boolean simple;
+
+    /** Returns an instance of this engine class. */
+    static public CompiledSearchEngine instance(boolean simple) {
+        CompiledSearchEngine result = simple ? simpleInstance : multiInstance;
+        if (result == null) {
+            if (simple) {
+                result = simpleInstance = new CompiledSearchEngine(true);
+            } else {
+                result = multiInstance = new CompiledSearchEngine(false);
+            }
+        }
+        return result;
+    }
+
+    /** Returns the number of search plans compiled so far. */
+    static public int getCompiledCount() {
+        return compiledCount.get();
+    }
+
+    /** Returns the number of search plans that could not be compiled, and are interpreted. */
+    static public int getFallbackCount() {
+        return fallbackCount.get();
+    }
+
+    /** Engine instance for simple graphs. */
+    private static CompiledSearchEngine simpleInstance;
+    /** Engine instance for multi-graphs. */
+    private static CompiledSearchEngine multiInstance;
+    /** Number of compiled search plans. */
+    private static final AtomicInteger compiledCount = new AtomicInteger();
+    /** Number of interpreted search plans. */
+    private static final AtomicInteger fallbackCount = new AtomicInteger();
+}
@@ -0,0 +1,134 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.match.plan;
+
+import java.util.Set;
+
+import groove.algebra.Sort;
+import groove.grammar.host.HostGraph;
+import groove.grammar.rule.Anchor;
+import groove.grammar.rule.RuleEdge;
+import groove.grammar.rule.RuleNode;
+import groove.grammar.rule.RuleToHostMap;
+import groove.grammar.type.TypeEdge;
+import groove.grammar.type.TypeNode;
+import groove.match.SearchEngine;
+import groove.match.SearchStrategy;
+import groove.match.TreeMatch;
+import groove.util.Visitor;
+
+/**
+ * Search strategy that runs a search class generated by the {@link PlanCompiler}.
+ * The strategy keeps the interpreted strategy from which it was compiled,
+ * for the index maps and as a fallback for seed maps that bind more than
+ * the planned seed.
+ * @version $Revision $
+ */
+class CompiledSearchStrategy implements SearchStrategy {
+    /** Constructs a strategy from the compiled search class and its constants. */
+    CompiledSearchStrategy(PlanSearchStrategy interpreter, CompiledSearch prototype,
+        TypeEdge[] edgeTypes, TypeNode[] nodeTypes, Set<?>[] typeSets, Sort[] sorts,
+        ValueNodeSearchItem[] valueItems, ConditionSearchItem[] conditionItems) {
+        this.interpreter = interpreter;
+        this.prototype = prototype;
+        this.edgeTypes = edgeTypes;
+        this.nodeTypes = nodeTypes;
+        this.typeSets = typeSets;
+        this.sorts = sorts;
+        this.valueItems = valueItems;
+        this.conditionItems = conditionItems;
+    }
+
+    @Override
+    public <T> T traverse(HostGraph host, RuleToHostMap seedMap, Visitor<TreeMatch,T> visitor) {
+        if (!isPlannedSeed(seedMap)) {
+            return this.interpreter.traverse(host, seedMap, visitor);
+        }
+        CompiledSearch search = this.prototype.newSearch();
+        search.initialise(this, host, seedMap, visitor);
+        search.search();
+        return visitor.getResult();
+    }
+
+    /**
+     * Tests if a given seed map only binds elements of the seed for which
+     * the plan was made.
+     */
+    private boolean isPlannedSeed(RuleToHostMap seedMap) {
+        if (seedMap == null) {
+            return true;
+        }
+        Anchor seed = this.interpreter.getPlan()
+            .getSeed();
+        for (RuleNode node : seedMap.nodeMap()
+            .keySet()) {
+            if (!seed.nodeSet()
+                .contains(node)) {
+                return false;
+            }
+        }
+        for (RuleEdge edge : seedMap.edgeMap()
+            .keySet()) {
+            if (!seed.edgeSet()
+                .contains(edge)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public SearchEngine getEngine() {
+        return this.interpreter.getEngine();
+    }
+
+    @Override
+    public boolean isOutdated() {
+        return this.interpreter.isOutdated();
+    }
+
+    @Override
+    public String toString() {
+        return "Compiled " + this.interpreter;
+    }
+
+    /** Returns the interpreted strategy from which this one was compiled. */
+    PlanSearchStrategy getInterpreter() {
+        return this.interpreter;
+    }
+
+    /** Returns the number of subconditions, i.e., the size of the submatch array. */
+    int getSubMatchCount() {
+        return this.interpreter.getCondCount();
+    }
+
+    private final PlanSearchStrategy interpreter;
+    /** Instance of the generated class, used to create fresh searches. */
+    private final CompiledSearch prototype;
+    /** The edge types of the edge search items, by type index. */
+    final TypeEdge[] edgeTypes;
+    /** The node types to be checked explicitly, by type index. */
+    final TypeNode[] nodeTypes;
+    /** The matching node types of the node search items, by type index. */
+    final Set<?>[] typeSets;
+    /** The sorts of the variable nodes, by node index. */
+    final Sort[] sorts;
+    /** The value node search items, by value index. */
+    final ValueNodeSearchItem[] valueItems;
+    /** The subcondition search items, by condition index. */
+    final ConditionSearchItem[] conditionItems;
+}
@@ -209,6 +209,37 @@ class ConditionSearchItem extends AbstractSearchItem {
         return this.condition;
     }
 
+    /**
+     * Creates a match object for a given set of pattern matches
+     * of a quantified condition.
+     */
+    TreeMatch createMatch(List<TreeMatch> matches) {
+        boolean noMatches = matches.isEmpty();
+        boolean positive = this.positive;
+        Condition.Op op;
+        switch (this.condition.getOp()) {
+        case AND:
+            op = noMatches ? Op.TRUE : Op.AND;
+            break;
+        case FORALL:
+            op = noMatches ? (positive ? Op.FALSE : Op.TRUE) : Op.AND;
+            break;
+        case OR:
+            op = noMatches ? Op.FALSE : Op.OR;
+            break;
+        case EXISTS:
+            op = noMatches ? (positive ? Op.FALSE : Op.TRUE) : Op.OR;
+            break;
+        default:
+            throw new IllegalStateException();
+        }
+        TreeMatch result = new TreeMatch(op, this.condition);
+        if (!noMatches) {
+            result.addSubMatches(matches);
+        }
+        return result;
+    }
+
     /** Tests if this condition or one of its subconditions is a modifying rule. */
     private boolean isModifying() {
         return isModifying(this.condition);
@@ -361,34 +392,6 @@ class ConditionSearchItem extends AbstractSearchItem {
             return result;
         }
 
-        /** Creates a match object for a given set of pattern matches. */
-        private TreeMatch createMatch(List<TreeMatch> matches) {
-            boolean noMatches = matches.isEmpty();
-            boolean positive = ConditionSearchItem.this.positive;
-            Condition.Op op;
-            switch (ConditionSearchItem.this.condition.getOp()) {
-            case AND:
-                op = noMatches ? Op.TRUE : Op.AND;
-                break;
-            case FORALL:
-                op = noMatches ? (positive ? Op.FALSE : Op.TRUE) : Op.AND;
-                break;
-            case OR:
-                op = noMatches ? Op.FALSE : Op.OR;
-                break;
-            case EXISTS:
-                op = noMatches ? (positive ? Op.FALSE : Op.TRUE) : Op.OR;
-                break;
-            default:
-                throw new IllegalStateException();
-            }
-            TreeMatch result = new TreeMatch(op, ConditionSearchItem.this.condition);
-            if (!noMatches) {
-                result.addSubMatches(matches);
-            }
-            return result;
-        }
-
         @Override
         boolean write() {
             boolean result = true;
@@ -140,6 +140,12 @@ class NegatedSearchItem extends AbstractSearchItem {
             this.innerRecord.initialise(host);
         }
 
+        @Override
+        public void release() {
+            super.release();
+            this.innerRecord.release();
+        }
+
         /**
          * Tests if the inner record can be satisfied; if so, it is undone
          * immediately to avoid lasting effects.
@@ -0,0 +1,459 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.match.plan;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.commons.compiler.CompileException;
+import org.codehaus.janino.SimpleCompiler;
+
+import groove.algebra.Sort;
+import groove.grammar.rule.DefaultRuleNode;
+import groove.grammar.rule.RuleNode;
+import groove.grammar.rule.VariableNode;
+import groove.grammar.type.TypeEdge;
+import groove.grammar.type.TypeNode;
+
+/**
+ * Translator of a search plan into a Java class, which is compiled
+ * on the fly by Janino.
+ * The generated {@link CompiledSearch} subclass consists of nested loops,
+ * one per search item with multiple candidate images, in which the
+ * type, value and injectivity checks of the interpreted search records
+ * are inlined, and the images are stored in array slots.
+ * Only edges with atomic labels, node types, seeds, constants and
+ * quantified or negated subconditions (without count nodes) are supported;
+ * the subconditions themselves are evaluated by their own matchers.
+ * For plans with other search items, no class is generated.
+ * Generated classes are shared among plans yielding the same code.
+ * @version $Revision $
+ */
+class PlanCompiler {
+    /** Creates a compiler for the plan of a given interpreted strategy. */
+    PlanCompiler(PlanSearchStrategy interpreter) {
+        this.interpreter = interpreter;
+        this.plan = interpreter.getPlan();
+        this.injective = interpreter.isInjective();
+    }
+
+    /**
+     * Generates and compiles the search class for the plan.
+     * @return the compiled strategy, or {@code null} if the plan
+     * contains unsupported search items or the generated class fails to compile
+     */
+    CompiledSearchStrategy compile() {
+        if (this.plan.size() > MAX_PLAN_SIZE || this.interpreter.varKeys.length > 0) {
+            return null;
+        }
+        for (AbstractSearchItem item : this.plan) {
+            if (!isSupported(item)) {
+                return null;
+            }
+        }
+        this.lastRelevant = -1;
+        for (int i = 0; i < this.plan.size(); i++) {
+            if (this.plan.get(i)
+                .isRelevant()) {
+                this.lastRelevant = i;
+            }
+        }
+        StringBuilder source = new StringBuilder();
+        source.append("package " + PACKAGE + ";\n");
+        source.append("import groove.grammar.host.HostEdge;\n");
+        source.append("import groove.grammar.host.HostNode;\n");
+        source.append("import groove.grammar.host.ValueNode;\n");
+        source.append("import groove.grammar.type.TypeEdge;\n");
+        source.append("import groove.grammar.type.TypeNode;\n");
+        source.append("import groove.match.plan.CompiledSearch;\n");
+        source.append("import java.util.Iterator;\n");
+        source.append("public final class " + CLASS_NAME + " extends CompiledSearch {\n");
+        source.append("  protected CompiledSearch newSearch() { return new " + CLASS_NAME
+            + "(); }\n");
+        source.append("  protected void search() {\n");
+        this.code = source;
+        this.indent = 2;
+        generate(0, -1, new HashSet<Integer>(), new ArrayList<Integer>());
+        source.append("  }\n}\n");
+        if (PRINT) {
+            System.out.printf("Search plan for %s:%n%s", this.plan.getCondition()
+                .getName(), source);
+        }
+        CompiledSearch prototype;
+        try {
+            prototype = getPrototype(source.toString());
+        } catch (CompileException | ReflectiveOperationException exc) {
+            // the interpreted strategy is used instead
+            System.err.printf("Error compiling search plan for %s: %s%n", this.plan.getCondition()
+                .getName(), exc);
+            return null;
+        }
+        return new CompiledSearchStrategy(this.interpreter, prototype,
+            this.edgeTypes.toArray(new TypeEdge[0]), this.nodeTypes.toArray(new TypeNode[0]),
+            this.typeSets.toArray(new Set<?>[0]), getSorts(),
+            this.valueItems.toArray(new ValueNodeSearchItem[0]),
+            this.conditionItems.toArray(new ConditionSearchItem[0]));
+    }
+
+    /**
+     * Returns a prototype instance of the search class with a given source,
+     * in which the class name is {@link #CLASS_NAME}.
+     * The generated code only refers to the types, sorts and search items
+     * of a plan by index, so equal plans of different conditions, or
+     * the recurring plans of a condition that is re-planned, yield the same
+     * source; the class is then compiled and loaded only once.
+     * The most recently used classes are cached; the others can be unloaded
+     * (together with their class loader) once no strategy uses them any more.
+     */
+    private static CompiledSearch getPrototype(String source)
+        throws CompileException, ReflectiveOperationException {
+        Class<?> result;
+        synchronized (classCache) {
+            result = classCache.get(source);
+        }
+        if (result == null) {
+            String className = "Search" + classCount.getAndIncrement();
+            SimpleCompiler compiler = new SimpleCompiler();
+            compiler.setParentClassLoader(CompiledSearch.class.getClassLoader());
+            compiler.cook(source.replace(CLASS_NAME, className));
+            result = compiler.getClassLoader()
+                .loadClass(PACKAGE + "." + className);
+            synchronized (classCache) {
+                Class<?> oldResult = classCache.putIfAbsent(source, result);
+                if (oldResult != null) {
+                    result = oldResult;
+                }
+            }
+        }
+        return (CompiledSearch) result.newInstance();
+    }
+
+    /** Tests if code can be generated for a given search item. */
+    private boolean isSupported(AbstractSearchItem item) {
+        Class<?> itemClass = item.getClass();
+        if (itemClass == SeedSearchItem.class || itemClass == ValueNodeSearchItem.class) {
+            return true;
+        }
+        if (itemClass == NodeTypeSearchItem.class) {
+            NodeTypeSearchItem nodeItem = (NodeTypeSearchItem) item;
+            return nodeItem.varIxs.length == 0 && isSupported(nodeItem.node);
+        }
+        if (itemClass == Edge2SearchItem.class) {
+            Edge2SearchItem edgeItem = (Edge2SearchItem) item;
+            return edgeItem.type != null && isSupported(edgeItem.source)
+                && isSupported(edgeItem.target) && !this.plan.getSeed()
+                    .edgeSet()
+                    .contains(edgeItem.edge);
+        }
+        if (itemClass == ConditionSearchItem.class) {
+            ConditionSearchItem condItem = (ConditionSearchItem) item;
+            switch (condItem.getCondition()
+                .getOp()) {
+            case TRUE:
+                return true;
+            case NOT:
+            case EXISTS:
+            case FORALL:
+                return condItem.countNode == null && condItem.varIxMap.isEmpty();
+            default:
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /** Tests if a given node can be bound by the generated code. */
+    private boolean isSupported(RuleNode node) {
+        return node instanceof DefaultRuleNode || node instanceof VariableNode;
+    }
+
+    /**
+     * Generates the code for the search items from a given index onwards.
+     * @param index the index of the search item
+     * @param loop index of the innermost enclosing loop, or {@code -1} if there is none
+     * @param loops indices of the search items generated as loops so far
+     * @param injectiveNodes indices of the bound nodes that take part in the
+     * injectivity check
+     */
+    private void generate(int index, int loop, Set<Integer> loops, List<Integer> injectiveNodes) {
+        if (index == this.plan.size()) {
+            generateEmit(loop, loops);
+            return;
+        }
+        AbstractSearchItem item = this.plan.get(index);
+        Class<?> itemClass = item.getClass();
+        if (itemClass == SeedSearchItem.class) {
+            for (RuleNode node : item.bindsNodes()) {
+                if (!(node instanceof VariableNode)) {
+                    injectiveNodes.add(this.interpreter.getNodeIx(node));
+                }
+            }
+            generate(index + 1, loop, loops, injectiveNodes);
+        } else if (itemClass == ValueNodeSearchItem.class) {
+            ValueNodeSearchItem valueItem = (ValueNodeSearchItem) item;
+            line("nodes[%d] = values[%d];", valueItem.nodeIx, this.valueItems.size());
+            this.valueItems.add(valueItem);
+            generate(index + 1, loop, loops, injectiveNodes);
+        } else if (itemClass == ConditionSearchItem.class) {
+            line("if (testCondition(%d)) {", this.conditionItems.size());
+            this.conditionItems.add((ConditionSearchItem) item);
+            this.indent++;
+            generate(index + 1, loop, loops, injectiveNodes);
+            this.indent--;
+            line("}");
+        } else if (itemClass == NodeTypeSearchItem.class) {
+            generateNodeType(index, (NodeTypeSearchItem) item, loop, loops, injectiveNodes);
+        } else {
+            generateEdge(index, (Edge2SearchItem) item, loop, loops, injectiveNodes);
+        }
+    }
+
+    /** Generates the code for a node type search item. */
+    private void generateNodeType(int index, NodeTypeSearchItem item, int loop,
+        Set<Integer> loops, List<Integer> injectiveNodes) {
+        int nodeIx = this.interpreter.getNodeIx(item.node);
+        int typeIx = this.typeSets.size();
+        this.typeSets.add(item.matchingTypes);
+        if (item.nodeFound) {
+            line("if (typeSets[%d].contains(nodes[%d].getType())) {", typeIx, nodeIx);
+            this.indent++;
+            generate(index + 1, loop, loops, injectiveNodes);
+            this.indent--;
+            line("}");
+        } else {
+            String node = "n" + index;
+            line("Iterator it%d = host.nodeSet().iterator();", index);
+            line("L%d: while (it%d.hasNext()) {", index, index);
+            this.indent++;
+            line("HostNode %s = (HostNode) it%d.next();", node, index);
+            line("if (!typeSets[%d].contains(%s.getType())) continue;", typeIx, node);
+            line("if (!(%s)) continue;", getPutCheck(node, item.node, injectiveNodes));
+            line("nodes[%d] = %s;", nodeIx, node);
+            List<Integer> newInjectiveNodes = bind(injectiveNodes, item.node);
+            loops.add(index);
+            generate(index + 1, index, loops, newInjectiveNodes);
+            loops.remove(index);
+            this.indent--;
+            line("}");
+        }
+    }
+
+    /** Generates the code for an edge search item. */
+    private void generateEdge(int index, Edge2SearchItem item, int loop, Set<Integer> loops,
+        List<Integer> injectiveNodes) {
+        int typeIx = this.edgeTypes.size();
+        this.edgeTypes.add(item.type);
+        String edge = "e" + index;
+        if (item.sourceFound && item.targetFound && item.simple) {
+            line("HostEdge %s = getEdge(nodes[%d], %d, nodes[%d]);",
+                edge,
+                item.sourceIx,
+                typeIx,
+                item.targetIx);
+            line("if (%s != null) {", edge);
+            this.indent++;
+            line("edges[%d] = %s;", item.edgeIx, edge);
+            generate(index + 1, loop, loops, injectiveNodes);
+            this.indent--;
+            line("}");
+            return;
+        }
+        String source = "s" + index;
+        String target = "t" + index;
+        line("Iterator it%d = getEdges(%d, %s, %s).iterator();",
+            index,
+            typeIx,
+            item.sourceFound ? "nodes[" + item.sourceIx + "]" : "null",
+            item.targetFound ? "nodes[" + item.targetIx + "]" : "null");
+        line("L%d: while (it%d.hasNext()) {", index, index);
+        this.indent++;
+        line("HostEdge %s = (HostEdge) it%d.next();", edge, index);
+        line("if (!edgeTypes[%d].subsumes((TypeEdge) %s.getType())) continue;", typeIx, edge);
+        line("HostNode %s = (HostNode) %s.source();", source, edge);
+        List<Integer> newInjectiveNodes = injectiveNodes;
+        if (item.sourceFound) {
+            line("if (%s != nodes[%d]) continue;", source, item.sourceIx);
+        } else {
+            if (item.sourceType != null) {
+                line("if (!nodeTypes[%d].subsumes((TypeNode) %s.getType(), %b)) continue;",
+                    this.nodeTypes.size(),
+                    source,
+                    item.source.isSharp());
+                this.nodeTypes.add(item.sourceType);
+            }
+            line("if (!(%s)) continue;", getPutCheck(source, item.source, newInjectiveNodes));
+            newInjectiveNodes = bind(newInjectiveNodes, item.source);
+        }
+        line("HostNode %s = (HostNode) %s.target();", target, edge);
+        if (item.selfEdge) {
+            line("if (%s != %s) continue;", target, source);
+        } else if (item.targetFound) {
+            line("if (%s != nodes[%d]) continue;", target, item.targetIx);
+        } else {
+            if (item.targetType != null) {
+                line("if (!nodeTypes[%d].subsumes((TypeNode) %s.getType(), %b)) continue;",
+                    this.nodeTypes.size(),
+                    target,
+                    item.target.isSharp());
+                this.nodeTypes.add(item.targetType);
+            }
+            line("if (!(%s)) continue;", getPutCheck(target, item.target, newInjectiveNodes));
+            newInjectiveNodes = bind(newInjectiveNodes, item.target);
+        }
+        if (!item.sourceFound) {
+            line("nodes[%d] = %s;", item.sourceIx, source);
+        }
+        if (!item.selfEdge && !item.targetFound) {
+            line("nodes[%d] = %s;", item.targetIx, target);
+        }
+        line("edges[%d] = %s;", item.edgeIx, edge);
+        loops.add(index);
+        generate(index + 1, index, loops, newInjectiveNodes);
+        loops.remove(index);
+        this.indent--;
+        line("}");
+    }
+
+    /**
+     * Generates the code for a complete match. After the match, the search
+     * continues with the last relevant search item, as in the interpreter.
+     */
+    private void generateEmit(int loop, Set<Integer> loops) {
+        line("if (!emit()) return;");
+        int target = -1;
+        for (int i : loops) {
+            if (i <= this.lastRelevant && i > target) {
+                target = i;
+            }
+        }
+        if (target < 0) {
+            line("return;");
+        } else if (target != loop) {
+            line("continue L%d;", target);
+        }
+    }
+
+    /**
+     * Returns the condition under which a host node stored in a given variable
+     * may be bound to a given rule node.
+     * This inlines the checks of {@code Search.putNode}.
+     */
+    private String getPutCheck(String var, RuleNode node, List<Integer> injectiveNodes) {
+        StringBuilder result = new StringBuilder();
+        if (node instanceof VariableNode) {
+            int nodeIx = this.interpreter.getNodeIx(node);
+            this.sortMap.put(nodeIx, ((VariableNode) node).getSort());
+            result.append(String.format("%s instanceof ValueNode && ((ValueNode) %s).getSort() == sorts[%d]",
+                var,
+                var,
+                nodeIx));
+        } else {
+            result.append(String.format("!(%s instanceof ValueNode)", var));
+            if (this.injective) {
+                for (int ix : injectiveNodes) {
+                    result.append(String.format(" && %s != nodes[%d]", var, ix));
+                }
+            }
+        }
+        return result.toString();
+    }
+
+    /** Returns the list of injectively bound nodes, extended with a given node if appropriate. */
+    private List<Integer> bind(List<Integer> injectiveNodes, RuleNode node) {
+        if (node instanceof VariableNode || !this.injective) {
+            return injectiveNodes;
+        }
+        List<Integer> result = new ArrayList<>(injectiveNodes);
+        result.add(this.interpreter.getNodeIx(node));
+        return result;
+    }
+
+    /** Returns the array of sorts of variable nodes, by node index. */
+    private Sort[] getSorts() {
+        Sort[] result = new Sort[this.interpreter.nodeKeys.length];
+        for (Map.Entry<Integer,Sort> entry : this.sortMap.entrySet()) {
+            result[entry.getKey()] = entry.getValue();
+        }
+        return result;
+    }
+
+    /** Appends an indented, formatted line of code. */
+    private void line(String format, Object... args) {
+        for (int i = 0; i < this.indent; i++) {
+            this.code.append("  ");
+        }
+        this.code.append(String.format(format, args));
+        this.code.append('\n');
+    }
+
+    private final PlanSearchStrategy interpreter;
+    private final SearchPlan plan;
+    private final boolean injective;
+    /** Index of the last relevant search item. */
+    private int lastRelevant;
+    /** The code being generated. */
+    private StringBuilder code;
+    /** The current indentation level. */
+    private int indent;
+    /** The edge types of the edge items, by type index. */
+    private final List<TypeEdge> edgeTypes = new ArrayList<>();
+    /** The explicitly checked node types, by type index. */
+    private final List<TypeNode> nodeTypes = new ArrayList<>();
+    /** The matching types of the node type items, by type index. */
+    private final List<Set<TypeNode>> typeSets = new ArrayList<>();
+    /** The sorts of the variable nodes bound in the generated code. */
+    private final Map<Integer,Sort> sortMap = new HashMap<>();
+    /** The value node items, by value index. */
+    private final List<ValueNodeSearchItem> valueItems = new ArrayList<>();
+    /** The subcondition items, by condition index. */
+    private final List<ConditionSearchItem> conditionItems = new ArrayList<>();
+
+    /** Package of the generated classes. */
+    private static final String PACKAGE = "groove.match.plan.generated";
+    /** Plans above this size are not compiled, to stay within the JIT limits. */
+    private static final int MAX_PLAN_SIZE = 40;
+    /** Counter used to generate unique class names. */
+    private static final AtomicInteger classCount = new AtomicInteger();
+    /** Placeholder for the class name in the generated source. */
+    private static final String CLASS_NAME = "$Search";
+    /** Generated search classes, by source, in access order. */
+    private static final ClassCache classCache = new ClassCache();
+    /** Maximum number of cached search classes. */
+    private static final int MAX_CACHED_CLASSES = 1000;
+    /** Flag to control printing of the generated code. */
+    private static final boolean PRINT = false;
+
+    /** Cache of the most recently used search classes, by source. */
+    private static class ClassCache extends LinkedHashMap<String,Class<?>> {
+        ClassCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String,Class<?>> eldest) {
+            return size() > MAX_CACHED_CLASSES;
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+}
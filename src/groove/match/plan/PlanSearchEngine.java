@@ -77,12 +77,33 @@ public class PlanSearchEngine extends SearchEngine {
 
     @Override
     public PlanSearchStrategy createMatcher(Condition condition, Anchor seed) {
+        return createStrategy(this, condition, seed);
+    }
+
+    /**
+     * Search plan strategies keep their state in a search object
+     * per thread, so they can be used concurrently.
+     */
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+
+    /**
+     * Creates an interpreted search strategy for a given condition and seed,
+     * on behalf of a given (possibly different) search engine.
+     * @param owner the engine to be returned by {@link PlanSearchStrategy#getEngine()}
+     * @see #createMatcher(Condition, Anchor)
+     */
+    PlanSearchStrategy createStrategy(SearchEngine owner, Condition condition, Anchor seed) {
         Set<AnchorKey> anchorKeys = new HashSet<>();
         if (condition.hasRule()) {
             anchorKeys.addAll(condition.getRule()
                 .getAnchor());
         }
         anchorKeys.addAll(condition.getOutputNodes());
+        int epoch = PlanStatistics.isEnabled() ? PlanStatistics.instance()
+            .getEpoch() : -1;
         PlanData planData = new PlanData(condition, this.simple);
         if (seed == null) {
             seed = new Anchor();
@@ -106,7 +127,7 @@ public class PlanSearchEngine extends SearchEngine {
             }
             item.setRelevant(relevant);
         }
-        PlanSearchStrategy result = new PlanSearchStrategy(this, plan);
+        PlanSearchStrategy result = new PlanSearchStrategy(owner, plan, epoch);
         if (PRINT) {
             System.out.print(String.format("%nPlan for %s, seed %s:%n    %s",
                 condition.getName(),
@@ -379,7 +400,8 @@ public class PlanSearchEngine extends SearchEngine {
 
         /**
          * Creates the comparators for the search plan. Adds a comparator based
-         * on the control labels available in the grammar, if any.
+         * on the control labels available in the grammar, if any, and one
+         * based on the sampled host graph statistics, if these are collected.
          * @return a list of comparators determining the order in which edges
          *         should be matched
          */
@@ -391,6 +413,10 @@ public class PlanSearchEngine extends SearchEngine {
             result.add(new ConnectedPartsComparator(this.boundNodes, this.boundVars));
             result.add(new IndegreeComparator(this.condition.getPattern()
                 .edgeSet()));
+            if (PlanStatistics.isEnabled() && PlanStatistics.instance()
+                .getSampleCount() > 0) {
+                result.add(new CostComparator(this.boundNodes, PlanStatistics.instance()));
+            }
             GrammarProperties properties = this.condition.getGrammarProperties();
             if (properties != null) {
                 List<String> controlLabels = properties.getControlLabels();
@@ -843,6 +869,38 @@ public class PlanSearchEngine extends SearchEngine {
         private final Map<Label,Integer> priorities;
     }
 
+    /**
+     * Search item comparator based on the branching factor estimated from
+     * the {@link PlanStatistics}: items expected to yield fewer images per
+     * partial match are scheduled first.
+     * Items for which no estimate can be made are considered equal.
+     * @version $Revision $
+     */
+    static class CostComparator implements Comparator<SearchItem> {
+        CostComparator(Set<RuleNode> boundNodes, PlanStatistics statistics) {
+            this.boundNodes = boundNodes;
+            this.statistics = statistics;
+        }
+
+        /**
+         * Compares the estimated branching factors (lower is better).
+         */
+        @Override
+        public int compare(SearchItem o1, SearchItem o2) {
+            double cost1 = this.statistics.estimate(o1, this.boundNodes);
+            double cost2 = this.statistics.estimate(o2, this.boundNodes);
+            if (Double.isNaN(cost1) || Double.isNaN(cost2)) {
+                return 0;
+            }
+            return Double.compare(cost2, cost1);
+        }
+
+        /** The set of currently scheduled nodes. */
+        private final Set<RuleNode> boundNodes;
+        /** The source of the estimates. */
+        private final PlanStatistics statistics;
+    }
+
     /**
      * Comparator determining the ordering in which the search item comparators
      * should be applied. Comparators will be applied in increating order, so
@@ -870,6 +928,7 @@ public class PlanSearchEngine extends SearchEngine {
          * <ul>
          * <li> {@link NeededPartsComparator}
          * <li> {@link ItemTypeComparator}
+         * <li> {@link CostComparator}
          * <li> {@link ConnectedPartsComparator}
          * <li> {@link FrequencyComparator}
          * <li> {@link IndegreeComparator}
@@ -886,6 +945,10 @@ public class PlanSearchEngine extends SearchEngine {
                 return result;
             }
             result++;
+            if (compClass == CostComparator.class) {
+                return result;
+            }
+            result++;
             if (compClass == ConnectedPartsComparator.class) {
                 return result;
             }
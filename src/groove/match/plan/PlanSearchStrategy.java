@@ -24,6 +24,7 @@ import groove.algebra.Sort;
 import groove.grammar.Condition;
 import groove.grammar.host.DefaultHostNode;
 import groove.grammar.host.HostEdge;
+import groove.grammar.host.HostFactory;
 import groove.grammar.host.HostGraph;
 import groove.grammar.host.HostNode;
 import groove.grammar.host.HostNodeSet;
@@ -34,6 +35,7 @@ import groove.grammar.rule.RuleNode;
 import groove.grammar.rule.RuleToHostMap;
 import groove.grammar.rule.VariableNode;
 import groove.grammar.type.TypeElement;
+import groove.match.LazyTreeMatch;
 import groove.match.SearchEngine;
 import groove.match.SearchStrategy;
 import groove.match.TreeMatch;
@@ -52,7 +54,20 @@ public class PlanSearchStrategy implements SearchStrategy {
      * if solutions should be injective.
      * @param plan the search items that make up the search plan
      */
-    public PlanSearchStrategy(PlanSearchEngine engine, SearchPlan plan) {
+    public PlanSearchStrategy(SearchEngine engine, SearchPlan plan) {
+        this(engine, plan, -1);
+    }
+
+    /**
+     * Constructs a strategy from a given list of search items,
+     * planned in a given epoch of the {@link PlanStatistics}.
+     * @param engine the engine on whose behalf the strategy is created
+     * @param plan the search items that make up the search plan
+     * @param epoch the statistics epoch in which the plan was made;
+     * {@code -1} if the plan does not depend on the statistics
+     */
+    public PlanSearchStrategy(SearchEngine engine, SearchPlan plan, int epoch) {
+        this.epoch = epoch;
         this.nodeIxMap = new HashMap<>();
         this.edgeIxMap = new HashMap<>();
         this.varIxMap = new HashMap<>();
@@ -67,11 +82,25 @@ public class PlanSearchStrategy implements SearchStrategy {
         return this.engine;
     }
 
+    /**
+     * Indicates if this strategy was planned on the basis of statistics
+     * that have since drifted.
+     */
+    @Override
+    public boolean isOutdated() {
+        return PlanStatistics.isEnabled() && this.epoch != PlanStatistics.instance()
+            .getEpoch();
+    }
+
     @Override
     public <T> T traverse(HostGraph host, RuleToHostMap seedMap, Visitor<TreeMatch,T> visitor) {
         Search search = getSearch(host, seedMap);
-        while (search.find() && visitor.visit(search.getMatch())) {
-            // do nothing
+        try {
+            while (search.find() && visitor.visit(search.getMatch())) {
+                // do nothing
+            }
+        } finally {
+            search.setActive(false);
         }
         return visitor.getResult();
     }
@@ -126,12 +155,22 @@ public class PlanSearchStrategy implements SearchStrategy {
     }
 
     /**
-     * Callback factory method for an auxiliary {@link Search} object.
+     * Returns an initialised {@link Search} object for a traversal.
+     * Every thread reuses its own search object, unless that is still
+     * active in an enclosing traversal; in that case a fresh search object
+     * is created.
      */
     private Search getSearch(HostGraph host, RuleToHostMap seedMap) {
-        this.search = createSearch();
-        this.search.initialise(host, seedMap);
-        return this.search;
+        Search result = this.searches.get();
+        if (result == null) {
+            result = createSearch();
+            this.searches.set(result);
+        } else if (result.isActive()) {
+            result = createSearch();
+        }
+        result.initialise(host, seedMap);
+        result.setActive(true);
+        return result;
     }
 
     /**
@@ -229,6 +268,11 @@ public class PlanSearchStrategy implements SearchStrategy {
         return value;
     }
 
+    /** Returns the number of subconditions in this strategy. */
+    int getCondCount() {
+        return this.condIxMap.size();
+    }
+
     /**
      * Indicates that the strategy is now fixed, meaning that it has been
      * completely constructed.
@@ -268,10 +312,12 @@ public class PlanSearchStrategy implements SearchStrategy {
         }
     }
 
-    /** The fixed search object. */
-    private Search search;
+    /** The reusable search objects, per thread. */
+    private final ThreadLocal<Search> searches = new ThreadLocal<>();
     /** The engine used to create this strategy. */
-    private final PlanSearchEngine engine;
+    private final SearchEngine engine;
+    /** The statistics epoch in which the plan was made; {@code -1} if not applicable. */
+    private final int epoch;
     /**
      * A list of domain elements, in the order in which they are to be matched.
      */
@@ -338,12 +384,15 @@ public class PlanSearchStrategy implements SearchStrategy {
             this.subMatches = new TreeMatch[PlanSearchStrategy.this.condIxMap.size()];
         }
 
-        /** Initialises the search for a given host graph and seed map. */
+        /**
+         * Initialises the search for a given host graph and seed map.
+         * If the search was used before, its images and seeds are first erased.
+         */
         public void initialise(HostGraph host, RuleToHostMap seedMap) {
-            this.host = host;
-            if (isInjective()) {
-                getUsedNodes().clear();
+            if (this.host != null) {
+                clear();
             }
+            this.host = host;
             if (seedMap != null) {
                 for (Map.Entry<RuleNode,? extends HostNode> nodeEntry : seedMap.nodeMap()
                     .entrySet()) {
@@ -402,7 +451,11 @@ public class PlanSearchStrategy implements SearchStrategy {
                 current = 0;
             }
             while (current > this.lastSingular && current < planSize) {
-                boolean success = getRecord(current).next();
+                SearchItem.Record record = getRecord(current);
+                if (this.lastSingular == current - 1 && record.isSingular()) {
+                    this.lastSingular++;
+                }
+                boolean success = record.next();
                 if (success) {
                     for (int i = 0; i < this.influenceCount[current]; i++) {
                         this.influence[current][i].reset();
@@ -459,9 +512,6 @@ public class PlanSearchStrategy implements SearchStrategy {
                     this.influence[dependency][this.influenceCount[dependency]] = result;
                     this.influenceCount[dependency]++;
                 }
-                if (this.lastSingular == current - 1 && result.isSingular()) {
-                    this.lastSingular++;
-                }
             }
             return result;
         }
@@ -581,31 +631,23 @@ public class PlanSearchStrategy implements SearchStrategy {
         /**
          * Returns a copy of the search result, or <code>null</code> if the last
          * invocation of {@link #find()} was not successful.
+         * The images are copied into a single array; the pattern map of the
+         * match is only created when it is requested.
          */
         public TreeMatch getMatch() {
             TreeMatch result = null;
             if (this.found) {
-                RuleToHostMap patternMap = this.host.getFactory()
-                    .createRuleToHostMap();
-                for (int i = 0; i < this.nodeImages.length; i++) {
-                    HostNode image = this.nodeImages[i];
-                    if (image != null) {
-                        patternMap.putNode(PlanSearchStrategy.this.nodeKeys[i], image);
-                    }
-                }
-                for (int i = 0; i < this.edgeImages.length; i++) {
-                    HostEdge image = this.edgeImages[i];
-                    if (image != null) {
-                        patternMap.putEdge(PlanSearchStrategy.this.edgeKeys[i], image);
-                    }
-                }
-                for (int i = 0; i < this.varImages.length; i++) {
-                    TypeElement image = this.varImages[i];
-                    if (image != null) {
-                        patternMap.putVar(PlanSearchStrategy.this.varKeys[i], image);
-                    }
-                }
-                result = new TreeMatch(PlanSearchStrategy.this.plan.getCondition(), patternMap);
+                int nodeCount = this.nodeImages.length;
+                int edgeCount = this.edgeImages.length;
+                Object[] images = new Object[nodeCount + edgeCount + this.varImages.length];
+                System.arraycopy(this.nodeImages, 0, images, 0, nodeCount);
+                System.arraycopy(this.edgeImages, 0, images, nodeCount, edgeCount);
+                System.arraycopy(this.varImages,
+                    0,
+                    images,
+                    nodeCount + edgeCount,
+                    this.varImages.length);
+                result = new SearchMatch(this.host.getFactory(), images);
                 for (int i = 0; i < this.subMatches.length; i++) {
                     result.addSubMatch(this.subMatches[i]);
                 }
@@ -613,6 +655,41 @@ public class PlanSearchStrategy implements SearchStrategy {
             return result;
         }
 
+        /** Indicates if this search is currently used in a traversal. */
+        boolean isActive() {
+            return this.active;
+        }
+
+        /**
+         * Sets or resets the flag indicating that this search is used in a traversal.
+         * When the search is deactivated, it drops the host graph, seeds and images,
+         * so that a search kept for reuse does not keep the graph reachable.
+         */
+        void setActive(boolean active) {
+            this.active = active;
+            if (!active) {
+                clear();
+            }
+        }
+
+        /** Erases the images and seeds of this search, and releases the host graph. */
+        private void clear() {
+            for (int i = 0; i < this.records.length && this.records[i] != null; i++) {
+                this.records[i].release();
+            }
+            Arrays.fill(this.nodeImages, null);
+            Arrays.fill(this.edgeImages, null);
+            Arrays.fill(this.varImages, null);
+            Arrays.fill(this.nodeSeeds, null);
+            Arrays.fill(this.edgeSeeds, null);
+            Arrays.fill(this.varSeeds, null);
+            Arrays.fill(this.subMatches, null);
+            if (this.usedNodes != null) {
+                this.usedNodes.clear();
+            }
+            this.host = null;
+        }
+
         /**
          * Returns the set of nodes already used as images. This is needed for
          * the injectivity check, if any.
@@ -649,6 +726,8 @@ public class PlanSearchStrategy implements SearchStrategy {
         private final TypeElement[] varSeeds;
         /** Flag indicating that a solution has already been found. */
         private boolean found;
+        /** Flag indicating that this search is used in a traversal. */
+        private boolean active;
         /** Index of the last search record known to be singular. */
         private int lastSingular;
         /** The host graph of the search. */
@@ -669,4 +748,51 @@ public class PlanSearchStrategy implements SearchStrategy {
         private final static boolean CHECK_IMAGES = true;
     }
 
-}
\ No newline at end of file
+
+    /**
+     * Match found by a {@link Search}, which stores the images of the
+     * node, edge and variable keys in a single array, indexed by
+     * the node, edge and variable indices of the strategy in that order.
+     * The pattern map is created from the array on demand.
+     */
+    private class SearchMatch extends LazyTreeMatch {
+        SearchMatch(HostFactory factory, Object[] images) {
+            super(PlanSearchStrategy.this.plan.getCondition());
+            this.factory = factory;
+            this.images = images;
+        }
+
+        @Override
+        protected RuleToHostMap computePatternMap() {
+            RuleToHostMap result = this.factory.createRuleToHostMap();
+            RuleNode[] nodeKeys = PlanSearchStrategy.this.nodeKeys;
+            RuleEdge[] edgeKeys = PlanSearchStrategy.this.edgeKeys;
+            LabelVar[] varKeys = PlanSearchStrategy.this.varKeys;
+            int ix = 0;
+            for (int i = 0; i < nodeKeys.length; i++, ix++) {
+                HostNode image = (HostNode) this.images[ix];
+                if (image != null) {
+                    result.putNode(nodeKeys[i], image);
+                }
+            }
+            for (int i = 0; i < edgeKeys.length; i++, ix++) {
+                HostEdge image = (HostEdge) this.images[ix];
+                if (image != null) {
+                    result.putEdge(edgeKeys[i], image);
+                }
+            }
+            for (int i = 0; i < varKeys.length; i++, ix++) {
+                TypeElement image = (TypeElement) this.images[ix];
+                if (image != null) {
+                    result.putVar(varKeys[i], image);
+                }
+            }
+            return result;
+        }
+
+        /** The factory of the host graph in which the match was found. */
+        private final HostFactory factory;
+        /** The node, edge and variable images. */
+        private final Object[] images;
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.match.plan;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import groove.grammar.Condition;
+import groove.grammar.host.HostEdge;
+import groove.grammar.host.HostGraph;
+import groove.grammar.host.HostNode;
+import groove.grammar.rule.RuleEdge;
+import groove.grammar.rule.RuleNode;
+import groove.grammar.type.TypeEdge;
+import groove.grammar.type.TypeElement;
+import groove.grammar.type.TypeNode;
+
+/**
+ * Statistics on the host graphs encountered during exploration,
+ * used by the {@link PlanSearchEngine} to order search items by their
+ * estimated branching factor.
+ * Every {@link #SAMPLE_INTERVAL}-th graph offered through {@link #sample(HostGraph)}
+ * is counted; per node and edge type, the statistics keep an exponentially
+ * weighted average of the number of elements of that type.
+ * Whenever these averages have drifted too far from the values at the time
+ * of the last re-planning, the {@link #getEpoch() epoch} is incremented;
+ * search strategies created in an earlier epoch are then outdated,
+ * and will be replaced by their {@link groove.match.Matcher}.
+ * <p>
+ * Additionally, the statistics record the number of plan swaps and the
+ * matching time per rule.
+ * The statistics are only collected if {@link #isEnabled()} holds,
+ * which is not the case by default.
+ * @version $Revision $
+ */
+public class PlanStatistics {
+    private PlanStatistics() {
+        // empty
+    }
+
+    /**
+     * Offers a host graph for sampling.
+     * Only every {@link #SAMPLE_INTERVAL}-th graph is actually counted.
+     */
+    public void sample(HostGraph graph) {
+        if (this.offerCount.getAndIncrement() % SAMPLE_INTERVAL != 0) {
+            return;
+        }
+        Map<TypeElement,Integer> counts = new HashMap<>();
+        for (HostNode node : graph.nodeSet()) {
+            counts.merge(node.getType(), 1, Integer::sum);
+        }
+        for (HostEdge edge : graph.edgeSet()) {
+            counts.merge(edge.getType(), 1, Integer::sum);
+        }
+        synchronized (this) {
+            Map<TypeElement,Double> averages = new HashMap<>(this.averages);
+            if (this.sampleCount == 0) {
+                for (Map.Entry<TypeElement,Integer> e : counts.entrySet()) {
+                    averages.put(e.getKey(), (double) e.getValue());
+                }
+            } else {
+                for (Map.Entry<TypeElement,Double> e : averages.entrySet()) {
+                    Integer count = counts.remove(e.getKey());
+                    double value = e.getValue();
+                    e.setValue(value + SMOOTHING * ((count == null ? 0 : count) - value));
+                }
+                for (Map.Entry<TypeElement,Integer> e : counts.entrySet()) {
+                    averages.put(e.getKey(), SMOOTHING * e.getValue());
+                }
+            }
+            this.averages = averages;
+            this.sampleCount++;
+            if (hasDrifted()) {
+                this.planAverages = averages;
+                this.epoch++;
+            }
+        }
+    }
+
+    /**
+     * Tests if the current averages deviate from those at the start of the
+     * current epoch by more than a factor {@link #DRIFT_FACTOR}, for any type.
+     */
+    private boolean hasDrifted() {
+        if (this.planAverages == null) {
+            return true;
+        }
+        for (Map.Entry<TypeElement,Double> e : this.averages.entrySet()) {
+            double now = e.getValue() + MIN_COUNT;
+            Double planned = this.planAverages.get(e.getKey());
+            double then = (planned == null ? 0 : planned) + MIN_COUNT;
+            if (now > DRIFT_FACTOR * then || then > DRIFT_FACTOR * now) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the number of graphs actually counted so far. */
+    public synchronized int getSampleCount() {
+        return this.sampleCount;
+    }
+
+    /**
+     * Returns the current epoch.
+     * The epoch is incremented whenever the counts have drifted since the previous epoch.
+     */
+    public int getEpoch() {
+        return this.epoch;
+    }
+
+    /**
+     * Returns the estimated number of host nodes of a given set of types.
+     * The estimate is based on the counts at the start of the current epoch,
+     * so that all plans within an epoch are based on the same data.
+     */
+    public double getNodeCount(Set<TypeNode> types) {
+        return getCount(types);
+    }
+
+    /**
+     * Returns the estimated number of host edges of a given set of types.
+     * @see #getNodeCount(Set)
+     */
+    public double getEdgeCount(Set<TypeEdge> types) {
+        return getCount(types);
+    }
+
+    private synchronized double getCount(Collection<? extends TypeElement> types) {
+        double result = 0;
+        if (this.planAverages != null) {
+            for (TypeElement type : types) {
+                Double count = this.planAverages.get(type);
+                if (count != null) {
+                    result += count;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Estimates the number of images that a search item will yield
+     * for every partial match, given the set of already matched nodes.
+     * @return the estimated branching factor, or {@link Double#NaN}
+     * if the item is of a kind for which no estimate can be made
+     */
+    double estimate(SearchItem item, Set<RuleNode> boundNodes) {
+        if (item instanceof Edge2SearchItem) {
+            RuleEdge edge = ((Edge2SearchItem) item).getEdge();
+            double result = getEdgeCount(edge.getMatchingTypes());
+            if (boundNodes.contains(edge.source())) {
+                result /= Math.max(1, getNodeCount(edge.source()
+                    .getMatchingTypes()));
+            }
+            if (boundNodes.contains(edge.target()) && edge.target() != edge.source()) {
+                result /= Math.max(1, getNodeCount(edge.target()
+                    .getMatchingTypes()));
+            }
+            return result;
+        } else if (item instanceof NodeTypeSearchItem) {
+            RuleNode node = ((NodeTypeSearchItem) item).getNode();
+            if (boundNodes.contains(node)) {
+                return 1;
+            }
+            return getNodeCount(node.getMatchingTypes());
+        } else {
+            return Double.NaN;
+        }
+    }
+
+    /** Records that the search strategy of a given condition was replaced after drift. */
+    public void recordPlanSwap(Condition condition) {
+        getRuleStats(condition).swapCount.incrementAndGet();
+    }
+
+    /** Records the time spent on a single match search for a given condition. */
+    public void recordMatchTime(Condition condition, long nanos) {
+        RuleStats stats = getRuleStats(condition);
+        stats.searchCount.incrementAndGet();
+        stats.matchTime.addAndGet(nanos);
+    }
+
+    private RuleStats getRuleStats(Condition condition) {
+        return this.ruleStats.computeIfAbsent(condition.getName(), n -> new RuleStats());
+    }
+
+    /** Returns the total number of plan swaps. */
+    public long getPlanSwapCount() {
+        long result = 0;
+        for (RuleStats stats : this.ruleStats.values()) {
+            result += stats.swapCount.get();
+        }
+        return result;
+    }
+
+    /**
+     * Returns a report of the plan swaps and matching time per condition,
+     * one line per condition, sorted by name.
+     */
+    public List<String> getReport() {
+        List<String> result = new ArrayList<>();
+        List<String> names = new ArrayList<>(this.ruleStats.keySet());
+        names.sort(null);
+        for (String name : names) {
+            RuleStats stats = this.ruleStats.get(name);
+            result.add(String.format("%-30s %8d searches %8d ms %4d swaps",
+                name,
+                stats.searchCount.get(),
+                stats.matchTime.get() / 1000000,
+                stats.swapCount.get()));
+        }
+        return result;
+    }
+
+    /** Clears all collected data. */
+    public synchronized void clear() {
+        this.offerCount.set(0);
+        this.averages = new HashMap<>();
+        this.planAverages = null;
+        this.sampleCount = 0;
+        this.epoch = 0;
+        this.ruleStats.clear();
+    }
+
+    /** Number of graphs offered for sampling. */
+    private final AtomicLong offerCount = new AtomicLong();
+    /** Current weighted averages of the element counts per type. */
+    private Map<TypeElement,Double> averages = new HashMap<>();
+    /** Averages at the start of the current epoch; {@code null} before the first sample. */
+    private Map<TypeElement,Double> planAverages;
+    /** Number of graphs actually counted. */
+    private int sampleCount;
+    /** Current epoch. */
+    private volatile int epoch;
+    /** Plan swaps and timing per condition name. */
+    private final Map<String,RuleStats> ruleStats = new ConcurrentHashMap<>();
+
+    /** Indicates if statistics are being collected. */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Switches the collection of statistics, and therefore cost-based
+     * planning, on or off.
+     */
+    public static void setEnabled(boolean enabled) {
+        PlanStatistics.enabled = enabled;
+    }
+
+    /** Returns the singleton instance of this class. */
+    public static PlanStatistics instance() {
+        return instance;
+    }
+
+    private static volatile boolean enabled;
+    private static final PlanStatistics instance = new PlanStatistics();
+
+    /** Only one in this many offered graphs is counted. */
+    public static final int SAMPLE_INTERVAL = 32;
+    /** Weight of a new sample in the averages. */
+    private static final double SMOOTHING = 0.25;
+    /** Factor by which an average may change before re-planning is triggered. */
+    private static final double DRIFT_FACTOR = 2;
+    /** Count added to all averages before comparing them, to damp drift of rare types. */
+    private static final double MIN_COUNT = 4;
+
+    /** Per-condition counters. */
+    private static class RuleStats {
+        final AtomicLong searchCount = new AtomicLong();
+        final AtomicLong matchTime = new AtomicLong();
+        final AtomicLong swapCount = new AtomicLong();
+    }
+}
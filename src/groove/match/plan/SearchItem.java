@@ -150,6 +150,12 @@ public interface SearchItem extends Comparable<SearchItem> {
          * restarted.
          */
         void reset();
+
+        /**
+         * Resets the record and drops its reference to the host graph.
+         * The record has to be initialised again before it is used.
+         */
+        void release();
     }
 
     /** The state of a search item record. */
@@ -1234,6 +1234,14 @@ public class ReteNetwork {
             for (String s : lines) {
                 result.add(PlainEdge.createEdge(source, s, source));
             }
+            SubgraphCheckerNode<?,?> sgc = (SubgraphCheckerNode<?,?>) nnode;
+            result.add(PlainEdge.createEdge(source,
+                String.format("--- Join %s: %d probes, %d candidates, %d joins",
+                    sgc.isIndexed() ? "(idx)" : "(scan)",
+                    sgc.getProbeCount(),
+                    sgc.getCandidateCount(),
+                    sgc.getJoinCount()),
+                source));
         } else if (nnode instanceof DisconnectedSubgraphChecker) {
             result.add(PlainEdge.createEdge(source, "DisconnectedSubgraphChecker", source));
         } else if (nnode instanceof ProductionNode) {
@@ -16,11 +16,16 @@
  */
 package groove.match.rete;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import groove.grammar.Condition;
 import groove.grammar.Grammar;
 import groove.grammar.host.HostEdge;
+import groove.grammar.host.HostEdgeSet;
 import groove.grammar.host.HostGraph;
 import groove.grammar.host.HostNode;
+import groove.grammar.host.HostNodeSet;
 import groove.grammar.rule.Anchor;
 import groove.match.SearchEngine;
 import groove.match.rete.ReteNetworkNode.Action;
@@ -42,6 +47,7 @@ public class ReteSearchEngine extends SearchEngine {
      * and populated by the grammar's start graph.
      */
     public ReteSearchEngine(Grammar grammar) {
+        this.grammar = grammar;
         this.network =
             new ReteNetwork(this, grammar,
                 grammar.getProperties().isInjective());
@@ -68,22 +74,30 @@ public class ReteSearchEngine extends SearchEngine {
     public synchronized void transitionOccurred(HostGraph destGraph,
             DeltaStore deltaStore) {
         transitionOccurredReporter.start();
-
+        HostGraph sourceGraph = this.network.getState().getHostGraph();
         if (deltaStore.size() > destGraph.size()) {
             this.network.processGraph(destGraph);
-            transitionOccurredReporter.stop();
-            return;
+            log(sourceGraph, null);
+        } else {
+            update(destGraph, deltaStore);
+            log(sourceGraph, deltaStore);
         }
+        transitionOccurredReporter.stop();
+    }
+
+    /** Feeds the elements of a delta to the network. */
+    private void update(HostGraph destGraph, DeltaStore deltaStore) {
         this.network.setUpdating(true);
         this.network.getState().setHostGraph(destGraph);
-        for (HostNode n : deltaStore.getRemovedNodeSet()) {
-            this.network.update(n, Action.REMOVE);
-        }
-
+        // remove edges before their end nodes
         for (HostEdge e : deltaStore.getRemovedEdgeSet()) {
             this.network.update(e, Action.REMOVE);
         }
 
+        for (HostNode n : deltaStore.getRemovedNodeSet()) {
+            this.network.update(n, Action.REMOVE);
+        }
+
         for (HostNode n : deltaStore.getAddedNodeSet()) {
             this.network.update(n, Action.ADD);
         }
@@ -93,7 +107,151 @@ public class ReteSearchEngine extends SearchEngine {
         }
 
         this.network.setUpdating(false);
-        transitionOccurredReporter.stop();
+    }
+
+    /**
+     * Brings the RETE state in line with a given host graph.
+     * Rather than re-initialising the network, this computes the difference
+     * between the graph currently held by the network and the given graph,
+     * and feeds only that difference to the network, unless it is larger
+     * than the given graph.
+     * This allows the network to follow an arbitrary exploration order,
+     * rather than only linear or depth-first traversals.
+     * @param destGraph the host graph to be matched next
+     */
+    public synchronized void synchronise(HostGraph destGraph) {
+        HostGraph sourceGraph = this.network.getState().getHostGraph();
+        if (sourceGraph == destGraph) {
+            return;
+        }
+        DeltaStore delta = null;
+        if (sourceGraph != null
+            && sourceGraph.getFactory() == destGraph.getFactory()) {
+            delta = computeDelta(sourceGraph, destGraph);
+        }
+        if (delta == null) {
+            this.network.processGraph(destGraph);
+            log(sourceGraph, null);
+        } else {
+            transitionOccurred(destGraph, delta);
+        }
+    }
+
+    /**
+     * Computes the delta from one host graph to another, or returns
+     * {@code null} if the delta is larger than the target graph.
+     * The element sets are copied first, as the graphs of a GTS may
+     * share their data structures.
+     */
+    private DeltaStore computeDelta(HostGraph source, HostGraph target) {
+        HostNodeSet sourceNodes = new HostNodeSet(source.nodeSet());
+        HostEdgeSet sourceEdges = new HostEdgeSet(source.edgeSet());
+        HostNodeSet targetNodes = new HostNodeSet(target.nodeSet());
+        HostEdgeSet targetEdges = new HostEdgeSet(target.edgeSet());
+        int bound = target.size();
+        DeltaStore result = new DeltaStore();
+        for (HostNode n : sourceNodes) {
+            if (!targetNodes.contains(n)) {
+                result.removeNode(n);
+            }
+        }
+        for (HostNode n : targetNodes) {
+            if (!sourceNodes.contains(n)) {
+                result.addNode(n);
+            }
+        }
+        for (HostEdge e : sourceEdges) {
+            if (!targetEdges.contains(e)) {
+                result.removeEdge(e);
+            }
+        }
+        for (HostEdge e : targetEdges) {
+            if (!sourceEdges.contains(e)) {
+                result.addEdge(e);
+            }
+        }
+        return result.size() > bound ? null : result;
+    }
+
+    /**
+     * Takes a snapshot of the current RETE state, to which the network
+     * can later be returned through {@link #rollback(Snapshot)}.
+     * As long as there are unreleased snapshots, every update of the network
+     * is recorded in an undo log.
+     * @see #release(Snapshot)
+     */
+    public synchronized Snapshot snapshot() {
+        Snapshot result = new Snapshot(this, this.undoLog.size(),
+            this.network.getState().getHostGraph());
+        this.snapshotCount++;
+        return result;
+    }
+
+    /**
+     * Returns the RETE state to that of a given snapshot, by undoing
+     * the logged updates since the snapshot was taken, most recent first.
+     * Snapshots taken after the given one are invalidated;
+     * the given snapshot itself remains valid.
+     * @param snapshot an unreleased snapshot of this engine
+     */
+    public synchronized void rollback(Snapshot snapshot) {
+        assert snapshot.engine == this && !snapshot.released;
+        if (snapshot.position > this.undoLog.size()) {
+            throw new IllegalStateException("Snapshot was invalidated by an earlier rollback");
+        }
+        while (this.undoLog.size() > snapshot.position) {
+            UndoEntry entry = this.undoLog.remove(this.undoLog.size() - 1);
+            if (entry.delta == null) {
+                if (entry.graph == null) {
+                    this.network.getState().setHostGraph(null);
+                } else {
+                    this.network.processGraph(entry.graph);
+                }
+            } else {
+                update(entry.graph, entry.delta.invert(true));
+            }
+        }
+        assert this.network.getState().getHostGraph() == snapshot.graph;
+    }
+
+    /**
+     * Releases a snapshot. If no unreleased snapshots remain,
+     * the undo log is cleared and updates are no longer recorded.
+     */
+    public synchronized void release(Snapshot snapshot) {
+        assert snapshot.engine == this;
+        if (!snapshot.released) {
+            snapshot.released = true;
+            this.snapshotCount--;
+            if (this.snapshotCount == 0) {
+                this.undoLog.clear();
+            }
+        }
+    }
+
+    /** Records an update in the undo log, if there are unreleased snapshots. */
+    private void log(HostGraph sourceGraph, DeltaStore delta) {
+        if (this.snapshotCount > 0) {
+            // copy the delta, as callers may reuse their delta store
+            this.undoLog.add(new UndoEntry(sourceGraph,
+                delta == null ? null : new DeltaStore(delta)));
+        }
+    }
+
+    /**
+     * Creates an independent engine for the same grammar, whose network holds
+     * the same host graph as this one.
+     * The forked engine can be used by another thread.
+     * Forking takes the time to build a network and feed it the current host
+     * graph; it does not copy the match sets of this network.
+     */
+    public synchronized ReteSearchEngine fork() {
+        ReteSearchEngine result = new ReteSearchEngine(this.grammar);
+        HostGraph graph = this.network.getState().getHostGraph();
+        if (graph != null) {
+            result.network.processGraph(graph);
+        }
+        return result;
     }
 
     @Override
@@ -103,7 +261,12 @@ public class ReteSearchEngine extends SearchEngine {
         return new ReteSearchStrategy(this, condition);
     }
 
+    private final Grammar grammar;
     private final ReteNetwork network;
+    /** Updates since the oldest unreleased snapshot, in order of occurrence. */
+    private final List<UndoEntry> undoLog = new ArrayList<>();
+    /** Number of unreleased snapshots. */
+    private int snapshotCount;
 
     /**
      * The reporter object.
@@ -117,4 +280,42 @@ public class ReteSearchEngine extends SearchEngine {
     static public final Reporter transitionOccurredReporter =
         reporter.register("transitionOccurred()");
 
+    /**
+     * Snapshot of the RETE state of an engine.
+     * @see ReteSearchEngine#snapshot()
+     */
+    public static class Snapshot {
+        Snapshot(ReteSearchEngine engine, int position, HostGraph graph) {
+            this.engine = engine;
+            this.position = position;
+            this.graph = graph;
+        }
+
+        /** Returns the host graph held by the network when the snapshot was taken. */
+        public HostGraph getGraph() {
+            return this.graph;
+        }
+
+        private final ReteSearchEngine engine;
+        /** Size of the undo log when the snapshot was taken. */
+        private final int position;
+        private final HostGraph graph;
+        private boolean released;
+    }
+
+    /** Entry of the undo log. */
+    private static class UndoEntry {
+        UndoEntry(HostGraph graph, DeltaStore delta) {
+            this.graph = graph;
+            this.delta = delta;
+        }
+
+        /** The host graph before the update. */
+        final HostGraph graph;
+        /**
+         * The update, or {@code null} if the network was re-initialised
+         * and has to be re-initialised with {@link #graph} to undo it.
+         */
+        final DeltaStore delta;
+    }
 }
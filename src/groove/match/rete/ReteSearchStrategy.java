@@ -64,10 +64,7 @@ public class ReteSearchStrategy implements SearchStrategy {
         ReteNetwork network = getEngine().getNetwork();
         assert network != null;
 
-        if (host != network.getState()
-            .getHostGraph()) {
-            network.processGraph(host);
-        }
+        getEngine().synchronise(host);
 
         assert graphShapesEqual(host, network.getState()
             .getHostGraph());
@@ -16,6 +16,7 @@
  */
 package groove.match.rete;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -29,6 +30,7 @@ import groove.graph.Node;
 import groove.match.rete.LookupEntry.Role;
 import groove.match.rete.ReteNetwork.ReteStaticMapping;
 import groove.match.rete.RetePathMatch.EmptyPathMatch;
+import groove.util.collect.MapSet;
 
 /**
  *
@@ -71,6 +73,26 @@ public class SubgraphCheckerNode<LeftMatchType extends AbstractReteMatch,RightMa
      */
     private LookupEntry[] rightLookupTable;
 
+    /**
+     * Index of the left memory on the images of the join nodes,
+     * or {@code null} if the memory is not indexed.
+     * @see #isIndexed()
+     */
+    private JoinIndex leftIndex;
+    /**
+     * Index of the right memory on the images of the join nodes,
+     * or {@code null} if the memory is not indexed.
+     * @see #isIndexed()
+     */
+    private JoinIndex rightIndex;
+
+    /** Number of times the opposite memory was probed for join partners. */
+    private long probeCount;
+    /** Number of join partners tested in the probes. */
+    private long candidateCount;
+    /** Number of successful join tests. */
+    private long joinCount;
+
     /**
      * The static subgraph pattern represented by this checker
      */
@@ -112,6 +134,21 @@ public class SubgraphCheckerNode<LeftMatchType extends AbstractReteMatch,RightMa
         copyPatternsFromAntecedents();
         staticJoin(left, right);
         selectJoinStrategy(left, right);
+        createIndices(left, right);
+    }
+
+    /**
+     * Creates the join indices of the left and right memories, if
+     * the join allows it. This is the case if the antecedents share nodes,
+     * and neither antecedent is a path checker: the empty path match joins
+     * with any left match, so it cannot be found through an index.
+     */
+    private void createIndices(ReteStaticMapping left, ReteStaticMapping right) {
+        if (!isDisjointMerger() && !(left.getNNode() instanceof AbstractPathChecker)
+            && !(right.getNNode() instanceof AbstractPathChecker)) {
+            this.leftIndex = new JoinIndex(this.leftLookupTable);
+            this.rightIndex = new JoinIndex(this.rightLookupTable);
+        }
     }
 
     /**
@@ -388,21 +425,61 @@ public class SubgraphCheckerNode<LeftMatchType extends AbstractReteMatch,RightMa
 
         memory.add(subgraph);
         subgraph.addContainerCollection(memory);
-        for (AbstractReteMatch gOther : otherMemory) {
-            LeftMatchType left = (LeftMatchType) (sourceIsLeft ? subgraph : gOther);
-            RightMatchType right = (RightMatchType) (sourceIsLeft ? gOther : subgraph);
-
-            if (this.joinStrategy.test(left, right)) {
-                result++;
-                AbstractReteMatch combined = this.joinStrategy.construct(left, right);
-                if (combined != null) {
-                    passDownMatchToSuccessors(combined);
+        Set<AbstractReteMatch> candidates;
+        if (isIndexed()) {
+            JoinIndex index = sourceIsLeft ? this.leftIndex : this.rightIndex;
+            JoinIndex otherIndex = sourceIsLeft ? this.rightIndex : this.leftIndex;
+            index.add(subgraph);
+            subgraph.addDominoListener(index);
+            candidates = otherIndex.get(index.getKey(subgraph));
+        } else {
+            candidates = otherMemory;
+        }
+        this.probeCount++;
+        if (candidates != null) {
+            for (AbstractReteMatch gOther : candidates) {
+                this.candidateCount++;
+                LeftMatchType left = (LeftMatchType) (sourceIsLeft ? subgraph : gOther);
+                RightMatchType right = (RightMatchType) (sourceIsLeft ? gOther : subgraph);
+
+                if (this.joinStrategy.test(left, right)) {
+                    result++;
+                    AbstractReteMatch combined = this.joinStrategy.construct(left, right);
+                    if (combined != null) {
+                        passDownMatchToSuccessors(combined);
+                    }
                 }
             }
         }
+        this.joinCount += result;
         return result;
     }
 
+    /**
+     * Indicates if the left and right memories of this subgraph checker
+     * are indexed on the images of the join nodes. If so, a new match is only
+     * tested against the matches from the opposite memory that agree on
+     * these images; otherwise, it is tested against the entire opposite memory.
+     */
+    public boolean isIndexed() {
+        return this.leftIndex != null;
+    }
+
+    /** Returns the number of times the opposite memory was probed for join partners. */
+    public long getProbeCount() {
+        return this.probeCount;
+    }
+
+    /** Returns the total number of join partners tested in all probes. */
+    public long getCandidateCount() {
+        return this.candidateCount;
+    }
+
+    /** Returns the number of successful join tests. */
+    public long getJoinCount() {
+        return this.joinCount;
+    }
+
     @Override
     public boolean equals(ReteNetworkNode node) {
         return node == this;
@@ -567,6 +644,10 @@ public class SubgraphCheckerNode<LeftMatchType extends AbstractReteMatch,RightMa
         this.leftMemory.clear();
         this.rightOnDemandBuffer.clear();
         this.rightMemory.clear();
+        if (isIndexed()) {
+            this.leftIndex.clear();
+            this.rightIndex.clear();
+        }
     }
 
     @Override
@@ -659,6 +740,45 @@ public class SubgraphCheckerNode<LeftMatchType extends AbstractReteMatch,RightMa
         return result;
     }
 
+    /**
+     * Index of a memory of a subgraph checker on the host nodes to which
+     * the join nodes are mapped. The key of a match is the single image node
+     * if there is one join node, and the list of image nodes otherwise.
+     * The index removes matches as they are domino-deleted.
+     * @version $Revision $
+     */
+    private static class JoinIndex extends MapSet<Object,AbstractReteMatch>
+        implements DominoEventListener {
+        /**
+         * Creates an index for a given lookup table.
+         * @param lookupTable the positions of the join nodes in the matches
+         */
+        JoinIndex(LookupEntry[] lookupTable) {
+            this.lookupTable = lookupTable;
+        }
+
+        @Override
+        protected Object getKey(Object value) {
+            Object[] units = ((AbstractReteMatch) value).getAllUnits();
+            if (this.lookupTable.length == 1) {
+                return this.lookupTable[0].lookup(units);
+            } else {
+                Node[] result = new Node[this.lookupTable.length];
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = this.lookupTable[i].lookup(units);
+                }
+                return Arrays.asList(result);
+            }
+        }
+
+        @Override
+        public void matchRemoved(AbstractReteMatch match) {
+            remove(match);
+        }
+
+        private final LookupEntry[] lookupTable;
+    }
+
     /**
      * Performs ordinary overlap tests of nodes based on the
      * node-equality set of a given subgraph-checker.
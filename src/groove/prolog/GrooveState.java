@@ -18,11 +18,15 @@
  */
 package groove.prolog;
 
+import gnu.prolog.term.JavaObjectTerm;
 import groove.grammar.Grammar;
 import groove.lts.GTS;
 import groove.lts.GraphState;
 import groove.transform.RuleEvent;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 /**
  * The current state in groove.
  * @author Lesley Wevers
@@ -98,4 +102,70 @@ public class GrooveState {
     public RuleEvent getActiveEvent() {
         return this.event;
     }
+
+    /**
+     * Returns a term wrapping a given Java object.
+     * The terms are cached, so that repeated queries over the same GTS do not
+     * allocate fresh terms for the same objects. As Java object terms unify
+     * on object identity, the cache is also based on identity.
+     * @param value the object to be wrapped
+     * @return a term whose value is {@code value}
+     */
+    public JavaObjectTerm getTerm(Object value) {
+        JavaObjectTerm result = this.termCache.get(value);
+        if (result == null) {
+            if (this.termCache.size() >= MAX_CACHED_TERMS) {
+                this.termCache.clear();
+            }
+            this.termCache.put(value, result = new JavaObjectTerm(value));
+        }
+        return result;
+    }
+
+    /**
+     * Cache of terms wrapping Java objects.
+     */
+    private final Map<Object,JavaObjectTerm> termCache = new IdentityHashMap<>();
+
+    /**
+     * Looks up a state of the GTS by its number.
+     * The index is built on first use, and rebuilt whenever the GTS has grown since.
+     * @param number the number of the state
+     * @return the state of the GTS with the given number, or null if there
+     * is no GTS or no such state
+     */
+    public GraphState getState(int number) {
+        GTS gts = getGts();
+        if (gts == null || number < 0) {
+            return null;
+        }
+        if (this.stateIndex == null || this.indexedStateCount != gts.nodeCount()) {
+            int size = 0;
+            for (GraphState state : gts.nodeSet()) {
+                size = Math.max(size, state.getNumber() + 1);
+            }
+            GraphState[] index = new GraphState[size];
+            for (GraphState state : gts.nodeSet()) {
+                index[state.getNumber()] = state;
+            }
+            this.stateIndex = index;
+            this.indexedStateCount = gts.nodeCount();
+        }
+        return number < this.stateIndex.length ? this.stateIndex[number] : null;
+    }
+
+    /**
+     * Index of the states of the GTS by number
+     */
+    private GraphState[] stateIndex;
+
+    /**
+     * Number of states of the GTS when the state index was built
+     */
+    private int indexedStateCount;
+
+    /**
+     * Maximum number of terms in the term cache; the cache is cleared when this is reached
+     */
+    private static final int MAX_CACHED_TERMS = 1 << 20;
 }
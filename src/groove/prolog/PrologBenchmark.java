@@ -0,0 +1,171 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.prolog;
+
+import groove.explore.Generator;
+import groove.grammar.Grammar;
+import groove.lts.GTS;
+import groove.prolog.PrologChecker.GeneratorArgs;
+import groove.prolog.PrologChecker.GeneratorHandler;
+import groove.prolog.PrologChecker.QueryHandler;
+import groove.util.cli.GrooveCmdLineParser;
+import groove.util.cli.GrooveCmdLineTool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.kohsuke.args4j.Option;
+import org.kohsuke.args4j.spi.OptionHandler;
+
+/**
+ * Benchmark for Prolog queries over an explored state space.
+ * The state space is generated once; afterwards, every query is run a number
+ * of times, each time enumerating all its solutions.
+ * The benchmark reports the number of solutions and the median over the rounds
+ * of the summed execution times of the solutions, as reported by
+ * {@link QueryResult#getExecutionTime()}, as well as the time to the first solution.
+ * @version $Revision $
+ */
+public class PrologBenchmark extends GrooveCmdLineTool<Object> {
+    /**
+     * Constructs the tool for a given list of command-line arguments.
+     * @param args The command-line arguments.
+     */
+    public PrologBenchmark(String... args) {
+        super("PrologBenchmark", args);
+    }
+
+    @Override
+    protected GrooveCmdLineParser createParser(String appName) {
+        GrooveCmdLineParser result = new GrooveCmdLineParser(appName, this);
+        // move -g to the final position
+        @SuppressWarnings("rawtypes")
+        List<OptionHandler> handlers = result.getOptions();
+        OptionHandler<?> genHandler = null;
+        for (OptionHandler<?> handler : handlers) {
+            if (handler instanceof GeneratorHandler) {
+                genHandler = handler;
+            }
+        }
+        handlers.remove(genHandler);
+        handlers.add(genHandler);
+        return result;
+    }
+
+    @Override
+    protected Object run() throws Exception {
+        long time = System.currentTimeMillis();
+        GTS gts;
+        try {
+            gts = Generator.execute(this.genArgs.get())
+                .getGTS();
+        } catch (Exception e) {
+            throw new Exception("Error while invoking Generator\n" + e.getMessage(), e);
+        }
+        emit("State space: %d states, %d transitions (generated in %d ms)%n", gts.nodeCount(),
+            gts.edgeCount(), System.currentTimeMillis() - time);
+        Grammar grammar = gts.getGrammar();
+        PrologEngine engine = new PrologEngine(grammar.getPrologEnvironment());
+        engine.setGrooveState(new GrooveState(grammar, gts, null, null));
+        emit("%-60s %10s %12s %12s%n", "Query", "Solutions", "First(ms)", "All(ms)");
+        for (String query : this.queries == null ? DEFAULT_QUERIES : this.queries) {
+            measure(engine, query);
+        }
+        return null;
+    }
+
+    /** Runs a query a number of times, and reports the timings. */
+    private void measure(PrologEngine engine, String query) throws Exception {
+        long[] firstTimes = new long[this.rounds];
+        long[] allTimes = new long[this.rounds];
+        int solutions = 0;
+        for (int round = 0; round < this.rounds; round++) {
+            QueryResult result = engine.newQuery(query);
+            firstTimes[round] = result.getExecutionTime();
+            long total = 0;
+            int count = 0;
+            while (result != null) {
+                total += result.getExecutionTime();
+                QueryReturnValue value = result.getReturnValue();
+                if (value == QueryReturnValue.SUCCESS || value == QueryReturnValue.SUCCESS_LAST) {
+                    count++;
+                }
+                result = engine.next();
+            }
+            allTimes[round] = total;
+            if (round > 0 && count != solutions) {
+                throw new IllegalStateException(String.format(
+                    "Query %s yields %d solutions in one round and %d in another", query,
+                    solutions, count));
+            }
+            solutions = count;
+        }
+        emit("%-60s %10d %12.3f %12.3f%n", query, solutions, median(firstTimes) / 1e6,
+            median(allTimes) / 1e6);
+    }
+
+    /** Returns the median of a non-empty array of values. */
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    @Option(name = "-rounds", metaVar = "num", usage = "Number of rounds per query (default 5)")
+    private int rounds = 5;
+    @Option(name = "-p", metaVar = "query",
+        usage = "Query to be measured (multiple allowed; default a fixed set)",
+        handler = QueryHandler.class)
+    private List<String> queries;
+    @Option(name = "-g", metaVar = "args",
+        usage = "Invoke the generator using <args> as options + arguments",
+        handler = GeneratorHandler.class, required = true)
+    private GeneratorArgs genArgs;
+
+    /**
+     * Constructs and invokes the tool.
+     * Always ends with {@link System#exit(int)};
+     * prefer {@link #execute(String[])} for programmatic use.
+     * @param args The command-line arguments.
+     */
+    public static void main(String[] args) {
+        tryExecute(PrologBenchmark.class, args);
+    }
+
+    /**
+     * Constructs and invokes the tool programmatically.
+     * @param args The command-line arguments.
+     */
+    public static void execute(String[] args) throws Exception {
+        new PrologBenchmark(args).start();
+    }
+
+    /** Queries measured if none are given. */
+    private static final List<String> DEFAULT_QUERIES = new ArrayList<>();
+
+    static {
+        DEFAULT_QUERIES.add("state(S)");
+        DEFAULT_QUERIES.add("final_state(S)");
+        DEFAULT_QUERIES.add("state(S), state(S)");
+        DEFAULT_QUERIES.add("state(S), state_number(S, N), state_number(T, N)");
+        DEFAULT_QUERIES.add("state(S), state_next(S, T), state(T)");
+        DEFAULT_QUERIES.add("state(S), state_transition(S, T), state_transition(S, T)");
+        DEFAULT_QUERIES.add("start_state(S), state_graph(S, G), graph_edge(G, E), graph_edge(G, E)");
+        DEFAULT_QUERIES.add("start_state(S), state_graph(S, G), graph_node(G, N), node_out_edge(G, N, E)");
+    }
+}
@@ -171,7 +171,7 @@ public class PrologChecker extends GrooveCmdLineTool<Object> {
      * Option value class collecting all remaining arguments.
      * Wrapped into a class to fool Args4J into understanding this is not a multiple value.
      */
-    private static class GeneratorArgs {
+    static class GeneratorArgs {
         GeneratorArgs(Parameters params) throws CmdLineException {
             this.args = new ArrayList<>();
             for (int ix = 0; ix < params.size(); ix++) {
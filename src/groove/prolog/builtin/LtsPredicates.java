@@ -55,6 +55,14 @@ public class LtsPredicates extends GroovePredicates {
         s(":-build_in(active_state/1,'groove.prolog.builtin.lts.Predicate_active_state').");
     }
 
+    @ToolTipBody("Retrieves the number of a state, or the state with a given number")
+    @Signature({"State", "Number", "+?", "?+"})
+    @ToolTipPars({"the state", "the number of the state"})
+    //    % @groove.lts.GraphState#getNumber()
+    public void state_number_2() {
+        s(":-build_in(state_number/2,'groove.prolog.builtin.lts.Predicate_state_number').");
+    }
+
     @ToolTipBody("Retrieves the graph for a state")
     @Signature({"State", "Graph", "+?"})
     @ToolTipPars({"A state", "The graph belonging to the state"})
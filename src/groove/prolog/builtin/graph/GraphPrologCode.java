@@ -23,6 +23,7 @@ import gnu.prolog.term.CompoundTerm;
 import gnu.prolog.term.CompoundTermTag;
 import gnu.prolog.term.JavaObjectTerm;
 import gnu.prolog.term.Term;
+import gnu.prolog.term.VariableTerm;
 import gnu.prolog.vm.Environment;
 import gnu.prolog.vm.Interpreter;
 import gnu.prolog.vm.PrologCode;
@@ -32,6 +33,11 @@ import groove.graph.Edge;
 import groove.graph.Graph;
 import groove.graph.Node;
 import groove.lts.GraphState;
+import groove.prolog.GrooveEnvironment;
+import groove.prolog.GrooveState;
+import groove.prolog.util.PrologTermIterator;
+
+import java.util.function.Predicate;
 
 /**
  * This class contains some utility methods to extract Java objects from prolog terms
@@ -119,6 +125,67 @@ public abstract class GraphPrologCode implements PrologCode {
         return null;
     }
 
+    /**
+     * Unifies a term with the elements of a collection, one at a time upon backtracking.
+     * If the term is already bound and an index test is given, the collection
+     * is not iterated; rather, the test decides whether the bound value is an element,
+     * and the call is deterministic.
+     * The terms for the elements are obtained through {@link #toTerm(Interpreter, Object)}.
+     * A predicate calling this should continue on backtracking through
+     * {@link #nextSolution(Interpreter)}.
+     * @param term the term to be unified with the elements
+     * @param elements the elements, which are only iterated on demand
+     * @param index membership test for a bound value; if {@code null},
+     * the elements are always iterated
+     */
+    public static final int solve(Interpreter interpreter, Term term, Iterable<?> elements,
+            Predicate<Object> index) throws PrologException {
+        Term value = term.dereference();
+        if (index != null && !(value instanceof VariableTerm)) {
+            if (value instanceof JavaObjectTerm && index.test(((JavaObjectTerm) value).value)) {
+                return SUCCESS_LAST;
+            } else {
+                return FAIL;
+            }
+        }
+        GrooveState state = getGrooveState(interpreter);
+        PrologTermIterator it =
+            new PrologTermIterator(elements.iterator(), term, interpreter.getUndoPosition(),
+                state == null ? JavaObjectTerm::new : state::getTerm);
+        return it.nextSolution(interpreter);
+    }
+
+    /**
+     * Continues a call of {@link #solve(Interpreter, Term, Iterable, Predicate)}
+     * upon backtracking.
+     */
+    public static final int nextSolution(Interpreter interpreter) throws PrologException {
+        PrologTermIterator it = (PrologTermIterator) interpreter.popBacktrackInfo();
+        interpreter.undo(it.getUndoPosition());
+        return it.nextSolution(interpreter);
+    }
+
+    /**
+     * Returns a term for a Java object, taken from the term cache of the current
+     * {@link GrooveState} if there is one.
+     */
+    public static final Term toTerm(Interpreter interpreter, Object value) {
+        GrooveState state = getGrooveState(interpreter);
+        return state == null ? new JavaObjectTerm(value) : state.getTerm(value);
+    }
+
+    /**
+     * Returns the current groove state of the interpreter, if any.
+     */
+    public static final GrooveState getGrooveState(Interpreter interpreter) {
+        Environment env = interpreter.getEnvironment();
+        if (env instanceof GrooveEnvironment) {
+            return ((GrooveEnvironment) env).getGrooveState();
+        } else {
+            return null;
+        }
+    }
+
     /**
      * Returns true if the input contains the option with the given values
      */
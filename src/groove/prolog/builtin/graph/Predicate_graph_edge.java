@@ -20,12 +20,13 @@ package groove.prolog.builtin.graph;
 
 import gnu.prolog.term.Term;
 import gnu.prolog.vm.Interpreter;
-import gnu.prolog.vm.PrologCollectionIterator;
 import gnu.prolog.vm.PrologException;
+import groove.graph.Edge;
 import groove.graph.Graph;
 
 /**
  * Predicate graph_edge(+Graph,?Edge)
+ * If the edge is given, its presence is looked up in the graph.
  * @author Michiel Hendriks
  */
 public class Predicate_graph_edge extends GraphPrologCode {
@@ -33,16 +34,11 @@ public class Predicate_graph_edge extends GraphPrologCode {
     public int execute(Interpreter interpreter, boolean backtrackMode,
             Term[] args) throws PrologException {
         if (backtrackMode) {
-            PrologCollectionIterator it =
-                (PrologCollectionIterator) interpreter.popBacktrackInfo();
-            interpreter.undo(it.getUndoPosition());
-            return it.nextSolution(interpreter);
+            return nextSolution(interpreter);
         } else {
             Graph graph = getGraph(args[0]);
-            PrologCollectionIterator it =
-                new PrologCollectionIterator(graph.edgeSet(), args[1],
-                    interpreter.getUndoPosition());
-            return it.nextSolution(interpreter);
+            return solve(interpreter, args[1], graph.edgeSet(),
+                o -> o instanceof Edge && graph.containsEdge((Edge) o));
         }
     }
 }
@@ -20,12 +20,13 @@ package groove.prolog.builtin.graph;
 
 import gnu.prolog.term.Term;
 import gnu.prolog.vm.Interpreter;
-import gnu.prolog.vm.PrologCollectionIterator;
 import gnu.prolog.vm.PrologException;
 import groove.graph.Graph;
+import groove.graph.Node;
 
 /**
  * Predicate graph_node(+Graph,?Node)
+ * If the node is given, its presence is looked up in the graph.
  * @author Michiel Hendriks
  */
 public class Predicate_graph_node extends GraphPrologCode {
@@ -33,16 +34,11 @@ public class Predicate_graph_node extends GraphPrologCode {
     public int execute(Interpreter interpreter, boolean backtrackMode,
             Term[] args) throws PrologException {
         if (backtrackMode) {
-            PrologCollectionIterator it =
-                (PrologCollectionIterator) interpreter.popBacktrackInfo();
-            interpreter.undo(it.getUndoPosition());
-            return it.nextSolution(interpreter);
+            return nextSolution(interpreter);
         } else {
             Graph graph = getGraph(args[0]);
-            PrologCollectionIterator it =
-                new PrologCollectionIterator(graph.nodeSet(), args[1],
-                    interpreter.getUndoPosition());
-            return it.nextSolution(interpreter);
+            return solve(interpreter, args[1], graph.nodeSet(),
+                o -> o instanceof Node && graph.containsNode((Node) o));
         }
     }
 }
@@ -18,16 +18,20 @@
  */
 package groove.prolog.builtin.graph;
 
+import gnu.prolog.term.AtomTerm;
 import gnu.prolog.term.JavaObjectTerm;
 import gnu.prolog.term.Term;
 import gnu.prolog.vm.Interpreter;
-import gnu.prolog.vm.PrologCollectionIterator;
 import gnu.prolog.vm.PrologException;
+import groove.graph.Edge;
 import groove.graph.Graph;
 import groove.graph.Label;
 
 /**
  * Predicate label_edge(+Graph,+Label,?Edge)
+ * The label is either a label object or an atom with the label text;
+ * the edges are retrieved through the label index of the graph.
+ * If the edge is given, it is checked against the label and the graph directly.
  * @author Michiel Hendriks, Lesley Wevers
  */
 public class Predicate_label_edge extends GraphPrologCode {
@@ -35,20 +39,21 @@ public class Predicate_label_edge extends GraphPrologCode {
     public int execute(Interpreter interpreter, boolean backtrackMode,
             Term[] args) throws PrologException {
         if (backtrackMode) {
-            PrologCollectionIterator it =
-                (PrologCollectionIterator) interpreter.popBacktrackInfo();
-            interpreter.undo(it.getUndoPosition());
-            return it.nextSolution(interpreter);
+            return nextSolution(interpreter);
         } else {
             try {
                 Graph graph = getGraph(args[0]);
-
-                Label label = (Label) ((JavaObjectTerm) args[1]).value;
-
-                PrologCollectionIterator it =
-                    new PrologCollectionIterator(graph.edgeSet(label), args[2],
-                        interpreter.getUndoPosition());
-                return it.nextSolution(interpreter);
+                Term labelTerm = args[1].dereference();
+                Label label;
+                if (labelTerm instanceof AtomTerm) {
+                    label = graph.getFactory()
+                        .createLabel(((AtomTerm) labelTerm).value);
+                } else {
+                    label = (Label) ((JavaObjectTerm) labelTerm).value;
+                }
+                return solve(interpreter, args[2], graph.edgeSet(label),
+                    o -> o instanceof Edge && ((Edge) o).label()
+                        .equals(label) && graph.containsEdge((Edge) o));
             } catch (Exception e) {
                 return FAIL;
             }
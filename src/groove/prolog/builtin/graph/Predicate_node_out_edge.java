@@ -20,13 +20,14 @@ package groove.prolog.builtin.graph;
 
 import gnu.prolog.term.Term;
 import gnu.prolog.vm.Interpreter;
-import gnu.prolog.vm.PrologCollectionIterator;
 import gnu.prolog.vm.PrologException;
+import groove.graph.Edge;
 import groove.graph.Graph;
 import groove.graph.Node;
 
 /**
  * Predicate node_out_edge(+Graph,+Node,?Edge)
+ * If the edge is given, it is checked against the node and the graph directly.
  * @author Michiel Hendriks
  */
 public class Predicate_node_out_edge extends GraphPrologCode {
@@ -34,17 +35,13 @@ public class Predicate_node_out_edge extends GraphPrologCode {
     public int execute(Interpreter interpreter, boolean backtrackMode,
             Term[] args) throws PrologException {
         if (backtrackMode) {
-            PrologCollectionIterator it =
-                (PrologCollectionIterator) interpreter.popBacktrackInfo();
-            interpreter.undo(it.getUndoPosition());
-            return it.nextSolution(interpreter);
+            return nextSolution(interpreter);
         } else {
             Graph graph = getGraph(args[0]);
             Node node = getNode(args[1]);
-            PrologCollectionIterator it =
-                new PrologCollectionIterator(graph.outEdgeSet(node), args[2],
-                    interpreter.getUndoPosition());
-            return it.nextSolution(interpreter);
+            return solve(interpreter, args[2], graph.outEdgeSet(node),
+                o -> o instanceof Edge && ((Edge) o).source() == node
+                    && graph.containsEdge((Edge) o));
         }
     }
 }
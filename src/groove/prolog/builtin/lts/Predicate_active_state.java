@@ -18,7 +18,6 @@
  */
 package groove.prolog.builtin.lts;
 
-import gnu.prolog.term.JavaObjectTerm;
 import gnu.prolog.term.Term;
 import gnu.prolog.vm.Interpreter;
 import gnu.prolog.vm.PrologException;
@@ -41,7 +40,7 @@ public class Predicate_active_state extends LtsPrologCode {
         if (graphState == null) {
             return FAIL;
         }
-        Term value = new JavaObjectTerm(graphState);
+        Term value = toTerm(interpreter, graphState);
         return interpreter.unify(args[0], value);
     }
 }
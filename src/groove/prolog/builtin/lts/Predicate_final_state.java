@@ -20,13 +20,14 @@ package groove.prolog.builtin.lts;
 
 import gnu.prolog.term.Term;
 import gnu.prolog.vm.Interpreter;
-import gnu.prolog.vm.PrologCollectionIterator;
 import gnu.prolog.vm.PrologException;
 import groove.lts.GTS;
+import groove.lts.GraphState;
 import groove.prolog.GrooveEnvironment;
 
 /**
  * Predicate final_state(?State)
+ * If the state is given, it is checked directly rather than looked up in the GTS.
  * @author Michiel Hendriks
  */
 public class Predicate_final_state extends LtsPrologCode {
@@ -34,10 +35,7 @@ public class Predicate_final_state extends LtsPrologCode {
     public int execute(Interpreter interpreter, boolean backtrackMode,
             Term[] args) throws PrologException {
         if (backtrackMode) {
-            PrologCollectionIterator bi =
-                (PrologCollectionIterator) interpreter.popBacktrackInfo();
-            interpreter.undo(bi.getUndoPosition());
-            return bi.nextSolution(interpreter);
+            return nextSolution(interpreter);
         } else {
             if (!(interpreter.getEnvironment() instanceof GrooveEnvironment)) {
                 GrooveEnvironment.invalidEnvironment();
@@ -47,10 +45,9 @@ public class Predicate_final_state extends LtsPrologCode {
             if (lts == null) {
                 return FAIL;
             }
-            PrologCollectionIterator it =
-                new PrologCollectionIterator(lts.getFinalStates(), args[0],
-                    interpreter.getUndoPosition());
-            return it.nextSolution(interpreter);
+            return solve(interpreter, args[0], lts.getFinalStates(),
+                o -> o instanceof GraphState && ((GraphState) o).getGTS() == lts
+                    && ((GraphState) o).isRealState() && ((GraphState) o).isFinal());
         }
     }
 }
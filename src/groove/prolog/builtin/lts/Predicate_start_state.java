@@ -18,7 +18,6 @@
  */
 package groove.prolog.builtin.lts;
 
-import gnu.prolog.term.JavaObjectTerm;
 import gnu.prolog.term.Term;
 import gnu.prolog.vm.Interpreter;
 import gnu.prolog.vm.PrologException;
@@ -41,7 +40,7 @@ public class Predicate_start_state extends LtsPrologCode {
         if (lts == null) {
             return FAIL;
         }
-        Term result = new JavaObjectTerm(lts.startState());
+        Term result = toTerm(interpreter, lts.startState());
         return interpreter.unify(args[0], result);
     }
 }
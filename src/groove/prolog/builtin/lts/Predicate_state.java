@@ -20,13 +20,14 @@ package groove.prolog.builtin.lts;
 
 import gnu.prolog.term.Term;
 import gnu.prolog.vm.Interpreter;
-import gnu.prolog.vm.PrologCollectionIterator;
 import gnu.prolog.vm.PrologException;
 import groove.lts.GTS;
+import groove.lts.GraphState;
 import groove.prolog.GrooveEnvironment;
 
 /**
  * Predicate state(?state)
+ * If the state is given, it is checked directly rather than looked up in the GTS.
  * @author Lesley Wevers
  */
 public class Predicate_state extends LtsPrologCode {
@@ -34,18 +35,15 @@ public class Predicate_state extends LtsPrologCode {
     public int execute(Interpreter interpreter, boolean backtrackMode, Term[] args)
         throws PrologException {
         if (backtrackMode) {
-            PrologCollectionIterator it = (PrologCollectionIterator) interpreter.popBacktrackInfo();
-            interpreter.undo(it.getUndoPosition());
-            return it.nextSolution(interpreter);
+            return nextSolution(interpreter);
         } else {
             GTS gts = ((GrooveEnvironment) interpreter.getEnvironment()).getGrooveState().getGts();
             if (gts == null) {
                 return FAIL;
             }
-            PrologCollectionIterator it =
-                new PrologCollectionIterator(gts.getStates(), args[0],
-                    interpreter.getUndoPosition());
-            return it.nextSolution(interpreter);
+            return solve(interpreter, args[0], gts.getStates(),
+                o -> o instanceof GraphState && ((GraphState) o).getGTS() == gts
+                    && ((GraphState) o).isRealState());
         }
     }
 }
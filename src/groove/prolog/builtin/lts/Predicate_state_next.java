@@ -20,16 +20,15 @@ package groove.prolog.builtin.lts;
 
 import gnu.prolog.term.Term;
 import gnu.prolog.vm.Interpreter;
-import gnu.prolog.vm.PrologCollectionIterator;
 import gnu.prolog.vm.PrologException;
 import groove.lts.GraphState;
 import groove.lts.GraphTransition;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Iterator;
 
 /**
  * Predicate state_next(+State,?State)
+ * The successors are enumerated directly from the transitions of the state.
  * @author Michiel Hendriks
  */
 public class Predicate_state_next extends LtsPrologCode {
@@ -37,20 +36,26 @@ public class Predicate_state_next extends LtsPrologCode {
     public int execute(Interpreter interpreter, boolean backtrackMode,
             Term[] args) throws PrologException {
         if (backtrackMode) {
-            PrologCollectionIterator bi =
-                (PrologCollectionIterator) interpreter.popBacktrackInfo();
-            interpreter.undo(bi.getUndoPosition());
-            return bi.nextSolution(interpreter);
+            return nextSolution(interpreter);
         } else {
             GraphState graphState = getGraphState(args[0]);
-            Collection<GraphState> nextStateSet = new ArrayList<>();
-            for (GraphTransition trans : graphState.getTransitions()) {
-                nextStateSet.add(trans.target());
-            }
-            PrologCollectionIterator it =
-                new PrologCollectionIterator(nextStateSet, args[1],
-                    interpreter.getUndoPosition());
-            return it.nextSolution(interpreter);
+            Iterable<GraphState> nextStates = () -> new Iterator<GraphState>() {
+                @Override
+                public boolean hasNext() {
+                    return this.inner.hasNext();
+                }
+
+                @Override
+                public GraphState next() {
+                    return this.inner.next()
+                        .target();
+                }
+
+                private final Iterator<? extends GraphTransition> inner =
+                    graphState.getTransitions()
+                        .iterator();
+            };
+            return solve(interpreter, args[1], nextStates, null);
         }
     }
 }
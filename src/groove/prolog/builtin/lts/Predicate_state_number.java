@@ -0,0 +1,60 @@
+/*
+ * Groove Prolog Interface
+ * Copyright (C) 2009 Michiel Hendriks, University of Twente
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package groove.prolog.builtin.lts;
+
+import gnu.prolog.term.IntegerTerm;
+import gnu.prolog.term.JavaObjectTerm;
+import gnu.prolog.term.Term;
+import gnu.prolog.term.VariableTerm;
+import gnu.prolog.vm.Interpreter;
+import gnu.prolog.vm.PrologException;
+import groove.lts.GraphState;
+import groove.prolog.GrooveState;
+
+/**
+ * Predicate state_number(?State,?Number)
+ * If only the number is given, the state is looked up in the number index
+ * of the current {@link GrooveState}.
+ */
+public class Predicate_state_number extends LtsPrologCode {
+    @Override
+    public int execute(Interpreter interpreter, boolean backtrackMode,
+            Term[] args) throws PrologException {
+        Term stateTerm = args[0].dereference();
+        if (stateTerm instanceof JavaObjectTerm) {
+            GraphState graphState = getGraphState(stateTerm);
+            Term value = IntegerTerm.get(graphState.getNumber());
+            return interpreter.unify(args[1], value);
+        }
+        Term numberTerm = args[1].dereference();
+        if (stateTerm instanceof VariableTerm && numberTerm instanceof IntegerTerm) {
+            GrooveState grooveState = getGrooveState(interpreter);
+            GraphState graphState =
+                grooveState == null ? null : grooveState.getState(((IntegerTerm) numberTerm).value);
+            if (graphState == null) {
+                return FAIL;
+            }
+            return interpreter.unify(args[0], toTerm(interpreter, graphState));
+        }
+        if (numberTerm instanceof VariableTerm) {
+            PrologException.instantiationError();
+        }
+        return FAIL;
+    }
+}
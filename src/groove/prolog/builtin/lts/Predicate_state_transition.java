@@ -20,12 +20,12 @@ package groove.prolog.builtin.lts;
 
 import gnu.prolog.term.Term;
 import gnu.prolog.vm.Interpreter;
-import gnu.prolog.vm.PrologCollectionIterator;
 import gnu.prolog.vm.PrologException;
 import groove.lts.GraphState;
 
 /**
  * Predicate state_transition(+State,?Transition)
+ * If the transition is given, it is looked up among the transitions of the state.
  * @author Michiel Hendriks
  */
 public class Predicate_state_transition extends LtsPrologCode {
@@ -33,16 +33,11 @@ public class Predicate_state_transition extends LtsPrologCode {
     public int execute(Interpreter interpreter, boolean backtrackMode,
             Term[] args) throws PrologException {
         if (backtrackMode) {
-            PrologCollectionIterator bi =
-                (PrologCollectionIterator) interpreter.popBacktrackInfo();
-            interpreter.undo(bi.getUndoPosition());
-            return bi.nextSolution(interpreter);
+            return nextSolution(interpreter);
         } else {
             GraphState graphState = getGraphState(args[0]);
-            PrologCollectionIterator it =
-                new PrologCollectionIterator(graphState.getTransitions(),
-                    args[1], interpreter.getUndoPosition());
-            return it.nextSolution(interpreter);
+            return solve(interpreter, args[1], graphState.getTransitions(),
+                graphState.getTransitions()::contains);
         }
     }
 }
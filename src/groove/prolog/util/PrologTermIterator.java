@@ -0,0 +1,103 @@
+/*
+ * Groove Prolog Interface
+ * Copyright (C) 2009 Michiel Hendriks, University of Twente
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package groove.prolog.util;
+
+import gnu.prolog.term.Term;
+import gnu.prolog.vm.BacktrackInfo;
+import gnu.prolog.vm.Interpreter;
+import gnu.prolog.vm.PrologCode;
+import gnu.prolog.vm.PrologException;
+
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * Iterator over Java objects which can be used by PrologCode implementations.
+ * In contrast to {@link gnu.prolog.vm.PrologCollectionIterator}, the terms
+ * for the objects are obtained from a given function, which may cache them;
+ * the underlying iterator is advanced lazily, one solution at a time.
+ *
+ */
+public class PrologTermIterator extends BacktrackInfo {
+    /**
+     * @param iterator
+     *          The iterator to go through
+     * @param destination
+     *          The destination term
+     * @param undoPosition
+     *          the value of interpreter.getUndoPosition();
+     * @param toTerm
+     *          function that converts the objects of the iterator to terms
+     */
+    public PrologTermIterator(Iterator<?> iterator, Term destination, int undoPosition,
+            Function<Object,? extends Term> toTerm) {
+        super(-1, -1);
+        this.iterator = iterator;
+        this.destTerm = destination;
+        this.startUndoPosition = undoPosition;
+        this.toTerm = toTerm;
+    }
+
+    /**
+     * @return the startUndoPosition
+     */
+    public int getUndoPosition() {
+        return this.startUndoPosition;
+    }
+
+    /**
+     * Get the next value
+     *
+     * @param interpreter               The prolog interpreter
+     * @return PrologCode               Return code
+     */
+    public int nextSolution(Interpreter interpreter) throws PrologException {
+        while (this.iterator.hasNext()) {
+            Term term = this.toTerm.apply(this.iterator.next());
+            int rc = interpreter.unify(this.destTerm, term);
+            if (rc == PrologCode.FAIL) {
+                interpreter.undo(this.startUndoPosition);
+                continue;
+            }
+            interpreter.pushBacktrackInfo(this);
+            return PrologCode.SUCCESS;
+        }
+        return PrologCode.FAIL;
+    }
+
+    /**
+     * The iterator it will go through
+     */
+    private final Iterator<?> iterator;
+
+    /**
+     * The term to unify the value with
+     */
+    private final Term destTerm;
+
+    /**
+     * The start undo position
+     */
+    private final int startUndoPosition;
+
+    /**
+     * The function converting objects to terms
+     */
+    private final Function<Object,? extends Term> toTerm;
+}
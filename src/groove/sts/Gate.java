@@ -29,6 +29,22 @@ public class Gate {
         return this.label;
     }
 
+    /**
+     * Gets the interaction variables of this gate.
+     * @return The interaction variables.
+     */
+    public Set<InteractionVariable> getInteractionVariables() {
+        return this.iVars;
+    }
+
+    /**
+     * Gets the type of this gate: "?" for an input gate, "!" otherwise.
+     * @return The type.
+     */
+    public String getType() {
+        return this.label.contains("?") ? "?" : "!";
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof Gate)) {
@@ -49,11 +65,8 @@ public class Gate {
      * @return The JSON string.
      */
     public String toJSON() {
-        String type = "!";
-        if (this.label.contains("?")) {
-            type = "?";
-        }
-        String json = "\"" + getStrippedLabel() + "\":{\"type\":\"" + type + "\",\"iVars\":[";
+        String json =
+            "\"" + getStrippedLabel() + "\":{\"type\":\"" + getType() + "\",\"iVars\":[";
         for (Variable v : this.iVars) {
             json += "\"" + v.getLabel() + "\",";
         }
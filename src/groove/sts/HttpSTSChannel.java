@@ -0,0 +1,88 @@
+/* GROOVE: GRaphs for Object Oriented VErification
+ * Copyright 2003--2011 University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * $Id$
+ */
+package groove.sts;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Channel sending an STS to an HTTP server in a single POST request.
+ * The request body is sent in HTTP chunks, so that the data is transmitted
+ * while it is being written rather than being collected first.
+ * @version $Revision $
+ */
+public class HttpSTSChannel implements STSChannel {
+    /**
+     * Constructs a channel for a given URL.
+     * @param url the URL to post to
+     * @param format the format of the data to be sent
+     */
+    public HttpSTSChannel(String url, STSWriter.Format format) {
+        this.url = url;
+        this.format = format;
+    }
+
+    @Override
+    public OutputStream open() throws IOException {
+        this.conn = (HttpURLConnection) new URL(this.url).openConnection();
+        this.conn.setDoOutput(true);
+        this.conn.setRequestMethod("POST");
+        this.conn.setReadTimeout(50000);
+        this.conn.setRequestProperty("Content-Type", this.format.getContentType());
+        this.conn.setChunkedStreamingMode(CHUNK_SIZE);
+        this.out = this.conn.getOutputStream();
+        return this.out;
+    }
+
+    @Override
+    public String close() throws IOException {
+        this.out.close();
+        InputStream response;
+        if (this.conn.getResponseCode() != 200) {
+            System.out.println("Error in connection to: " + this.conn.getURL());
+            response = this.conn.getErrorStream();
+        } else {
+            response = this.conn.getInputStream();
+        }
+        StringBuilder result = new StringBuilder();
+        if (response != null) {
+            try (BufferedReader in =
+                new BufferedReader(new InputStreamReader(response, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    result.append(line);
+                }
+            }
+        }
+        this.conn.disconnect();
+        return result.toString();
+    }
+
+    private final String url;
+    private final STSWriter.Format format;
+    private HttpURLConnection conn;
+    private OutputStream out;
+
+    /** Size of the HTTP chunks in which the request body is sent. */
+    private static final int CHUNK_SIZE = 1 << 16;
+}
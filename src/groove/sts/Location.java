@@ -43,14 +43,15 @@ public class Location {
      * Adds a new outgoing Switch Relation from this Location.
      * @param sr The outgoing Switch Relation.
      * @param l The target Location of sr.
+     * @return {@code true} if the relation to l was not yet present.
      */
-    public void addSwitchRelation(SwitchRelation sr, Location l) {
+    public boolean addSwitchRelation(SwitchRelation sr, Location l) {
         Set<Location> set = this.relations.get(sr);
         if (set == null) {
             set = new HashSet<>();
             this.relations.put(sr, set);
         }
-        set.add(l);
+        return set.add(l);
     }
 
     /**
@@ -1,5 +1,10 @@
 package groove.sts;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -28,6 +33,7 @@ import groove.graph.EdgeRole;
 import groove.lts.MatchResult;
 import groove.transform.RuleEvent;
 import groove.util.Pair;
+import groove.util.Triple;
 
 /**
  * A Symbolic Transition System.
@@ -65,6 +71,13 @@ public class STS {
     // Singleton class for rule inspection methods
     private RuleInspector ruleInspector;
 
+    // The elements of this STS in the order in which they were added,
+    // so that an STSWriter can serialise the STS incrementally.
+    private final List<LocationVariable> locationVariableList;
+    private final List<InteractionVariable> interactionVariableList;
+    private final List<Gate> gateList;
+    private final List<Triple<Location,SwitchRelation,Location>> relationList;
+
     /**
      * Creates a new instance.
      */
@@ -75,6 +88,10 @@ public class STS {
         this.interactionVariables = new HashMap<>();
         this.locationVariables = new HashMap<>();
         this.ruleInspector = RuleInspector.getInstance();
+        this.locationVariableList = new ArrayList<>();
+        this.interactionVariableList = new ArrayList<>();
+        this.gateList = new ArrayList<>();
+        this.relationList = new ArrayList<>();
     }
 
     /**
@@ -100,8 +117,10 @@ public class STS {
         ValueNode node = (ValueNode) edge.target();
         String label = LocationVariable.createLocationVariableLabel(edge);
         LocationVariable v = new LocationVariable(label, node.getSort(), init);
-        this.locationVariables.put(new Pair<>(edge.source()
-            .getNumber(), edge.label()), v);
+        if (this.locationVariables.put(new Pair<>(edge.source()
+            .getNumber(), edge.label()), v) == null) {
+            this.locationVariableList.add(v);
+        }
         return v;
     }
 
@@ -174,7 +193,9 @@ public class STS {
     public InteractionVariable addInteractionVariable(VariableNode node, Rule rule) {
         String label = InteractionVariable.createInteractionVariableLabel(rule, node);
         InteractionVariable v = new InteractionVariable(label, node.getSort());
-        this.interactionVariables.put(new Pair<>(node, rule), v);
+        if (this.interactionVariables.put(new Pair<>(node, rule), v) == null) {
+            this.interactionVariableList.add(v);
+        }
         return v;
     }
 
@@ -186,10 +207,54 @@ public class STS {
      */
     public Gate addGate(String label, Set<InteractionVariable> iVars) {
         Gate gate = new Gate(label, iVars);
-        this.gates.add(gate);
+        if (this.gates.add(gate)) {
+            this.gateList.add(gate);
+        }
         return gate;
     }
 
+    /**
+     * Adds a switch relation between two locations of this STS.
+     * @param source The source location.
+     * @param relation The switch relation.
+     * @param target The target location.
+     */
+    public void addSwitchRelation(Location source, SwitchRelation relation, Location target) {
+        if (source.addSwitchRelation(relation, target)) {
+            this.relationList.add(new Triple<>(source, relation, target));
+        }
+    }
+
+    /**
+     * Returns the location variables in the order in which they were added.
+     */
+    List<LocationVariable> getLocationVariableList() {
+        return Collections.unmodifiableList(this.locationVariableList);
+    }
+
+    /**
+     * Returns the interaction variables in the order in which they were added.
+     */
+    List<InteractionVariable> getInteractionVariableList() {
+        return Collections.unmodifiableList(this.interactionVariableList);
+    }
+
+    /**
+     * Returns the gates in the order in which they were added.
+     */
+    List<Gate> getGateList() {
+        return Collections.unmodifiableList(this.gateList);
+    }
+
+    /**
+     * Returns the switch relations, with their source and target locations,
+     * in the order in which they were added through
+     * {@link #addSwitchRelation(Location, SwitchRelation, Location)}.
+     */
+    List<Triple<Location,SwitchRelation,Location>> getRelationList() {
+        return Collections.unmodifiableList(this.relationList);
+    }
+
     /**
      * Removes a switch relation from this STS.
      */
@@ -276,38 +341,21 @@ public class STS {
      * guard: "guard", update: "update mapping"} <gate> = "label": {type: "?/!",
      * iVars: ["label interaction variable"]} <interaction variable> = "label":
      * "variable type" interaction variable label is null for tau transition.
+     * The switch relations are those added through
+     * {@link #addSwitchRelation(Location, SwitchRelation, Location)}.
+     * To serialise a large STS, use an {@link STSWriter} instead.
      *
      * @return The JSON string.
      */
     public String toJSON() {
-        String json = "{\"_json\":{\"start\":" + getStartLocation().toJSON() + ",\"lVars\":{";
-        Set<LocationVariable> lVars = getLocationVariables();
-        for (LocationVariable v : lVars) {
-            json += v.toJSON() + ",";
-        }
-        if (!lVars.isEmpty()) {
-            json = json.substring(0, json.length() - 1);
-        }
-        json += "},\"relations\":[";
-        for (Location l : this.locationMap.values()) {
-            for (SwitchRelation r : l.getSwitchRelations()) {
-                for (Location target : l.getRelationTargets(r)) {
-                    json += r.toJSON(l, target) + ",";
-                }
-            }
-        }
-        json = json.substring(0, json.length() - 1) + "],\"gates\":{";
-        for (Gate g : this.gates) {
-            json += g.toJSON() + ",";
-        }
-        json = json.substring(0, json.length() - 1) + "},\"iVars\":{";
-        for (InteractionVariable v : this.interactionVariables.values()) {
-            json += v.toJSON() + ",";
-        }
-        if (!this.interactionVariables.isEmpty()) {
-            json = json.substring(0, json.length() - 1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (STSWriter writer = STSWriter.newInstance(STSWriter.Format.JSON, out)) {
+            writer.write(this);
+        } catch (IOException e) {
+            // a byte array output stream does not throw exceptions
+            throw new IllegalStateException(e);
         }
-        return json + "}}}";
+        return new String(out.toByteArray(), StandardCharsets.UTF_8).trim();
     }
 
     // **************************
@@ -0,0 +1,173 @@
+/* GROOVE: GRaphs for Object Oriented VErification
+ * Copyright 2003--2011 University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * $Id$
+ */
+package groove.sts;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import groove.util.Triple;
+
+/**
+ * Writer of an STS in a compact binary format.
+ * The stream starts with the big-endian {@code int}s {@link #MAGIC} and {@link #VERSION},
+ * followed by a sequence of records, each starting with a tag byte.
+ * All numbers in the records are variable-length encoded, seven bits per byte
+ * with the high bit set on all but the last byte.
+ * Strings are numbered in the order of their definition, and are referred to by number.
+ * <ul>
+ * <li> {@link #TAG_STRING}, followed by the length and UTF-8 encoding of
+ * a string; every string is defined before the first record referring to it
+ * <li> {@link #TAG_START}, followed by the start location label
+ * <li> {@link #TAG_LVAR}, followed by label, type and initial value of a location variable
+ * <li> {@link #TAG_IVAR}, followed by label and type of an interaction variable
+ * <li> {@link #TAG_GATE}, followed by the (stripped) label and type of a gate,
+ * the number of its interaction variables and their labels
+ * <li> {@link #TAG_RELATION}, followed by source location, gate label, target location,
+ * guard and update of a switch relation
+ * <li> {@link #TAG_CHUNK}, which ends a chunk
+ * <li> {@link #TAG_END}, which ends the stream
+ * </ul>
+ * @version $Revision $
+ */
+public class STSBinaryWriter extends STSWriter {
+    /**
+     * Constructs a writer for a given output stream, and writes the header.
+     */
+    public STSBinaryWriter(OutputStream out) throws IOException {
+        super(out);
+        this.data = new DataOutputStream(new BufferedOutputStream(out));
+        this.data.writeInt(MAGIC);
+        this.data.writeInt(VERSION);
+    }
+
+    @Override
+    protected void writeChunk(Location start, List<LocationVariable> lVars,
+        List<Triple<Location,SwitchRelation,Location>> relations, List<Gate> gates,
+        List<InteractionVariable> iVars) throws IOException {
+        if (start != null && !start.getLabel()
+            .equals(this.start)) {
+            this.start = start.getLabel();
+            writeRecord(TAG_START, this.start);
+        }
+        for (LocationVariable v : lVars) {
+            writeRecord(TAG_LVAR, v.getLabel(), v.getType()
+                .getName(), String.valueOf(v.getInitialValue()));
+        }
+        for (InteractionVariable v : iVars) {
+            writeRecord(TAG_IVAR, v.getLabel(), v.getType()
+                .getName());
+        }
+        for (Gate g : gates) {
+            int count = g.getInteractionVariables()
+                .size();
+            String[] texts = new String[count + 2];
+            texts[0] = g.getStrippedLabel();
+            texts[1] = g.getType();
+            int i = 2;
+            for (InteractionVariable v : g.getInteractionVariables()) {
+                texts[i++] = v.getLabel();
+            }
+            defineStrings(texts);
+            this.data.writeByte(TAG_GATE);
+            writeNumber(this.stringMap.get(texts[0]));
+            writeNumber(this.stringMap.get(texts[1]));
+            writeNumber(count);
+            for (i = 2; i < texts.length; i++) {
+                writeNumber(this.stringMap.get(texts[i]));
+            }
+        }
+        for (Triple<Location,SwitchRelation,Location> r : relations) {
+            SwitchRelation relation = r.two();
+            writeRecord(TAG_RELATION, r.one()
+                .getLabel(), relation.getGate()
+                    .getStrippedLabel(), r.three()
+                        .getLabel(), relation.getGuard(), relation.getUpdate());
+        }
+        this.data.writeByte(TAG_CHUNK);
+        this.data.flush();
+    }
+
+    @Override
+    protected void writeTrailer() throws IOException {
+        this.data.writeByte(TAG_END);
+        this.data.flush();
+    }
+
+    /** Writes a record consisting of a tag and a number of string references. */
+    private void writeRecord(byte tag, String... texts) throws IOException {
+        defineStrings(texts);
+        this.data.writeByte(tag);
+        for (String text : texts) {
+            writeNumber(this.stringMap.get(text));
+        }
+    }
+
+    /** Writes string definitions for those strings that have not yet been defined. */
+    private void defineStrings(String... texts) throws IOException {
+        for (String text : texts) {
+            if (!this.stringMap.containsKey(text)) {
+                this.stringMap.put(text, this.stringMap.size());
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                this.data.writeByte(TAG_STRING);
+                writeNumber(bytes.length);
+                this.data.write(bytes);
+            }
+        }
+    }
+
+    /** Writes a non-negative number in variable-length encoding. */
+    private void writeNumber(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            this.data.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.data.writeByte(value);
+    }
+
+    private final DataOutputStream data;
+    /** Mapping from the strings defined so far to their numbers. */
+    private final Map<String,Integer> stringMap = new HashMap<>();
+    /** Label of the start location written last. */
+    private String start;
+
+    /** Magic number at the start of every binary STS stream: {@code GSTS} in ASCII. */
+    public static final int MAGIC = 0x47535453;
+    /** Current version of the format. */
+    public static final int VERSION = 1;
+    /** Tag of the record ending the stream. */
+    public static final byte TAG_END = 0;
+    /** Tag of a string definition. */
+    public static final byte TAG_STRING = 1;
+    /** Tag of a start location record. */
+    public static final byte TAG_START = 2;
+    /** Tag of a location variable record. */
+    public static final byte TAG_LVAR = 3;
+    /** Tag of an interaction variable record. */
+    public static final byte TAG_IVAR = 4;
+    /** Tag of a gate record. */
+    public static final byte TAG_GATE = 5;
+    /** Tag of a switch relation record. */
+    public static final byte TAG_RELATION = 6;
+    /** Tag of the record ending a chunk. */
+    public static final byte TAG_CHUNK = 7;
+}
@@ -0,0 +1,40 @@
+/* GROOVE: GRaphs for Object Oriented VErification
+ * Copyright 2003--2011 University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * $Id$
+ */
+package groove.sts;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Connection over which a serialised STS is sent to a receiver.
+ * @version $Revision $
+ */
+public interface STSChannel {
+    /**
+     * Opens the channel.
+     * @return the stream to which the serialised STS should be written;
+     * the data may be transmitted as soon as the stream is flushed
+     */
+    OutputStream open() throws IOException;
+
+    /**
+     * Completes the transmission, closing the stream returned by {@link #open()}
+     * if that has not been done already.
+     * @return the response of the receiver
+     */
+    String close() throws IOException;
+}
@@ -0,0 +1,91 @@
+/* GROOVE: GRaphs for Object Oriented VErification
+ * Copyright 2003--2011 University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * $Id$
+ */
+package groove.sts;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import groove.util.Triple;
+
+/**
+ * Writer of an STS as a sequence of JSON objects, one per chunk and line.
+ * Every chunk has the format of {@link STS#toJSON()}, restricted to the
+ * elements written in that chunk; in particular, if the STS is written in
+ * a single chunk, the output coincides with {@link STS#toJSON()}.
+ * @version $Revision $
+ */
+public class STSJSONWriter extends STSWriter {
+    /**
+     * Constructs a writer for a given output stream.
+     */
+    public STSJSONWriter(OutputStream out) {
+        super(out);
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    protected void writeChunk(Location start, List<LocationVariable> lVars,
+        List<Triple<Location,SwitchRelation,Location>> relations, List<Gate> gates,
+        List<InteractionVariable> iVars) throws IOException {
+        Writer out = this.writer;
+        out.write("{\"_json\":{\"start\":");
+        out.write(start == null ? "null" : start.toJSON());
+        out.write(",\"lVars\":{");
+        String sep = "";
+        for (LocationVariable v : lVars) {
+            out.write(sep);
+            out.write(v.toJSON());
+            sep = ",";
+        }
+        out.write("},\"relations\":[");
+        sep = "";
+        for (Triple<Location,SwitchRelation,Location> r : relations) {
+            out.write(sep);
+            out.write(r.two()
+                .toJSON(r.one(), r.three()));
+            sep = ",";
+        }
+        out.write("],\"gates\":{");
+        sep = "";
+        for (Gate g : gates) {
+            out.write(sep);
+            out.write(g.toJSON());
+            sep = ",";
+        }
+        out.write("},\"iVars\":{");
+        sep = "";
+        for (InteractionVariable v : iVars) {
+            out.write(sep);
+            out.write(v.toJSON());
+            sep = ",";
+        }
+        out.write("}}}\n");
+        out.flush();
+    }
+
+    @Override
+    protected void writeTrailer() throws IOException {
+        this.writer.flush();
+    }
+
+    private final Writer writer;
+}
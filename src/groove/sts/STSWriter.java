@@ -0,0 +1,172 @@
+/* GROOVE: GRaphs for Object Oriented VErification
+ * Copyright 2003--2011 University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * $Id$
+ */
+package groove.sts;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import groove.util.Triple;
+
+/**
+ * Streaming serialiser of an {@link STS} to an output stream.
+ * Every call of {@link #write(STS)} writes a chunk containing the elements
+ * added to the STS since the previous call, so that an STS can be transmitted
+ * while it is being built; the receiver obtains the complete STS by
+ * combining the chunks.
+ * A writer keeps no elements of the STS itself, and the elements are written
+ * directly to the stream without being collected first.
+ * @version $Revision $
+ */
+public abstract class STSWriter implements Closeable {
+    /**
+     * Constructs a writer for a given output stream.
+     */
+    protected STSWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /** Returns the output stream of this writer. */
+    protected OutputStream getOutputStream() {
+        return this.out;
+    }
+
+    /**
+     * Writes a chunk with all elements added to an STS since the previous call,
+     * and flushes the output stream.
+     * The first chunk is always written, even if it has no elements;
+     * subsequent chunks are only written if they are not empty.
+     * All calls should concern the same STS.
+     * @param sts the STS to be written
+     * @return the number of elements written
+     */
+    public int write(STS sts) throws IOException {
+        List<LocationVariable> lVars = sts.getLocationVariableList();
+        List<Triple<Location,SwitchRelation,Location>> relations = sts.getRelationList();
+        List<Gate> gates = sts.getGateList();
+        List<InteractionVariable> iVars = sts.getInteractionVariableList();
+        int result =
+            lVars.size() - this.lVarCount + relations.size() - this.relationCount + gates.size()
+                - this.gateCount + iVars.size() - this.iVarCount;
+        if (result > 0 || this.chunkCount == 0) {
+            writeChunk(sts.getStartLocation(),
+                lVars.subList(this.lVarCount, lVars.size()),
+                relations.subList(this.relationCount, relations.size()),
+                gates.subList(this.gateCount, gates.size()),
+                iVars.subList(this.iVarCount, iVars.size()));
+            getOutputStream().flush();
+            this.lVarCount = lVars.size();
+            this.relationCount = relations.size();
+            this.gateCount = gates.size();
+            this.iVarCount = iVars.size();
+            this.chunkCount++;
+        }
+        return result;
+    }
+
+    /** Returns the number of chunks written so far. */
+    public int getChunkCount() {
+        return this.chunkCount;
+    }
+
+    /** Returns the number of switch relations written so far. */
+    public int getRelationCount() {
+        return this.relationCount;
+    }
+
+    /**
+     * Writes the end of the stream, if any, and closes the output stream.
+     * Elements added to the STS since the last call of {@link #write(STS)}
+     * are not written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            this.closed = true;
+            writeTrailer();
+            getOutputStream().close();
+        }
+    }
+
+    /**
+     * Writes a chunk of STS elements.
+     * @param start the start location of the STS; may be {@code null}
+     * @param lVars the new location variables
+     * @param relations the new switch relations, with their source and target locations
+     * @param gates the new gates
+     * @param iVars the new interaction variables
+     */
+    abstract protected void writeChunk(Location start, List<LocationVariable> lVars,
+        List<Triple<Location,SwitchRelation,Location>> relations, List<Gate> gates,
+        List<InteractionVariable> iVars) throws IOException;
+
+    /** Writes the end of the stream. */
+    abstract protected void writeTrailer() throws IOException;
+
+    private final OutputStream out;
+    /** Number of chunks written so far. */
+    private int chunkCount;
+    /** Number of location variables written so far. */
+    private int lVarCount;
+    /** Number of switch relations written so far. */
+    private int relationCount;
+    /** Number of gates written so far. */
+    private int gateCount;
+    /** Number of interaction variables written so far. */
+    private int iVarCount;
+    /** Flag indicating that the writer has been closed. */
+    private boolean closed;
+
+    /**
+     * Creates a writer for a given format.
+     * @param format the format to be written
+     * @param out the stream to write to
+     */
+    public static STSWriter newInstance(Format format, OutputStream out) throws IOException {
+        switch (format) {
+        case JSON:
+            return new STSJSONWriter(out);
+        case BINARY:
+            return new STSBinaryWriter(out);
+        default:
+            throw new IllegalArgumentException("Unknown format " + format);
+        }
+    }
+
+    /** Serialisation formats of an STS. */
+    public static enum Format {
+        /**
+         * Newline-separated JSON objects, one per chunk, each in the format of
+         * {@link STS#toJSON()}.
+         */
+        JSON("application/json"),
+        /** Compact binary format; see {@link STSBinaryWriter}. */
+        BINARY("application/octet-stream");
+
+        private Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        /** Returns the MIME content type of this format. */
+        public String getContentType() {
+            return this.contentType;
+        }
+
+        private final String contentType;
+    }
+}
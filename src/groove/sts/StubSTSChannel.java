@@ -0,0 +1,208 @@
+/* GROOVE: GRaphs for Object Oriented VErification
+ * Copyright 2003--2011 University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * $Id$
+ */
+package groove.sts;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Local stand-in for a remote STS receiver, for use without a network connection.
+ * The data written to the channel is consumed by a receiver thread while it is
+ * being written, in the same way as a server would; the receiver decodes the
+ * stream and responds with a summary of the received elements.
+ * @version $Revision $
+ */
+public class StubSTSChannel implements STSChannel {
+    /**
+     * Constructs a stub channel for a given format.
+     */
+    public StubSTSChannel(STSWriter.Format format) {
+        this.format = format;
+    }
+
+    @Override
+    public OutputStream open() throws IOException {
+        PipedInputStream in = new PipedInputStream(BUFFER_SIZE);
+        this.out = new PipedOutputStream(in);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread result = new Thread(r, "STS receiver stub");
+            result.setDaemon(true);
+            return result;
+        });
+        this.response = this.executor.submit(() -> receive(in));
+        return this.out;
+    }
+
+    @Override
+    public String close() throws IOException {
+        this.out.close();
+        try {
+            return this.response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                .interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error in STS receiver stub: " + e.getCause()
+                .getMessage(), e.getCause());
+        } finally {
+            this.executor.shutdown();
+        }
+    }
+
+    /** Reads and decodes the data sent over the channel. */
+    private String receive(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            switch (this.format) {
+            case JSON:
+                return receiveJSON(input);
+            case BINARY:
+                return receiveBinary(input);
+            default:
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    /** Reads a stream of JSON chunks. */
+    private String receiveJSON(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        int chunks = 0;
+        long chars = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (!line.startsWith("{\"_json\":{") || !line.endsWith("}}}")) {
+                throw new IOException("Malformed JSON chunk " + chunks);
+            }
+            chunks++;
+            chars += line.length() + 1;
+        }
+        return String.format("Received %d JSON chunks (%d characters)", chunks, chars);
+    }
+
+    /** Reads a stream in the format of {@link STSBinaryWriter}. */
+    private String receiveBinary(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != STSBinaryWriter.MAGIC) {
+            throw new IOException("Not a binary STS stream");
+        }
+        int version = data.readInt();
+        if (version != STSBinaryWriter.VERSION) {
+            throw new IOException("Unsupported binary STS version " + version);
+        }
+        List<String> strings = new ArrayList<>();
+        int[] counts = new int[STSBinaryWriter.TAG_CHUNK + 1];
+        String start = null;
+        boolean end = false;
+        while (!end) {
+            byte tag = data.readByte();
+            switch (tag) {
+            case STSBinaryWriter.TAG_END:
+                end = true;
+                break;
+            case STSBinaryWriter.TAG_STRING:
+                byte[] bytes = new byte[readNumber(data)];
+                data.readFully(bytes);
+                strings.add(new String(bytes, StandardCharsets.UTF_8));
+                break;
+            case STSBinaryWriter.TAG_START:
+                start = readString(data, strings);
+                break;
+            case STSBinaryWriter.TAG_LVAR:
+                readStrings(data, strings, 3);
+                break;
+            case STSBinaryWriter.TAG_IVAR:
+                readStrings(data, strings, 2);
+                break;
+            case STSBinaryWriter.TAG_GATE:
+                readStrings(data, strings, 2);
+                readStrings(data, strings, readNumber(data));
+                break;
+            case STSBinaryWriter.TAG_RELATION:
+                readStrings(data, strings, 5);
+                break;
+            case STSBinaryWriter.TAG_CHUNK:
+                break;
+            default:
+                throw new IOException("Unknown record tag " + tag);
+            }
+            if (tag > 0) {
+                counts[tag]++;
+            }
+        }
+        return String.format(
+            "Received %d binary chunks: start %s, %d relations, %d gates, %d location variables, %d interaction variables, %d strings",
+            counts[STSBinaryWriter.TAG_CHUNK], start, counts[STSBinaryWriter.TAG_RELATION],
+            counts[STSBinaryWriter.TAG_GATE], counts[STSBinaryWriter.TAG_LVAR],
+            counts[STSBinaryWriter.TAG_IVAR], strings.size());
+    }
+
+    /** Reads a given number of string references. */
+    private void readStrings(DataInputStream data, List<String> strings, int count)
+        throws IOException {
+        for (int i = 0; i < count; i++) {
+            readString(data, strings);
+        }
+    }
+
+    /** Reads a string reference and returns the referenced string. */
+    private String readString(DataInputStream data, List<String> strings) throws IOException {
+        int index = readNumber(data);
+        if (index >= strings.size()) {
+            throw new IOException("Reference to undefined string " + index);
+        }
+        return strings.get(index);
+    }
+
+    /** Reads a number in variable-length encoding. */
+    private int readNumber(DataInputStream data) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = data.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed number");
+    }
+
+    private final STSWriter.Format format;
+    private PipedOutputStream out;
+    private ExecutorService executor;
+    private Future<String> response;
+
+    /** Size of the pipe buffer between writer and receiver. */
+    private static final int BUFFER_SIZE = 1 << 16;
+}
@@ -23,6 +23,7 @@ import java.util.Collection;
 import java.util.List;
 
 import groove.explore.AcceptorEnumerator;
+import groove.explore.BatchExploration;
 import groove.explore.Exploration;
 import groove.explore.ExplorationListener;
 import groove.explore.ExploreResult;
@@ -38,6 +39,7 @@ import groove.grammar.aspect.GraphConverter;
 import groove.grammar.host.HostGraph;
 import groove.grammar.model.GrammarModel;
 import groove.grammar.model.GraphBasedModel;
+import groove.grammar.model.HostModel;
 import groove.grammar.model.ResourceKind;
 import groove.io.FileType;
 import groove.lts.GTS;
@@ -183,6 +185,42 @@ public class Transformer {
         return explore(computeStartGraph(startGraphNames));
     }
 
+    /**
+     * Prepares the exploration of each of a list of named start graphs
+     * in a GTS of its own.
+     * The grammar is built only once, and shared by all explorations.
+     * The listeners of this transformer are not passed on to the explorations.
+     * @param startGraphNames list of start graph names, each of which is
+     * interpreted as for {@link #explore(String)}; if {@code null} or empty,
+     * the default start graph is explored
+     * @return the batch exploration, ready to be played
+     * @throws FormatException if either the grammar or one of the start graphs
+     * could not be built
+     * @throws IOException if any of the named start graphs cannot be loaded
+     */
+    public BatchExploration newBatch(List<String> startGraphNames)
+        throws IOException, FormatException {
+        List<AspectGraph> sources = new ArrayList<>();
+        if (startGraphNames != null) {
+            for (String startGraphName : startGraphNames) {
+                sources.add(computeStartGraph(startGraphName));
+            }
+        }
+        if (!sources.isEmpty()) {
+            getGrammarModel().setStartGraph(sources.get(0));
+        }
+        Grammar grammar = getGrammarModel().toGrammar();
+        BatchExploration result = new BatchExploration(grammar, getExploreType());
+        if (sources.isEmpty()) {
+            result.addStartGraph(grammar.getStartGraph());
+        } else {
+            for (AspectGraph source : sources) {
+                result.addStartGraph(new HostModel(getGrammarModel(), source).toResource());
+            }
+        }
+        return result;
+    }
+
     /** Loads a named start graph. */
     private AspectGraph computeStartGraph(String startGraphName) throws IOException {
         AspectGraph result = null;
@@ -17,7 +17,6 @@
 package groove.transform.criticalpair;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -34,10 +33,7 @@ import groove.grammar.rule.RuleToHostMap;
 import groove.graph.Morphism;
 import groove.graph.iso.IsoChecker;
 import groove.graph.iso.IsoChecker.IsoCheckerState;
-import groove.transform.Proof;
-import groove.transform.Record;
 import groove.transform.RuleApplication;
-import groove.transform.RuleEvent;
 
 /**
  * @author Ruud
@@ -45,11 +41,6 @@ import groove.transform.RuleEvent;
  */
 class ConfluenceAnalyzer {
 
-    /**
-     * Default search depth for confluence analysis
-     */
-    private static final int DEFAULTSEARCHDEPTH = 100;
-
     private static IsoChecker isoChecker = IsoChecker.getInstance(true);
 
     /**
@@ -59,7 +50,7 @@ class ConfluenceAnalyzer {
      * @return ConfluenceStatus.STRICTLY_CONFLUENT only if the pair is confluent
      */
     static ConfluenceStatus getStrictlyConfluent(CriticalPair pair, Grammar grammar) {
-        return getStrictlyConfluent(pair, grammar, DEFAULTSEARCHDEPTH);
+        return getStrictlyConfluent(pair, grammar, JoinContext.DEFAULT_MAX_STATES);
     }
 
     /**
@@ -70,12 +61,33 @@ class ConfluenceAnalyzer {
      */
     static ConfluenceStatus getStrictlyConfluent(CriticalPair pair, Grammar grammar,
         int searchDepth) {
+        return getStrictlyConfluent(pair, newContext(grammar, searchDepth));
+    }
+
+    /**
+     * Checks if the given CriticalPair is strictly locally confluent, searching for
+     * a join within the bounds of a given context.
+     * @return ConfluenceStatus.STRICTLY_CONFLUENT only if the pair is confluent
+     */
+    static ConfluenceStatus getStrictlyConfluent(CriticalPair pair, JoinContext context) {
+        long start = System.nanoTime();
         //analyse if the pair is strictly confluent
-        getConfluentPair(pair, grammar, searchDepth);
+        getConfluentPair(pair, context);
+        context.getMetrics()
+            .addJoinTime(System.nanoTime() - start);
         //the result is saved in the critical pair, return this result
         return pair.getStrictlyConfluent();
     }
 
+    /**
+     * Creates a non-memoising context for the analysis of a single pair,
+     * with a given maximum number of states and unbounded depth.
+     */
+    private static JoinContext newContext(Grammar grammar, int maxStates) {
+        return new JoinContext(grammar, JoinContext.DEFAULT_MAX_DEPTH, maxStates, false,
+            new ConfluenceMetrics());
+    }
+
     /**
      * Checks if the given CriticalPair is strictly locally confluent, if this is the case,
      * then the ConfluentPair (evidence for strict local confluence) will be returned.
@@ -83,8 +95,8 @@ class ConfluenceAnalyzer {
      *
      * The result of the confluene analysis is also saved in the critical pair
      */
-    private static ConfluentPair getConfluentPair(CriticalPair pair, Grammar grammar,
-        int searchDepth) {
+    private static ConfluentPair getConfluentPair(CriticalPair pair, JoinContext context) {
+        Grammar grammar = context.getGrammar();
         Set<HostGraphWithMorphism> oldStates1 = new HashSet<>();
         Set<HostGraphWithMorphism> oldStates2 = new HashSet<>();
         Set<HostGraphWithMorphism> newStates1 = new HashSet<>();
@@ -106,19 +118,25 @@ class ConfluenceAnalyzer {
         newStates2.add(hwm2);
 
         //loop as long as either newStates1 or newStates2 is nonempty
+        int depth = 0;
         while (!newStates1.isEmpty() || !newStates2.isEmpty()) {
+            if (depth == context.getMaxDepth()) {
+                pair.setStrictlyConfluent(ConfluenceStatus.UNDECIDED, grammar);
+                return null;
+            }
+            depth++;
             //add the new states to the old states
             oldStates1.addAll(newStates1);
             oldStates2.addAll(newStates2);
 
             //create the sets of next states
-            Set<HostGraphWithMorphism> nextStates1 = computeNewStates(newStates1, grammar);
+            Set<HostGraphWithMorphism> nextStates1 = computeNewStates(newStates1, context);
             HostGraphWithMorphism confluentState = getConfluentState(nextStates1, oldStates2);
             if (confluentState != null) {
                 pair.setStrictlyConfluent(ConfluenceStatus.STRICTLY_CONFLUENT, grammar);
                 return new ConfluentPair(pair, confluentState);
             }
-            Set<HostGraphWithMorphism> nextStates2 = computeNewStates(newStates2, grammar);
+            Set<HostGraphWithMorphism> nextStates2 = computeNewStates(newStates2, context);
             confluentState = getConfluentState(nextStates1, nextStates2);
             if (confluentState != null) {
                 pair.setStrictlyConfluent(ConfluenceStatus.STRICTLY_CONFLUENT, grammar);
@@ -161,7 +179,7 @@ class ConfluenceAnalyzer {
             newStates1 = nextStates1;
             newStates2 = nextStates2;
 
-            if (oldStates1.size() + oldStates2.size() > searchDepth) {
+            if (oldStates1.size() + oldStates2.size() > context.getMaxStates()) {
                 pair.setStrictlyConfluent(ConfluenceStatus.UNDECIDED, grammar);
                 return null;
             }
@@ -174,25 +192,14 @@ class ConfluenceAnalyzer {
     /**
      * For every element of states compute all possible rule applications
      * @param states the states for which the next states will be computed
-     * @param grammar the grammar which contains the rules which can be applied
+     * @param context the context of the search, which contains the grammar whose rules can be applied
      * @return A set of HostGraphWithMorphism states which can be reached in a single step from an element of "states"
      */
     private static Set<HostGraphWithMorphism> computeNewStates(Set<HostGraphWithMorphism> states,
-        Grammar grammar) {
-        Set<Rule> rules = grammar.getAllRules();
+        JoinContext context) {
         Set<HostGraphWithMorphism> result = new HashSet<>();
         for (HostGraphWithMorphism state : states) {
-            Record record = new Record(grammar, state.getHostGraph()
-                .getFactory());
-            for (Rule rule : rules) {
-                Collection<Proof> matches = rule.getAllMatches(state.getHostGraph(), null);
-                for (Proof proof : matches) {
-                    RuleEvent event = proof.newEvent(record);
-                    RuleApplication app = new RuleApplication(event, state.getHostGraph());
-                    result.add(new HostGraphWithMorphism(app.getTarget(), state.getMorphism()
-                        .then(app.getMorphism())));
-                }
-            }
+            result.addAll(context.getSuccessors(state));
         }
         return result;
     }
@@ -279,6 +286,17 @@ class ConfluenceAnalyzer {
      * @param pairs a set of critical pairs (for the same rules)
      */
     static ConfluenceStatus analysePairSet(Set<CriticalPair> pairs, Grammar grammar) {
+        return analysePairSet(pairs, newContext(grammar, JoinContext.DEFAULT_MAX_STATES));
+    }
+
+    /**
+     * Analyses a set of critical pairs using the "subsumption" method,
+     * searching for joins within the bounds of a given context.
+     * @param pairs a set of critical pairs (for the same rules)
+     * @see #analysePairSet(Set, Grammar)
+     */
+    static ConfluenceStatus analysePairSet(Set<CriticalPair> pairs, JoinContext context) {
+        Grammar grammar = context.getGrammar();
         if (pairs.isEmpty()) {
             //if the set is empty, then all pairs in the set are strictly confluent
             return ConfluenceStatus.STRICTLY_CONFLUENT;
@@ -334,7 +352,10 @@ class ConfluenceAnalyzer {
             }
 
             if (status == ConfluenceStatus.UNTESTED) {
-                ConfluentPair confPair = getConfluentPair(pair, grammar, DEFAULTSEARCHDEPTH);
+                long start = System.nanoTime();
+                ConfluentPair confPair = getConfluentPair(pair, context);
+                context.getMetrics()
+                    .addJoinTime(System.nanoTime() - start);
                 if (confPair != null) {
                     confluentPairs.add(confPair);
                 }
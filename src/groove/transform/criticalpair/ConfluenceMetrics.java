@@ -0,0 +1,199 @@
+/* GROOVE: GRaphs for Object Oriented VErification
+ * Copyright 2003--2014 University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * $Id$
+ */
+package groove.transform.criticalpair;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and performance counters of a confluence analysis.
+ * The counters are updated while the analysis is running, possibly by
+ * several threads at once, and can be inspected at any time.
+ * Times are summed over all threads, and may therefore exceed the
+ * elapsed time of a parallel analysis.
+ * @version $Revision $
+ */
+public class ConfluenceMetrics {
+    /** Returns the total number of rule tuples to be analysed. */
+    public int getTupleCount() {
+        return this.tupleCount.get();
+    }
+
+    /** Returns the number of rule tuples for which the analysis has finished. */
+    public int getTuplesDone() {
+        return this.tuplesDone.get();
+    }
+
+    /** Returns the number of critical pairs computed so far. */
+    public long getPairCount() {
+        return this.pairCount.get();
+    }
+
+    /** Returns the number of critical pairs analysed so far. */
+    public long getAnalysedCount() {
+        return getConfluentCount() + getUndecidedCount() + getNonConfluentCount();
+    }
+
+    /** Returns the number of pairs found to be strictly locally confluent. */
+    public long getConfluentCount() {
+        return this.confluentCount.get();
+    }
+
+    /** Returns the number of pairs for which confluence could not be decided. */
+    public long getUndecidedCount() {
+        return this.undecidedCount.get();
+    }
+
+    /** Returns the number of pairs found not to be strictly locally confluent. */
+    public long getNonConfluentCount() {
+        return this.nonConfluentCount.get();
+    }
+
+    /** Returns the number of states generated while searching for joins. */
+    public long getStateCount() {
+        return this.stateCount.get();
+    }
+
+    /** Returns the number of states whose successors were taken from the memo. */
+    public long getMemoHits() {
+        return this.memoHits.get();
+    }
+
+    /** Returns the number of states whose successors had to be computed. */
+    public long getMemoMisses() {
+        return this.memoMisses.get();
+    }
+
+    /** Returns the time spent computing critical pairs, in milliseconds. */
+    public long getOverlapTime() {
+        return this.overlapNanos.get() / 1000000;
+    }
+
+    /** Returns the time spent searching for joins, in milliseconds. */
+    public long getJoinTime() {
+        return this.joinNanos.get() / 1000000;
+    }
+
+    /** Returns the elapsed time of the analysis so far, in milliseconds. */
+    public long getElapsedTime() {
+        long start = this.startTime;
+        if (start == 0) {
+            return 0;
+        }
+        long end = this.endTime;
+        return (end == 0 ? System.currentTimeMillis() : end) - start;
+    }
+
+    /** Returns a textual report of the metrics. */
+    public String getReport() {
+        StringBuilder result = new StringBuilder();
+        result.append(String.format("Rule tuples:\t%d of %d analysed%n",
+            getTuplesDone(),
+            getTupleCount()));
+        result.append(String.format("Critical pairs:\t%d computed, %d analysed%n",
+            getPairCount(),
+            getAnalysedCount()));
+        result.append(String.format(
+            "    strictly confluent: %d, undecided: %d, not strictly confluent: %d%n",
+            getConfluentCount(),
+            getUndecidedCount(),
+            getNonConfluentCount()));
+        result.append(String.format("Join search:\t%d states, memo hits: %d, misses: %d%n",
+            getStateCount(),
+            getMemoHits(),
+            getMemoMisses()));
+        result.append(String.format("Time (ms):\toverlaps %d, joins %d, elapsed %d%n",
+            getOverlapTime(),
+            getJoinTime(),
+            getElapsedTime()));
+        return result.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getReport();
+    }
+
+    /** Signals the start of an analysis of a given number of rule tuples. */
+    void start(int tupleCount) {
+        this.tupleCount.set(tupleCount);
+        this.startTime = System.currentTimeMillis();
+        this.endTime = 0;
+    }
+
+    /** Signals the end of the analysis. */
+    void finish() {
+        this.endTime = System.currentTimeMillis();
+    }
+
+    /** Records the critical pairs computed for a rule tuple. */
+    void addPairs(int count, long nanos) {
+        this.pairCount.addAndGet(count);
+        this.overlapNanos.addAndGet(nanos);
+    }
+
+    /** Records the analysis of a critical pair. */
+    void addResult(ConfluenceStatus status) {
+        switch (status) {
+        case STRICTLY_CONFLUENT:
+            this.confluentCount.incrementAndGet();
+            break;
+        case UNDECIDED:
+            this.undecidedCount.incrementAndGet();
+            break;
+        case NOT_STICTLY_CONFLUENT:
+            this.nonConfluentCount.incrementAndGet();
+            break;
+        default:
+            // the pair has not been analysed
+        }
+    }
+
+    /** Records the time spent in searching for joins. */
+    void addJoinTime(long nanos) {
+        this.joinNanos.addAndGet(nanos);
+    }
+
+    /** Records that the analysis of a rule tuple has finished. */
+    void addTupleDone() {
+        this.tuplesDone.incrementAndGet();
+    }
+
+    /** Records a number of states generated in the join search. */
+    void addStates(int count) {
+        this.stateCount.addAndGet(count);
+    }
+
+    /** Records a hit or miss of the successor memo. */
+    void addMemoLookup(boolean hit) {
+        (hit ? this.memoHits : this.memoMisses).incrementAndGet();
+    }
+
+    private final AtomicInteger tupleCount = new AtomicInteger();
+    private final AtomicInteger tuplesDone = new AtomicInteger();
+    private final AtomicLong pairCount = new AtomicLong();
+    private final AtomicLong confluentCount = new AtomicLong();
+    private final AtomicLong undecidedCount = new AtomicLong();
+    private final AtomicLong nonConfluentCount = new AtomicLong();
+    private final AtomicLong stateCount = new AtomicLong();
+    private final AtomicLong memoHits = new AtomicLong();
+    private final AtomicLong memoMisses = new AtomicLong();
+    private final AtomicLong overlapNanos = new AtomicLong();
+    private final AtomicLong joinNanos = new AtomicLong();
+    private volatile long startTime;
+    private volatile long endTime;
+}
@@ -16,12 +16,22 @@
  */
 package groove.transform.criticalpair;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 import groove.grammar.Grammar;
 import groove.grammar.Rule;
+import groove.grammar.rule.RuleNode;
+import groove.match.MatcherFactory;
 
 /**
  * Utility class which allows checking whether a graph transformation system (grammar without hostgraph)
@@ -45,6 +55,17 @@ public class ConfluenceResult {
     private Set<CriticalPair> undecidedPairs = new LinkedHashSet<>();
     private Set<CriticalPair> nonConfluentPairs = new LinkedHashSet<>();
 
+    //settings of the analysis
+    private int parallelism = 1;
+    private int maxDepth = JoinContext.DEFAULT_MAX_DEPTH;
+    private int maxStates = JoinContext.DEFAULT_MAX_STATES;
+    private boolean memoised = true;
+    private Consumer<ConfluenceMetrics> progressListener;
+
+    private final ConfluenceMetrics metrics = new ConfluenceMetrics();
+    //the context for the join search, created lazily from the settings
+    private JoinContext context;
+
     /**
      * @return the number of pairs for which confluence has not yet been analysed
      */
@@ -111,6 +132,75 @@ public class ConfluenceResult {
         return this.nonConfluentPairs;
     }
 
+    /**
+     * Sets the number of threads used by {@link #analyzeAll()}.
+     * If this is more than {@code 1}, the rule tuples are analysed on a fork-join pool;
+     * the critical pairs of a tuple are then also analysed in parallel,
+     * unless the alternate method is used.
+     * The outcome of the analysis is the same as when it is carried out sequentially.
+     * The default is {@code 1}.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism should be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /** Returns the number of threads used by {@link #analyzeAll()}. */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * Sets the bounds of the search for a join of a critical pair.
+     * If no join is found within these bounds, the pair is undecided.
+     * @param maxDepth maximum number of steps from the critical pair
+     * @param maxStates maximum number of states explored for a single pair;
+     * the default is {@value JoinContext#DEFAULT_MAX_STATES}
+     */
+    public void setSearchBounds(int maxDepth, int maxStates) {
+        if (maxDepth < 0 || maxStates < 0) {
+            throw new IllegalArgumentException("Search bounds should be non-negative");
+        }
+        this.maxDepth = maxDepth;
+        this.maxStates = maxStates;
+        this.context = null;
+    }
+
+    /**
+     * Sets whether the successors of states explored in the search for joins are memorised,
+     * so that isomorphic states, also of other critical pairs, are not expanded again.
+     * The default is {@code true}.
+     */
+    public void setMemoised(boolean memoised) {
+        this.memoised = memoised;
+        this.context = null;
+    }
+
+    /**
+     * Sets a listener that is notified whenever the analysis of a rule tuple has
+     * finished. In a parallel analysis, the listener is notified on the worker threads,
+     * though never concurrently.
+     */
+    public void setProgressListener(Consumer<ConfluenceMetrics> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /** Returns the progress and performance counters of the analysis. */
+    public ConfluenceMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /** Returns the context for the join search, creating it if necessary. */
+    private JoinContext getContext() {
+        if (this.context == null) {
+            this.context = new JoinContext(this.grammar, this.maxDepth, this.maxStates,
+                this.memoised, this.metrics);
+        }
+        return this.context;
+    }
+
     /**
      * Creates a new ConfluenceResult for grammar, and starts analysis until the first evidence
      * for a non-strictly locally confluent pair has been found
@@ -168,6 +258,7 @@ public class ConfluenceResult {
             boolean done = false;
             while (it.hasNext() && !done) {
                 CriticalPair pair = it.next();
+                analyse(pair);
                 done = updateStatus(pair, target);
                 //remove the pair from the untested set
                 it.remove();
@@ -181,37 +272,165 @@ public class ConfluenceResult {
     }
 
     /**
-     * Analyse all critical pairs in the grammar
+     * Analyse all critical pairs in the grammar.
+     * The rule tuples are analysed in parallel if the parallelism is more than {@code 1}
+     * and the search engine may be used concurrently.
+     * @see #setParallelism(int)
      */
     public void analyzeAll() {
-        Iterator<Set<CriticalPair>> setIt = this.untestedPairs.setIterator();
-        while (setIt.hasNext()) {
-            Set<CriticalPair> pairSet = setIt.next();
-            if (this.alternateMethod) {
-                ConfluenceAnalyzer.analysePairSet(pairSet, this.grammar);
-                for (CriticalPair pair : pairSet) {
-                    //the confluenceStatus will not be computed again
-                    updateStatus(pair);
-                }
-            } else {
-                Iterator<CriticalPair> pairIt = pairSet.iterator();
-                while (pairIt.hasNext()) {
-                    CriticalPair pair = pairIt.next();
-                    updateStatus(pair);
-                    //remove the pair from the untested set
-                    pairIt.remove();
-                }
+        List<RuleTuple> tuples = new ArrayList<>(this.untestedPairs.getRuleTuples());
+        Analysis analysis = new Analysis(tuples);
+        this.metrics.start(tuples.size());
+        if (isParallel()) {
+            ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+            try {
+                pool.invoke(analysis.new TupleTask(0, tuples.size()));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            for (int i = 0; i < tuples.size(); i++) {
+                analysis.analyse(i);
+            }
+        }
+        this.metrics.finish();
+        //collect the results in the order of the tuples
+        for (Set<CriticalPair> pairSet : analysis.pairSets) {
+            for (CriticalPair pair : pairSet) {
+                updateStatus(pair);
             }
-            //remove all pairs in the set from the setIterator
-            setIt.remove();
         }
-        assert this.untestedPairs.isEmpty();
+        this.untestedPairs.clear();
         if (this.status == ConfluenceStatus.UNTESTED) {
             //everything has been analyzed but all pairs are confluent
             this.status = ConfluenceStatus.STRICTLY_CONFLUENT;
         }
     }
 
+    /**
+     * Tests if the analysis is to be carried out in parallel.
+     * This is the case if the parallelism has been set to more than {@code 1}
+     * and the current search engine may be used concurrently.
+     */
+    private boolean isParallel() {
+        return this.parallelism > 1 && MatcherFactory.instance(true)
+            .getEngine()
+            .isConcurrent();
+    }
+
+    /**
+     * Analyses a single critical pair, if this has not been done before.
+     */
+    private void analyse(CriticalPair pair) {
+        if (pair.getStrictlyConfluent() == ConfluenceStatus.UNTESTED) {
+            ConfluenceAnalyzer.getStrictlyConfluent(pair, getContext());
+            this.metrics.addResult(pair.getStrictlyConfluent());
+        }
+    }
+
+    /** Notifies the progress listener, if any. */
+    private synchronized void notifyProgress() {
+        if (this.progressListener != null) {
+            this.progressListener.accept(this.metrics);
+        }
+    }
+
+    /**
+     * A run of {@link #analyzeAll()}. The analysis of a rule tuple only
+     * writes to the slot of that tuple, so that tuples may be analysed concurrently.
+     */
+    private class Analysis {
+        Analysis(List<RuleTuple> tuples) {
+            this.tuples = tuples;
+            this.pairSets =
+                new ArrayList<>(Collections.<Set<CriticalPair>>nCopies(tuples.size(), null));
+            this.nodesToProcess =
+                CriticalPair.computeNodesToProcess(ConfluenceResult.this.grammar.getAllRules());
+            this.context = getContext();
+        }
+
+        /** Computes the critical pairs of the rule tuple at a given index, and analyses them. */
+        void analyse(int index) {
+            RuleTuple tuple = this.tuples.get(index);
+            Set<CriticalPair> pairs = ConfluenceResult.this.untestedPairs.getComputedPairs(tuple);
+            if (pairs == null) {
+                long start = System.nanoTime();
+                pairs = CriticalPair.computeCriticalPairs(tuple.rule1,
+                    tuple.rule2,
+                    this.nodesToProcess);
+                ConfluenceResult.this.metrics.addPairs(pairs.size(), System.nanoTime() - start);
+            } else {
+                // the set may be modified later by the untested pairs
+                pairs = new LinkedHashSet<>(pairs);
+            }
+            this.pairSets.set(index, pairs);
+            if (ConfluenceResult.this.alternateMethod) {
+                ConfluenceAnalyzer.analysePairSet(pairs, this.context);
+                for (CriticalPair pair : pairs) {
+                    ConfluenceResult.this.metrics.addResult(pair.getStrictlyConfluent());
+                }
+            } else if (pairs.size() > 1 && ForkJoinTask.inForkJoinPool()) {
+                List<PairTask> tasks = new ArrayList<>();
+                for (CriticalPair pair : pairs) {
+                    tasks.add(new PairTask(pair));
+                }
+                ForkJoinTask.invokeAll(tasks);
+            } else {
+                for (CriticalPair pair : pairs) {
+                    ConfluenceResult.this.analyse(pair);
+                }
+            }
+            ConfluenceResult.this.metrics.addTupleDone();
+            notifyProgress();
+        }
+
+        private final List<RuleTuple> tuples;
+        /** The critical pairs of the rule tuples, in the order of the tuples. */
+        private final List<Set<CriticalPair>> pairSets;
+        /** Nodes to process for all rules, shared by all overlap computations. */
+        private final Map<Rule,Set<RuleNode>> nodesToProcess;
+        private final JoinContext context;
+
+        /** Task analysing a range of rule tuples, by recursively splitting the range. */
+        class TupleTask extends RecursiveAction {
+            TupleTask(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (this.to - this.from == 1) {
+                    analyse(this.from);
+                } else if (this.to > this.from) {
+                    int mid = (this.from + this.to) >>> 1;
+                    invokeAll(new TupleTask(this.from, mid), new TupleTask(mid, this.to));
+                }
+            }
+
+            private final int from;
+            private final int to;
+
+            private static final long serialVersionUID = 1L;
+        }
+
+        /** Task analysing a single critical pair. */
+        private class PairTask extends RecursiveAction {
+            PairTask(CriticalPair pair) {
+                this.pair = pair;
+            }
+
+            @Override
+            protected void compute() {
+                ConfluenceResult.this.analyse(this.pair);
+            }
+
+            private final CriticalPair pair;
+
+            private static final long serialVersionUID = 1L;
+        }
+    }
+
     /**
      * Updates the set of undecidedPairs and nonConfluentPairs
      */
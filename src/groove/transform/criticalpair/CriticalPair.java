@@ -16,6 +16,8 @@
  */
 package groove.transform.criticalpair;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -256,6 +258,19 @@ public class CriticalPair {
      * @return All possble overlappings of the given set of nodes
      */
     public static LinkedHashSet<CriticalPair> computeCriticalPairs(Rule rule1, Rule rule2) {
+        return computeCriticalPairs(rule1, rule2, null);
+    }
+
+    /**
+     * Compute all possble overlappings of the given set of nodes, using
+     * precomputed sets of nodes to process for the rules.
+     * @param nodesToProcess mapping from rules to the nodes that need to be in a match
+     * (see {@link #computeNodesToProcess(Collection)}); if {@code null}, the
+     * sets are computed on the fly
+     * @return All possble overlappings of the given set of nodes
+     */
+    static LinkedHashSet<CriticalPair> computeCriticalPairs(Rule rule1, Rule rule2,
+        Map<Rule,Set<RuleNode>> nodesToProcess) {
         assert canComputePairs(rule1);
         assert canComputePairs(rule2);
         //algebraFamily must be TERM, because the host graph will be constructed in the TERM algebra
@@ -275,11 +290,12 @@ public class CriticalPair {
         }
         LinkedHashSet<ParallelPair> parrPairs = new LinkedHashSet<>();
 
-        parrPairs = buildCriticalSet(parrPairs, rule1, rule2, MatchNumber.ONE);
-        parrPairs = buildCriticalSet(parrPairs, rule1, rule2, MatchNumber.TWO);
+        Set<RuleNode> nodes1 = getNodesToProcess(rule1, nodesToProcess);
+        Set<RuleNode> nodes2 = getNodesToProcess(rule2, nodesToProcess);
+        parrPairs = buildCriticalSet(parrPairs, rule1, rule2, MatchNumber.ONE, nodes1);
+        parrPairs = buildCriticalSet(parrPairs, rule1, rule2, MatchNumber.TWO, nodes2);
 
-        assert parrPairs.size() <= calculateMaxPairs(
-            getNodesToProcess(rule1.lhs()).size() + getNodesToProcess(rule2.lhs()).size());
+        assert parrPairs.size() <= calculateMaxPairs(nodes1.size() + nodes2.size());
 
         Iterator<ParallelPair> it;
         /*
@@ -343,10 +359,12 @@ public class CriticalPair {
      * Help method for computeCriticalPairs(...)
      * @param parrPairs the exists critical pairs (may be empty)
      * @param matchnum the match number (1 or 2) this number states to which match mappings should be added
+     * @param nodesToProcess the nodes of the rule with number matchnum that need to be in the match
      * @return a set of parallel pairs
      */
     private static LinkedHashSet<ParallelPair> buildCriticalSet(
-        LinkedHashSet<ParallelPair> parrPairs, Rule rule1, Rule rule2, MatchNumber matchnum) {
+        LinkedHashSet<ParallelPair> parrPairs, Rule rule1, Rule rule2, MatchNumber matchnum,
+        Set<RuleNode> nodesToProcess) {
         boolean injectiveOnly;
         RuleGraph ruleGraph;
         if (matchnum == MatchNumber.ONE) {
@@ -364,9 +382,6 @@ public class CriticalPair {
         //Always use the term algebra, other algebras are not yet supported
         AlgebraFamily algebraFamily = AlgebraFamily.TERM;
 
-        //get the nodes from the rule that need to be in the match
-        Set<RuleNode> nodesToProcess = getNodesToProcess(ruleGraph);
-
         for (RuleNode rnode : nodesToProcess) {
             LinkedHashSet<ParallelPair> newParrPairs = new LinkedHashSet<>();
             //initial case, parrPairs contains no pairs yet, this can only happen if l1.nodeSet().isEmpty()
@@ -558,6 +573,34 @@ public class CriticalPair {
         return false;
     }
 
+    /**
+     * Computes the sets of nodes that need to be in a match, for a collection of rules.
+     * The result can be passed to {@link #computeCriticalPairs(Rule, Rule, Map)}
+     * so that the sets are not recomputed for every pair of rules; it is not modified
+     * afterwards, and may therefore be shared among threads.
+     * @see #getNodesToProcess(RuleGraph)
+     */
+    static Map<Rule,Set<RuleNode>> computeNodesToProcess(Collection<Rule> rules) {
+        Map<Rule,Set<RuleNode>> result = new HashMap<>();
+        for (Rule rule : rules) {
+            result.put(rule, getNodesToProcess(rule.lhs()));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the nodes of a rule that need to be in a match, either from
+     * a precomputed mapping or, if there is none, by computing them on the fly.
+     */
+    private static Set<RuleNode> getNodesToProcess(Rule rule,
+        Map<Rule,Set<RuleNode>> nodesToProcess) {
+        Set<RuleNode> result = nodesToProcess == null ? null : nodesToProcess.get(rule);
+        if (result == null) {
+            result = getNodesToProcess(rule.lhs());
+        }
+        return result;
+    }
+
     /**
      * Computes the set of ruleNodes which are DefaultRuleNodes, non-constant VariableNodes
      * or Constant VariableNodes which are connected to a DefaultRuleNode
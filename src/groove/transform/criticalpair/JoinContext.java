@@ -0,0 +1,220 @@
+/* GROOVE: GRaphs for Object Oriented VErification
+ * Copyright 2003--2014 University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * $Id$
+ */
+package groove.transform.criticalpair;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import groove.grammar.Grammar;
+import groove.grammar.Rule;
+import groove.grammar.host.HostEdge;
+import groove.grammar.host.HostGraph;
+import groove.grammar.host.HostGraphMorphism;
+import groove.grammar.host.HostNode;
+import groove.graph.Morphism;
+import groove.graph.iso.IsoChecker;
+import groove.transform.Proof;
+import groove.transform.Record;
+import groove.transform.RuleApplication;
+import groove.transform.RuleEvent;
+
+/**
+ * Settings and shared data for the search for joins of critical pairs,
+ * as carried out by the {@link ConfluenceAnalyzer}.
+ * The search is bounded by a maximum depth and a maximum number of states.
+ * Optionally, the successors of the states encountered in the search are
+ * memorised by graph certificate, so that a state isomorphic to one
+ * encountered before, possibly while analysing another pair, need not be
+ * expanded again.
+ * A context may be shared among threads analysing different pairs.
+ * @version $Revision $
+ */
+class JoinContext {
+    /**
+     * Creates a context for a given grammar.
+     * @param maxDepth maximum number of steps from the critical pair
+     * @param maxStates maximum number of states explored for a critical pair
+     * @param memoised if {@code true}, successors of states are memorised
+     * @param metrics counters to be updated during the search
+     */
+    JoinContext(Grammar grammar, int maxDepth, int maxStates, boolean memoised,
+        ConfluenceMetrics metrics) {
+        this.grammar = grammar;
+        this.rules = grammar.getAllRules();
+        this.maxDepth = maxDepth;
+        this.maxStates = maxStates;
+        this.memo = memoised ? new ConcurrentHashMap<>() : null;
+        this.metrics = metrics;
+    }
+
+    /** Returns the grammar whose rules are used to search for joins. */
+    Grammar getGrammar() {
+        return this.grammar;
+    }
+
+    /** Returns the maximum number of steps from the critical pair. */
+    int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    /** Returns the maximum number of states explored for a critical pair. */
+    int getMaxStates() {
+        return this.maxStates;
+    }
+
+    /** Returns the counters updated during the search. */
+    ConfluenceMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Computes the states reachable in a single step from a given state.
+     * The morphisms of the resulting states are composed with the morphism of
+     * the given state.
+     * The host graphs of the results are not shared with any other thread.
+     */
+    List<HostGraphWithMorphism> getSuccessors(HostGraphWithMorphism state) {
+        HostGraph graph = state.getHostGraph();
+        HostGraphMorphism base = state.getMorphism();
+        List<HostGraphWithMorphism> result = new ArrayList<>();
+        if (this.memo == null) {
+            for (HostGraphWithMorphism next : computeSuccessors(graph)) {
+                result.add(new HostGraphWithMorphism(next.getHostGraph(),
+                    base.then(next.getMorphism())));
+            }
+        } else {
+            Object certificate = isoChecker.getCertifier(graph, true)
+                .getGraphCertificate();
+            List<MemoEntry> bucket = this.memo.get(certificate);
+            Morphism<HostNode,HostEdge> iso = null;
+            MemoEntry entry = null;
+            if (bucket != null) {
+                for (MemoEntry candidate : bucket) {
+                    iso = candidate.getIsomorphism(graph);
+                    if (iso != null) {
+                        entry = candidate;
+                        break;
+                    }
+                }
+            }
+            this.metrics.addMemoLookup(entry != null);
+            if (entry == null) {
+                List<HostGraphWithMorphism> successors = computeSuccessors(graph);
+                for (HostGraphWithMorphism next : successors) {
+                    result.add(new HostGraphWithMorphism(next.getHostGraph(),
+                        base.then(next.getMorphism())));
+                }
+                if (this.memoSize.get() < MAX_MEMO_SIZE) {
+                    this.memoSize.incrementAndGet();
+                    this.memo.computeIfAbsent(certificate, k -> new CopyOnWriteArrayList<>())
+                        .add(new MemoEntry(graph, successors));
+                }
+            } else {
+                // the memorised graph has the same elements as the graph it was created for
+                HostGraphMorphism transfer = base.then(iso);
+                for (HostGraphWithMorphism next : entry.getSuccessors()) {
+                    result.add(new HostGraphWithMorphism(next.getHostGraph()
+                        .clone(), transfer.then(next.getMorphism())));
+                }
+            }
+        }
+        this.metrics.addStates(result.size());
+        return result;
+    }
+
+    /**
+     * Computes all rule applications on a given host graph.
+     * The morphisms of the results are those of the rule applications.
+     */
+    private List<HostGraphWithMorphism> computeSuccessors(HostGraph graph) {
+        List<HostGraphWithMorphism> result = new ArrayList<>();
+        Record record = new Record(this.grammar, graph.getFactory());
+        for (Rule rule : this.rules) {
+            Collection<Proof> matches = rule.getAllMatches(graph, null);
+            for (Proof proof : matches) {
+                RuleEvent event = proof.newEvent(record);
+                RuleApplication app = new RuleApplication(event, graph);
+                result.add(new HostGraphWithMorphism(app.getTarget(), app.getMorphism()));
+            }
+        }
+        return result;
+    }
+
+    private final Grammar grammar;
+    private final Set<Rule> rules;
+    private final int maxDepth;
+    private final int maxStates;
+    private final ConfluenceMetrics metrics;
+    /**
+     * Memo of successors, from graph certificates to the entries for the graphs
+     * with that certificate; {@code null} if successors are not memorised.
+     */
+    private final ConcurrentMap<Object,List<MemoEntry>> memo;
+    /** Number of entries in the memo. */
+    private final AtomicInteger memoSize = new AtomicInteger();
+
+    /** Default maximum search depth: unbounded. */
+    static final int DEFAULT_MAX_DEPTH = Integer.MAX_VALUE;
+    /** Default maximum number of states explored for a single critical pair. */
+    static final int DEFAULT_MAX_STATES = 100;
+    /** Maximum number of graphs in the memo. */
+    static final int MAX_MEMO_SIZE = 10000;
+
+    private static final IsoChecker isoChecker = IsoChecker.getInstance(true);
+
+    /**
+     * Memorised graph with its successors.
+     * The graphs are private copies, sharing the nodes and edges of the
+     * original graphs; they are only read through {@link #getIsomorphism(HostGraph)}
+     * and by copying.
+     */
+    private static class MemoEntry {
+        MemoEntry(HostGraph graph, List<HostGraphWithMorphism> successors) {
+            this.graph = graph.clone();
+            this.successors = new ArrayList<>(successors.size());
+            for (HostGraphWithMorphism next : successors) {
+                this.successors.add(new HostGraphWithMorphism(next.getHostGraph()
+                    .clone(), next.getMorphism()));
+            }
+            // compute the certificates before the entry is shared
+            isoChecker.getCertifier(this.graph, true)
+                .getGraphCertificate();
+        }
+
+        /**
+         * Returns an isomorphism from a given graph to the memorised graph, if any.
+         * Synchronised, as the isomorphism check accesses the graph's cached certifier.
+         */
+        synchronized Morphism<HostNode,HostEdge> getIsomorphism(HostGraph graph) {
+            return isoChecker.getIsomorphism(graph, this.graph);
+        }
+
+        /** Returns the successors of the memorised graph. */
+        List<HostGraphWithMorphism> getSuccessors() {
+            return this.successors;
+        }
+
+        private final HostGraph graph;
+        private final List<HostGraphWithMorphism> successors;
+    }
+}
@@ -100,15 +100,28 @@ class LazyCriticalPairSet implements Set<CriticalPair> {
     }
 
     private Set<CriticalPair> computePairs(RuleTuple tuple) {
-        Set<CriticalPair> result;
-        if (!this.ruleTuplesToProcess.remove(tuple)) {
+        if (this.ruleTuplesToProcess.remove(tuple)) {
+            //store the pairs, so that they are not computed again
+            this.pairMap.put(tuple,
+                CriticalPair.computeCriticalPairs(tuple.rule1, tuple.rule2));
+        }
+        Set<CriticalPair> result = this.pairMap.get(tuple);
+        if (result == null) {
             result = Collections.emptySet();
-        } else {
-            result = CriticalPair.computeCriticalPairs(tuple.rule1, tuple.rule2);
         }
         return result;
     }
 
+    /**
+     * Returns the critical pairs for a rule tuple, if they have already been computed.
+     * In contrast to {@link #getPairs(RuleTuple)}, this never computes pairs.
+     * @return the (modifiable) set of pairs for the tuple, or {@code null} if
+     * they have not yet been computed
+     */
+    Set<CriticalPair> getComputedPairs(RuleTuple tuple) {
+        return this.ruleTuplesToProcess.contains(tuple) ? null : this.pairMap.get(tuple);
+    }
+
     private void computeAllPairs() {
         Iterator<RuleTuple> it = this.ruleTuplesToProcess.iterator();
         while (it.hasNext()) {
@@ -349,49 +362,3 @@ class LazyCriticalPairSet implements Set<CriticalPair> {
     }
 
 }
-
-class RuleTuple {
-    final Rule rule1;
-    final Rule rule2;
-
-    RuleTuple(Rule rule1, Rule rule2) {
-        this.rule1 = rule1;
-        this.rule2 = rule2;
-    }
-
-    @Override
-    public int hashCode() {
-        final int prime = 31;
-        int result = prime * ((this.rule1 == null) ? 0 : this.rule1.hashCode());
-        result += prime * ((this.rule2 == null) ? 0 : this.rule2.hashCode());
-        return result;
-    }
-
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null) {
-            return false;
-        }
-        if (getClass() != obj.getClass()) {
-            return false;
-        }
-        RuleTuple other = (RuleTuple) obj;
-        if (this.rule1 == null) {
-            if (this.rule2 == null) {
-                return other.rule1 == null && other.rule2 == null;
-            } else {
-                return (this.rule2.equals(other.rule1) && other.rule2 == null)
-                    || (this.rule2.equals(other.rule2) && other.rule1 == null);
-            }
-        }
-        if (this.rule2 == null) {
-            return (this.rule1.equals(other.rule1) && other.rule2 == null)
-                || (this.rule1.equals(other.rule2) && other.rule1 == null);
-        }
-        return (this.rule1.equals(other.rule1) && this.rule2.equals(other.rule2))
-            || (this.rule2.equals(other.rule1) && this.rule1.equals(other.rule2));
-    }
-}
@@ -26,6 +26,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import groove.algebra.Algebra;
 import groove.algebra.AlgebraFamily;
@@ -71,13 +73,14 @@ class ParallelPair {
     private CriticalPair critPair = null;
 
     //ensures that the targets of matches are unique when this is desired
-    private static long matchTargetCounter = 0;
+    //(atomic, because critical pairs may be computed concurrently)
+    private static final AtomicLong matchTargetCounter = new AtomicLong();
     //counter to ensure that created variables are unique
-    private static int variableCounter = 0;
+    private static final AtomicInteger variableCounter = new AtomicInteger();
 
     //return an unused number which can be used to group sets of ruleNodes
     static Long getNextMatchTargetNumber() {
-        return matchTargetCounter++;
+        return matchTargetCounter.getAndIncrement();
     }
 
     public Map<Long,Set<RuleNode>> getNodeMatch1() {
@@ -276,7 +279,7 @@ class ParallelPair {
                     Constant constant = getFirstConstant(getCombination(entry.getKey()));
                     if (constant == null) {
                         target = host.getFactory().createNode(alg,
-                            new Variable("x" + variableCounter++, varNode.getSort()));
+                            new Variable("x" + variableCounter.getAndIncrement(), varNode.getSort()));
                     } else {
                         target = host.getFactory().createNode(alg, constant);
                     }
@@ -0,0 +1,69 @@
+/* GROOVE: GRaphs for Object Oriented VErification
+ * Copyright 2003--2011 University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * $Id$
+ */
+package groove.transform.criticalpair;
+
+import groove.grammar.Rule;
+
+/**
+ * @author Ruud Welling
+ * Unordered pair of rules, used as key for the critical pairs of two rules
+ */
+class RuleTuple {
+    final Rule rule1;
+    final Rule rule2;
+
+    RuleTuple(Rule rule1, Rule rule2) {
+        this.rule1 = rule1;
+        this.rule2 = rule2;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = prime * ((this.rule1 == null) ? 0 : this.rule1.hashCode());
+        result += prime * ((this.rule2 == null) ? 0 : this.rule2.hashCode());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        RuleTuple other = (RuleTuple) obj;
+        if (this.rule1 == null) {
+            if (this.rule2 == null) {
+                return other.rule1 == null && other.rule2 == null;
+            } else {
+                return (this.rule2.equals(other.rule1) && other.rule2 == null)
+                    || (this.rule2.equals(other.rule2) && other.rule1 == null);
+            }
+        }
+        if (this.rule2 == null) {
+            return (this.rule1.equals(other.rule1) && other.rule2 == null)
+                || (this.rule1.equals(other.rule2) && other.rule1 == null);
+        }
+        return (this.rule1.equals(other.rule1) && this.rule2.equals(other.rule2))
+            || (this.rule2.equals(other.rule1) && this.rule1.equals(other.rule2));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.kohsuke.args4j.Option;
+
+import groove.explore.util.LTSLabels;
+import groove.explore.util.LTSLabels.Flag;
+import groove.graph.GraphRole;
+import groove.graph.plain.PlainGraph;
+import groove.graph.plain.PlainNode;
+import groove.util.cli.GrooveCmdLineTool;
+import groove.util.parse.FormatException;
+
+/**
+ * Benchmark for the {@link CTLMarker} on synthetic transition systems.
+ * The transition system consists of a ring of states, each of which has
+ * a number of additional transitions to randomly chosen states;
+ * the transitions are labelled with randomly chosen actions {@code a},
+ * {@code b} and {@code c}, and a small fraction of the states is deadlocked.
+ * Every formula is checked a number of times, both with sequential and with
+ * parallel marking of the subformulas; the benchmark reports the
+ * construction time of the marker (which includes the computation of
+ * the atomic propositions and the backward relation) and the marking time,
+ * as well as the number of states satisfying the formula.
+ * @version $Revision $
+ */
+public class CTLBenchmark extends GrooveCmdLineTool<Object> {
+    /**
+     * Constructs the tool for a given list of command-line arguments.
+     * @param args The command-line arguments.
+     */
+    public CTLBenchmark(String... args) {
+        super("CTLBenchmark", args);
+    }
+
+    @Override
+    protected Object run() throws Exception {
+        long time = System.currentTimeMillis();
+        CTLModelChecker.Model model = createModel();
+        emit("Model: %d states, out-degree %d, seed %d (generated in %d ms)%n", this.stateCount,
+            this.degree, this.seed, System.currentTimeMillis() - time);
+        List<Formula> formulas = new ArrayList<>();
+        for (String text : this.formulas == null ? DEFAULT_FORMULAS : this.formulas) {
+            formulas.add(Formula.parse(Logic.CTL, text)
+                .toCtlFormula());
+        }
+        emit("%-28s %10s %10s %10s %12s%n", "Formula", "Init(ms)", "Seq(ms)", "Par(ms)",
+            "Satisfying");
+        boolean parallel = CTLMarker.isParallel();
+        try {
+            for (Formula formula : formulas) {
+                measure(formula, model);
+            }
+        } finally {
+            CTLMarker.setParallel(parallel);
+        }
+        return null;
+    }
+
+    /** Checks a formula in sequential and parallel mode, and reports the timings. */
+    private void measure(Formula formula, CTLModelChecker.Model model) {
+        long initTime = 0;
+        long[] checkTimes = new long[2];
+        int[] counts = new int[2];
+        for (int round = 0; round < this.rounds; round++) {
+            for (int mode = 0; mode < 2; mode++) {
+                CTLMarker.setParallel(mode == 1);
+                long time = System.nanoTime();
+                CTLMarker marker = new CTLMarker(formula, model);
+                initTime += System.nanoTime() - time;
+                time = System.nanoTime();
+                counts[mode] = marker.getCount(true);
+                checkTimes[mode] += System.nanoTime() - time;
+            }
+        }
+        if (counts[0] != counts[1]) {
+            throw new IllegalStateException(String.format(
+                "Sequential and parallel marking of %s disagree: %d versus %d satisfying states",
+                formula.getParseString(), counts[0], counts[1]));
+        }
+        long divisor = 1000000L * this.rounds;
+        emit("%-28s %10d %10d %10d %12d%n", formula.getParseString(), initTime / divisor / 2,
+            checkTimes[0] / divisor, checkTimes[1] / divisor, counts[0]);
+    }
+
+    /** Generates the synthetic transition system. */
+    private CTLModelChecker.Model createModel() throws FormatException {
+        Random random = new Random(this.seed);
+        PlainGraph graph = new PlainGraph("synthetic", GraphRole.NONE);
+        PlainNode[] nodes = new PlainNode[this.stateCount];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = graph.addNode(i);
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            if (i > 0 && random.nextInt(DEADLOCK_RATIO) == 0) {
+                continue;
+            }
+            graph.addEdge(nodes[i], LABELS[random.nextInt(LABELS.length)],
+                nodes[(i + 1) % nodes.length]);
+            for (int d = 1; d < this.degree; d++) {
+                graph.addEdge(nodes[i], LABELS[random.nextInt(LABELS.length)],
+                    nodes[random.nextInt(nodes.length)]);
+            }
+        }
+        LTSLabels ltsLabels = new LTSLabels(Flag.START);
+        graph.addEdge(nodes[0], ltsLabels.getStartLabel(), nodes[0]);
+        return CTLModelChecker.newModel(graph, ltsLabels);
+    }
+
+    @Option(name = "-n", metaVar = "num", usage = "Number of states (default 200000)")
+    private int stateCount = 200000;
+    @Option(name = "-d", metaVar = "num", usage = "Number of outgoing transitions (default 3)")
+    private int degree = 3;
+    @Option(name = "-seed", metaVar = "num", usage = "Random seed (default 0)")
+    private long seed;
+    @Option(name = "-rounds", metaVar = "num", usage = "Number of rounds per formula (default 3)")
+    private int rounds = 3;
+    @Option(name = "-ctl", metaVar = "prop",
+        usage = "CTL property to be checked (multiple allowed; default a fixed set)")
+    private List<String> formulas;
+
+    /**
+     * Constructs and invokes the tool.
+     * Always ends with {@link System#exit(int)};
+     * prefer {@link #execute(String[])} for programmatic use.
+     * @param args The command-line arguments.
+     */
+    public static void main(String[] args) {
+        tryExecute(CTLBenchmark.class, args);
+    }
+
+    /**
+     * Constructs and invokes the tool programmatically.
+     * @param args The command-line arguments.
+     */
+    public static void execute(String[] args) throws Exception {
+        new CTLBenchmark(args).start();
+    }
+
+    /** Transition labels of the synthetic transition system. */
+    private static final String[] LABELS = {"a", "b", "c"};
+    /** One in this many states is deadlocked. */
+    private static final int DEADLOCK_RATIO = 100;
+    /** Formulas checked if none are given. */
+    private static final List<String> DEFAULT_FORMULAS = new ArrayList<>();
+
+    static {
+        DEFAULT_FORMULAS.add("EF (a & !b)");
+        DEFAULT_FORMULAS.add("AG EF c");
+        DEFAULT_FORMULAS.add("AF b");
+        DEFAULT_FORMULAS.add("EG a");
+        DEFAULT_FORMULAS.add("A(a U (b | c))");
+        DEFAULT_FORMULAS.add("(AX a -> EX EX b) <-> EF c");
+        DEFAULT_FORMULAS.add("AG (b -> AF c) & EF AG a");
+    }
+}
@@ -21,27 +21,34 @@ import static groove.verify.Proposition.Kind.CALL;
 import static groove.verify.Proposition.Kind.ID;
 import static groove.verify.Proposition.Kind.LABEL;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import groove.explore.util.LTSLabels.Flag;
 import groove.grammar.QualName;
 import groove.graph.Edge;
 import groove.graph.Node;
+import groove.io.graph.CompactLTS;
 import groove.lts.GTS;
 
 /**
  * Implementation of the CTL model checking algorithm.
+ * The markings of the subformulas are kept as arrays of bit words, which are
+ * combined word by word; the backward transition relation is stored in
+ * compressed sparse row form, i.e., as an array of offsets into a single
+ * array of source state indices. For large models, subformulas that do not
+ * depend on each other are marked in parallel.
  * @author Arend Rensink
  * @version $Revision $
  */
@@ -69,16 +76,23 @@ public class CTLMarker {
         registerFormula(Formula.atom(START_ATOM));
         // initialise the markings array
         int nodeCount = this.nodeCount = this.model.nodeCount();
-        this.marking = new BitSet[this.formulaNr.size()];
+        this.wordCount = (nodeCount + 63) >>> 6;
+        this.marking = new long[this.formulaNr.size()][];
         for (int i : this.propNr.values()) {
-            this.marking[i] = new BitSet(nodeCount);
+            this.marking[i] = new long[this.wordCount];
+        }
+        if (this.model instanceof CTLModelChecker.CompactModel) {
+            initCompact((CTLModelChecker.CompactModel) this.model);
+            return;
         }
         // initialise the forward count and backward structure
         // & initialise the outgoing transition count
         // as well as the satisfaction of the atoms
         this.states = new Node[nodeCount];
-        @SuppressWarnings("unchecked")
-        List<Integer>[] backward = new List[nodeCount];
+        // source and target indices of the (non-special) edges
+        int[] edgeSources = new int[Math.max(nodeCount, 16)];
+        int[] edgeTargets = new int[edgeSources.length];
+        int edgeCount = 0;
         this.outCount = new int[nodeCount];
         // collect the special flag labels used in the formula
         Map<Flag,Integer> flagNrs = new EnumMap<>(Flag.class);
@@ -105,10 +119,13 @@ public class CTLMarker {
                     // EZ says: change for SF bug #442.
                     // int targetNr = target.getNumber();
                     int targetNr = this.model.nodeIndex(target);
-                    if (backward[targetNr] == null) {
-                        backward[targetNr] = new ArrayList<>();
+                    if (edgeCount == edgeSources.length) {
+                        edgeSources = Arrays.copyOf(edgeSources, 2 * edgeCount);
+                        edgeTargets = Arrays.copyOf(edgeTargets, 2 * edgeCount);
                     }
-                    backward[targetNr].add(nodeNr);
+                    edgeSources[edgeCount] = nodeNr;
+                    edgeTargets[edgeCount] = targetNr;
+                    edgeCount++;
                     markAtom(nodeNr, label);
                 } else {
                     assert outEdge.isLoop() : String.format(
@@ -123,20 +140,61 @@ public class CTLMarker {
             // Test the state markers in case we are in a GTS
             for (Map.Entry<Flag,Integer> flagEntry : flagNrs.entrySet()) {
                 if (this.model.isSpecial(node, flagEntry.getKey())) {
-                    this.marking[flagEntry.getValue()].set(nodeNr);
+                    set(this.marking[flagEntry.getValue()], nodeNr);
                 }
             }
         }
-        // Calculate the backward structure
-        this.backward = new int[nodeCount][];
+        // Calculate the backward structure, by counting sort on the edge targets
+        int[] backOffsets = this.backOffsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            backOffsets[edgeTargets[e] + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            backOffsets[i + 1] += backOffsets[i];
+        }
+        int[] backSources = this.backSources = new int[edgeCount];
+        int[] next = Arrays.copyOf(backOffsets, nodeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            backSources[next[edgeTargets[e]]++] = edgeSources[e];
+        }
+    }
+
+    /**
+     * Initialises the outgoing transition count, the backward structure and
+     * the satisfaction of the atoms for a compact model.
+     * The backward structure is shared with the model, and no objects
+     * are created per state or transition.
+     */
+    private void initCompact(CTLModelChecker.CompactModel model) {
+        CompactLTS lts = model.getLTS();
+        int nodeCount = this.nodeCount;
+        int[] outOffsets = lts.getOutOffsets();
+        int[] outLabels = lts.getOutLabels();
+        // propositions satisfied per label number
+        int[][] labelProps = new int[lts.labelCount()][];
+        for (int l = 0; l < labelProps.length; l++) {
+            labelProps[l] = getLabelProps(lts.getLabel(l));
+        }
+        this.outCount = new int[nodeCount];
         for (int i = 0; i < nodeCount; i++) {
-            int backCount = backward[i] == null ? 0 : backward[i].size();
-            int[] backEntry = new int[backCount];
-            for (int j = 0; j < backCount; j++) {
-                backEntry[j] = backward[i].get(j);
+            this.outCount[i] = outOffsets[i + 1] - outOffsets[i];
+            for (int e = outOffsets[i]; e < outOffsets[i + 1]; e++) {
+                for (int propIx : labelProps[outLabels[e]]) {
+                    set(this.marking[propIx], i);
+                }
+            }
+        }
+        for (Flag flag : Flag.values()) {
+            Integer flagIx = this.propNr.get(flagProps.get(flag));
+            if (flagIx != null) {
+                BitSet special = model.getSpecial(flag);
+                for (int i = special.nextSetBit(0); i >= 0; i = special.nextSetBit(i + 1)) {
+                    set(this.marking[flagIx], i);
+                }
             }
-            this.backward[i] = backEntry;
         }
+        this.backOffsets = lts.getInOffsets();
+        this.backSources = lts.getInSources();
     }
 
     /**
@@ -186,7 +244,18 @@ public class CTLMarker {
      * Verifies the top-level property.
      */
     private void verify() {
-        mark(this.formula);
+        if (isParallel() && this.nodeCount >= PARALLEL_THRESHOLD) {
+            try {
+                markParallel(this.formula, new HashMap<>()).join();
+            } catch (CompletionException exc) {
+                if (exc.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) exc.getCause();
+                }
+                throw exc;
+            }
+        } else {
+            mark(this.formula);
+        }
         setVerified();
     }
 
@@ -197,25 +266,47 @@ public class CTLMarker {
      * @param label the proposition text
      */
     private void markAtom(int nodeNr, String label) {
-        // First look up the label as a complete proposition
-        Integer propIx = this.propNr.get(new Proposition(label));
-        if (propIx != null) {
-            this.marking[propIx].set(nodeNr);
-        }
-        // Additionally try the label as a parsable ID or CALL
-        Proposition prop = FormulaParser.instance()
-            .parse(label)
-            .getProp();
-        if (prop != null && prop.getKind() != LABEL) {
-            // retrieve the action name being called
-            QualName callId = prop.getId();
-            if (this.calls.containsKey(callId)) {
-                this.calls.get(callId)
-                    .stream()
-                    .filter(c -> c.matches(prop))
-                    .forEach(c -> this.marking[this.propNr.get(c)].set(nodeNr));
+        for (int propIx : getLabelProps(label)) {
+            set(this.marking[propIx], nodeNr);
+        }
+    }
+
+    /**
+     * Returns the indices of the atomic propositions satisfied by
+     * a given label text. The result is cached per label text,
+     * as parsing the label is much more expensive than marking.
+     */
+    private int[] getLabelProps(String label) {
+        int[] result = this.labelProps.get(label);
+        if (result == null) {
+            Set<Integer> props = new HashSet<>();
+            // First look up the label as a complete proposition
+            Integer propIx = this.propNr.get(new Proposition(label));
+            if (propIx != null) {
+                props.add(propIx);
             }
+            // Additionally try the label as a parsable ID or CALL
+            Proposition prop = FormulaParser.instance()
+                .parse(label)
+                .getProp();
+            if (prop != null && prop.getKind() != LABEL) {
+                // retrieve the action name being called
+                QualName callId = prop.getId();
+                if (this.calls.containsKey(callId)) {
+                    this.calls.get(callId)
+                        .stream()
+                        .filter(c -> c.matches(prop))
+                        .forEach(c -> props.add(this.propNr.get(c)));
+                }
+            }
+            result = new int[props.size()];
+            int i = 0;
+            for (int p : props) {
+                result[i++] = p;
+            }
+            this.labelProps.put(label, result);
         }
+        return result;
     }
 
     /**
@@ -228,7 +319,7 @@ public class CTLMarker {
         Integer atomIx = this.propNr.get(flagProps.get(flag));
         // possibly the flag does not occur in the formula, in which case nothing needs to be done
         if (atomIx != null) {
-            this.marking[atomIx].set(nodeNr);
+            set(this.marking[atomIx], nodeNr);
         }
     }
 
@@ -236,17 +327,17 @@ public class CTLMarker {
      * Delegates the marking process to the given CTL-expression.
      * @param property the CTL-expression to which the marking is delegated
      */
-    private BitSet mark(Formula property) {
+    private long[] mark(Formula property) {
         int nr = this.formulaNr.get(property);
         // use the existing result, if any
-        BitSet result = this.marking[nr];
+        long[] result = this.marking[nr];
         if (result != null) {
             return result;
         }
         LogicOp token = property.getOp();
         // compute the arguments, if any
-        BitSet arg1 = null;
-        BitSet arg2 = null;
+        long[] arg1 = null;
+        long[] arg2 = null;
         switch (token.getArity()) {
         case 1:
             if (token == NOT) {
@@ -296,7 +387,69 @@ public class CTLMarker {
         return result;
     }
 
-    private BitSet markExists(Formula property) {
+    /**
+     * Marks a given formula after all its (state) subformulas, where
+     * the markings of subformulas that do not depend on each other
+     * are computed in parallel.
+     * @param property the formula to be marked
+     * @param futures mapping from the subformulas encountered so far
+     * to the futures of their markings
+     * @return the future of the marking of {@code property}
+     */
+    private CompletableFuture<long[]> markParallel(Formula property,
+        Map<Formula,CompletableFuture<long[]>> futures) {
+        CompletableFuture<long[]> result = futures.get(property);
+        if (result == null) {
+            long[] marking = this.marking[this.formulaNr.get(property)];
+            if (marking == null) {
+                List<Formula> args = getStateArgs(property);
+                CompletableFuture<?>[] argFutures = new CompletableFuture<?>[args.size()];
+                for (int i = 0; i < argFutures.length; i++) {
+                    argFutures[i] = markParallel(args.get(i), futures);
+                }
+                // the markings of the arguments are available to mark(property)
+                // once their futures are completed
+                result = CompletableFuture.allOf(argFutures)
+                    .thenApplyAsync(x -> mark(property));
+            } else {
+                result = CompletableFuture.completedFuture(marking);
+            }
+            futures.put(property, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the state subformulas of a given formula whose markings
+     * are used to compute the marking of the formula itself.
+     */
+    private List<Formula> getStateArgs(Formula property) {
+        switch (property.getOp()) {
+        case NOT:
+            return Collections.singletonList(property.getArg1());
+        case FORALL:
+        case EXISTS:
+            Formula path = property.getArg1();
+            switch (path.getOp()) {
+            case NEXT:
+                return Collections.singletonList(path.getArg1());
+            case UNTIL:
+                return Arrays.asList(path.getArg1(), path.getArg2());
+            default:
+                // the error is reported by mark(property)
+                return Collections.emptyList();
+            }
+        default:
+            if (property.getOp()
+                .getArity() == 2) {
+                return Arrays.asList(property.getArg1(), property.getArg2());
+            } else {
+                return Collections.emptyList();
+            }
+        }
+    }
+
+    private long[] markExists(Formula property) {
         switch (property.getOp()) {
         case NEXT:
             return computeEX(mark(property.getArg1()));
@@ -313,7 +466,7 @@ public class CTLMarker {
         }
     }
 
-    private BitSet markForall(Formula property) {
+    private long[] markForall(Formula property) {
         switch (property.getOp()) {
         case NEXT:
             return computeAX(mark(property.getArg1()));
@@ -331,70 +484,86 @@ public class CTLMarker {
     }
 
     /** Returns the (bit) set of all states. */
-    private BitSet computeTrue() {
-        BitSet result = new BitSet(this.nodeCount);
-        for (int i = 0; i < this.nodeCount; i++) {
-            result.set(i);
-        }
+    private long[] computeTrue() {
+        long[] result = new long[this.wordCount];
+        Arrays.fill(result, -1L);
+        clearTail(result);
         return result;
     }
 
     /** Returns the empty (bit) set. */
-    private BitSet computeFalse() {
-        return new BitSet(this.nodeCount);
+    private long[] computeFalse() {
+        return new long[this.wordCount];
     }
 
     /** Returns the negation of a (bit) set. */
-    private BitSet computeNeg(BitSet arg) {
-        BitSet result = (BitSet) arg.clone();
-        result.flip(0, this.nodeCount);
+    private long[] computeNeg(long[] arg) {
+        long[] result = new long[this.wordCount];
+        for (int w = 0; w < result.length; w++) {
+            result[w] = ~arg[w];
+        }
+        clearTail(result);
         return result;
     }
 
     /** Returns the disjunction of two bit sets. */
-    private BitSet computeOr(BitSet arg1, BitSet arg2) {
-        BitSet result = (BitSet) arg1.clone();
-        result.or(arg2);
+    private long[] computeOr(long[] arg1, long[] arg2) {
+        long[] result = new long[this.wordCount];
+        for (int w = 0; w < result.length; w++) {
+            result[w] = arg1[w] | arg2[w];
+        }
         return result;
     }
 
     /** Returns the conjunction of two bit sets */
-    private BitSet computeAnd(BitSet arg1, BitSet arg2) {
-        BitSet result = (BitSet) arg1.clone();
-        result.and(arg2);
+    private long[] computeAnd(long[] arg1, long[] arg2) {
+        long[] result = new long[this.wordCount];
+        for (int w = 0; w < result.length; w++) {
+            result[w] = arg1[w] & arg2[w];
+        }
         return result;
     }
 
     /** Returns the implication of two bit sets */
-    private BitSet computeImplies(BitSet arg1, BitSet arg2) {
-        BitSet result = (BitSet) arg2.clone();
-        for (int i = 0; i < this.nodeCount; i++) {
-            if (!result.get(i)) {
-                result.set(i, arg1.get(i));
-            }
+    private long[] computeImplies(long[] arg1, long[] arg2) {
+        long[] result = new long[this.wordCount];
+        for (int w = 0; w < result.length; w++) {
+            result[w] = ~arg1[w] | arg2[w];
         }
+        clearTail(result);
         return result;
     }
 
-    /** Returns the implication of two bit sets */
-    private BitSet computeEquiv(BitSet arg1, BitSet arg2) {
-        BitSet result = new BitSet(this.nodeCount);
-        for (int i = 0; i < this.nodeCount; i++) {
-            result.set(i, arg1.get(i) == arg1.get(i));
+    /** Returns the equivalence of two bit sets */
+    private long[] computeEquiv(long[] arg1, long[] arg2) {
+        long[] result = new long[this.wordCount];
+        for (int w = 0; w < result.length; w++) {
+            result[w] = ~(arg1[w] ^ arg2[w]);
         }
+        clearTail(result);
         return result;
     }
 
+    /** Clears the bits of the last word beyond the node count. */
+    private void clearTail(long[] words) {
+        int tail = this.nodeCount & 63;
+        if (tail != 0) {
+            words[words.length - 1] &= (1L << tail) - 1;
+        }
+    }
+
     /**
      * Returns the bit set for the EX operator.
      */
-    private BitSet computeEX(BitSet arg) {
-        BitSet result = new BitSet(this.nodeCount);
-        for (int i = 0; i < this.nodeCount; i++) {
-            if (arg.get(i)) {
-                int[] preds = this.backward[i];
-                for (int p = 0; p < preds.length; p++) {
-                    result.set(preds[p]);
+    private long[] computeEX(long[] arg) {
+        long[] result = new long[this.wordCount];
+        int[] backOffsets = this.backOffsets;
+        int[] backSources = this.backSources;
+        for (int w = 0; w < arg.length; w++) {
+            for (long word = arg[w]; word != 0; word &= word - 1) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                for (int b = backOffsets[i]; b < backOffsets[i + 1]; b++) {
+                    set(result, backSources[b]);
                 }
             }
         }
@@ -404,23 +573,28 @@ public class CTLMarker {
     /**
      * Returns the bit set for the AX operator.
      */
-    private BitSet computeAX(BitSet arg) {
-        BitSet result = new BitSet(this.nodeCount);
+    private long[] computeAX(long[] arg) {
+        long[] result = new long[this.wordCount];
+        int[] backOffsets = this.backOffsets;
+        int[] backSources = this.backSources;
+        int[] outCount = this.outCount;
         int[] nextCounts = new int[this.nodeCount];
-        for (int i = 0; i < this.nodeCount; i++) {
-            if (arg.get(i)) {
-                int[] preds = this.backward[i];
-                for (int p = 0; p < preds.length; p++) {
-                    int pred = preds[p];
+        for (int w = 0; w < arg.length; w++) {
+            for (long word = arg[w]; word != 0; word &= word - 1) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                for (int b = backOffsets[i]; b < backOffsets[i + 1]; b++) {
+                    int pred = backSources[b];
                     nextCounts[pred]++;
-                    if (this.outCount[pred] == nextCounts[pred]) {
-                        result.set(pred);
+                    if (outCount[pred] == nextCounts[pred]) {
+                        set(result, pred);
                     }
                 }
             }
-            // the property vacuously holds for deadlocked states
-            if (this.outCount[i] == 0) {
-                result.set(i);
+        }
+        // the property vacuously holds for deadlocked states
+        for (int i = 0; i < this.nodeCount; i++) {
+            if (outCount[i] == 0) {
+                set(result, i);
             }
         }
         return result;
@@ -429,29 +603,24 @@ public class CTLMarker {
     /**
      * Constructs the bit set for the EU operator.
      */
-    private BitSet computeEU(BitSet arg1, BitSet arg2) {
-        BitSet result = new BitSet(this.nodeCount);
-        BitSet arg1Marking = arg1;
-        BitSet arg2Marking = arg2;
+    private long[] computeEU(long[] arg1, long[] arg2) {
         // mark the states that satisfy the second operand
-        Queue<Integer> newStates = new LinkedList<>();
-        for (int i = 0; i < this.nodeCount; i++) {
-            if (arg2Marking.get(i)) {
-                result.set(i);
-                newStates.add(i);
-            }
-        }
+        long[] result = arg2.clone();
+        int[] backOffsets = this.backOffsets;
+        int[] backSources = this.backSources;
+        // every state is pushed at most once, when it is marked
+        int[] newStates = new int[this.nodeCount];
+        int size = push(arg2, newStates);
         // recurse to the predecessors of newly marked states
-        while (!newStates.isEmpty()) {
-            int newState = newStates.poll();
-            int[] preds = this.backward[newState];
-            for (int b = 0; b < preds.length; b++) {
-                int pred = preds[b];
+        while (size > 0) {
+            int newState = newStates[--size];
+            for (int b = backOffsets[newState]; b < backOffsets[newState + 1]; b++) {
+                int pred = backSources[b];
                 // mark the predecessor, if it satisfies the first operand
                 // and it is not yet marked
-                if (arg1Marking.get(pred) && !result.get(pred)) {
-                    result.set(pred);
-                    newStates.add(pred);
+                if (get(arg1, pred) && !get(result, pred)) {
+                    set(result, pred);
+                    newStates[size++] = pred;
                 }
             }
         }
@@ -461,32 +630,29 @@ public class CTLMarker {
     /**
      * Constructs the bit set for the AU operator.
      */
-    private BitSet computeAU(BitSet arg1, BitSet arg2) {
-        BitSet result = new BitSet(this.nodeCount);
-        int[] markedNextCount = new int[this.nodeCount];
+    private long[] computeAU(long[] arg1, long[] arg2) {
         // mark the states that satisfy the second operand
-        Queue<Integer> newStates = new LinkedList<>();
-        for (int i = 0; i < this.nodeCount; i++) {
-            if (arg2.get(i)) {
-                result.set(i);
-                newStates.add(i);
-            }
-        }
+        long[] result = arg2.clone();
+        int[] backOffsets = this.backOffsets;
+        int[] backSources = this.backSources;
+        int[] outCount = this.outCount;
+        int[] markedNextCount = new int[this.nodeCount];
+        // every state is pushed at most once, when it is marked
+        int[] newStates = new int[this.nodeCount];
+        int size = push(arg2, newStates);
         // recurse to the predecessors of newly marked states
-        while (!newStates.isEmpty()) {
-            int newState = newStates.poll();
-            int[] preds = this.backward[newState];
-            for (int b = 0; b < preds.length; b++) {
-                int pred = preds[b];
+        while (size > 0) {
+            int newState = newStates[--size];
+            for (int b = backOffsets[newState]; b < backOffsets[newState + 1]; b++) {
+                int pred = backSources[b];
                 // mark the predecessor, if all successors have now been
                 // marked, it satisfies the first operand and has not yet
                 // been marked
-                if (arg1.get(pred) && !result.get(pred)) {
+                if (get(arg1, pred) && !get(result, pred)) {
                     markedNextCount[pred]++;
-                    int nextTotal = this.outCount[pred];
-                    if (markedNextCount[pred] == nextTotal) {
-                        result.set(pred);
-                        newStates.add(pred);
+                    if (markedNextCount[pred] == outCount[pred]) {
+                        set(result, pred);
+                        newStates[size++] = pred;
                     }
                 }
             }
@@ -494,6 +660,40 @@ public class CTLMarker {
         return result;
     }
 
+    /**
+     * Pushes the indices of the set bits of a bit set onto an
+     * (empty) stack.
+     * @return the size of the stack
+     */
+    private static int push(long[] words, int[] stack) {
+        int size = 0;
+        for (int w = 0; w < words.length; w++) {
+            for (long word = words[w]; word != 0; word &= word - 1) {
+                stack[size++] = (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return size;
+    }
+
+    /** Tests if a given bit is set in a bit set. */
+    private static boolean get(long[] words, int i) {
+        return (words[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /** Sets a given bit in a bit set. */
+    private static void set(long[] words, int i) {
+        words[i >>> 6] |= 1L << i;
+    }
+
+    /** Returns the number of set bits in a bit set. */
+    private static int cardinality(long[] words) {
+        int result = 0;
+        for (long word : words) {
+            result += Long.bitCount(word);
+        }
+        return result;
+    }
+
     /**
      * Tests if the top-level formula has a given boolean value for the initial state.
      * @param value the value for which the top-level formula is tested
@@ -525,12 +725,12 @@ public class CTLMarker {
         // EZ says: change for SF bug #442.
         int stateIdx = this.model.nodeIndex(state);
         // return this.marking[this.formulaNr.get(formula)].get(state.getNumber()) == value;
-        return this.marking[this.formulaNr.get(formula)].get(stateIdx) == value;
+        return get(this.marking[this.formulaNr.get(formula)], stateIdx) == value;
     }
 
     /** Indicates if the model has an unambiguous root. */
     private boolean hasRoot() {
-        return this.marking[this.propNr.get(START_ATOM)].cardinality() == 1;
+        return cardinality(this.marking[this.propNr.get(START_ATOM)]) == 1;
     }
 
     /** Returns the (unambiguous) root node of the model, if there is any.
@@ -540,14 +740,23 @@ public class CTLMarker {
         if (this.model instanceof GTS) {
             result = ((GTS) this.model).startState();
         } else {
-            BitSet startNodes = this.marking[this.propNr.get(START_ATOM)];
+            BitSet startNodes = BitSet.valueOf(this.marking[this.propNr.get(START_ATOM)]);
             if (startNodes.cardinality() == 1) {
-                result = this.states[startNodes.nextSetBit(0)];
+                result = getState(startNodes.nextSetBit(0));
             }
         }
         return result;
     }
 
+    /** Returns the state with a given index. */
+    private Node getState(int index) {
+        if (this.states == null) {
+            return ((CTLModelChecker.CompactModel) this.model).getNode(index);
+        } else {
+            return this.states[index];
+        }
+    }
+
     /** Reports the number of states that satisfy or fail to satisfy the top-level formula. */
     public int getCount(boolean value) {
         return getCount(this.formula, value);
@@ -559,14 +768,8 @@ public class CTLMarker {
         if (!isVerified()) {
             verify();
         }
-        int result = 0;
-        BitSet sat = this.marking[this.formulaNr.get(formula)];
-        for (int i = 0; i < this.nodeCount; i++) {
-            if (sat.get(i) == value) {
-                result++;
-            }
-        }
-        return result;
+        int result = cardinality(this.marking[this.formulaNr.get(formula)]);
+        return value ? result : this.nodeCount - result;
     }
 
     /** Returns an iterable over the states that satisfy or fail to satisfy the top-level formula. */
@@ -580,7 +783,7 @@ public class CTLMarker {
         if (!isVerified()) {
             verify();
         }
-        final BitSet sat = this.marking[this.formulaNr.get(formula)];
+        final BitSet sat = BitSet.valueOf(this.marking[this.formulaNr.get(formula)]);
         return new Iterable<Node>() {
             @Override
             public Iterator<Node> iterator() {
@@ -595,7 +798,7 @@ public class CTLMarker {
                         if (!hasNext()) {
                             throw new NoSuchElementException();
                         }
-                        Node result = CTLMarker.this.states[this.stateIx];
+                        Node result = getState(this.stateIx);
                         this.stateIx = value ? sat.nextSetBit(this.stateIx + 1)
                             : sat.nextClearBit(this.stateIx + 1);
                         return result;
@@ -625,13 +828,23 @@ public class CTLMarker {
     /** Mapping from called action names to sets of propositions occurring in the formula
      * that potentially match a call of that action. */
     private final Map<QualName,Set<Proposition>> calls = new HashMap<>();
-    /** Marking matrix: 1st dimension = state, 2nd dimension = formula. */
-    private BitSet[] marking;
-    /** Backward reachability matrix. */
-    private int[][] backward;
+    /** Mapping from label texts to the indices of the propositions they satisfy. */
+    private final Map<String,int[]> labelProps = new HashMap<>();
+    /** Marking matrix: 1st dimension = formula, 2nd dimension = words of state bits. */
+    private long[][] marking;
+    /** Number of words in the marking of a single formula. */
+    private int wordCount;
+    /**
+     * Offsets into {@link #backSources}, indexed by state;
+     * the predecessors of state {@code i} are at the indices from
+     * {@code backOffsets[i]} (inclusive) to {@code backOffsets[i+1]} (exclusive).
+     */
+    private int[] backOffsets;
+    /** Source states of the transitions, ordered by target state. */
+    private int[] backSources;
     /** Number of outgoing non-special-label edges. */
     private int[] outCount;
-    /** State number-indexed array of states in the GTS. */
+    /** State number-indexed array of states in the GTS; {@code null} for a compact model. */
     private Node[] states;
     /** State count of the transition system. */
     private int nodeCount;
@@ -647,6 +860,23 @@ public class CTLMarker {
     }
 
     private boolean verified;
+
+    /**
+     * Indicates if subformulas that do not depend on each other are
+     * marked in parallel, for models with at least {@link #PARALLEL_THRESHOLD} states.
+     */
+    public static boolean isParallel() {
+        return parallel;
+    }
+
+    /** Switches parallel marking of subformulas on or off. It is on by default. */
+    public static void setParallel(boolean parallel) {
+        CTLMarker.parallel = parallel;
+    }
+
+    private static volatile boolean parallel = true;
+    /** Minimum number of states for which subformulas are marked in parallel. */
+    public static final int PARALLEL_THRESHOLD = 1 << 15;
     /** Mapping from flags to the corresponding proposition. */
     static final Map<Flag,Proposition> flagProps = new EnumMap<>(Flag.class);
     /** Mapping from special atomic formulae to the corresponding flags. */
@@ -19,15 +19,22 @@ package groove.verify;
 import static groove.explore.Verbosity.LOW;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.CmdLineException;
@@ -48,6 +55,10 @@ import groove.explore.util.LTSLabels.Flag;
 import groove.graph.Edge;
 import groove.graph.Graph;
 import groove.graph.Node;
+import groove.graph.plain.PlainFactory;
+import groove.graph.plain.PlainNode;
+import groove.io.FileType;
+import groove.io.graph.CompactLTS;
 import groove.lts.GTS;
 import groove.lts.GraphState;
 import groove.util.Groove;
@@ -123,6 +134,11 @@ public class CTLModelChecker extends GrooveCmdLineTool<Object> {
         } else if (this.modelGraph.isDirectory()) {
             // we have to generate the transition system
             model = generateModel(this.modelGraph.getPath());
+        } else if (FileType.AUT.hasExtension(this.modelGraph)
+            || FileType.GLTS.hasExtension(this.modelGraph)) {
+            // load the LTS without creating a graph
+            emit("Model: %s%n", this.modelGraph);
+            model = loadModel(this.modelGraph, this.ltsLabels);
         } else {
             emit("Model: %s%n", this.modelGraph);
             model = new GraphModel(Groove.loadGraph(this.modelGraph), this.ltsLabels);
@@ -186,7 +202,7 @@ public class CTLModelChecker extends GrooveCmdLineTool<Object> {
         handler = GeneratorHandler.class) private GeneratorArgs genArgs;
 
     @Argument(metaVar = "model",
-        usage = "File name of GXL graph or production system to be checked",
+        usage = "File name of GXL graph, .aut or .glts LTS, or production system to be checked",
         handler = FileOptionHandler.class) private File modelGraph;
 
     /**
@@ -307,6 +323,39 @@ public class CTLModelChecker extends GrooveCmdLineTool<Object> {
         return new GraphModel(graph, ltsLabels == null ? LTSLabels.DEFAULT : ltsLabels);
     }
 
+    /** Creates a CTL-checkable model from a compact LTS plus special labels mapping.
+     * The special labels should be those used when loading the LTS.
+     * @see #getStateLabels(LTSLabels)
+     */
+    public static Model newModel(CompactLTS lts, LTSLabels ltsLabels) {
+        return new CompactModel(lts, ltsLabels == null ? LTSLabels.DEFAULT : ltsLabels);
+    }
+
+    /**
+     * Loads a compact LTS from a file in the {@code .aut} or binary LTS format
+     * and turns it into a CTL-checkable model, without building a graph.
+     * @param file the file to be loaded
+     * @param ltsLabels the special labels used in the file; if {@code null},
+     * the default labels are used
+     * @throws IOException if the file cannot be loaded
+     */
+    public static Model loadModel(File file, LTSLabels ltsLabels) throws IOException {
+        LTSLabels labels = ltsLabels == null ? LTSLabels.DEFAULT : ltsLabels;
+        return newModel(CompactLTS.load(file, getStateLabels(labels)), labels);
+    }
+
+    /** Returns the set of special labels defined by a special labels mapping. */
+    public static Set<String> getStateLabels(LTSLabels ltsLabels) {
+        Set<String> result = new HashSet<>();
+        for (Flag flag : Flag.values()) {
+            String label = ltsLabels.getLabel(flag);
+            if (label != null) {
+                result.add(label);
+            }
+        }
+        return result;
+    }
+
     /** Facade for models, with the functionality required for CTL model checking. */
     public static interface Model {
         /** Returns the number of (real) nodes of the model. */
@@ -502,4 +551,100 @@ public class CTLModelChecker extends GrooveCmdLineTool<Object> {
 
         private final LTSLabels ltsLabels;
     }
-}
\ No newline at end of file
+
+    /**
+     * Model built from a compact LTS.
+     * The {@link CTLMarker} accesses the transition relation of such a model
+     * directly through its arrays; the node and edge objects of the
+     * {@link Model} interface are only created on demand.
+     */
+    static class CompactModel implements Model {
+        /** Wraps a compact LTS and a special labels mapping into a model. */
+        CompactModel(CompactLTS lts, LTSLabels ltsLabels) {
+            this.lts = lts;
+            this.ltsLabels = ltsLabels;
+        }
+
+        /** Returns the underlying compact LTS. */
+        CompactLTS getLTS() {
+            return this.lts;
+        }
+
+        /**
+         * Returns the set of states with a given special property.
+         * The start state is the one given by the LTS, rather than by a special label.
+         */
+        BitSet getSpecial(Flag flag) {
+            BitSet result;
+            if (flag == Flag.START) {
+                result = new BitSet();
+                result.set(this.lts.getStart());
+            } else {
+                String label = this.ltsLabels.getLabel(flag);
+                result = label == null ? new BitSet() : this.lts.getMarked(label);
+            }
+            return result;
+        }
+
+        /** Returns the node object for a given state number. */
+        Node getNode(int index) {
+            return PlainFactory.instance()
+                .createNode(index);
+        }
+
+        @Override
+        public int nodeCount() {
+            return this.lts.nodeCount();
+        }
+
+        @Override
+        public Set<? extends Node> nodeSet() {
+            return new AbstractSet<Node>() {
+                @Override
+                public Iterator<Node> iterator() {
+                    return IntStream.range(0, size())
+                        .mapToObj(i -> getNode(i))
+                        .iterator();
+                }
+
+                @Override
+                public int size() {
+                    return nodeCount();
+                }
+            };
+        }
+
+        @Override
+        public Set<? extends Edge> outEdgeSet(Node node) {
+            PlainNode source = (PlainNode) getNode(node.getNumber());
+            int[] offsets = this.lts.getOutOffsets();
+            Set<Edge> result = new LinkedHashSet<>();
+            for (int e = offsets[source.getNumber()]; e < offsets[source.getNumber() + 1]; e++) {
+                result.add(PlainFactory.instance()
+                    .createEdge(source,
+                        this.lts.getLabel(this.lts.getOutLabels()[e]),
+                        (PlainNode) getNode(this.lts.getOutTargets()[e])));
+            }
+            return result;
+        }
+
+        @Override
+        public boolean isSpecial(Node node, Flag flag) {
+            return getSpecial(flag).get(node.getNumber());
+        }
+
+        @Override
+        public int nodeIndex(Node node) {
+            return node.getNumber();
+        }
+
+        /** Always returns {@code null}, as special labels are not stored as transitions. */
+        @Override
+        public Flag getFlag(String label) {
+            return null;
+        }
+
+        private final CompactLTS lts;
+        private final LTSLabels ltsLabels;
+    }
+}
@@ -16,6 +16,7 @@ import groove.grammar.model.GrammarModel;
 import groove.grammar.rule.RuleEdge;
 import groove.grammar.rule.RuleNode;
 import groove.gui.Simulator;
+import groove.lts.ExplorationCache;
 import groove.lts.GTS;
 import groove.lts.GraphState;
 import groove.lts.MatchResult;
@@ -52,6 +53,10 @@ public class ExploringGaBayesNet {
 	}
 	
 	public GTS gts=null;
+	/**
+	 * Matches and heuristic values of the states visited so far, shared across runs
+	 */
+	public ExplorationCache stateCache=new ExplorationCache(10000);
 	
 	public boolean callFromHeuGenerator=false;
 	
@@ -149,7 +149,15 @@ public class ExploringItem {
 	/**
 	 * This number determines the maximum number of the generated paths from s0 to max
 	 */
-	public Integer maxNum_allPathFs0TMax=100;  
+	public Integer maxNum_allPathFs0TMax=100;
+	/**
+	 * Rule statistics of the paths from s0 to max, streamed from the GTS for the naive Bayes learner
+	 */
+	public RuleSequenceCounts pathCounts;
+	/**
+	 * Length of the textual form of the first path counted in {@link #pathCounts}
+	 */
+	public int pathCountsFirstLength;
 	
 	public ArrayList<StateRule> pathLeadCycle;  //this path used for the refutation of liveness by cycle
 	
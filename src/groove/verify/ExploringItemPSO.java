@@ -11,6 +11,7 @@ import groove.grammar.model.GrammarModel;
 import groove.grammar.rule.RuleEdge;
 import groove.grammar.rule.RuleNode;
 import groove.gui.Simulator;
+import groove.lts.ExplorationCache;
 import groove.lts.GTS;
 import groove.lts.GraphState;
 import groove.lts.MatchResult;
@@ -51,6 +52,10 @@ public class ExploringItemPSO {
 	public ArrayList<QualName> RulesName;
 	
 	public GTS gts=null;
+	/**
+	 * Matches and heuristic values of the states visited so far, shared across runs
+	 */
+	public ExplorationCache stateCache=new ExplorationCache(10000);
 	
 	public boolean callFromHeuGenerator=false;
 	public String targetRule="";
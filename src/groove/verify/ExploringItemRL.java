@@ -15,6 +15,7 @@ import groove.grammar.model.GrammarModel;
 import groove.grammar.rule.RuleEdge;
 import groove.grammar.rule.RuleNode;
 import groove.gui.Simulator;
+import groove.lts.ExplorationCache;
 import groove.lts.GTS;
 import groove.lts.GraphState;
 import groove.lts.MatchResult;
@@ -102,6 +103,10 @@ public class ExploringItemRL {
     public Simulator simulator;
 
     public GTS gts=null;
+    /**
+     * Matches and heuristic values of the states visited so far, shared across runs
+     */
+    public ExplorationCache stateCache=new ExplorationCache(10000);
 
     public boolean callFromHeuGenerator=false;
     public boolean init=false;
@@ -26,6 +26,7 @@ import groove.gui.action.HeuBOAExploreAction;
 import groove.gui.display.DisplayKind;
 import groove.gui.display.LTSDisplay;
 import groove.lts.GTS;
+import groove.lts.GTSPool;
 import groove.lts.GraphState;
 import groove.util.parse.FormatException;
 import groove.verify.BaysianNetwork.Nodeitem;
@@ -51,7 +52,19 @@ public class HeuBOA{
         
 	}
 	
+	/**
+	 * Runs the search. When the search is done, the warm GTS that the pool
+	 * keeps for the calling thread is released.
+	 */
 	public String start(String targetRule,String BOAType,String SelectionType,int RulesCount,ArrayList<QualName> RulesName,Grammar grammer,GrammarModel grammermodel){
+		try {
+			return doStart(targetRule, BOAType, SelectionType, RulesCount, RulesName, grammer, grammermodel);
+		} finally {
+			this.gtsPool.release();
+		}
+	}
+
+	private String doStart(String targetRule,String BOAType,String SelectionType,int RulesCount,ArrayList<QualName> RulesName,Grammar grammer,GrammarModel grammermodel){
 		
 		
 		//BoAmAiN boaMain=new BoAmAiN();
@@ -133,7 +146,7 @@ public class HeuBOA{
 			}else{
 				GTS gts=null;
 				try {
-					gts = new GTS(grammer);
+					gts = this.gtsPool.acquire(grammer);
 				} catch (FormatException e) {
 					// do nothing
 					e.printStackTrace();
@@ -324,7 +337,7 @@ public class HeuBOA{
 					sortPopulation(exploreGaBayesNet);
 				if(!exploreGaBayesNet.ModelCheckingTarget.equals("DeadLock") && exploreGaBayesNet.heuristicResult==null ){ ////Reachability
 	    			///////Reachability
-					for (int iter = 0; iter <= exploreGaBayesNet.Iterations-1 && exploreGaBayesNet.heuristicResult==null ; iter++){
+					for (int iter = 0; iter <= exploreGaBayesNet.Iterations-1 && exploreGaBayesNet.heuristicResult==null && !Thread.currentThread().isInterrupted() ; iter++){
 						exploreGaBayesNet.First_Found_Dead_Rep++;
 						if(exploreGaBayesNet.BOAType.equals("naiveBOA")){
 							ppStateCount=pStateCount;
@@ -391,7 +404,7 @@ public class HeuBOA{
 			    	}
 				}else{
 					/////////Deadlock
-	    			for (int iter = 0; iter <= exploreGaBayesNet.Iterations-1 && exploreGaBayesNet.heuristicResult==null ; iter++){
+	    			for (int iter = 0; iter <= exploreGaBayesNet.Iterations-1 && exploreGaBayesNet.heuristicResult==null && !Thread.currentThread().isInterrupted() ; iter++){
 	    				exploreGaBayesNet.First_Found_Dead_Rep++;
 	    				if(exploreGaBayesNet.BOAType.equals("naiveBOA")){
 	    					ppStateCount=pStateCount;
@@ -522,7 +535,7 @@ public class HeuBOA{
     	}else{
     		GTS gts=null;
 			try {
-				gts = new GTS(exploreGaBayesNet.grammer);
+				gts = this.gtsPool.acquire(exploreGaBayesNet.grammer);
 			} catch (FormatException e) {
 				// do nothing
 				e.printStackTrace();
@@ -1180,12 +1193,12 @@ private void LearningOfBayesianNetwork_4pBOA(ExploringGaBayesNet exploreGaBayesN
 	
     private int GetRandomVal(int min, int max)
     {
-         return  (int) (min + Math.random() * (max - min));
+         return  (int) (min + HeuRandom.nextDouble() * (max - min));
    }
 	
 	private boolean Assay(double probability)
     {
-        if (Math.random()< probability)
+        if (HeuRandom.nextDouble()< probability)
             return true;
         else
             return false;
@@ -1278,7 +1291,7 @@ private void LearningOfBayesianNetwork_4pBOA(ExploringGaBayesNet exploreGaBayesN
     	}else{
     		GTS gts=null;
 			try {
-				gts = new GTS(exploreGaBayesNet.grammer);
+				gts = this.gtsPool.acquire(exploreGaBayesNet.grammer);
 			} catch (FormatException e) {
 				// do nothing
 				e.printStackTrace();
@@ -1294,6 +1307,8 @@ private void LearningOfBayesianNetwork_4pBOA(ExploringGaBayesNet exploreGaBayesN
 	}
 	 
 	public Simulator simulator;
+	/** Warm GTSs reused across the runs of a headless search. */
+	private final GTSPool gtsPool=new GTSPool();
 	public String HostGraphName;
 	public String ModelCheckingType;
 	public String ModelCheckingTarget;
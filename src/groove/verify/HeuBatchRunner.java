@@ -0,0 +1,701 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.verify;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
+
+import groove.explore.Exploration;
+import groove.explore.ExploreType;
+import groove.grammar.Grammar;
+import groove.grammar.QualName;
+import groove.grammar.aspect.AspectEdge;
+import groove.grammar.model.GrammarModel;
+import groove.grammar.model.GraphBasedModel;
+import groove.grammar.model.ResourceKind;
+import groove.grammar.model.RuleModel;
+import groove.lts.GTS;
+import groove.lts.GraphNextState;
+import groove.lts.GraphState;
+import groove.util.cli.GrammarHandler;
+import groove.util.cli.GrooveCmdLineTool;
+import groove.util.parse.FormatException;
+
+/**
+ * Command-line tool running the heuristic model checkers without the simulator,
+ * as well as exhaustive BFS and DFS explorations as a baseline.
+ * A run consists of a number of independent searches of one algorithm,
+ * each with its own random seed, executed in parallel
+ * and cut off after a given time limit.
+ * The parameters of the algorithm are read from a properties file, whose keys
+ * are the names of the public parameter fields of the algorithm class
+ * (such as {@code CountOFpopulation} or {@code maxDepthOfSearch}), together with
+ * the keys {@link #TARGET_KEY}, {@link #TYPE_KEY}, {@link #SELECTION_KEY},
+ * {@link #ITERATIONS_KEY} and {@link #MAX_STATES_KEY}.
+ * Every search results in a row of a JSON-lines or CSV table.
+ * @version $Revision $
+ */
+public class HeuBatchRunner extends GrooveCmdLineTool<List<HeuBatchRunner.Result>> {
+    /**
+     * Constructs the tool for a given list of command-line arguments.
+     * @param args The command-line arguments.
+     */
+    public HeuBatchRunner(String... args) {
+        super("HeuBatchRunner", args);
+    }
+
+    @Override
+    protected List<Result> run() throws Exception {
+        Properties params = new Properties();
+        if (this.paramFile != null) {
+            try (InputStream in = new FileInputStream(this.paramFile)) {
+                params.load(in);
+            }
+        }
+        List<Long> seeds = new ArrayList<>();
+        if (this.seedList != null) {
+            for (String seed : this.seedList.split(",")) {
+                seeds.add(Long.parseLong(seed.trim()));
+            }
+        } else {
+            for (int i = 0; i < this.runCount; i++) {
+                seeds.add(this.seed + i);
+            }
+        }
+        List<Result> result =
+            runAll(this.grammarDir, this.startGraph, this.algorithm, params, seeds, this.threads,
+                this.timeLimit * 1000L);
+        try (PrintWriter out = this.outFile == null ? new PrintWriter(System.out)
+            : new PrintWriter(new FileWriter(this.outFile))) {
+            if (this.format == Format.CSV) {
+                out.println(Result.CSV_HEADER);
+            }
+            for (Result row : result) {
+                out.println(this.format == Format.CSV ? row.toCSV() : row.toJSON());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs a number of searches in parallel, one per seed, and returns their results
+     * in the order of the seeds.
+     * @param grammarDir the grammar to be checked
+     * @param startGraph name of the start graph; if {@code null}, the default start graph is used
+     * @param algorithm the algorithm of all searches
+     * @param params the parameters of the algorithm
+     * @param seeds the random seeds of the searches
+     * @param threads maximum number of searches running at the same time
+     * @param timeLimit time limit per search, in milliseconds; if not positive, there is no limit
+     */
+    public static List<Result> runAll(File grammarDir, String startGraph, Algorithm algorithm,
+        Properties params, List<Long> seeds, int threads, long timeLimit)
+        throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread result = new Thread(r, "HeuBatchRunner");
+            // searches that ignore interrupts should not keep the JVM alive
+            result.setDaemon(true);
+            return result;
+        });
+        List<Run> runs = new ArrayList<>();
+        List<Future<Result>> futures = new ArrayList<>();
+        for (long seed : seeds) {
+            Run run = new Run(grammarDir, startGraph, algorithm, params, seed);
+            runs.add(run);
+            futures.add(executor.submit(run));
+        }
+        executor.shutdown();
+        List<Result> result = new ArrayList<>();
+        for (int i = 0; i < runs.size(); i++) {
+            result.add(awaitResult(runs.get(i), futures.get(i), timeLimit));
+        }
+        executor.shutdownNow();
+        return result;
+    }
+
+    /**
+     * Waits for a search to finish, and cancels it if it has not
+     * finished within the time limit after it started.
+     */
+    private static Result awaitResult(Run run, Future<Result> future, long timeLimit)
+        throws InterruptedException {
+        while (true) {
+            try {
+                long wait = POLL_INTERVAL;
+                if (timeLimit > 0 && run.startTime > 0) {
+                    wait = run.startTime + timeLimit - System.currentTimeMillis();
+                }
+                return future.get(Math.max(wait, 1), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException exc) {
+                if (timeLimit > 0 && run.startTime > 0
+                    && System.currentTimeMillis() >= run.startTime + timeLimit) {
+                    future.cancel(true);
+                    return run.newResult(Status.TIMEOUT, timeLimit);
+                }
+            } catch (CancellationException exc) {
+                return run.newResult(Status.TIMEOUT, timeLimit);
+            } catch (ExecutionException exc) {
+                return run.newResult(Status.ERROR, System.currentTimeMillis() - run.startTime)
+                    .setMessage(exc.getCause()
+                        .toString());
+            }
+        }
+    }
+
+    /** Returns the names of the enabled rules without creators and erasers of a grammar. */
+    static ArrayList<QualName> getPropertyNames(GrammarModel grammarModel) {
+        ArrayList<QualName> result = new ArrayList<>();
+        for (QualName name : grammarModel.getNames(ResourceKind.RULE)) {
+            RuleModel ruleModel = grammarModel.getRuleModel(name);
+            if (!ruleModel.isEnabled()) {
+                continue;
+            }
+            boolean modifying = false;
+            for (AspectEdge edge : ruleModel.getSource()
+                .edgeSet()) {
+                String text = edge.toString();
+                if (text.contains("new:") || text.contains("del:")) {
+                    modifying = true;
+                    break;
+                }
+            }
+            if (!modifying) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets the public fields of a heuristic object for which the parameters
+     * contain a value, converted to the type of the field.
+     */
+    static void setFields(Object heuristic, Properties params) {
+        for (Field field : heuristic.getClass()
+            .getFields()) {
+            String value = params.getProperty(field.getName());
+            if (value == null || Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            value = value.trim();
+            Class<?> type = field.getType();
+            try {
+                if (type == int.class || type == Integer.class) {
+                    field.set(heuristic, Integer.valueOf(value));
+                } else if (type == long.class || type == Long.class) {
+                    field.set(heuristic, Long.valueOf(value));
+                } else if (type == double.class || type == Double.class) {
+                    field.set(heuristic, Double.valueOf(value));
+                } else if (type == float.class || type == Float.class) {
+                    field.set(heuristic, Float.valueOf(value));
+                } else if (type == boolean.class || type == Boolean.class) {
+                    field.set(heuristic, Boolean.valueOf(value));
+                } else if (type == String.class) {
+                    field.set(heuristic, value);
+                } else if (type == int[].class) {
+                    String[] parts = value.split(",");
+                    int[] array = new int[parts.length];
+                    for (int i = 0; i < parts.length; i++) {
+                        array[i] = Integer.parseInt(parts[i].trim());
+                    }
+                    field.set(heuristic, array);
+                } else {
+                    throw new IllegalArgumentException(String.format(
+                        "Parameter '%s' cannot be set from the parameter file", field.getName()));
+                }
+            } catch (IllegalAccessException exc) {
+                throw new IllegalStateException(exc);
+            }
+        }
+    }
+
+    @Argument(metaVar = GrammarHandler.META_VAR, required = true,
+        usage = GrammarHandler.USAGE, handler = GrammarHandler.class)
+    private File grammarDir;
+    @Option(name = "-a", metaVar = "alg", required = true,
+        usage = "Search algorithm: BFS, DFS, GA, BOA, PSO, ASTAR, IDASTAR, BEAM, LFBFS, DQN, DDQN, "
+            + "STYLEAUTO or STYLEUSER")
+    private Algorithm algorithm;
+    @Option(name = "-s", metaVar = "name", usage = "Name of the start graph (default: grammar default)")
+    private String startGraph;
+    @Option(name = "-p", metaVar = "file", usage = "Properties file with the algorithm parameters")
+    private File paramFile;
+    @Option(name = "-seed", metaVar = "num", usage = "Seed of the first search (default 0)")
+    private long seed;
+    @Option(name = "-n", metaVar = "num",
+        usage = "Number of searches, with consecutive seeds (default 1)")
+    private int runCount = 1;
+    @Option(name = "-seeds", metaVar = "list",
+        usage = "Comma-separated list of seeds; overrides -seed and -n")
+    private String seedList;
+    @Option(name = "-threads", metaVar = "num",
+        usage = "Number of searches executed in parallel (default: number of processors)")
+    private int threads = Runtime.getRuntime()
+        .availableProcessors();
+    @Option(name = "-limit", metaVar = "sec", usage = "Time limit per search in seconds (default 0: none)")
+    private int timeLimit;
+    @Option(name = "-o", metaVar = "file", usage = "Output file (default: standard output)")
+    private File outFile;
+    @Option(name = "-f", metaVar = "format", usage = "Output format: JSON (lines) or CSV (default JSON)")
+    private Format format = Format.JSON;
+
+    /** Polling interval while waiting for a search to start, in milliseconds. */
+    private static final long POLL_INTERVAL = 100;
+    /** Parameter key for the model checking target: a property rule name or {@code DeadLock}. */
+    public static final String TARGET_KEY = "target";
+    /** Parameter key for the algorithm variant, as passed on by the dialogs. */
+    public static final String TYPE_KEY = "type";
+    /** Parameter key for the selection type of GA and BOA. */
+    public static final String SELECTION_KEY = "selection";
+    /** Parameter key for the number of iterations of IDA* and learning from BFS. */
+    public static final String ITERATIONS_KEY = "iterations";
+    /** Parameter key for the maximum number of BFS states when learning from BFS. */
+    public static final String MAX_STATES_KEY = "maxNumberOfStates";
+
+    /**
+     * Constructs and invokes the tool.
+     * Always ends with {@link System#exit(int)};
+     * prefer {@link #execute(String[])} for programmatic use.
+     * @param args The command-line arguments.
+     */
+    public static void main(String[] args) {
+        tryExecute(HeuBatchRunner.class, args);
+    }
+
+    /**
+     * Constructs and invokes the tool programmatically.
+     * @param args The command-line arguments.
+     */
+    public static List<Result> execute(String[] args) throws Exception {
+        return new HeuBatchRunner(args).start();
+    }
+
+    /** Heuristic algorithms supported by the runner. */
+    public static enum Algorithm {
+        /** Exhaustive breadth-first exploration, as a baseline. */
+        BFS,
+        /** Exhaustive depth-first exploration, as a baseline. */
+        DFS,
+        /** Genetic algorithm ({@link HeuGA}). */
+        GA,
+        /** Bayesian optimisation algorithm ({@link HeuBOA}). */
+        BOA,
+        /** Particle swarm optimisation ({@link HeuPSO}). */
+        PSO,
+        /** A* search ({@link HeuIDAstar}). */
+        ASTAR,
+        /** Iterative deepening A* search ({@link HeuIDAstar}). */
+        IDASTAR,
+        /** Beam search ({@link HeuIDAstar}). */
+        BEAM,
+        /** Learning from a bounded breadth-first search ({@link HeuLearnFromBFS}). */
+        LFBFS,
+        /** Deep Q-network learning ({@link RL}). */
+        DQN,
+        /** Double deep Q-network learning ({@link RL}). */
+        DDQN,
+        /** Automatic style-based heuristic ({@link HeuStyleAuto}); needs the simulator. */
+        STYLEAUTO,
+        /** User-defined style-based heuristic ({@link HeuStyleUser}); needs the simulator. */
+        STYLEUSER,;
+    }
+
+    /** Output formats of the runner. */
+    public static enum Format {
+        /** One JSON object per line. */
+        JSON,
+        /** Comma-separated values, with a header line. */
+        CSV,;
+    }
+
+    /** Outcome of a single search. */
+    public static enum Status {
+        /** The target state was found. */
+        FOUND,
+        /** The search ended without finding the target state. */
+        NOT_FOUND,
+        /** The search was cut off by the time limit. */
+        TIMEOUT,
+        /** The search was cut off by the memory limit. */
+        MEMOUT,
+        /** The search ended with an exception. */
+        ERROR,
+        /** The algorithm cannot run without the simulator. */
+        UNSUPPORTED,;
+    }
+
+    /** A single search of the batch, executed in a worker thread. */
+    static public class Run implements Callable<Result> {
+        /** Constructs a search with given parameters. */
+        public Run(File grammarDir, String startGraph, Algorithm algorithm, Properties params,
+            long seed) {
+            this.grammarDir = grammarDir;
+            this.startGraph = startGraph;
+            this.algorithm = algorithm;
+            this.params = params;
+            this.seed = seed;
+        }
+
+        /** Executes the search in the calling thread and returns its result. */
+        @Override
+        public Result call() throws FormatException, IOException {
+            this.startTime = System.currentTimeMillis();
+            if (this.algorithm == Algorithm.STYLEAUTO || this.algorithm == Algorithm.STYLEUSER) {
+                return newResult(Status.UNSUPPORTED, 0)
+                    .setMessage("style heuristics edit the grammar through the simulator");
+            }
+            HeuRandom.setSeed(this.seed);
+            GrammarModel grammarModel;
+            Grammar grammar;
+            // grammar loading is not thread-safe
+            synchronized (Run.class) {
+                grammarModel = GrammarModel.newInstance(this.grammarDir, false);
+                if (this.startGraph != null) {
+                    GraphBasedModel<?> hostModel = grammarModel.getGraphResource(ResourceKind.HOST,
+                        QualName.name(this.startGraph));
+                    if (hostModel == null) {
+                        throw new FormatException("No such start graph '%s'", this.startGraph);
+                    }
+                    grammarModel.setStartGraph(hostModel.getSource());
+                }
+                grammar = grammarModel.toGrammar();
+            }
+            long searchStart = System.currentTimeMillis();
+            String target = this.params.getProperty(TARGET_KEY, DEADLOCK);
+            boolean deadlock = target.equalsIgnoreCase(DEADLOCK);
+            ArrayList<QualName> properties = getPropertyNames(grammarModel);
+            String text;
+            long states;
+            long fitnessCalls = -1;
+            switch (this.algorithm) {
+            case BFS:
+            case DFS:
+                String acceptor = deadlock ? "final" : "inv:" + target;
+                ExploreType exploreType =
+                    ExploreType.parse(this.algorithm.name().toLowerCase() + " " + acceptor + " 1");
+                GTS gts = new GTS(grammar);
+                Exploration exploration = exploreType.newExploration(gts);
+                exploration.play();
+                GraphState witness = exploration.getResult()
+                    .getLastState();
+                text = witness == null ? null
+                    : VERIFIED + " Target state found in depth:" + getDepth(witness);
+                states = gts.getStateCount();
+                break;
+            case GA:
+            case BOA:
+                ExploringGaBayesNet gaItem = new ExploringGaBayesNet();
+                if (this.algorithm == Algorithm.GA) {
+                    HeuGA ga = new HeuGA();
+                    ga.CountOFpopulation = 40;
+                    ga.Iterations = 100;
+                    ga.DepthOfSearch = 100;
+                    ga.MutationRate = 0.3;
+                    ga.CrossOverRate = 0.6;
+                    setFields(ga, this.params);
+                    ga.callFromHeuGenerator = true;
+                    ga.CTLproperty = "reachability";
+                    ga.ModelCheckingTarget = deadlock ? DEADLOCK : target;
+                    ga.exploreGaBayesNet = gaItem;
+                    text = ga.start(ga.ModelCheckingTarget, this.params.getProperty(TYPE_KEY, "GA"),
+                        this.params.getProperty(SELECTION_KEY, "TRUNC"), 0, null,
+                        grammar, grammarModel);
+                } else {
+                    HeuBOA boa = new HeuBOA();
+                    boa.CountOFpopulation = 40;
+                    boa.Iterations = 100;
+                    boa.DepthOfSearch = 100;
+                    boa.MutationRate = 0.4;
+                    boa.CrossOverRate = 0.5;
+                    setFields(boa, this.params);
+                    boa.callFromHeuGenerator = true;
+                    boa.CTLproperty = "reachability";
+                    boa.ModelCheckingTarget = deadlock ? DEADLOCK : target;
+                    boa.exploreGaBayesNet = gaItem;
+                    text = boa.start(boa.ModelCheckingTarget,
+                        this.params.getProperty(TYPE_KEY, "naiveBOA"),
+                        this.params.getProperty(SELECTION_KEY, "TRUNC"), 0, null,
+                        grammar, grammarModel);
+                }
+                states = gaItem.Number_Explored_States;
+                fitnessCalls = gaItem.Call_Number_Fitness;
+                break;
+            case PSO:
+                HeuPSO pso = new HeuPSO();
+                pso.CountOFpopulation = 40;
+                pso.Iterations = 100;
+                pso.DepthOfSearch = 100;
+                pso.C1 = 2.0;
+                pso.C2 = 2.0;
+                pso.W = 8.0;
+                pso.psoType = this.params.getProperty(TYPE_KEY, pso.psoType);
+                setFields(pso, this.params);
+                pso.callFromHeuGenerator = true;
+                pso.CTLproperty = deadlock ? DEADLOCK : "Reachability";
+                pso.ModelCheckingType = deadlock ? DEADLOCK : target;
+                pso.ModelCheckingTarget = pso.ModelCheckingType;
+                text = pso.start(pso.ModelCheckingTarget, 0, null, grammar, grammarModel);
+                states = pso.exploringItemPSO.Number_Explored_States;
+                fitnessCalls = pso.exploringItemPSO.Call_Number_Fitness;
+                break;
+            case ASTAR:
+            case IDASTAR:
+            case BEAM:
+                HeuIDAstar ida = new HeuIDAstar();
+                setFields(ida, this.params);
+                ida.typeOfAlg = this.algorithm == Algorithm.ASTAR ? "A*"
+                    : this.algorithm == Algorithm.IDASTAR ? "IDA*" : "BeamSearch";
+                ida.callFromHeuGenerator = true;
+                ida.CTLproperty = deadlock ? "deadlock" : "reachability";
+                ida.ModelCheckingTarget = deadlock ? "deadlock" : target;
+                ida.Alltype = properties;
+                text = ida.Explore(getInt(ITERATIONS_KEY, 1), ida.ModelCheckingTarget, 0, null,
+                    this.params.getProperty(TYPE_KEY, "HEU_BLKRULESSTATE"),
+                    grammar, grammarModel);
+                states = ida.exploringItems.Number_Explored_States;
+                break;
+            case LFBFS:
+                HeuLearnFromBFS lfbfs = new HeuLearnFromBFS();
+                setFields(lfbfs, this.params);
+                lfbfs.callFromHeuGenerator = true;
+                lfbfs.CTLproperty = deadlock ? "deadlock" : "reachability";
+                lfbfs.ModelCheckingTarget = deadlock ? "deadlock" : target;
+                lfbfs.Alltype = properties;
+                text = lfbfs.Explore(getInt(ITERATIONS_KEY, 100), getInt(MAX_STATES_KEY, 5000),
+                    lfbfs.ModelCheckingTarget, 0, null, this.params.getProperty(TYPE_KEY, "BN"),
+                    grammar, grammarModel);
+                states = lfbfs.exploringItems.Number_Explored_States;
+                break;
+            case DQN:
+            case DDQN:
+                RL rl = new RL();
+                rl.episodes = 100;
+                rl.fromMaxStep = 100;
+                rl.maxActionOutput = 400;
+                rl.experienceReplayMemorySize = 1000;
+                rl.discountFactor = 0.95f;
+                rl.epsilonMin = 0.2f;
+                rl.epsilonDecay = 0.995f;
+                rl.learningRate = 0.001f;
+                rl.batchSize = 8;
+                rl.rewardType = 1;
+                setFields(rl, this.params);
+                rl.toMaxStep = rl.fromMaxStep;
+                rl.maxStepIncrement = 1;
+                rl.maxStateSize = rl.toMaxStep + 1;
+                rl.targetModelUpdateStep = 1;
+                rl.hiddenLayerCount = 1;
+                if (rl.hiddenLayersNeuronSize == null) {
+                    int size = rl.maxStateSize * 2 / 3;
+                    rl.hiddenLayersNeuronSize = new int[] {size, size, size, size, size};
+                }
+                rl.dqnAgentType = this.algorithm == Algorithm.DQN ? RL.DEEP_Q_NETWORK_AGENT
+                    : RL.DOUBLE_DEEP_Q_NETWORK_AGENT;
+                rl.dqnAgent = rl.dqnAgentType == RL.DEEP_Q_NETWORK_AGENT
+                    ? new DQNAgent(rl.maxStateSize, rl.maxActionOutput,
+                        rl.experienceReplayMemorySize, rl.discountFactor, rl.epsilonMin,
+                        rl.epsilonDecay, rl.learningRate, rl.hiddenLayerCount,
+                        rl.hiddenLayersNeuronSize, rl.memoryType, rl.batchSize)
+                    : new DDQNAgent(rl.maxStateSize, rl.maxActionOutput,
+                        rl.experienceReplayMemorySize, rl.discountFactor, rl.epsilonMin,
+                        rl.epsilonDecay, rl.learningRate, rl.hiddenLayerCount,
+                        rl.hiddenLayersNeuronSize, rl.memoryType, rl.batchSize);
+                rl.callFromHeuGenerator = true;
+                rl.CTLproperty = "reachability";
+                rl.ModelCheckingTarget = target;
+                rl.Alltype = properties;
+                rl.lastTime = this.startTime + rl.timeLimit * 1000L;
+                text = rl.Explore(target, 0, null, grammar, grammarModel);
+                states = rl.exploringItems.Number_Explored_States;
+                break;
+            default:
+                throw new IllegalStateException();
+            }
+            long time = System.currentTimeMillis() - searchStart;
+            if (Thread.currentThread()
+                .isInterrupted()) {
+                return newResult(Status.TIMEOUT, time);
+            }
+            boolean found = text != null && text.startsWith(VERIFIED);
+            return newResult(found ? Status.FOUND : Status.NOT_FOUND, time)
+                .setCounts(found ? getNumber(DEPTH_PATTERN, text) : -1, states, fitnessCalls);
+        }
+
+        /** Creates a result for this search, without search statistics. */
+        Result newResult(Status status, long time) {
+            return new Result(this.algorithm, this.seed, status, time);
+        }
+
+        private int getInt(String key, int defaultValue) {
+            String value = this.params.getProperty(key);
+            return value == null ? defaultValue : Integer.parseInt(value.trim());
+        }
+
+        private final File grammarDir;
+        private final String startGraph;
+        private final Algorithm algorithm;
+        private final Properties params;
+        private final long seed;
+        /** Start time of the search, or {@code 0} if it has not yet started. */
+        volatile long startTime;
+
+        /** Returns the length of the path by which a state was first reached. */
+        private static int getDepth(GraphState state) {
+            int result = 0;
+            while (state instanceof GraphNextState) {
+                state = ((GraphNextState) state).source();
+                result++;
+            }
+            return result;
+        }
+
+        private static long getNumber(Pattern pattern, String text) {
+            Matcher matcher = pattern.matcher(text);
+            return matcher.find() ? Long.parseLong(matcher.group(1)) : -1;
+        }
+
+        private static final String DEADLOCK = "DeadLock";
+        private static final String VERIFIED = "The property is verified.";
+        private static final Pattern DEPTH_PATTERN = Pattern.compile("found in depth:(\\d+)");
+    }
+
+    /** Result of a single search. */
+    static public class Result {
+        Result(Algorithm algorithm, long seed, Status status, long time) {
+            this.algorithm = algorithm;
+            this.seed = seed;
+            this.status = status;
+            this.time = time;
+        }
+
+        /** Sets the search statistics of this result; {@code -1} stands for unknown. */
+        Result setCounts(long depth, long states, long fitnessCalls) {
+            this.depth = depth;
+            this.states = states;
+            this.fitnessCalls = fitnessCalls;
+            return this;
+        }
+
+        /** Sets the message explaining the status of this result. */
+        Result setMessage(String message) {
+            this.message = message;
+            return this;
+        }
+
+        /** Returns the algorithm of the search. */
+        public Algorithm getAlgorithm() {
+            return this.algorithm;
+        }
+
+        /** Returns the random seed of the search. */
+        public long getSeed() {
+            return this.seed;
+        }
+
+        /** Returns the outcome of the search. */
+        public Status getStatus() {
+            return this.status;
+        }
+
+        /** Indicates if the target state was found. */
+        public boolean isFound() {
+            return this.status == Status.FOUND;
+        }
+
+        /** Returns the depth of the target state, or {@code -1} if it was not found. */
+        public long getDepth() {
+            return this.depth;
+        }
+
+        /** Returns the number of explored states, or {@code -1} if unknown. */
+        public long getStates() {
+            return this.states;
+        }
+
+        /** Returns the running time of the search, in milliseconds. */
+        public long getTime() {
+            return this.time;
+        }
+
+        /** Returns the number of fitness function calls, or {@code -1} if not applicable. */
+        public long getFitnessCalls() {
+            return this.fitnessCalls;
+        }
+
+        /** Returns this result as a single-line JSON object. */
+        public String toJSON() {
+            StringWriter result = new StringWriter();
+            result.append(String.format(
+                "{\"algorithm\":\"%s\",\"seed\":%d,\"status\":\"%s\",\"found\":%b,\"depth\":%d,"
+                    + "\"states\":%d,\"time\":%d,\"fitnessCalls\":%d",
+                this.algorithm, this.seed, this.status, isFound(), this.depth, this.states,
+                this.time, this.fitnessCalls));
+            if (this.message != null) {
+                result.append(",\"message\":\"");
+                result.append(this.message.replace("\\", "\\\\")
+                    .replace("\"", "\\\"")
+                    .replaceAll("\\s", " "));
+                result.append('"');
+            }
+            result.append('}');
+            return result.toString();
+        }
+
+        /** Returns this result as a line of comma-separated values; see {@link #CSV_HEADER}. */
+        public String toCSV() {
+            return String.format("%s,%d,%s,%b,%d,%d,%d,%d,\"%s\"", this.algorithm, this.seed,
+                this.status, isFound(), this.depth, this.states, this.time, this.fitnessCalls,
+                this.message == null ? "" : this.message.replace("\"", "\"\""));
+        }
+
+        private final Algorithm algorithm;
+        private final long seed;
+        private final Status status;
+        private final long time;
+        private long depth = -1;
+        private long states = -1;
+        private long fitnessCalls = -1;
+        private String message;
+
+        /** Header line of the CSV output. */
+        public static final String CSV_HEADER =
+            "algorithm,seed,status,found,depth,states,time,fitnessCalls,message";
+    }
+}
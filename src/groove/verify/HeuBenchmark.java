@@ -0,0 +1,318 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.verify;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToLongFunction;
+
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
+
+import groove.util.cli.GrammarHandler;
+import groove.util.cli.GrooveCmdLineTool;
+import groove.verify.HeuBatchRunner.Algorithm;
+import groove.verify.HeuBatchRunner.Result;
+import groove.verify.HeuBatchRunner.Run;
+import groove.verify.HeuBatchRunner.Status;
+
+/**
+ * Benchmark comparing the search algorithms of {@link HeuBatchRunner}
+ * on a number of grammars.
+ * For every grammar and algorithm, a number of warm-up searches is followed
+ * by a number of measured trials, one at a time; trial {@code i} of every
+ * algorithm uses seed {@code seed+i}, so that repeated benchmarks are comparable.
+ * Every trial runs in a thread of its own, which is cut off after a time limit,
+ * and when the heap used by the trial exceeds a memory limit; the next trial
+ * only starts when the thread of the previous one has ended.
+ * Per trial, the benchmark measures the number of explored states, the witness
+ * length (i.e., the depth of the target state), wall time, peak heap usage and
+ * garbage collection time; it reports one summary table per grammar.
+ * The heap usage of a trial is measured relative to the heap in use after
+ * a garbage collection at the start of the trial.
+ * @version $Revision $
+ */
+public class HeuBenchmark extends GrooveCmdLineTool<Object> {
+    /**
+     * Constructs the tool for a given list of command-line arguments.
+     * @param args The command-line arguments.
+     */
+    public HeuBenchmark(String... args) {
+        super("HeuBenchmark", args);
+    }
+
+    @Override
+    protected Object run() throws Exception {
+        Properties params = new Properties();
+        if (this.paramFile != null) {
+            try (InputStream in = new FileInputStream(this.paramFile)) {
+                params.load(in);
+            }
+        }
+        List<Algorithm> algorithms = new ArrayList<>();
+        for (String name : this.algorithms.split(",")) {
+            algorithms.add(Algorithm.valueOf(name.trim()
+                .toUpperCase()));
+        }
+        try (PrintWriter out = this.outFile == null ? null
+            : new PrintWriter(new FileWriter(this.outFile))) {
+            if (out != null) {
+                out.println("grammar," + Result.CSV_HEADER + ",peakHeap,gcTime");
+            }
+            for (File grammarDir : this.grammarDirs) {
+                List<List<Trial>> table = new ArrayList<>();
+                for (Algorithm algorithm : algorithms) {
+                    List<Trial> trials = new ArrayList<>();
+                    for (int i = 0; i < this.warmups; i++) {
+                        measure(new Run(grammarDir, this.startGraph, algorithm, params,
+                            this.seed + i));
+                    }
+                    for (int i = 0; i < this.trials; i++) {
+                        Trial trial = measure(new Run(grammarDir, this.startGraph, algorithm,
+                            params, this.seed + i));
+                        trials.add(trial);
+                        if (out != null) {
+                            out.printf("%s,%s,%d,%d%n", grammarDir.getName(), trial.result.toCSV(),
+                                trial.peakHeap, trial.gcTime);
+                            out.flush();
+                        }
+                    }
+                    table.add(trials);
+                }
+                emitTable(grammarDir, algorithms, table);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Executes a single search in a fresh thread, while watching
+     * its running time and the heap it uses.
+     * Returns only after the thread has ended.
+     */
+    private Trial measure(Run run) throws InterruptedException {
+        System.gc();
+        long baseHeap = getUsedHeap();
+        for (MemoryPoolMXBean pool : getHeapPools()) {
+            pool.resetPeakUsage();
+        }
+        long gcStart = getGCTime();
+        long timeLimit = this.timeLimit * 1000L;
+        long memLimit = this.memLimit * MB;
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+            Thread result = new Thread(r, "HeuBenchmark");
+            result.setDaemon(true);
+            return result;
+        });
+        Future<Result> future = executor.submit(run);
+        executor.shutdown();
+        Result result = null;
+        while (result == null) {
+            try {
+                result = future.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException exc) {
+                if (run.startTime == 0) {
+                    continue;
+                }
+                long time = System.currentTimeMillis() - run.startTime;
+                if (timeLimit > 0 && time >= timeLimit) {
+                    future.cancel(true);
+                    result = run.newResult(Status.TIMEOUT, time);
+                } else if (memLimit > 0 && getUsedHeap() - baseHeap > memLimit) {
+                    future.cancel(true);
+                    result = run.newResult(Status.MEMOUT, time);
+                }
+            } catch (ExecutionException exc) {
+                result = run.newResult(Status.ERROR, System.currentTimeMillis() - run.startTime)
+                    .setMessage(exc.getCause()
+                        .toString());
+            }
+        }
+        // a cancelled search should not compete with the next trial
+        executor.shutdownNow();
+        long grace = Math.max(timeLimit, MIN_GRACE_PERIOD);
+        if (!executor.awaitTermination(grace, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException(String.format(
+                "%s search with seed %d does not respond to cancellation; benchmark aborted",
+                result.getAlgorithm(), result.getSeed()));
+        }
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : getHeapPools()) {
+            peakHeap += pool.getPeakUsage()
+                .getUsed();
+        }
+        return new Trial(result, Math.max(0, peakHeap - baseHeap), getGCTime() - gcStart);
+    }
+
+    /** Returns the currently used heap, in bytes. */
+    private static long getUsedHeap() {
+        return ManagementFactory.getMemoryMXBean()
+            .getHeapMemoryUsage()
+            .getUsed();
+    }
+
+    /** Emits the summary table of all trials on a given grammar. */
+    private void emitTable(File grammarDir, List<Algorithm> algorithms, List<List<Trial>> table) {
+        emit("%nGrammar %s (%d trials, seeds %d-%d)%n", grammarDir.getName(), this.trials,
+            this.seed, this.seed + this.trials - 1);
+        emit("%-10s %6s %6s %6s %10s %8s %10s %10s %8s%n", "Algorithm", "Found", "Limit",
+            "Error", "States", "Witness", "Time(ms)", "Heap(MB)", "GC(ms)");
+        for (int i = 0; i < algorithms.size(); i++) {
+            List<Trial> trials = table.get(i);
+            emit("%-10s %6d %6d %6d %10d %8d %10d %10d %8d%n", algorithms.get(i),
+                count(trials, Status.FOUND), count(trials, Status.TIMEOUT, Status.MEMOUT),
+                count(trials, Status.ERROR, Status.UNSUPPORTED),
+                median(trials, t -> t.result.getStates()),
+                median(trials, t -> t.result.getDepth()), median(trials, t -> t.result.getTime()),
+                median(trials, t -> t.peakHeap) / MB, median(trials, t -> t.gcTime));
+        }
+        emit("Limit: cut off by the time or memory limit; medians over all trials, -1 if unknown%n");
+    }
+
+    /** Returns the number of trials with one of a given set of statuses. */
+    private static int count(List<Trial> trials, Status... statuses) {
+        int result = 0;
+        for (Trial trial : trials) {
+            for (Status status : statuses) {
+                if (trial.result.getStatus() == status) {
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the median of a given measurement over the trials
+     * for which it is known, or {@code -1} if there are none.
+     */
+    private static long median(List<Trial> trials, ToLongFunction<Trial> measure) {
+        List<Long> values = new ArrayList<>();
+        for (Trial trial : trials) {
+            long value = measure.applyAsLong(trial);
+            if (value >= 0) {
+                values.add(value);
+            }
+        }
+        if (values.isEmpty()) {
+            return -1;
+        }
+        Collections.sort(values);
+        return values.get(values.size() / 2);
+    }
+
+    /** Returns the accumulated collection time of all garbage collectors. */
+    private static long getGCTime() {
+        long result = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result += Math.max(0, gc.getCollectionTime());
+        }
+        return result;
+    }
+
+    /** Returns the memory pools of the heap. */
+    private static List<MemoryPoolMXBean> getHeapPools() {
+        List<MemoryPoolMXBean> result = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                result.add(pool);
+            }
+        }
+        return result;
+    }
+
+    @Argument(metaVar = GrammarHandler.META_VAR, required = true, multiValued = true,
+        usage = "Grammar locations (default extension .gps)", handler = GrammarHandler.class)
+    private List<File> grammarDirs;
+    @Option(name = "-a", metaVar = "algs",
+        usage = "Comma-separated list of algorithms (default BFS,DFS,GA,PSO,BOA,ASTAR,BEAM,DQN,DDQN)")
+    private String algorithms = "BFS,DFS,GA,PSO,BOA,ASTAR,BEAM,DQN,DDQN";
+    @Option(name = "-s", metaVar = "name", usage = "Name of the start graph (default: grammar default)")
+    private String startGraph;
+    @Option(name = "-p", metaVar = "file",
+        usage = "Properties file with the algorithm parameters; see HeuBatchRunner")
+    private File paramFile;
+    @Option(name = "-seed", metaVar = "num", usage = "Seed of the first trial (default 0)")
+    private long seed;
+    @Option(name = "-trials", metaVar = "num", usage = "Number of measured trials (default 5)")
+    private int trials = 5;
+    @Option(name = "-warmup", metaVar = "num", usage = "Number of warm-up searches (default 1)")
+    private int warmups = 1;
+    @Option(name = "-limit", metaVar = "sec", usage = "Time limit per search in seconds (default 60)")
+    private int timeLimit = 60;
+    @Option(name = "-mem", metaVar = "MB",
+        usage = "Limit on the used heap during a search in MB (default 0: none)")
+    private long memLimit;
+    @Option(name = "-o", metaVar = "file", usage = "CSV file receiving the results of all trials")
+    private File outFile;
+
+    /** Polling interval for the time and memory limits, in milliseconds. */
+    private static final long POLL_INTERVAL = 50;
+    /** Minimal time a cancelled search is given to end, in milliseconds. */
+    private static final long MIN_GRACE_PERIOD = 10000;
+    private static final long MB = 1024 * 1024;
+
+    /**
+     * Constructs and invokes the tool.
+     * Always ends with {@link System#exit(int)};
+     * prefer {@link #execute(String[])} for programmatic use.
+     * @param args The command-line arguments.
+     */
+    public static void main(String[] args) {
+        tryExecute(HeuBenchmark.class, args);
+    }
+
+    /**
+     * Constructs and invokes the tool programmatically.
+     * @param args The command-line arguments.
+     */
+    public static void execute(String[] args) throws Exception {
+        new HeuBenchmark(args).start();
+    }
+
+    /** Measurements of a single trial. */
+    private static class Trial {
+        Trial(Result result, long peakHeap, long gcTime) {
+            this.result = result;
+            this.peakHeap = peakHeap;
+            this.gcTime = gcTime;
+        }
+
+        final Result result;
+        /** Peak heap usage of the trial in bytes. */
+        final long peakHeap;
+        /** Garbage collection time in milliseconds. */
+        final long gcTime;
+    }
+}
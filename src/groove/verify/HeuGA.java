@@ -26,6 +26,7 @@ import groove.gui.action.HeuGAExploreAction;
 import groove.gui.display.DisplayKind;
 import groove.gui.display.LTSDisplay;
 import groove.lts.GTS;
+import groove.lts.GTSPool;
 import groove.lts.GraphState;
 import groove.util.parse.FormatException;
 import groove.verify.ExploringGaBayesNet.Chromosome;
@@ -50,8 +51,20 @@ public class HeuGA{
         
 	}
 	
-	@SuppressWarnings("unlikely-arg-type")
+	/**
+	 * Runs the search. When the search is done, the warm GTS that the pool
+	 * keeps for the calling thread is released.
+	 */
 	public String start(String targetRule,String GAType,String SelectionType,int RulesCount,ArrayList<QualName> RulesName,Grammar grammer,GrammarModel grammermodel){
+		try {
+			return doStart(targetRule, GAType, SelectionType, RulesCount, RulesName, grammer, grammermodel);
+		} finally {
+			this.gtsPool.release();
+		}
+	}
+
+	@SuppressWarnings("unlikely-arg-type")
+	private String doStart(String targetRule,String GAType,String SelectionType,int RulesCount,ArrayList<QualName> RulesName,Grammar grammer,GrammarModel grammermodel){
 		
 		
 		
@@ -130,7 +143,7 @@ public class HeuGA{
 			}else{
 				GTS gts=null;
 				try {
-					gts = new GTS(grammer);
+					gts = this.gtsPool.acquire(grammer);
 				} catch (FormatException e) {
 					// TODO Auto-generated catch block
 					e.printStackTrace();
@@ -311,7 +324,7 @@ public class HeuGA{
 				if(exploreGaBayesNet.heuristicResult==null) 
 					sortPopulation(exploreGaBayesNet);
 				if(!exploreGaBayesNet.ModelCheckingTarget.equals("DeadLock") && exploreGaBayesNet.heuristicResult==null ){ ////Reachability
-					for (int iter = 0; iter <= exploreGaBayesNet.Iterations-1 && exploreGaBayesNet.heuristicResult==null ; iter++){
+					for (int iter = 0; iter <= exploreGaBayesNet.Iterations-1 && exploreGaBayesNet.heuristicResult==null && !Thread.currentThread().isInterrupted() ; iter++){
 						 exploreGaBayesNet.First_Found_Dead_Rep++; 
 						 Crossover(exploreGaBayesNet,exploreGaBayesNet.CrossOverRate);
 			    		 Mutate(exploreGaBayesNet,exploreGaBayesNet.MutationRate);
@@ -347,7 +360,7 @@ public class HeuGA{
 				    }	
 	    		
 				}else{
-					for (int iter = 0; iter <= exploreGaBayesNet.Iterations-1 && exploreGaBayesNet.heuristicResult==null ; iter++){
+					for (int iter = 0; iter <= exploreGaBayesNet.Iterations-1 && exploreGaBayesNet.heuristicResult==null && !Thread.currentThread().isInterrupted() ; iter++){
 						 exploreGaBayesNet.First_Found_Dead_Rep++; 
 						 Crossover(exploreGaBayesNet,exploreGaBayesNet.CrossOverRate);
 			    		 Mutate(exploreGaBayesNet,exploreGaBayesNet.MutationRate);
@@ -454,7 +467,7 @@ public class HeuGA{
 	    	}else{
 	    		GTS gts=null;
 				try {
-					gts = new GTS(exploreGaBayesNet.grammer);
+					gts = this.gtsPool.acquire(exploreGaBayesNet.grammer);
 				} catch (FormatException e) {
 					// TODO Auto-generated catch block
 					e.printStackTrace();
@@ -483,7 +496,7 @@ public class HeuGA{
  	    	}else{
  	    		GTS gts=null;
 				try {
-					gts = new GTS(exploreGaBayesNet.grammer);
+					gts = this.gtsPool.acquire(exploreGaBayesNet.grammer);
 				} catch (FormatException e) {
 					// TODO Auto-generated catch block
 					e.printStackTrace();
@@ -581,13 +594,13 @@ public class HeuGA{
 	}
     private int GetRandomVal(int min, int max)
     {
-         return  (int) (min + Math.random() * (max - min));
+         return  (int) (min + HeuRandom.nextDouble() * (max - min));
    }
 	private Chromosome AssayRuletteWheel(ExploringGaBayesNet exploreGaBayesNet)
     {
 		
         Chromosome selection = exploreGaBayesNet.population.get(0);
-        double probability = Math.random();
+        double probability = HeuRandom.nextDouble();
         for (int i = 0; i < exploreGaBayesNet.population.size(); i++)
         {
             selection = exploreGaBayesNet.population.get(i);
@@ -599,7 +612,7 @@ public class HeuGA{
     }
 	private boolean Assay(double probability)
     {
-        if (Math.random()< probability)
+        if (HeuRandom.nextDouble()< probability)
             return true;
         else
             return false;
@@ -688,6 +701,8 @@ public class HeuGA{
 	}
 	 
 	public Simulator simulator;
+	/** Warm GTSs reused across the runs of a headless search. */
+	private final GTSPool gtsPool=new GTSPool();
 	public String HostGraphName;
 	public String ModelCheckingType;
 	public String ModelCheckingTarget;
@@ -24,6 +24,7 @@ import groove.gui.Simulator;
 import groove.gui.SimulatorModel;
 import groove.gui.action.HeuIDAstarExploreAction;
 import groove.lts.GTS;
+import groove.lts.GTSPool;
 import groove.util.parse.FormatException;
 
 
@@ -47,7 +48,19 @@ public class HeuIDAstar{
         
 	}
 	
+	/**
+	 * Runs the search. When the search is done, the warm GTS that the pool
+	 * keeps for the calling thread is released.
+	 */
 	public String Explore(int iterations,String targetRule,int RulesCount,ArrayList<QualName> RulesName, String typeOfHeuristic,Grammar grammer,GrammarModel grammermodel){
+		try {
+			return doExplore(iterations, targetRule, RulesCount, RulesName, typeOfHeuristic, grammer, grammermodel);
+		} finally {
+			this.gtsPool.release();
+		}
+	}
+
+	private String doExplore(int iterations,String targetRule,int RulesCount,ArrayList<QualName> RulesName, String typeOfHeuristic,Grammar grammer,GrammarModel grammermodel){
 		
 			
 			if(!callFromHeuGenerator){
@@ -119,6 +132,8 @@ public class HeuIDAstar{
 			}else{
 				GTS gts=null;
 				try {
+					// not taken from the pool: this GTS is kept as the learning GTS,
+					// while the pooled GTS is reset for every subsequent run
 					gts = new GTS(grammer);
 				} catch (FormatException e) {
 					// do nothing
@@ -289,7 +304,7 @@ public class HeuIDAstar{
 		    		
 		    		GTS gts=null;
 					try {
-						gts = new GTS(exploringItems.grammer);
+						gts = this.gtsPool.acquire(exploringItems.grammer);
 					} catch (FormatException e) {
 						// do nothing
 						e.printStackTrace();
@@ -347,6 +362,8 @@ public class HeuIDAstar{
 			
 	
 	public Simulator simulator;
+	/** Warm GTSs reused across the runs of a headless search. */
+	private final GTSPool gtsPool=new GTSPool();
 	public String HostGraphName;
 	public String ModelCheckingType;
 	public String ModelCheckingTarget;
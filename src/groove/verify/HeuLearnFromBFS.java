@@ -22,6 +22,7 @@ import groove.gui.Simulator;
 import groove.gui.SimulatorModel;
 import groove.gui.action.HeuLearnFromBFSExploreAction;
 import groove.lts.GTS;
+import groove.lts.GTSPool;
 import groove.util.parse.FormatException;
 /**
  *  @author Einollah Pira & Vahid Rafe
@@ -44,7 +45,19 @@ public class HeuLearnFromBFS{
         
 	}
 	
+	/**
+	 * Runs the search. When the search is done, the warm GTS that the pool
+	 * keeps for the calling thread is released.
+	 */
 	public String Explore(int iterations,int maxNumberOfStates,String targetRule,int RulesCount,ArrayList<QualName> RulesName, String typeOfLearn,Grammar grammer,GrammarModel grammermodel){
+		try {
+			return doExplore(iterations, maxNumberOfStates, targetRule, RulesCount, RulesName, typeOfLearn, grammer, grammermodel);
+		} finally {
+			this.gtsPool.release();
+		}
+	}
+
+	private String doExplore(int iterations,int maxNumberOfStates,String targetRule,int RulesCount,ArrayList<QualName> RulesName, String typeOfLearn,Grammar grammer,GrammarModel grammermodel){
 		
 			
 			if(!callFromHeuGenerator){
@@ -116,6 +129,8 @@ public class HeuLearnFromBFS{
 			}else{
 				GTS gts=null;
 				try {
+					// not taken from the pool: this GTS is kept as the learning GTS,
+					// while the pooled GTS is reset for every subsequent run
 					gts = new GTS(grammer);
 				} catch (FormatException e) {
 					// do nothing
@@ -308,7 +323,7 @@ public class HeuLearnFromBFS{
 		    		
 		    		GTS gts=null;
 					try {
-						gts = new GTS(exploringItems.grammer);
+						gts = this.gtsPool.acquire(exploringItems.grammer);
 					} catch (FormatException e) {
 						// do nothing
 						e.printStackTrace();
@@ -357,6 +372,8 @@ public class HeuLearnFromBFS{
 			
 	
 	public Simulator simulator;
+	/** Warm GTSs reused across the runs of a headless search. */
+	private final GTSPool gtsPool=new GTSPool();
 	public String HostGraphName;
 	public String ModelCheckingType;
 	public String ModelCheckingTarget;
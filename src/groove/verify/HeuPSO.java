@@ -29,6 +29,7 @@ import groove.gui.action.HeuPSOExploreAction;
 import groove.gui.display.DisplayKind;
 import groove.gui.display.LTSDisplay;
 import groove.lts.GTS;
+import groove.lts.GTSPool;
 import groove.lts.GraphState;
 import groove.util.parse.FormatException;
 
@@ -53,7 +54,19 @@ public class HeuPSO{
         
 	}
 	
+	/**
+	 * Runs the search. When the search is done, the warm GTS that the pool
+	 * keeps for the calling thread is released.
+	 */
 	public String start(String targetRule,int RulesCount,ArrayList<QualName> RulesName,Grammar grammer,GrammarModel grammermodel){
+		try {
+			return doStart(targetRule, RulesCount, RulesName, grammer, grammermodel);
+		} finally {
+			this.gtsPool.release();
+		}
+	}
+
+	private String doStart(String targetRule,int RulesCount,ArrayList<QualName> RulesName,Grammar grammer,GrammarModel grammermodel){
 		
 		
 		
@@ -131,7 +144,7 @@ public class HeuPSO{
 			}else{
 				GTS gts=null;
 				try {
-					gts = new GTS(grammer);
+					gts = this.gtsPool.acquire(grammer);
 				} catch (FormatException e) {
 					e.printStackTrace();
 				}
@@ -281,7 +294,7 @@ public class HeuPSO{
 					}
 				}
 				if(!exploringItemPSO.ModelCheckingTarget.equals("DeadLock") && exploringItemPSO.heuristicResult==null ){ ////Reachability
-					for (int iter = 0; iter <= exploringItemPSO.Iterations-1 && exploringItemPSO.heuristicResult==null ; iter++){
+					for (int iter = 0; iter <= exploringItemPSO.Iterations-1 && exploringItemPSO.heuristicResult==null && !Thread.currentThread().isInterrupted() ; iter++){
 						copy_AllgenesTolocs(exploringItemPSO);
 						// step 1 - update pBest
 						Update_pBest(exploringItemPSO);
@@ -298,7 +311,7 @@ public class HeuPSO{
 				    }	
 	    		
 				}else{
-					for (int iter = 0; iter <= exploringItemPSO.Iterations-1 && exploringItemPSO.heuristicResult==null ; iter++){
+					for (int iter = 0; iter <= exploringItemPSO.Iterations-1 && exploringItemPSO.heuristicResult==null && !Thread.currentThread().isInterrupted() ; iter++){
 						copy_AllgenesTolocs(exploringItemPSO);
 						// step 1 - update pBest
 						Update_pBest(exploringItemPSO);
@@ -333,7 +346,7 @@ public class HeuPSO{
 					}
 				}
 				if(!exploringItemPSO.ModelCheckingTarget.equals("DeadLock") && exploringItemPSO.heuristicResult==null ){ ////Reachability
-					for (int iter = 0; iter <= exploringItemPSO.Iterations-1 && exploringItemPSO.heuristicResult==null ; iter++){
+					for (int iter = 0; iter <= exploringItemPSO.Iterations-1 && exploringItemPSO.heuristicResult==null && !Thread.currentThread().isInterrupted() ; iter++){
 												
 						exploringItemPSO.G=1*Math.exp(-23*iter/exploringItemPSO.Iterations);
 						
@@ -352,7 +365,7 @@ public class HeuPSO{
 				    }	
 	    		
 				}else{
-					for (int iter = 0; iter <= exploringItemPSO.Iterations-1 && exploringItemPSO.heuristicResult==null ; iter++){
+					for (int iter = 0; iter <= exploringItemPSO.Iterations-1 && exploringItemPSO.heuristicResult==null && !Thread.currentThread().isInterrupted() ; iter++){
 
 						exploringItemPSO.G=1*Math.exp(-23*iter/exploringItemPSO.Iterations);
 						
@@ -477,8 +490,8 @@ public class HeuPSO{
 	private void Update_velocity_location(ExploringItemPSO exploringItemPSO,int t,int MAX_ITERATION){
 		double w = 0.9 - (((double) t) / MAX_ITERATION) * (0.9 - 0.4);
 		for(int i=0; i<exploringItemPSO.CountOFpopulation; i++) {
-			double r1 = Math.random();
-			double r2 = Math.random();
+			double r1 = HeuRandom.nextDouble();
+			double r2 = HeuRandom.nextDouble();
 			ExploringItemPSO.Particle p = exploringItemPSO.population.get(i);
 			
 			// update velocity
@@ -558,7 +571,7 @@ public class HeuPSO{
 	    	}else{
 	    		GTS gts=null;
 				try {
-					gts = new GTS(exploringItemPSO.grammer);
+					gts = this.gtsPool.acquire(exploringItemPSO.grammer);
 				} catch (FormatException e) {
 					e.printStackTrace();
 				}
@@ -629,7 +642,7 @@ public class HeuPSO{
 					ExploringItemPSO.Particle particleK=exploringItemPSO.population.get(k);
 					if(j<particleI.location.loc.length && j<particleK.location.loc.length && j<particleI.force.frc.length)
 						if(particleI.location.loc[j]!=particleK.location.loc[j]){
-							particleI.force.frc[j]+=Math.random()*exploringItemPSO.G*particleK.mass*(particleK.location.loc[j]-particleI.location.loc[j])/Math.abs((particleK.location.loc[j]-particleI.location.loc[j]));
+							particleI.force.frc[j]+=HeuRandom.nextDouble()*exploringItemPSO.G*particleK.mass*(particleK.location.loc[j]-particleI.location.loc[j])/Math.abs((particleK.location.loc[j]-particleI.location.loc[j]));
 						}
 				}
 		}
@@ -670,7 +683,7 @@ public class HeuPSO{
 			ExploringItemPSO.Particle particle=exploringItemPSO.population.get(i);
 			for(int j=1;j<=dim-1;j++)
 				if(j<particle.velocity.vel.length && j<particle.acceleration.acc.length && j<exploringItemPSO.gBestLocation.loc.length && j<particle.location.loc.length)
-					particle.velocity.vel[j]=(int)(Math.random()*particle.velocity.vel[j]+exploringItemPSO.C1*Math.random()*particle.acceleration.acc[j]+ exploringItemPSO.C2*Math.random()*(exploringItemPSO.gBestLocation.loc[j]-particle.location.loc[j]));
+					particle.velocity.vel[j]=(int)(HeuRandom.nextDouble()*particle.velocity.vel[j]+exploringItemPSO.C1*HeuRandom.nextDouble()*particle.acceleration.acc[j]+ exploringItemPSO.C2*HeuRandom.nextDouble()*(exploringItemPSO.gBestLocation.loc[j]-particle.location.loc[j]));
 		}
 		//Location Update
 		// current_position = current_position + velocity 
@@ -704,7 +717,7 @@ public class HeuPSO{
 	    	}else{
 	    		GTS gts=null;
 				try {
-					gts = new GTS(exploringItemPSO.grammer);
+					gts = this.gtsPool.acquire(exploringItemPSO.grammer);
 				} catch (FormatException e) {
 					e.printStackTrace();
 				}
@@ -766,7 +779,7 @@ public class HeuPSO{
  	    	}else{
  	    		GTS gts=null;
 				try {
-					gts = new GTS(exploringItemPSO.grammer);
+					gts = this.gtsPool.acquire(exploringItemPSO.grammer);
 				} catch (FormatException e) {
 					e.printStackTrace();
 				}
@@ -787,7 +800,7 @@ public class HeuPSO{
 	
     private int GetRandomVal(int min, int max)
     {
-         return  (int) (min + Math.random() * (max - min));
+         return  (int) (min + HeuRandom.nextDouble() * (max - min));
     }
 	
 	private void sortPopulation(ExploringItemPSO exploringItemPSO){
@@ -837,6 +850,8 @@ public class HeuPSO{
 	
 	
 	public Simulator simulator;
+	/** Warm GTSs reused across the runs of a headless search. */
+	private final GTSPool gtsPool=new GTSPool();
 	public String HostGraphName;
 	public String ModelCheckingType;
 	public String ModelCheckingTarget;
@@ -0,0 +1,54 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.verify;
+
+import java.util.Random;
+
+/**
+ * Source of randomness for the heuristic model checkers.
+ * Every thread has its own generator, which is unseeded unless
+ * {@link #setSeed(long)} is called; this allows independent runs
+ * with different seeds to execute in parallel.
+ * @version $Revision $
+ */
+public class HeuRandom {
+    private HeuRandom() {
+        // static methods only
+    }
+
+    /** Returns the random generator of the calling thread. */
+    public static Random get() {
+        return random.get();
+    }
+
+    /** Replaces the generator of the calling thread by one with a given seed. */
+    public static void setSeed(long seed) {
+        random.set(new Random(seed));
+    }
+
+    /**
+     * Returns the next random value in the interval {@code [0,1)}
+     * from the generator of the calling thread.
+     * This replaces {@link Math#random()} in the heuristic code.
+     */
+    public static double nextDouble() {
+        return random.get()
+            .nextDouble();
+    }
+
+    private static final ThreadLocal<Random> random = ThreadLocal.withInitial(Random::new);
+}
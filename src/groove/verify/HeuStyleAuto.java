@@ -652,7 +652,7 @@ public class HeuStyleAuto{
 		
 		
 		
-		if(Math.random()<=0.5){    ///////////item.allAsEdgeOut//////////////
+		if(HeuRandom.nextDouble()<=0.5){    ///////////item.allAsEdgeOut//////////////
 			////	
 			for(int j=0;j<=item.allAsEdgeOut.size()-1;j++){
 				if(item.allAsEdgeOutISvisited.get(j)==false){
@@ -1393,7 +1393,7 @@ public class HeuStyleAuto{
 	
 	private int GetRandomVal(int min, int max)
     {
-         return  (int) (min + Math.random() * (max - min));
+         return  (int) (min + HeuRandom.nextDouble() * (max - min));
    }
 	
 	 private ArrayList<String> removeRepeatRules(ArrayList<String> allRulesNames){
@@ -0,0 +1,663 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.verify;
+
+import static groove.verify.Proposition.Kind.LABEL;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import groove.explore.util.LTSLabels.Flag;
+import groove.lts.GraphState;
+import groove.lts.GraphTransition;
+
+/**
+ * On-the-fly variant of the {@link CTLMarker}, which evaluates a CTL formula
+ * while the state space is being explored, rather than afterwards.
+ * The marker is fed the states, transitions and state closures of the
+ * exploration, and keeps a three-valued verdict (unknown, true or false)
+ * per state and subformula. Every event causes a local re-evaluation of the
+ * affected pairs, which is propagated to the predecessors of a state
+ * as soon as a verdict becomes known; for the temporal operators, the
+ * number of successors with a known verdict is counted per state.
+ * <p>
+ * A verdict that depends on a cycle of undecided states (for the
+ * least fixpoints {@code E[φ U ψ]} and {@code A[φ U ψ]}) can only be
+ * established once the state space is complete; see {@link #complete()}.
+ * @version $Revision $
+ */
+public class OnTheFlyCTLMarker {
+    /**
+     * Constructs a marker for a given CTL formula, in which the
+     * {@code EF}, {@code AF}, {@code EG} and {@code AG} operators
+     * have been rewritten (see {@link Formula#toCtlFormula()}).
+     */
+    public OnTheFlyCTLMarker(Formula formula) {
+        this.formula = formula;
+        this.root = register(formula);
+        int count = this.ops.size();
+        this.values = new byte[count][INIT_SIZE];
+        this.trueCounts = new int[count][];
+        this.falseCounts = new int[count][];
+        this.parents = new int[count][];
+        this.predParents = new int[count][];
+        List<List<Integer>> parents = new ArrayList<>();
+        List<List<Integer>> predParents = new ArrayList<>();
+        for (int f = 0; f < count; f++) {
+            parents.add(new ArrayList<Integer>());
+            predParents.add(new ArrayList<Integer>());
+        }
+        for (int f = 0; f < count; f++) {
+            Op op = this.ops.get(f);
+            int arg1 = this.args1.get(f);
+            int arg2 = this.args2.get(f);
+            switch (op) {
+            case EX:
+            case AX:
+                predParents.get(arg1)
+                    .add(f);
+                break;
+            case EU:
+            case AU:
+                predParents.get(f)
+                    .add(f);
+                break;
+            default:
+                // no successor dependencies
+            }
+            if (op.isTemporal()) {
+                this.trueCounts[f] = new int[INIT_SIZE];
+                this.falseCounts[f] = new int[INIT_SIZE];
+            }
+            if (arg1 >= 0) {
+                parents.get(arg1)
+                    .add(f);
+            }
+            if (arg2 >= 0 && arg2 != arg1) {
+                parents.get(arg2)
+                    .add(f);
+            }
+        }
+        for (int f = 0; f < count; f++) {
+            this.parents[f] = toArray(parents.get(f));
+            this.predParents[f] = toArray(predParents.get(f));
+        }
+    }
+
+    /** Returns the formula checked by this marker. */
+    public Formula getFormula() {
+        return this.formula;
+    }
+
+    /**
+     * Registers a (state) formula and its subformulas, and returns its index.
+     * Subformulas are numbered before their parents.
+     */
+    private int register(Formula formula) {
+        Integer result = this.formulaNr.get(formula);
+        if (result != null) {
+            return result;
+        }
+        Op op;
+        int arg1 = -1;
+        int arg2 = -1;
+        switch (formula.getOp()) {
+        case TRUE:
+            op = Op.TRUE;
+            break;
+        case FALSE:
+            op = Op.FALSE;
+            break;
+        case PROP:
+            Flag flag = CTLMarker.formulaFlag.get(formula);
+            op = flag == null ? Op.PROP : Op.FLAG;
+            break;
+        case NOT:
+            op = Op.NOT;
+            arg1 = register(formula.getArg1());
+            break;
+        case OR:
+        case AND:
+        case IMPLIES:
+        case EQUIV:
+            op = Op.valueOf(formula.getOp()
+                .name());
+            arg1 = register(formula.getArg1());
+            arg2 = register(formula.getArg2());
+            break;
+        case FOLLOWS:
+            op = Op.IMPLIES;
+            arg1 = register(formula.getArg2());
+            arg2 = register(formula.getArg1());
+            break;
+        case EXISTS:
+        case FORALL:
+            boolean exists = formula.getOp() == LogicOp.EXISTS;
+            Formula path = formula.getArg1();
+            switch (path.getOp()) {
+            case NEXT:
+                op = exists ? Op.EX : Op.AX;
+                arg1 = register(path.getArg1());
+                break;
+            case UNTIL:
+                op = exists ? Op.EU : Op.AU;
+                arg1 = register(path.getArg1());
+                arg2 = register(path.getArg2());
+                break;
+            default:
+                throw new UnsupportedOperationException(String.format(
+                    "The construction %s%s should have been rewritten", formula.getOp()
+                        .getSymbol(), path.getOp()
+                            .getSymbol()));
+            }
+            break;
+        default:
+            throw new IllegalArgumentException(
+                String.format("Formula '%s' is not a CTL formula", formula.getParseString()));
+        }
+        result = this.ops.size();
+        this.ops.add(op);
+        this.args1.add(arg1);
+        this.args2.add(arg2);
+        this.formulaNr.put(formula, result);
+        if (op == Op.PROP) {
+            this.propFormulas.put(formula.getProp(), result);
+        } else if (op == Op.FLAG) {
+            this.flags.put(result, CTLMarker.formulaFlag.get(formula));
+        }
+        return result;
+    }
+
+    /**
+     * Notifies the marker of a new state.
+     * @param state the new state
+     * @param start flag indicating if this is the start state of the exploration
+     */
+    public void addState(GraphState state, boolean start) {
+        int s = state.getNumber();
+        if (this.known.get(s)) {
+            return;
+        }
+        this.known.set(s);
+        if (start && this.startNr < 0) {
+            this.startNr = s;
+        }
+        ensureCapacity(s);
+        this.stateCount++;
+        for (int f = 0; f < this.ops.size(); f++) {
+            switch (this.ops.get(f)) {
+            case TRUE:
+                setValue(s, f, TRUE);
+                break;
+            case FALSE:
+                setValue(s, f, FALSE);
+                break;
+            case FLAG:
+                switch (this.flags.get(f)) {
+                case START:
+                    setValue(s, f, start ? TRUE : FALSE);
+                    break;
+                case RESULT:
+                    // there is no separate result; the verdict itself is the result
+                    setValue(s, f, FALSE);
+                    break;
+                default:
+                    // decided when the state is closed
+                }
+                break;
+            default:
+                // decided by transitions and closure
+            }
+        }
+        propagate();
+    }
+
+    /**
+     * Notifies the marker of a new transition. The source and target
+     * state should have been added before.
+     */
+    public void addTransition(GraphTransition transition) {
+        int s = transition.source()
+            .getNumber();
+        int t = transition.target()
+            .getNumber();
+        if (!this.known.get(s) || !this.known.get(t)) {
+            return;
+        }
+        // record the predecessor
+        int[] preds = this.preds[t];
+        int predCount = this.predCounts[t];
+        if (preds == null) {
+            preds = this.preds[t] = new int[2];
+        } else if (predCount == preds.length) {
+            preds = this.preds[t] = Arrays.copyOf(preds, 2 * predCount);
+        }
+        preds[predCount] = s;
+        this.predCounts[t]++;
+        this.edgeCounts[s]++;
+        if (this.closed.get(s) && this.edgeCounts[s] > this.outCounts[s]) {
+            this.outCounts[s] = this.edgeCounts[s];
+        }
+        // the propositions expressed by the label
+        for (int f : getLabelProps(transition.label()
+            .text())) {
+            setValue(s, f, TRUE);
+        }
+        // count the target verdicts for the temporal operators
+        for (int f = 0; f < this.ops.size(); f++) {
+            Op op = this.ops.get(f);
+            if (op.isTemporal()) {
+                int dep = op.isUntil() ? f : this.args1.get(f);
+                count(s, f, this.values[dep][t]);
+            }
+        }
+        propagate();
+    }
+
+    /**
+     * Notifies the marker that a given state is closed, meaning that
+     * its set of outgoing transitions is determined.
+     * Some of these transitions may still be added after this call;
+     * verdicts that depend on all successors wait for them.
+     */
+    public void closeState(GraphState state) {
+        int s = state.getNumber();
+        if (!this.known.get(s) || this.closed.get(s)) {
+            return;
+        }
+        this.closed.set(s);
+        Set<? extends GraphTransition> transitions = state.getTransitions();
+        this.outCounts[s] = Math.max(this.edgeCounts[s], transitions.size());
+        // the propositions expressed by transitions that have not yet been added
+        for (GraphTransition trans : transitions) {
+            for (int f : getLabelProps(trans.label()
+                .text())) {
+                setValue(s, f, TRUE);
+            }
+        }
+        for (int f = 0; f < this.ops.size(); f++) {
+            switch (this.ops.get(f)) {
+            case PROP:
+                if (this.values[f][s] == UNKNOWN) {
+                    setValue(s, f, FALSE);
+                }
+                break;
+            case FLAG:
+                switch (this.flags.get(f)) {
+                case FINAL:
+                    setValue(s, f, state.isFinal() ? TRUE : FALSE);
+                    break;
+                case OPEN:
+                    setValue(s, f, FALSE);
+                    break;
+                default:
+                    // already decided
+                }
+                break;
+            default:
+                if (this.ops.get(f)
+                    .isTemporal()) {
+                    push(s, f);
+                }
+            }
+        }
+        propagate();
+    }
+
+    /**
+     * Establishes the verdicts that are still unknown, on the assumption
+     * that the state space is complete, i.e., all states have been closed.
+     * Remaining unknown verdicts of until-formulas lie on cycles
+     * of undecided states, and are therefore false;
+     * this is resolved from the innermost subformula outwards.
+     */
+    public void complete() {
+        for (int f = 0; f < this.ops.size(); f++) {
+            Op op = this.ops.get(f);
+            if (op == Op.FLAG && this.flags.get(f) == Flag.OPEN) {
+                // states that have not been closed are open
+                for (int s = this.known.nextSetBit(0); s >= 0; s = this.known.nextSetBit(s + 1)) {
+                    if (this.values[f][s] == UNKNOWN) {
+                        setValue(s, f, TRUE);
+                    }
+                }
+                propagate();
+            } else if (op.isUntil()) {
+                for (int s = this.known.nextSetBit(0); s >= 0; s = this.known.nextSetBit(s + 1)) {
+                    if (this.values[f][s] == UNKNOWN) {
+                        setValue(s, f, FALSE);
+                    }
+                }
+                propagate();
+            }
+        }
+        this.complete = true;
+    }
+
+    /** Indicates if {@link #complete()} has been called. */
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    /**
+     * Indicates if the verdict of the formula in the start state is known.
+     * The start state is the first state added with the start flag set.
+     */
+    public boolean isDecided() {
+        return this.startNr >= 0 && this.values[this.root][this.startNr] != UNKNOWN;
+    }
+
+    /**
+     * Returns the verdict of the formula in the start state.
+     * Should only be called if {@link #isDecided()} holds.
+     */
+    public boolean getValue() {
+        assert isDecided();
+        return this.values[this.root][this.startNr] == TRUE;
+    }
+
+    /**
+     * Returns the verdict of the formula in a given state,
+     * or {@code null} if the verdict is not (yet) known.
+     */
+    public Boolean getValue(GraphState state) {
+        int s = state.getNumber();
+        if (!this.known.get(s)) {
+            return null;
+        }
+        byte value = this.values[this.root][s];
+        return value == UNKNOWN ? null : value == TRUE;
+    }
+
+    /** Returns the number of states added to this marker. */
+    public int getStateCount() {
+        return this.stateCount;
+    }
+
+    /** Updates the successor counts of a temporal formula in a given state. */
+    private void count(int s, int f, byte value) {
+        if (value == TRUE) {
+            this.trueCounts[f][s]++;
+            push(s, f);
+        } else if (value == FALSE) {
+            this.falseCounts[f][s]++;
+            push(s, f);
+        }
+    }
+
+    /** Sets the verdict of a given formula in a given state, and schedules its dependents. */
+    private void setValue(int s, int f, byte value) {
+        assert value != UNKNOWN;
+        byte[] values = this.values[f];
+        if (values[s] != UNKNOWN) {
+            assert values[s] == value;
+            return;
+        }
+        values[s] = value;
+        for (int p : this.parents[f]) {
+            push(s, p);
+        }
+        int[] predParents = this.predParents[f];
+        if (predParents.length > 0) {
+            int[] preds = this.preds[s];
+            int predCount = this.predCounts[s];
+            for (int i = 0; i < predCount; i++) {
+                for (int p : predParents) {
+                    count(preds[i], p, value);
+                }
+            }
+        }
+    }
+
+    /** Re-evaluates the scheduled pairs of states and formulas until none are left. */
+    private void propagate() {
+        while (this.queueSize > 0) {
+            this.queueSize--;
+            int s = this.stateQueue[this.queueSize];
+            int f = this.formulaQueue[this.queueSize];
+            if (this.values[f][s] == UNKNOWN) {
+                byte value = evaluate(s, f);
+                if (value != UNKNOWN) {
+                    setValue(s, f, value);
+                }
+            }
+        }
+    }
+
+    /** Schedules a pair of state and formula for re-evaluation. */
+    private void push(int s, int f) {
+        if (this.queueSize == this.stateQueue.length) {
+            this.stateQueue = Arrays.copyOf(this.stateQueue, 2 * this.queueSize);
+            this.formulaQueue = Arrays.copyOf(this.formulaQueue, 2 * this.queueSize);
+        }
+        this.stateQueue[this.queueSize] = s;
+        this.formulaQueue[this.queueSize] = f;
+        this.queueSize++;
+    }
+
+    /**
+     * Computes the verdict of a formula in a state on the basis of the
+     * current knowledge.
+     */
+    private byte evaluate(int s, int f) {
+        int arg1 = this.args1.get(f);
+        int arg2 = this.args2.get(f);
+        byte v1 = arg1 < 0 ? UNKNOWN : this.values[arg1][s];
+        byte v2 = arg2 < 0 ? UNKNOWN : this.values[arg2][s];
+        boolean closed = this.closed.get(s);
+        int outCount = this.outCounts[s];
+        switch (this.ops.get(f)) {
+        case NOT:
+            return v1 == UNKNOWN ? UNKNOWN : v1 == TRUE ? FALSE : TRUE;
+        case OR:
+            if (v1 == TRUE || v2 == TRUE) {
+                return TRUE;
+            }
+            return v1 == FALSE && v2 == FALSE ? FALSE : UNKNOWN;
+        case AND:
+            if (v1 == FALSE || v2 == FALSE) {
+                return FALSE;
+            }
+            return v1 == TRUE && v2 == TRUE ? TRUE : UNKNOWN;
+        case IMPLIES:
+            if (v1 == FALSE || v2 == TRUE) {
+                return TRUE;
+            }
+            return v1 == TRUE && v2 == FALSE ? FALSE : UNKNOWN;
+        case EQUIV:
+            if (v1 == UNKNOWN || v2 == UNKNOWN) {
+                return UNKNOWN;
+            }
+            return v1 == v2 ? TRUE : FALSE;
+        case EX:
+            if (this.trueCounts[f][s] > 0) {
+                return TRUE;
+            }
+            return closed && this.falseCounts[f][s] == outCount ? FALSE : UNKNOWN;
+        case AX:
+            if (this.falseCounts[f][s] > 0) {
+                return FALSE;
+            }
+            // the property vacuously holds for deadlocked states
+            return closed && this.trueCounts[f][s] == outCount ? TRUE : UNKNOWN;
+        case EU:
+            if (v2 == TRUE || v1 == TRUE && this.trueCounts[f][s] > 0) {
+                return TRUE;
+            }
+            if (v2 == FALSE
+                && (v1 == FALSE || closed && this.falseCounts[f][s] == outCount)) {
+                return FALSE;
+            }
+            return UNKNOWN;
+        case AU:
+            if (v2 == TRUE
+                || v1 == TRUE && closed && outCount > 0 && this.trueCounts[f][s] == outCount) {
+                return TRUE;
+            }
+            if (v2 == FALSE && (v1 == FALSE || this.falseCounts[f][s] > 0
+                || closed && outCount == 0)) {
+                return FALSE;
+            }
+            return UNKNOWN;
+        default:
+            // atomic formulas are set directly
+            return this.values[f][s];
+        }
+    }
+
+    /**
+     * Returns the indices of the propositions of the formula that are
+     * satisfied by a transition label, in the same way as the {@link CTLMarker}.
+     */
+    private int[] getLabelProps(String label) {
+        int[] result = this.labelProps.get(label);
+        if (result == null) {
+            List<Integer> props = new ArrayList<>();
+            // first look up the label as a complete proposition
+            Integer propIx = this.propFormulas.get(new Proposition(label));
+            if (propIx != null) {
+                props.add(propIx);
+            }
+            // additionally try the label as a parsable ID or CALL
+            Proposition prop = FormulaParser.instance()
+                .parse(label)
+                .getProp();
+            if (prop != null && prop.getKind() != LABEL) {
+                for (Map.Entry<Proposition,Integer> e : this.propFormulas.entrySet()) {
+                    Proposition candidate = e.getKey();
+                    if (candidate.getKind() != LABEL && candidate.getId()
+                        .equals(prop.getId()) && candidate.matches(prop)
+                        && !props.contains(e.getValue())) {
+                        props.add(e.getValue());
+                    }
+                }
+            }
+            result = toArray(props);
+            this.labelProps.put(label, result);
+        }
+        return result;
+    }
+
+    /** Makes sure the state-indexed arrays can hold a given state number. */
+    private void ensureCapacity(int s) {
+        int size = this.outCounts.length;
+        if (s >= size) {
+            int newSize = Math.max(2 * size, s + 1);
+            for (int f = 0; f < this.values.length; f++) {
+                this.values[f] = Arrays.copyOf(this.values[f], newSize);
+                if (this.trueCounts[f] != null) {
+                    this.trueCounts[f] = Arrays.copyOf(this.trueCounts[f], newSize);
+                    this.falseCounts[f] = Arrays.copyOf(this.falseCounts[f], newSize);
+                }
+            }
+            this.outCounts = Arrays.copyOf(this.outCounts, newSize);
+            this.edgeCounts = Arrays.copyOf(this.edgeCounts, newSize);
+            this.preds = Arrays.copyOf(this.preds, newSize);
+            this.predCounts = Arrays.copyOf(this.predCounts, newSize);
+        }
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+
+    /** The formula to be checked. */
+    private final Formula formula;
+    /** Index of the top-level formula. */
+    private final int root;
+    /** Mapping from subformulas to their indices. */
+    private final Map<Formula,Integer> formulaNr = new HashMap<>();
+    /** Operators of the subformulas, by index. */
+    private final List<Op> ops = new ArrayList<>();
+    /** First arguments of the subformulas, by index; {@code -1} if there is none. */
+    private final List<Integer> args1 = new ArrayList<>();
+    /** Second arguments of the subformulas, by index; {@code -1} if there is none. */
+    private final List<Integer> args2 = new ArrayList<>();
+    /** Mapping from the propositions of the formula to their indices. */
+    private final Map<Proposition,Integer> propFormulas = new HashMap<>();
+    /** Mapping from the indices of special atoms to the corresponding flags. */
+    private final Map<Integer,Flag> flags = new HashMap<>();
+    /** Cache of satisfied proposition indices per transition label. */
+    private final Map<String,int[]> labelProps = new HashMap<>();
+    /** Per subformula, the indices of the formulas that depend on it in the same state. */
+    private final int[][] parents;
+    /** Per subformula, the indices of the formulas that depend on it in the predecessor states. */
+    private final int[][] predParents;
+    /** Verdicts, per subformula and state number. */
+    private final byte[][] values;
+    /** Per temporal subformula and state, the number of outgoing transitions to a state with a true verdict. */
+    private final int[][] trueCounts;
+    /** Per temporal subformula and state, the number of outgoing transitions to a state with a false verdict. */
+    private final int[][] falseCounts;
+    /** Number of outgoing transitions, per closed state. */
+    private int[] outCounts = new int[INIT_SIZE];
+    /** Number of outgoing transitions added so far, per state. */
+    private int[] edgeCounts = new int[INIT_SIZE];
+    /** Predecessor state numbers, per state; one entry per incoming transition. */
+    private int[][] preds = new int[INIT_SIZE][];
+    /** Number of valid entries in {@link #preds}, per state. */
+    private int[] predCounts = new int[INIT_SIZE];
+    /** The states added to this marker. */
+    private final BitSet known = new BitSet();
+    /** The states that have been closed. */
+    private final BitSet closed = new BitSet();
+    /** Number of states added to this marker. */
+    private int stateCount;
+    /** Number of the start state; {@code -1} if not yet set. */
+    private int startNr = -1;
+    /** Flag indicating that {@link #complete()} has been called. */
+    private boolean complete;
+    /** States of the pairs scheduled for re-evaluation. */
+    private int[] stateQueue = new int[INIT_SIZE];
+    /** Formulas of the pairs scheduled for re-evaluation, parallel to {@link #stateQueue}. */
+    private int[] formulaQueue = new int[INIT_SIZE];
+    /** Number of scheduled pairs. */
+    private int queueSize;
+
+    /** Initial size of the state-indexed arrays. */
+    private static final int INIT_SIZE = 64;
+    /** Verdict value for an unknown verdict. */
+    private static final byte UNKNOWN = 0;
+    /** Verdict value for a true verdict. */
+    private static final byte TRUE = 1;
+    /** Verdict value for a false verdict. */
+    private static final byte FALSE = 2;
+
+    /** Operators of the subformulas. */
+    private static enum Op {
+        TRUE, FALSE, PROP, FLAG, NOT, OR, AND, IMPLIES, EQUIV, EX, AX, EU, AU;
+
+        /** Indicates if this operator depends on the successors of a state. */
+        boolean isTemporal() {
+            return this == EX || this == AX || isUntil();
+        }
+
+        /** Indicates if this is an until operator. */
+        boolean isUntil() {
+            return this == EU || this == AU;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.verify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import groove.grammar.QualName;
+import groove.lts.GTS;
+import groove.lts.GraphState;
+import groove.lts.GraphTransition;
+
+/**
+ * Backward index over the transitions of a GTS, from which the rule sequences
+ * leading from the start state to a given state can be enumerated lazily.
+ * Only predecessors with a lower state number are recorded, so that every
+ * enumerated path is acyclic; of several transitions between the same pair
+ * of states, only the first is kept.
+ * Predecessors are stored in compressed form: for state number {@code s},
+ * they are found at positions {@code offsets[s]} up to {@code offsets[s+1]}
+ * of the {@link #predStates} and {@link #predRules} arrays.
+ * @version $Revision $
+ */
+public class PathIndex {
+    /**
+     * Builds the index for the current content of a given GTS.
+     * @param gts the GTS to be indexed; should not be modified while the
+     * index is in use
+     * @param rules initial numbering of the rule names; rules
+     * that are not in this list are numbered after it
+     */
+    public PathIndex(GTS gts, List<QualName> rules) {
+        this.start = gts.startState();
+        this.rules = new ArrayList<>(rules);
+        this.ruleIds = new HashMap<>();
+        for (int i = 0; i < this.rules.size(); i++) {
+            this.ruleIds.putIfAbsent(this.rules.get(i), i);
+        }
+        int size = 0;
+        for (GraphState state : gts.nodeSet()) {
+            size = Math.max(size, state.getNumber() + 1);
+        }
+        this.states = new GraphState[size];
+        // count the distinct predecessors per target
+        int[] counts = new int[size + 1];
+        int[] lastSource = new int[size];
+        Arrays.fill(lastSource, -1);
+        for (GraphState source : gts.nodeSet()) {
+            int s = source.getNumber();
+            this.states[s] = source;
+            for (GraphTransition trans : source.getTransitions()) {
+                int t = trans.target()
+                    .getNumber();
+                if (s < t && lastSource[t] != s) {
+                    lastSource[t] = s;
+                    counts[t + 1]++;
+                }
+            }
+        }
+        this.offsets = counts;
+        for (int t = 0; t < size; t++) {
+            this.offsets[t + 1] += this.offsets[t];
+        }
+        this.predStates = new int[this.offsets[size]];
+        this.predRules = new int[this.offsets[size]];
+        int[] fill = Arrays.copyOf(this.offsets, size);
+        Arrays.fill(lastSource, -1);
+        for (GraphState source : gts.nodeSet()) {
+            int s = source.getNumber();
+            for (GraphTransition trans : source.getTransitions()) {
+                int t = trans.target()
+                    .getNumber();
+                if (s < t && lastSource[t] != s) {
+                    lastSource[t] = s;
+                    int pos = fill[t]++;
+                    this.predStates[pos] = s;
+                    this.predRules[pos] = getRuleId(trans.getAction()
+                        .getQualName());
+                }
+            }
+        }
+    }
+
+    /** Returns the number of state numbers covered by this index. */
+    public int size() {
+        return this.states.length;
+    }
+
+    /** Returns the state with a given number, or {@code null} if there is none. */
+    public GraphState getState(int number) {
+        return this.states[number];
+    }
+
+    /** Returns the number of predecessors of a given state. */
+    public int getPredCount(GraphState state) {
+        int s = state.getNumber();
+        return this.offsets[s + 1] - this.offsets[s];
+    }
+
+    /** Returns the number of distinct rules currently known to this index. */
+    public int getRuleCount() {
+        return this.rules.size();
+    }
+
+    /** Returns the rule name with a given identifier. */
+    public QualName getRule(int id) {
+        return this.rules.get(id);
+    }
+
+    /** Returns the identifier of a given rule name, adding it if it is not yet known. */
+    public int getRuleId(QualName rule) {
+        Integer result = this.ruleIds.get(rule);
+        if (result == null) {
+            result = this.rules.size();
+            this.rules.add(rule);
+            this.ruleIds.put(rule, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a cursor over all paths from the start state to a given target state.
+     * @param target the final state of the paths
+     * @param admit predicate determining which predecessors may be used in a path;
+     * if {@code null}, all predecessors are admitted
+     */
+    public PathCursor paths(GraphState target, Predicate<GraphState> admit) {
+        return new PathCursor(target, admit);
+    }
+
+    private final GraphState start;
+    private final GraphState[] states;
+    private final List<QualName> rules;
+    private final Map<QualName,Integer> ruleIds;
+    private final int[] offsets;
+    private final int[] predStates;
+    private final int[] predRules;
+
+    /**
+     * Depth-first enumerator of the paths leading to a given state.
+     * Paths are computed one at a time, on demand; the cursor only
+     * stores the path currently under construction.
+     */
+    public class PathCursor {
+        PathCursor(GraphState target, Predicate<GraphState> admit) {
+            this.admit = admit;
+            this.stateStack = new int[8];
+            this.posStack = new int[8];
+            int t = target.getNumber();
+            this.stateStack[0] = t;
+            this.posStack[0] = PathIndex.this.offsets[t];
+            this.depth = 1;
+            this.atTarget = target == PathIndex.this.start;
+        }
+
+        /**
+         * Moves the cursor to the next path.
+         * @return {@code true} if there was a next path
+         */
+        public boolean next() {
+            if (this.atTarget) {
+                // the target is the start state: there is exactly one (empty) path
+                this.atTarget = false;
+                this.emitted = true;
+                return true;
+            }
+            if (this.emitted) {
+                // backtrack from the start state
+                this.depth--;
+                this.emitted = false;
+            }
+            int[] offsets = PathIndex.this.offsets;
+            while (this.depth > 0) {
+                int top = this.depth - 1;
+                int s = this.stateStack[top];
+                int pos = this.posStack[top];
+                if (pos == offsets[s + 1]) {
+                    this.depth--;
+                    continue;
+                }
+                this.posStack[top] = pos + 1;
+                int pred = PathIndex.this.predStates[pos];
+                if (this.admit != null && !this.admit.test(PathIndex.this.states[pred])) {
+                    continue;
+                }
+                push(pred);
+                if (PathIndex.this.states[pred] == PathIndex.this.start) {
+                    this.emitted = true;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void push(int state) {
+            if (this.depth == this.stateStack.length) {
+                int newSize = 2 * this.depth;
+                this.stateStack = Arrays.copyOf(this.stateStack, newSize);
+                this.posStack = Arrays.copyOf(this.posStack, newSize);
+            }
+            this.stateStack[this.depth] = state;
+            this.posStack[this.depth] = PathIndex.this.offsets[state];
+            this.depth++;
+        }
+
+        /** Returns the number of rule applications in the current path. */
+        public int length() {
+            return this.depth - 1;
+        }
+
+        /**
+         * Returns the state at a given position of the current path,
+         * where position {@code 0} is the start state and
+         * position {@link #length()} the target.
+         */
+        public GraphState getState(int i) {
+            return PathIndex.this.states[this.stateStack[this.depth - 1 - i]];
+        }
+
+        /**
+         * Returns the identifier of the rule applied at a given position
+         * of the current path, counting from the start state.
+         */
+        public int getRule(int i) {
+            // the rule leading into stateStack[k] from stateStack[k+1]
+            // is the one stored just before the cursor position of stateStack[k]
+            return PathIndex.this.predRules[this.posStack[this.depth - 2 - i] - 1];
+        }
+
+        /** Copies the rule identifiers of the current path into a fresh array. */
+        public int[] toRuleArray() {
+            int[] result = new int[length()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = getRule(i);
+            }
+            return result;
+        }
+
+        private final Predicate<GraphState> admit;
+        /** Stack of state numbers, from the target (at index 0) backwards. */
+        private int[] stateStack;
+        /** For each state on the stack, the next predecessor position to try. */
+        private int[] posStack;
+        private int depth;
+        /** Flag indicating that the target is itself the start state. */
+        private boolean atTarget;
+        /** Flag indicating that the top of the stack is the start state of an emitted path. */
+        private boolean emitted;
+    }
+}
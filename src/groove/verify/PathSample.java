@@ -0,0 +1,135 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.verify;
+
+/**
+ * Bounded sample of rule paths, each encoded as an array of rule identifiers
+ * and weighted by an integer fitness.
+ * Paths are offered one at a time; the sample never stores more than its
+ * capacity, whatever the number of offered paths.
+ * @version $Revision $
+ */
+public class PathSample {
+    /**
+     * Creates an empty sample.
+     * @param capacity maximum number of paths retained
+     * @param policy policy deciding which of the offered paths are retained
+     */
+    public PathSample(int capacity, Policy policy) {
+        this.capacity = capacity;
+        this.policy = policy;
+        this.paths = new int[capacity][];
+        this.weights = new int[capacity];
+    }
+
+    /**
+     * Offers a path to this sample.
+     * @param path the rule identifiers of the path; only stored by reference
+     * @param weight the fitness of the path
+     */
+    public void offer(int[] path, int weight) {
+        this.offered++;
+        if (this.size < this.capacity) {
+            if (this.policy == Policy.LIGHTEST) {
+                insertSorted(this.size, path, weight);
+            } else {
+                this.paths[this.size] = path;
+                this.weights[this.size] = weight;
+            }
+            this.size++;
+            return;
+        }
+        switch (this.policy) {
+        case FIRST:
+            break;
+        case LIGHTEST:
+            if (this.capacity > 0 && weight < this.weights[this.capacity - 1]) {
+                insertSorted(this.capacity - 1, path, weight);
+            }
+            break;
+        default:
+            assert false;
+        }
+    }
+
+    /**
+     * Inserts a path into the (ascendingly sorted) prefix of the sample,
+     * after all paths with equal weight, overwriting the entry at a given position.
+     */
+    private void insertSorted(int free, int[] path, int weight) {
+        int i = free;
+        while (i > 0 && this.weights[i - 1] > weight) {
+            this.paths[i] = this.paths[i - 1];
+            this.weights[i] = this.weights[i - 1];
+            i--;
+        }
+        this.paths[i] = path;
+        this.weights[i] = weight;
+    }
+
+    /** Indicates if the sample will change upon offering further paths. */
+    public boolean isSaturated() {
+        return this.policy == Policy.FIRST && this.size == this.capacity;
+    }
+
+    /** Returns the number of paths offered so far. */
+    public long getOffered() {
+        return this.offered;
+    }
+
+    /** Returns the number of paths in the sample. */
+    public int size() {
+        return this.size;
+    }
+
+    /** Returns the path at a given index of the sample. */
+    public int[] getPath(int i) {
+        return this.paths[i];
+    }
+
+    /** Returns the weight of the path at a given index of the sample. */
+    public int getWeight(int i) {
+        return this.weights[i];
+    }
+
+    /** Removes all paths from the sample. */
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.paths[i] = null;
+        }
+        this.size = 0;
+        this.offered = 0;
+    }
+
+    private final int capacity;
+    private final Policy policy;
+    private final int[][] paths;
+    private final int[] weights;
+    private int size;
+    private long offered;
+
+    /** Policies for retaining paths once the capacity has been reached. */
+    public static enum Policy {
+        /** Retain the first paths offered, in order of arrival. */
+        FIRST,
+        /**
+         * Retain the paths with the lowest weights, in ascending order of weight
+         * and otherwise in order of arrival.
+         */
+        LIGHTEST,
+    }
+}
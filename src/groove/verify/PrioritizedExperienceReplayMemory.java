@@ -31,7 +31,7 @@ public class PrioritizedExperienceReplayMemory implements IExperienceReplayMemor
         this.beta = Math.min(1, this.beta + this.beta_increment_per_sampling);
         PERMemoryModel[] PERMemoryModel = new PERMemoryModel[batchSize];
         for (int i=0; i < batchSize; i++) {
-            Random random = new Random();
+            Random random = HeuRandom.get();
             double from = segment * i;
             double to = segment * (i+1);
             double s = random.nextDouble() * (from - to) + from;
@@ -22,6 +22,7 @@ import groove.gui.SimulatorModel;
 import groove.gui.action.HeuLearnFromBFSExploreAction;
 import groove.gui.action.RLExploreAction;
 import groove.lts.GTS;
+import groove.lts.GTSPool;
 import groove.lts.GraphState;
 import groove.util.parse.FormatException;
 import org.deeplearning4j.api.storage.StatsStorage;
@@ -50,7 +51,19 @@ public class RL{
 
     }
 
+    /**
+     * Runs the search. When the search is done, the warm GTS that the pool
+     * keeps for the calling thread is released.
+     */
     public String Explore(String targetRule,int RulesCount,ArrayList<QualName> RulesName,Grammar grammer,GrammarModel grammermodel){
+        try {
+            return doExplore(targetRule, RulesCount, RulesName, grammer, grammermodel);
+        } finally {
+            this.gtsPool.release();
+        }
+    }
+
+    private String doExplore(String targetRule,int RulesCount,ArrayList<QualName> RulesName,Grammar grammer,GrammarModel grammermodel){
 
 
         if(!callFromHeuGenerator){
@@ -122,7 +135,7 @@ public class RL{
         }else{
             GTS gts=null;
             try {
-                gts = new GTS(grammer);
+                gts = this.gtsPool.acquire(grammer);
             } catch (FormatException e) {
                 // do nothing
                 e.printStackTrace();
@@ -274,7 +287,7 @@ public class RL{
         exploringItems.init = false;
         boolean flag = true;
         long start = System.currentTimeMillis();
-        for (int i =0; i<exploringItems.episodes && exploringItems.heuristicResult==null && flag;i++) {
+        for (int i =0; i<exploringItems.episodes && exploringItems.heuristicResult==null && flag && !Thread.currentThread().isInterrupted();i++) {
             if (exploringItems.findTheBestGoal && System.currentTimeMillis()>exploringItems.lastTime)
                 flag = false;
             if(!callFromHeuGenerator){
@@ -285,7 +298,7 @@ public class RL{
             }else{
                     GTS gts=null;
                 try {
-                    gts = new GTS(exploringItems.grammer);
+                    gts = this.gtsPool.acquire(exploringItems.grammer);
                 } catch (FormatException e) {
                     // do nothing
                     e.printStackTrace();
@@ -353,6 +366,8 @@ public class RL{
 
 
     public Simulator simulator;
+    /** Warm GTSs reused across the episodes of a headless run. */
+    private final GTSPool gtsPool = new GTSPool();
     public String HostGraphName;
     public String ModelCheckingType;
     public String ModelCheckingTarget;
@@ -96,7 +96,7 @@ public abstract class RLAgent {
     }
     public int actEGreedy(INDArray state, int actionCount) {
         int action;
-        Random random = new Random();
+        Random random = HeuRandom.get();
 //        if (limited != 0)
 //            action = random.nextInt(limited);
         if (random.nextFloat() <= this.epsilon)
@@ -0,0 +1,99 @@
+/*
+ * GROOVE: GRaphs for Object Oriented VErification Copyright 2003--2007
+ * University of Twente
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * $Id$
+ */
+package groove.verify;
+
+import java.util.Arrays;
+
+/**
+ * Streaming rule occurrence statistics over a set of rule paths,
+ * from which the naive Bayesian network of rule successions is learned.
+ * Each path is added once, after which it is no longer needed.
+ * The final rule application of a path is not counted as an occurrence,
+ * as it has no successor.
+ * @version $Revision $
+ */
+public class RuleSequenceCounts {
+    /** Creates an empty set of counts for rule identifiers up to a given bound. */
+    public RuleSequenceCounts(int ruleCount) {
+        this.ruleCount = ruleCount;
+        this.occurrences = new int[ruleCount];
+        this.successions = new int[ruleCount * ruleCount];
+    }
+
+    /**
+     * Adds a path to the statistics.
+     * Rule identifiers outside the range of this object are ignored.
+     * @param path the rule identifiers of the path
+     */
+    public void add(int[] path) {
+        if (this.pathCount == 0) {
+            this.firstPath = path;
+        }
+        this.pathCount++;
+        for (int j = 0; j < path.length - 1; j++) {
+            int prev = path[j];
+            if (prev >= this.ruleCount) {
+                continue;
+            }
+            this.occurrences[prev]++;
+            int cur = path[j + 1];
+            if (cur < this.ruleCount) {
+                this.successions[prev * this.ruleCount + cur]++;
+            }
+        }
+    }
+
+    /** Returns the number of paths added so far. */
+    public int getPathCount() {
+        return this.pathCount;
+    }
+
+    /** Returns the first path added, or {@code null} if there is none. */
+    public int[] getFirstPath() {
+        return this.firstPath;
+    }
+
+    /**
+     * Returns the number of applications of a given rule that are followed
+     * by another rule application.
+     */
+    public int getOccurrences(int rule) {
+        return this.occurrences[rule];
+    }
+
+    /**
+     * Returns the number of times a given rule application is immediately
+     * followed by an application of another given rule.
+     */
+    public int getSuccessions(int prev, int cur) {
+        return this.successions[prev * this.ruleCount + cur];
+    }
+
+    /** Resets all counts to zero. */
+    public void clear() {
+        Arrays.fill(this.occurrences, 0);
+        Arrays.fill(this.successions, 0);
+        this.pathCount = 0;
+        this.firstPath = null;
+    }
+
+    private final int ruleCount;
+    private final int[] occurrences;
+    private final int[] successions;
+    private int pathCount;
+    private int[] firstPath;
+}
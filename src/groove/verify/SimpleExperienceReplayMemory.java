@@ -27,7 +27,7 @@ public class SimpleExperienceReplayMemory implements IExperienceReplayMemory {
         return this.size;
     }
     public Memory[] getRandomSample(int batchSize) {
-        Random random = new Random();
+        Random random = HeuRandom.get();
         Memory[] outMemory = new Memory[batchSize];
         for (int i =0; i < batchSize; i++) {
             outMemory[i] = (buffer[random.nextInt(size)]);